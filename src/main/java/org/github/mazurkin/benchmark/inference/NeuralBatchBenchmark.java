@@ -0,0 +1,185 @@
+package org.github.mazurkin.benchmark.inference;
+
+import org.github.mazurkin.domain.NeuralBlasInference;
+import org.github.mazurkin.domain.NeuralEjmlInference;
+import org.github.mazurkin.domain.NeuralInference;
+import org.github.mazurkin.domain.NeuralLalgInference;
+import org.github.mazurkin.domain.NeuralUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row throughput of the batch inference across batch sizes. The primary score is the number of batches per
+ * second, the {@code rows} counter is the number of scored rows per second which is comparable across batch sizes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(jvmArgsAppend = {
+    // GC
+    "-XX:+UseG1GC",
+    "-XX:+UseGCOverheadLimit",
+    "-XX:MaxGCPauseMillis=10",
+    // memory
+    "-Xms4096m",
+    "-Xmx4096m",
+    "-XX:+AlwaysPreTouch",
+    "-XX:+UseCompressedOops",
+})
+public class NeuralBatchBenchmark {
+
+    private static final int INPUT_LIST_SIZE = 64 * 1024;
+
+    private static final int OUTPUT_SIZE = 330;
+
+    @State(Scope.Benchmark)
+    public static class Inferences {
+
+        private NeuralInference lalgInference;
+
+        private NeuralInference blasInference;
+
+        private NeuralInference ejmlInference;
+
+        private int[][] batches;
+
+        @Param({"1", "2", "4", "8"})
+        @SuppressWarnings("unused")
+        private int factor;
+
+        @Param({"1", "16", "64", "256", "512"})
+        @SuppressWarnings("unused")
+        private int batchSize;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            // 4 is a "default" factor when the matrix sized are equal to the real sizes
+            int embeddingSize = 128 * this.factor / 4;
+            int innerSize = 2048 * this.factor / 4;
+
+            List<double[][]> embeddingList = NeuralUtils.buildEmbeddingList(embeddingSize);
+
+            double[][] transposedLayer1 = NeuralUtils.buildTransposedLayer1(embeddingSize, innerSize);
+
+            double[][] transposedLayer2 = NeuralUtils.buildTransposedLayer2(innerSize);
+
+            double[] bias1 = NeuralUtils.buildBias1(innerSize);
+
+            double[] bias2 = NeuralUtils.buildBias2();
+
+            this.lalgInference = new NeuralLalgInference(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2);
+
+            this.blasInference = new NeuralBlasInference(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2);
+
+            this.ejmlInference = new NeuralEjmlInference(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2);
+
+            this.batches = buildBatches(NeuralUtils.buildInputs(embeddingList, INPUT_LIST_SIZE), this.batchSize);
+
+            System.gc();
+        }
+
+        private static int[][] buildBatches(int[][] inputs, int batchSize) {
+            int inputSize = inputs[0].length;
+
+            int[][] batches = new int[inputs.length / batchSize][];
+
+            for (int b = 0, i = 0; b < batches.length; b++) {
+                int[] batch = new int[batchSize * inputSize];
+
+                for (int r = 0; r < batchSize; r++, i++) {
+                    System.arraycopy(inputs[i], 0, batch, r * inputSize, inputSize);
+                }
+
+                batches[b] = batch;
+            }
+
+            return batches;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Batches {
+
+        private int index;
+
+        private double[] outputs;
+
+        @Setup(Level.Trial)
+        public void setup(Inferences inferences) {
+            this.index = 0;
+            this.outputs = new double[inferences.batchSize * OUTPUT_SIZE];
+        }
+
+        public int[] next(int[][] array) {
+            if (index >= array.length) {
+                index = 0;
+            }
+
+            return array[index++];
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Rows {
+
+        public long rows;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testLalgBatch(Inferences inferences, Batches batches, Rows rows) {
+        int[] batch = batches.next(inferences.batches);
+        inferences.lalgInference.computeBatch(batch, inferences.batchSize, batches.outputs);
+        rows.rows += inferences.batchSize;
+        return batches.outputs;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testBlasBatch(Inferences inferences, Batches batches, Rows rows) {
+        int[] batch = batches.next(inferences.batches);
+        inferences.blasInference.computeBatch(batch, inferences.batchSize, batches.outputs);
+        rows.rows += inferences.batchSize;
+        return batches.outputs;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testEjmlBatch(Inferences inferences, Batches batches, Rows rows) {
+        int[] batch = batches.next(inferences.batches);
+        inferences.ejmlInference.computeBatch(batch, inferences.batchSize, batches.outputs);
+        rows.rows += inferences.batchSize;
+        return batches.outputs;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testLalgRowByRow(Inferences inferences, Batches batches, Rows rows) {
+        int[] batch = batches.next(inferences.batches);
+
+        int inputSize = batch.length / inferences.batchSize;
+        int[] input = new int[inputSize];
+
+        for (int r = 0; r < inferences.batchSize; r++) {
+            System.arraycopy(batch, r * inputSize, input, 0, inputSize);
+
+            double[] output = inferences.lalgInference.compute(input);
+            System.arraycopy(output, 0, batches.outputs, r * OUTPUT_SIZE, OUTPUT_SIZE);
+        }
+
+        rows.rows += inferences.batchSize;
+        return batches.outputs;
+    }
+}
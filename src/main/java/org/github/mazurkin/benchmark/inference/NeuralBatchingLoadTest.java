@@ -0,0 +1,262 @@
+package org.github.mazurkin.benchmark.inference;
+
+import org.github.mazurkin.domain.NeuralBatchingExecutor;
+import org.github.mazurkin.domain.NeuralBatchingOptions;
+import org.github.mazurkin.domain.NeuralInference;
+import org.github.mazurkin.domain.NeuralLalgInference;
+import org.github.mazurkin.domain.NeuralUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load test of {@link NeuralBatchingExecutor}: the requests arrive at the fixed rate regardless of the
+ * completions, like the independent callers of a service. The latency is measured from the intended arrival time,
+ * so the queueing of a saturated executor is not hidden (no coordinated omission).
+ * <p>
+ * The offered rates are the multiples of the measured single-thread row-by-row capacity. Every rate runs the
+ * direct mode (every request is a separate {@link NeuralInference#compute} on a pool of the same number of the
+ * threads) and the batching windows.
+ * <pre>
+ * java -Xmx4g -cp target/benchmarks.jar org.github.mazurkin.benchmark.inference.NeuralBatchingLoadTest
+ * </pre>
+ */
+public class NeuralBatchingLoadTest {
+
+    private static final int WORKER_COUNT = 2;
+
+    private static final int MAX_BATCH_SIZE = 64;
+
+    private static final int QUEUE_CAPACITY = 64 * 1024;
+
+    private static final double[] RATE_FACTORS = {0.5, 1.0, 2.0, 4.0};
+
+    private static final long[] WINDOWS_MICROS = {0, 50, 200, 1000};
+
+    private static final long WARMUP_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private static final long MEASUREMENT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private static final long DRAIN_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private static final int OUTPUT_SIZE = 330;
+
+    public static void main(String[] args) throws Exception {
+        int embeddingSize = 128;
+        int innerSize = 2048;
+
+        List<double[][]> embeddingList = NeuralUtils.buildEmbeddingList(embeddingSize);
+
+        NeuralInference inference = new NeuralLalgInference(
+            embeddingList,
+            NeuralUtils.buildTransposedLayer1(embeddingSize, innerSize),
+            NeuralUtils.buildTransposedLayer2(innerSize),
+            NeuralUtils.buildBias1(innerSize),
+            NeuralUtils.buildBias2()
+        );
+
+        int[][] inputs = NeuralUtils.buildInputs(embeddingList, 64 * 1024);
+
+        double capacity = measureCapacity(inference, inputs);
+
+        System.out.printf("single-thread row-by-row capacity: %.0f rows/s%n%n", capacity);
+        System.out.printf("%-12s %10s %10s %10s %10s %10s %10s %8s %8s%n",
+            "mode", "offered/s", "done/s", "p50 us", "p99 us", "p99.9 us", "max us", "batch", "rejected");
+
+        for (double factor : RATE_FACTORS) {
+            double rate = capacity * factor;
+
+            run("direct", rate, inputs, new DirectTarget(inference));
+
+            for (long window : WINDOWS_MICROS) {
+                NeuralBatchingOptions options = NeuralBatchingOptions.defaults()
+                    .withMaxBatchSize(MAX_BATCH_SIZE)
+                    .withMaxWaitMicros(window)
+                    .withWorkerCount(WORKER_COUNT)
+                    .withQueueCapacity(QUEUE_CAPACITY);
+
+                run("window " + window, rate, inputs, new BatchingTarget(
+                    new NeuralBatchingExecutor(inference, embeddingList.size(), OUTPUT_SIZE, options)
+                ));
+            }
+
+            System.out.println();
+        }
+    }
+
+    private static double measureCapacity(NeuralInference inference, int[][] inputs) {
+        long deadline = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < 100; i++) {
+                inference.compute(inputs[i]);
+            }
+        }
+
+        long start = System.nanoTime();
+        int rows = 0;
+
+        while (System.nanoTime() - start < MEASUREMENT_NANOS / 2) {
+            inference.compute(inputs[rows % inputs.length]);
+            rows++;
+        }
+
+        return rows * 1E9 / (System.nanoTime() - start);
+    }
+
+    private static void run(String mode, double rate, int[][] inputs, Target target) throws InterruptedException {
+        long interval = (long) (1E9 / rate);
+
+        int total = (int) ((WARMUP_NANOS + MEASUREMENT_NANOS) / interval);
+        int warmup = (int) (WARMUP_NANOS / interval);
+
+        long[] latencies = new long[total];
+        Arrays.fill(latencies, -1L);
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        long[] lastCompletion = new long[1];
+
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+
+        for (int i = 0; i < total; i++) {
+            final int index = i;
+            final long intended = start + i * interval;
+
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                if (intended - now > 50_000) {
+                    LockSupport.parkNanos(intended - now - 50_000);
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+
+            CompletableFuture<double[]> future = target.submit(inputs[i % inputs.length]);
+
+            future.whenComplete((output, error) -> {
+                long time = System.nanoTime();
+
+                if (error != null) {
+                    rejected.incrementAndGet();
+                } else {
+                    latencies[index] = time - intended;
+                }
+
+                synchronized (lastCompletion) {
+                    lastCompletion[0] = Math.max(lastCompletion[0], time);
+                }
+
+                completed.incrementAndGet();
+            });
+        }
+
+        long drainDeadline = System.nanoTime() + DRAIN_NANOS;
+        while (completed.get() < total && System.nanoTime() < drainDeadline) {
+            Thread.sleep(1);
+        }
+
+        String batch = target.averageBatchSize();
+
+        target.close();
+
+        // the measurement phase only
+        long[] measured = Arrays.stream(latencies, warmup, total)
+            .filter(l -> l >= 0)
+            .sorted()
+            .toArray();
+
+        long elapsed;
+        synchronized (lastCompletion) {
+            elapsed = lastCompletion[0] - (start + warmup * interval);
+        }
+
+        System.out.printf("%-12s %10.0f %10.0f %10.0f %10.0f %10.0f %10.0f %8s %8d%n",
+            mode, rate, measured.length * 1E9 / elapsed,
+            percentile(measured, 0.5), percentile(measured, 0.99), percentile(measured, 0.999),
+            percentile(measured, 1.0), batch, rejected.get() + (total - completed.get()));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+
+        return sorted[Math.max(0, index)] / 1E3;
+    }
+
+    private interface Target {
+
+        CompletableFuture<double[]> submit(int[] input);
+
+        String averageBatchSize();
+
+        void close() throws InterruptedException;
+    }
+
+    private static final class DirectTarget implements Target {
+
+        private final NeuralInference inference;
+
+        private final ThreadPoolExecutor pool;
+
+        private DirectTarget(NeuralInference inference) {
+            this.inference = inference;
+            this.pool = new ThreadPoolExecutor(WORKER_COUNT, WORKER_COUNT, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY));
+        }
+
+        @Override
+        public CompletableFuture<double[]> submit(int[] input) {
+            try {
+                // the output buffer is per-thread, so it is copied as in the batching executor
+                return CompletableFuture.supplyAsync(() -> inference.compute(input).clone(), pool);
+            } catch (RejectedExecutionException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        @Override
+        public String averageBatchSize() {
+            return "1";
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            pool.shutdown();
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private static final class BatchingTarget implements Target {
+
+        private final NeuralBatchingExecutor executor;
+
+        private BatchingTarget(NeuralBatchingExecutor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public CompletableFuture<double[]> submit(int[] input) {
+            return executor.submit(input);
+        }
+
+        @Override
+        public String averageBatchSize() {
+            return String.format("%.1f", (double) executor.getRowCount() / Math.max(1, executor.getBatchCount()));
+        }
+
+        @Override
+        public void close() {
+            executor.close();
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package org.github.mazurkin.benchmark.inference;
 
 import org.github.mazurkin.domain.NeuralBlasInference;
+import org.github.mazurkin.domain.NeuralEjmlInference;
 import org.github.mazurkin.domain.NeuralInference;
+import org.github.mazurkin.domain.NeuralLalgFloatInference;
 import org.github.mazurkin.domain.NeuralLalgInference;
+import org.github.mazurkin.domain.NeuralLalgOptions;
+import org.github.mazurkin.domain.NeuralSequentialInference;
+import org.github.mazurkin.domain.NeuralSequentialModel;
 import org.github.mazurkin.domain.NeuralUtils;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -14,6 +19,7 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -35,12 +41,12 @@ public class NeuralBenchmark {
 
     private static final int INPUT_LIST_SIZE = 64 * 1024;
 
-    @State(Scope.Benchmark)
-    public static class Inferences {
-
-        private NeuralInference blasInference;
+    /**
+     * Model and the inputs of one engine, every engine is a separate state, so a benchmark builds only its engine
+     */
+    public abstract static class Engine {
 
-        private NeuralInference lalgInference;
+        private NeuralInference inference;
 
         private int[][] inputs;
 
@@ -64,13 +70,93 @@ public class NeuralBenchmark {
 
             double[] bias2 = NeuralUtils.buildBias2();
 
-            this.blasInference = new NeuralBlasInference(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2);
-            this.lalgInference = new NeuralLalgInference(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2);
+            this.inference = create(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2);
 
             this.inputs = NeuralUtils.buildInputs(embeddingList, INPUT_LIST_SIZE);
 
             System.gc();
         }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            if (this.inference instanceof AutoCloseable) {
+                ((AutoCloseable) this.inference).close();
+            }
+        }
+
+        protected abstract NeuralInference create(List<double[][]> embeddingList,
+                                                  double[][] transposedLayer1,
+                                                  double[][] transposedLayer2,
+                                                  double[] bias1,
+                                                  double[] bias2);
+    }
+
+    @State(Scope.Benchmark)
+    public static class BlasEngine extends Engine {
+
+        @Override
+        protected NeuralInference create(List<double[][]> embeddingList, double[][] transposedLayer1,
+                                         double[][] transposedLayer2, double[] bias1, double[] bias2)
+        {
+            return new NeuralBlasInference(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class EjmlEngine extends Engine {
+
+        @Override
+        protected NeuralInference create(List<double[][]> embeddingList, double[][] transposedLayer1,
+                                         double[][] transposedLayer2, double[] bias1, double[] bias2)
+        {
+            return new NeuralEjmlInference(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LalgEngine extends Engine {
+
+        @Override
+        protected NeuralInference create(List<double[][]> embeddingList, double[][] transposedLayer1,
+                                         double[][] transposedLayer2, double[] bias1, double[] bias2)
+        {
+            return new NeuralLalgInference(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LalgFloatEngine extends Engine {
+
+        @Override
+        protected NeuralInference create(List<double[][]> embeddingList, double[][] transposedLayer1,
+                                         double[][] transposedLayer2, double[] bias1, double[] bias2)
+        {
+            return new NeuralLalgFloatInference(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LalgQuantizedEngine extends Engine {
+
+        @Override
+        protected NeuralInference create(List<double[][]> embeddingList, double[][] transposedLayer1,
+                                         double[][] transposedLayer2, double[] bias1, double[] bias2)
+        {
+            return new NeuralLalgInference(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2,
+                NeuralLalgOptions.defaults().withQuantizedLayer1(true));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SequentialEngine extends Engine {
+
+        @Override
+        protected NeuralInference create(List<double[][]> embeddingList, double[][] transposedLayer1,
+                                         double[][] transposedLayer2, double[] bias1, double[] bias2)
+        {
+            return new NeuralSequentialInference(
+                NeuralSequentialModel.twoLayer(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2));
+        }
     }
 
     @State(Scope.Thread)
@@ -93,15 +179,43 @@ public class NeuralBenchmark {
 
     @Benchmark
     @SuppressWarnings("unused")
-    public double[] testBlasInference(Inferences inferences, Inputs inputs) {
-        int[] input = inputs.next(inferences.inputs);
-        return inferences.blasInference.compute(input);
+    public double[] testBlasInference(BlasEngine engine, Inputs inputs) {
+        int[] input = inputs.next(engine.inputs);
+        return engine.inference.compute(input);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testEjmlInference(EjmlEngine engine, Inputs inputs) {
+        int[] input = inputs.next(engine.inputs);
+        return engine.inference.compute(input);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testLalgInference(LalgEngine engine, Inputs inputs) {
+        int[] input = inputs.next(engine.inputs);
+        return engine.inference.compute(input);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testLalgFloatInference(LalgFloatEngine engine, Inputs inputs) {
+        int[] input = inputs.next(engine.inputs);
+        return engine.inference.compute(input);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testLalgQuantizedInference(LalgQuantizedEngine engine, Inputs inputs) {
+        int[] input = inputs.next(engine.inputs);
+        return engine.inference.compute(input);
     }
 
     @Benchmark
     @SuppressWarnings("unused")
-    public double[] testLalgInference(Inferences inferences, Inputs inputs) {
-        int[] input = inputs.next(inferences.inputs);
-        return inferences.lalgInference.compute(input);
+    public double[] testSequentialInference(SequentialEngine engine, Inputs inputs) {
+        int[] input = inputs.next(engine.inputs);
+        return engine.inference.compute(input);
     }
 }
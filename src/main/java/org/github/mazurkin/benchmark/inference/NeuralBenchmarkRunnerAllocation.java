@@ -0,0 +1,82 @@
+package org.github.mazurkin.benchmark.inference;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bytes allocated per call by every inference engine of {@link NeuralBenchmark} (the {@code gc.alloc.rate.norm}
+ * metric of the GC profiler). Exits with the error when any engine allocates on the hot path.
+ */
+public class NeuralBenchmarkRunnerAllocation {
+
+    /**
+     * The norm is the average over the iteration, so the allocations of the harness itself give a fraction of a byte
+     */
+    private static final double MAX_BYTES_PER_OPERATION = 1.0;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(NeuralBenchmark.class.getSimpleName())
+            .mode(Mode.AverageTime)
+            .param("factor", "4")
+            .shouldFailOnError(true)
+            .shouldDoGC(true)
+            .forks(1)
+            .threads(1)
+            .warmupIterations(1)
+            .warmupTime(TimeValue.seconds(10))
+            .measurementIterations(1)
+            .measurementTime(TimeValue.seconds(10))
+            .addProfiler(GCProfiler.class)
+            .verbosity(VerboseMode.NORMAL)
+            .build();
+
+        Collection<RunResult> results = new Runner(opt).run();
+
+        List<String> failures = new ArrayList<>();
+
+        System.out.println();
+
+        for (RunResult result : results) {
+            String benchmark = result.getParams().getBenchmark();
+            String method = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+
+            double bytes = allocationNorm(result);
+
+            System.out.printf("%-32s %12.1f B/op%n", method, bytes);
+
+            if (!(bytes < MAX_BYTES_PER_OPERATION)) {
+                failures.add(method);
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            System.err.printf("Allocating hot paths: %s%n", failures);
+            System.exit(1);
+        }
+    }
+
+    private static double allocationNorm(RunResult result) {
+        for (Map.Entry<String, Result> entry : result.getSecondaryResults().entrySet()) {
+            // the key is prefixed with the profiler separator in the older JMH versions
+            if (entry.getKey().endsWith("gc.alloc.rate.norm")) {
+                return entry.getValue().getScore();
+            }
+        }
+
+        throw new IllegalStateException("GC profiler result is not found");
+    }
+}
@@ -1,6 +1,10 @@
 package org.github.mazurkin.benchmark.inference;
 
 import org.apache.commons.io.FileUtils;
+import org.github.mazurkin.domain.NeuralInferenceEvent;
+import org.github.mazurkin.domain.NeuralModelLoadEvent;
+import org.github.mazurkin.search.SearchEvent;
+import org.github.mazurkin.search.SearchIndexBuildEvent;
 import org.openjdk.jmh.profile.JavaFlightRecorderProfiler;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
@@ -9,12 +13,44 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 import org.openjdk.jmh.runner.options.TimeValue;
 import org.openjdk.jmh.runner.options.VerboseMode;
 
+import jdk.jfr.Configuration;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records the benchmark with the flight recorder and prints the latency summary of the lalg events of every
+ * recording. The thresholds of the events are reset to zero, so every call is recorded.
+ */
 public class NeuralBenchmarkRunnerJfr {
 
-    public static void main(String[] args) throws RunnerException {
+    private static final List<String> EVENTS = List.of(
+        NeuralInferenceEvent.NAME,
+        NeuralModelLoadEvent.NAME,
+        SearchEvent.NAME,
+        SearchIndexBuildEvent.NAME
+    );
+
+    public static void main(String[] args) throws RunnerException, IOException, ParseException {
+        File dir = new File(FileUtils.getTempDirectory(), "lalg-jfr-" + System.currentTimeMillis());
+        FileUtils.forceMkdir(dir);
+
+        File settings = writeSettings(dir);
+
         String jfrProfilerConfiguration = String.format(
-            "dir=%s",
-            FileUtils.getTempDirectoryPath()
+            "dir=%s;configName=%s",
+            dir.getPath(),
+            settings.getPath()
         );
 
         Options opt = new OptionsBuilder()
@@ -34,5 +70,72 @@ public class NeuralBenchmarkRunnerJfr {
 
         Runner runner = new Runner(opt);
         runner.run();
+
+        for (File recording : FileUtils.listFiles(dir, new String[] {"jfr"}, true)) {
+            printSummary(recording.toPath());
+        }
+    }
+
+    /**
+     * The "profile" settings of the JDK with the zero thresholds of the lalg events
+     */
+    private static File writeSettings(File dir) throws IOException, ParseException {
+        String contents = Configuration.getConfiguration("profile").getContents();
+
+        StringBuilder events = new StringBuilder();
+        for (String event : EVENTS) {
+            events.append(String.format(
+                "  <event name=\"%s\">%n" +
+                "    <setting name=\"enabled\">true</setting>%n" +
+                "    <setting name=\"threshold\">0 ns</setting>%n" +
+                "  </event>%n",
+                event
+            ));
+        }
+
+        int end = contents.lastIndexOf("</configuration>");
+
+        File result = new File(dir, "lalg.jfc");
+        FileUtils.writeStringToFile(result,
+            contents.substring(0, end) + events + contents.substring(end), StandardCharsets.UTF_8);
+
+        return result;
+    }
+
+    private static void printSummary(Path recording) throws IOException {
+        Map<String, List<Long>> durations = new TreeMap<>();
+
+        // the events are streamed, only the durations of the lalg events are kept
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                String name = event.getEventType().getName();
+
+                if (EVENTS.contains(name)) {
+                    durations.computeIfAbsent(name, n -> new ArrayList<>()).add(event.getDuration().toNanos());
+                }
+            }
+        }
+
+        System.out.println();
+        System.out.println(recording);
+
+        for (Map.Entry<String, List<Long>> entry : durations.entrySet()) {
+            long[] values = entry.getValue().stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+
+            System.out.printf("%-40s count=%d mean=%.0f p50=%d p99=%d p99.9=%d max=%d (ns)%n",
+                entry.getKey(), values.length, Arrays.stream(values).average().orElse(0.0),
+                percentile(values, 50.0), percentile(values, 99.0), percentile(values, 99.9),
+                values[values.length - 1]);
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+
+        return sorted[Math.max(0, rank - 1)];
     }
 }
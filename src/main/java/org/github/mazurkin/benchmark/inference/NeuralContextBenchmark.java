@@ -0,0 +1,175 @@
+package org.github.mazurkin.benchmark.inference;
+
+import org.github.mazurkin.domain.NeuralContextPool;
+import org.github.mazurkin.domain.NeuralLalgInference;
+import org.github.mazurkin.domain.NeuralUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 10k single-row requests, every one is a separate task of the executor: the thread-per-task virtual threads
+ * (JDK 21, the executor is looked up reflectively), the thread-per-task platform threads (the same pattern of the
+ * short-living threads on the older JDK) or the fixed pool of the platform threads. The scratch buffers come either
+ * from the per-thread context of {@link NeuralLalgInference#compute(int[])} (every new thread creates a new context)
+ * or from the shared {@link NeuralContextPool}.
+ * <p>
+ * The GC profiler doesn't see the allocations of the already terminated threads, so with the thread-per-task
+ * executors the difference is visible in {@code gc.count} and {@code gc.time} but not in {@code gc.alloc.rate.norm}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(jvmArgsAppend = {
+    // GC
+    "-XX:+UseG1GC",
+    "-XX:+UseGCOverheadLimit",
+    "-XX:MaxGCPauseMillis=10",
+    // memory
+    "-Xms4096m",
+    "-Xmx4096m",
+    "-XX:+AlwaysPreTouch",
+    "-XX:+UseCompressedOops",
+})
+public class NeuralContextBenchmark {
+
+    private static final int TASK_COUNT = 10_000;
+
+    @State(Scope.Benchmark)
+    public static class Inferences {
+
+        private NeuralLalgInference inference;
+
+        private NeuralContextPool<NeuralLalgInference.Context> pool;
+
+        private Executor executor;
+
+        private int[][] inputs;
+
+        private double[][] outputs;
+
+        @Param({"VIRTUAL", "THREAD_PER_TASK", "FIXED_POOL"})
+        @SuppressWarnings("unused")
+        private String threads;
+
+        @Param({"THREAD_LOCAL", "POOL"})
+        @SuppressWarnings("unused")
+        private String context;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            // the model of the factor 1, so the computation doesn't hide the cost of the contexts
+            int embeddingSize = 32;
+            int innerSize = 512;
+
+            List<double[][]> embeddingList = NeuralUtils.buildEmbeddingList(embeddingSize);
+
+            this.inference = new NeuralLalgInference(
+                embeddingList,
+                NeuralUtils.buildTransposedLayer1(embeddingSize, innerSize),
+                NeuralUtils.buildTransposedLayer2(innerSize),
+                NeuralUtils.buildBias1(innerSize),
+                NeuralUtils.buildBias2()
+            );
+
+            int parallelism = Runtime.getRuntime().availableProcessors();
+
+            this.pool = new NeuralContextPool<>(parallelism, inference::newContext);
+
+            switch (threads) {
+                case "VIRTUAL":
+                    this.executor = newVirtualThreadPerTaskExecutor();
+                    break;
+                case "THREAD_PER_TASK":
+                    this.executor = new ThreadPerTaskExecutor();
+                    break;
+                case "FIXED_POOL":
+                    this.executor = Executors.newFixedThreadPool(parallelism);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown threads: " + threads);
+            }
+
+            this.inputs = NeuralUtils.buildInputs(embeddingList, TASK_COUNT);
+            this.outputs = new double[TASK_COUNT][inference.getOutputSize()];
+
+            System.gc();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (executor instanceof ExecutorService) {
+                ((ExecutorService) executor).shutdown();
+            }
+        }
+
+        private static Executor newVirtualThreadPerTaskExecutor() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("Virtual threads require JDK 21", e);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Failed to create the virtual thread executor", e);
+            }
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[][] testRequests(Inferences inferences) throws InterruptedException {
+        final NeuralLalgInference inference = inferences.inference;
+        final boolean pooled = "POOL".equals(inferences.context);
+
+        CountDownLatch latch = new CountDownLatch(TASK_COUNT);
+
+        for (int i = 0; i < TASK_COUNT; i++) {
+            final int[] input = inferences.inputs[i];
+            final double[] output = inferences.outputs[i];
+
+            inferences.executor.execute(() -> {
+                if (pooled) {
+                    NeuralLalgInference.Context context = inferences.pool.acquire();
+                    try {
+                        inference.compute(input, context, output);
+                    } finally {
+                        inferences.pool.release(context);
+                    }
+                } else {
+                    // the result is the per-thread buffer, it is copied as by any caller keeping it
+                    System.arraycopy(inference.compute(input), 0, output, 0, output.length);
+                }
+
+                latch.countDown();
+            });
+        }
+
+        latch.await();
+
+        return inferences.outputs;
+    }
+
+    /**
+     * New platform thread for every task
+     */
+    private static class ThreadPerTaskExecutor implements Executor {
+
+        @Override
+        public void execute(Runnable command) {
+            new Thread(command).start();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.github.mazurkin.benchmark.inference;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+public class NeuralContextBenchmarkRunnerQuick {
+
+    public static void main(String[] args) throws RunnerException {
+        // the virtual threads are available since JDK 21, the setup of the mode fails on the older JDK
+        String[] threads = Runtime.version().feature() >= 21
+            ? new String[] {"VIRTUAL", "THREAD_PER_TASK", "FIXED_POOL"}
+            : new String[] {"THREAD_PER_TASK", "FIXED_POOL"};
+
+        Options opt = new OptionsBuilder()
+            .include(NeuralContextBenchmark.class.getSimpleName())
+            .param("threads", threads)
+            .shouldFailOnError(true)
+            .shouldDoGC(true)
+            .forks(1)
+            // the requests are spread over the threads by the benchmark itself
+            .threads(1)
+            .warmupIterations(5)
+            .measurementIterations(20)
+            .addProfiler(GCProfiler.class)
+            .verbosity(VerboseMode.EXTRA)
+            .build();
+
+        Runner runner = new Runner(opt);
+        runner.run();
+    }
+}
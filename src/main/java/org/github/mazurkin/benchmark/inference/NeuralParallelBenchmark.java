@@ -0,0 +1,114 @@
+package org.github.mazurkin.benchmark.inference;
+
+import org.github.mazurkin.domain.NeuralLalgInference;
+import org.github.mazurkin.domain.NeuralLalgOptions;
+import org.github.mazurkin.domain.NeuralUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a single call with the intra-call parallelism across the number of the pool workers
+ * (zero workers is the plain single-threaded computation)
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(jvmArgsAppend = {
+    // GC
+    "-XX:+UseG1GC",
+    "-XX:+UseGCOverheadLimit",
+    "-XX:MaxGCPauseMillis=10",
+    // memory
+    "-Xms4096m",
+    "-Xmx4096m",
+    "-XX:+AlwaysPreTouch",
+    "-XX:+UseCompressedOops",
+})
+public class NeuralParallelBenchmark {
+
+    private static final int INPUT_LIST_SIZE = 64 * 1024;
+
+    @State(Scope.Benchmark)
+    public static class Inferences {
+
+        private NeuralLalgInference lalgInference;
+
+        private int[][] inputs;
+
+        @Param({"1", "2", "4", "8"})
+        @SuppressWarnings("unused")
+        private int factor;
+
+        @Param({"0", "1", "2", "3", "5", "7"})
+        @SuppressWarnings("unused")
+        private int workers;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            // 4 is a "default" factor when the matrix sized are equal to the real sizes
+            int embeddingSize = 128 * this.factor / 4;
+            int innerSize = 2048 * this.factor / 4;
+
+            List<double[][]> embeddingList = NeuralUtils.buildEmbeddingList(embeddingSize);
+
+            double[][] transposedLayer1 = NeuralUtils.buildTransposedLayer1(embeddingSize, innerSize);
+
+            double[][] transposedLayer2 = NeuralUtils.buildTransposedLayer2(innerSize);
+
+            double[] bias1 = NeuralUtils.buildBias1(innerSize);
+
+            double[] bias2 = NeuralUtils.buildBias2();
+
+            NeuralLalgOptions options = NeuralLalgOptions.defaults()
+                .withParallelism(this.workers);
+
+            this.lalgInference = new NeuralLalgInference(
+                embeddingList, transposedLayer1, transposedLayer2, bias1, bias2, options);
+
+            this.inputs = NeuralUtils.buildInputs(embeddingList, INPUT_LIST_SIZE);
+
+            System.gc();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            this.lalgInference.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Inputs {
+
+        private int index;
+
+        public Inputs() {
+            this.index = 0;
+        }
+
+        public int[] next(int[][] array) {
+            if (index >= array.length) {
+                index = 0;
+            }
+
+            return array[index++];
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testLalgParallelInference(Inferences inferences, Inputs inputs) {
+        int[] input = inputs.next(inferences.inputs);
+        return inferences.lalgInference.compute(input);
+    }
+}
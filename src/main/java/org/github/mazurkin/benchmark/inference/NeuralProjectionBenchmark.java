@@ -0,0 +1,128 @@
+package org.github.mazurkin.benchmark.inference;
+
+import org.github.mazurkin.domain.NeuralLalgInference;
+import org.github.mazurkin.domain.NeuralLalgOptions;
+import org.github.mazurkin.domain.NeuralUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inference with the pre-projected embedding tables across the projection budgets. The primary score is the
+ * number of rows per second, the {@code flops} counter is the number of the layer 1 operations per second, so
+ * {@code flops / score} is the layer 1 cost of one row (it is also printed at the setup).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(jvmArgsAppend = {
+    // GC
+    "-XX:+UseG1GC",
+    "-XX:+UseGCOverheadLimit",
+    "-XX:MaxGCPauseMillis=10",
+    // memory
+    "-Xms4096m",
+    "-Xmx4096m",
+    "-XX:+AlwaysPreTouch",
+    "-XX:+UseCompressedOops",
+})
+public class NeuralProjectionBenchmark {
+
+    private static final int INPUT_LIST_SIZE = 64 * 1024;
+
+    @State(Scope.Benchmark)
+    public static class Inferences {
+
+        private NeuralLalgInference lalgInference;
+
+        private int[][] inputs;
+
+        @Param({"1", "2", "4", "8"})
+        @SuppressWarnings("unused")
+        private int factor;
+
+        @Param({"0", "1", "4", "16", "64"})
+        @SuppressWarnings("unused")
+        private int budgetMb;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            // 4 is a "default" factor when the matrix sized are equal to the real sizes
+            int embeddingSize = 128 * this.factor / 4;
+            int innerSize = 2048 * this.factor / 4;
+
+            List<double[][]> embeddingList = NeuralUtils.buildEmbeddingList(embeddingSize);
+
+            double[][] transposedLayer1 = NeuralUtils.buildTransposedLayer1(embeddingSize, innerSize);
+
+            double[][] transposedLayer2 = NeuralUtils.buildTransposedLayer2(innerSize);
+
+            double[] bias1 = NeuralUtils.buildBias1(innerSize);
+
+            double[] bias2 = NeuralUtils.buildBias2();
+
+            NeuralLalgOptions options = NeuralLalgOptions.defaults()
+                .withProjectionBudgetBytes(this.budgetMb * 1024L * 1024L);
+
+            this.lalgInference = new NeuralLalgInference(
+                embeddingList, transposedLayer1, transposedLayer2, bias1, bias2, options);
+
+            NeuralLalgInference denseInference = new NeuralLalgInference(
+                embeddingList, transposedLayer1, transposedLayer2, bias1, bias2);
+
+            long flops = this.lalgInference.getLayer1Flops();
+            long denseFlops = denseInference.getLayer1Flops();
+
+            System.out.printf("%nLayer 1: %d flops per row, %.1f%% of the dense layer (%d flops)%n",
+                flops, 100.0 * flops / denseFlops, denseFlops);
+
+            this.inputs = NeuralUtils.buildInputs(embeddingList, INPUT_LIST_SIZE);
+
+            System.gc();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Inputs {
+
+        private int index;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            this.index = 0;
+        }
+
+        public int[] next(int[][] array) {
+            if (index >= array.length) {
+                index = 0;
+            }
+
+            return array[index++];
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Flops {
+
+        public long flops;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testLalgProjected(Inferences inferences, Inputs inputs, Flops flops) {
+        double[] output = inferences.lalgInference.compute(inputs.next(inferences.inputs));
+        flops.flops += inferences.lalgInference.getLayer1Flops();
+        return output;
+    }
+}
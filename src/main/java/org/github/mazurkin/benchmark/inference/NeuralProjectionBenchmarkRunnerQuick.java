@@ -0,0 +1,31 @@
+package org.github.mazurkin.benchmark.inference;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+public class NeuralProjectionBenchmarkRunnerQuick {
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(NeuralProjectionBenchmark.class.getSimpleName())
+            .shouldFailOnError(true)
+            .shouldDoGC(true)
+            .forks(1)
+            .threads(1)
+            .warmupIterations(1)
+            .warmupTime(TimeValue.seconds(10))
+            .measurementIterations(1)
+            .measurementTime(TimeValue.seconds(30))
+            .addProfiler(GCProfiler.class)
+            .verbosity(VerboseMode.EXTRA)
+            .build();
+
+        Runner runner = new Runner(opt);
+        runner.run();
+    }
+}
@@ -0,0 +1,142 @@
+package org.github.mazurkin.benchmark.inference;
+
+import org.github.mazurkin.domain.NeuralBlasInference;
+import org.github.mazurkin.domain.NeuralInference;
+import org.github.mazurkin.domain.NeuralLalgInference;
+import org.github.mazurkin.domain.NeuralUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the independent single-row calls. The number of the benchmark threads is not a parameter of
+ * the benchmark: {@link NeuralScalingBenchmarkRunnerQuick} runs it once per thread count and builds the scaling
+ * table.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(jvmArgsAppend = {
+    // GC
+    "-XX:+UseG1GC",
+    "-XX:+UseGCOverheadLimit",
+    "-XX:MaxGCPauseMillis=10",
+    // memory
+    "-Xms4096m",
+    "-Xmx4096m",
+    "-XX:+AlwaysPreTouch",
+    "-XX:+UseCompressedOops",
+})
+public class NeuralScalingBenchmark {
+
+    private static final int INPUT_LIST_SIZE = 64 * 1024;
+
+    private static final int FEATURE_COUNT = 9;
+
+    private static final int OUTPUT_SIZE = 330;
+
+    @State(Scope.Benchmark)
+    public static class Inferences {
+
+        private NeuralInference blasInference;
+
+        private NeuralInference lalgInference;
+
+        private int[][] inputs;
+
+        @Param({"1", "2", "4", "8"})
+        @SuppressWarnings("unused")
+        private int factor;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            // 4 is a "default" factor when the matrix sized are equal to the real sizes
+            int embeddingSize = embeddingSize(this.factor);
+            int innerSize = innerSize(this.factor);
+
+            List<double[][]> embeddingList = NeuralUtils.buildEmbeddingList(embeddingSize);
+
+            double[][] transposedLayer1 = NeuralUtils.buildTransposedLayer1(embeddingSize, innerSize);
+
+            double[][] transposedLayer2 = NeuralUtils.buildTransposedLayer2(innerSize);
+
+            double[] bias1 = NeuralUtils.buildBias1(innerSize);
+
+            double[] bias2 = NeuralUtils.buildBias2();
+
+            this.blasInference = new NeuralBlasInference(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2);
+            this.lalgInference = new NeuralLalgInference(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2);
+
+            this.inputs = NeuralUtils.buildInputs(embeddingList, INPUT_LIST_SIZE);
+
+            System.gc();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Inputs {
+
+        private int index;
+
+        public Inputs() {
+            this.index = 0;
+        }
+
+        public int[] next(int[][] array) {
+            if (index >= array.length) {
+                index = 0;
+            }
+
+            return array[index++];
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testBlasInference(Inferences inferences, Inputs inputs) {
+        int[] input = inputs.next(inferences.inputs);
+        return inferences.blasInference.compute(input);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testLalgInference(Inferences inferences, Inputs inputs) {
+        int[] input = inputs.next(inferences.inputs);
+        return inferences.lalgInference.compute(input);
+    }
+
+    /**
+     * Bytes read and written by one call: the embedding rows, both layers with the biases and the output. The
+     * intermediate vectors are small and stay in the cache, they are not counted.
+     *
+     * @param factor Size factor
+     * @return Bytes per operation
+     */
+    public static long bytesPerOperation(int factor) {
+        long embeddingSize = embeddingSize(factor);
+        long innerSize = innerSize(factor);
+
+        long embedding = FEATURE_COUNT * embeddingSize;
+        long layer1 = innerSize * FEATURE_COUNT * embeddingSize + innerSize;
+        long layer2 = OUTPUT_SIZE * innerSize + OUTPUT_SIZE;
+
+        return (embedding + layer1 + layer2 + OUTPUT_SIZE) * Double.BYTES;
+    }
+
+    private static int embeddingSize(int factor) {
+        return 128 * factor / 4;
+    }
+
+    private static int innerSize(int factor) {
+        return 2048 * factor / 4;
+    }
+}
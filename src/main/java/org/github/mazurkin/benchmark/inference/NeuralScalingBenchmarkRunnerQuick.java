@@ -0,0 +1,96 @@
+package org.github.mazurkin.benchmark.inference;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sweeps the number of the benchmark threads from 1 to the number of the cores (the powers of two and the core
+ * count itself) and prints per benchmark and factor: the throughput, the throughput per thread, the scaling
+ * efficiency against the single thread and the memory traffic estimated by
+ * {@link NeuralScalingBenchmark#bytesPerOperation(int)}. The efficiency falls when the traffic approaches
+ * the bandwidth of the memory.
+ * <p>
+ * The optional argument is the maximal number of the threads.
+ */
+public class NeuralScalingBenchmarkRunnerQuick {
+
+    public static void main(String[] args) throws RunnerException {
+        int maxThreads = args.length > 0
+            ? Integer.parseInt(args[0])
+            : Runtime.getRuntime().availableProcessors();
+
+        // benchmark and factor -> thread count -> ops/s
+        Map<String, Map<Integer, Double>> scores = new TreeMap<>();
+
+        for (int threads : threadCounts(maxThreads)) {
+            Options opt = new OptionsBuilder()
+                .include(NeuralScalingBenchmark.class.getSimpleName())
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .forks(1)
+                .threads(threads)
+                .warmupIterations(1)
+                .warmupTime(TimeValue.seconds(10))
+                .measurementIterations(1)
+                .measurementTime(TimeValue.seconds(30))
+                .verbosity(VerboseMode.NORMAL)
+                .build();
+
+            Collection<RunResult> results = new Runner(opt).run();
+
+            for (RunResult result : results) {
+                String benchmark = result.getParams().getBenchmark();
+                String factor = result.getParams().getParam("factor");
+
+                scores.computeIfAbsent(benchmark.substring(benchmark.lastIndexOf('.') + 1) + ":" + factor,
+                        k -> new TreeMap<>())
+                    .put(threads, result.getPrimaryResult().getScore());
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-24s %6s %7s %12s %12s %10s %12s %10s%n",
+            "benchmark", "factor", "threads", "ops/s", "ops/s/thread", "efficiency", "bytes/op", "GB/s");
+
+        for (Map.Entry<String, Map<Integer, Double>> entry : scores.entrySet()) {
+            String[] key = entry.getKey().split(":");
+            int factor = Integer.parseInt(key[1]);
+            long bytes = NeuralScalingBenchmark.bytesPerOperation(factor);
+
+            Double single = entry.getValue().get(1);
+
+            for (Map.Entry<Integer, Double> score : entry.getValue().entrySet()) {
+                int threads = score.getKey();
+                double ops = score.getValue();
+
+                System.out.printf("%-24s %6d %7d %12.1f %12.1f %10.2f %12d %10.2f%n",
+                    key[0], factor, threads, ops, ops / threads,
+                    single != null ? ops / (threads * single) : Double.NaN,
+                    bytes, ops * bytes / 1E9);
+            }
+        }
+    }
+
+    private static List<Integer> threadCounts(int maxThreads) {
+        List<Integer> result = new ArrayList<>();
+
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            result.add(threads);
+        }
+
+        result.add(maxThreads);
+
+        return result;
+    }
+}
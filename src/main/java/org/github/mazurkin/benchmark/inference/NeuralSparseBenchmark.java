@@ -0,0 +1,123 @@
+package org.github.mazurkin.benchmark.inference;
+
+import org.github.mazurkin.domain.NeuralInference;
+import org.github.mazurkin.domain.NeuralLalgInference;
+import org.github.mazurkin.domain.NeuralLalgOptions;
+import org.github.mazurkin.domain.NeuralUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sparse layer 2 across the densities of the layer 1 activations. The dataset activations are all positive,
+ * so the required fraction of the hidden units is switched off by a large negative bias. The dense engine
+ * ({@code sparseLayer2Density = 0}) and the engine which always takes the sparse path ({@code 1}) show
+ * the crossover density.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(jvmArgsAppend = {
+    // GC
+    "-XX:+UseG1GC",
+    "-XX:+UseGCOverheadLimit",
+    "-XX:MaxGCPauseMillis=10",
+    // memory
+    "-Xms4096m",
+    "-Xmx4096m",
+    "-XX:+AlwaysPreTouch",
+    "-XX:+UseCompressedOops",
+})
+public class NeuralSparseBenchmark {
+
+    private static final int INPUT_LIST_SIZE = 64 * 1024;
+
+    @State(Scope.Benchmark)
+    public static class Inferences {
+
+        private NeuralInference lalgInference;
+
+        private int[][] inputs;
+
+        @Param({"1", "4", "8"})
+        @SuppressWarnings("unused")
+        private int factor;
+
+        @Param({"0.05", "0.1", "0.25", "0.5", "0.75", "1.0"})
+        @SuppressWarnings("unused")
+        private double activationDensity;
+
+        @Param({"0", "1"})
+        @SuppressWarnings("unused")
+        private double sparseLayer2Density;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            // 4 is a "default" factor when the matrix sized are equal to the real sizes
+            int embeddingSize = 128 * this.factor / 4;
+            int innerSize = 2048 * this.factor / 4;
+
+            List<double[][]> embeddingList = NeuralUtils.buildEmbeddingList(embeddingSize);
+
+            double[][] transposedLayer1 = NeuralUtils.buildTransposedLayer1(embeddingSize, innerSize);
+
+            double[][] transposedLayer2 = NeuralUtils.buildTransposedLayer2(innerSize);
+
+            double[] bias1 = NeuralUtils.buildBias1(innerSize);
+
+            double[] bias2 = NeuralUtils.buildBias2();
+
+            Random random = new Random(0xDEAD_42);
+            for (int i = 0; i < bias1.length; i++) {
+                if (random.nextDouble() >= this.activationDensity) {
+                    bias1[i] = -1000.0;
+                }
+            }
+
+            NeuralLalgOptions options = NeuralLalgOptions.defaults()
+                .withSparseLayer2Density(this.sparseLayer2Density);
+
+            this.lalgInference = new NeuralLalgInference(
+                embeddingList, transposedLayer1, transposedLayer2, bias1, bias2, options);
+
+            this.inputs = NeuralUtils.buildInputs(embeddingList, INPUT_LIST_SIZE);
+
+            System.gc();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Inputs {
+
+        private int index;
+
+        public Inputs() {
+            this.index = 0;
+        }
+
+        public int[] next(int[][] array) {
+            if (index >= array.length) {
+                index = 0;
+            }
+
+            return array[index++];
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testLalgSparseInference(Inferences inferences, Inputs inputs) {
+        int[] input = inputs.next(inferences.inputs);
+        return inferences.lalgInference.compute(input);
+    }
+}
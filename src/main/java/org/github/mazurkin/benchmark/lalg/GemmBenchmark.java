@@ -0,0 +1,105 @@
+package org.github.mazurkin.benchmark.lalg;
+
+import org.github.mazurkin.lalg.LalgGemm;
+import org.github.mazurkin.domain.NeuralUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Naive vs. blocked GEMM. The time unit is nanoseconds, so the {@code flops} counter is reported directly
+ * in GFLOP/s.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(jvmArgsAppend = {
+    // GC
+    "-XX:+UseG1GC",
+    "-XX:+UseGCOverheadLimit",
+    "-XX:MaxGCPauseMillis=10",
+    // memory
+    "-Xms2048m",
+    "-Xmx2048m",
+    "-XX:+AlwaysPreTouch",
+    "-XX:+UseCompressedOops",
+})
+public class GemmBenchmark {
+
+    @State(Scope.Thread)
+    public static class Matrices {
+
+        private double[] a;
+
+        private double[] b;
+
+        private double[] c;
+
+        private int m;
+
+        private int n;
+
+        private int k;
+
+        /**
+         * Shape MxNxK: square shapes and the skinny shapes of the batched inference layers
+         */
+        @Param({
+            "256x256x256",
+            "1024x1024x1024",
+            "16x2048x1152",
+            "64x2048x1152",
+            "512x2048x1152",
+            "64x330x2048",
+        })
+        @SuppressWarnings("unused")
+        private String shape;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            String[] parts = this.shape.split("x");
+
+            this.m = Integer.parseInt(parts[0]);
+            this.n = Integer.parseInt(parts[1]);
+            this.k = Integer.parseInt(parts[2]);
+
+            this.a = NeuralUtils.randomArray(this.m * this.k, 0xCAFE_11);
+            this.b = NeuralUtils.randomArray(this.n * this.k, 0xCAFE_12);
+            this.c = new double[this.m * this.n];
+
+            System.gc();
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Flops {
+
+        public long flops;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testNaive(Matrices matrices, Flops flops) {
+        LalgGemm.multiplyNaive(matrices.a, matrices.b, matrices.c, matrices.m, matrices.n, matrices.k);
+        flops.flops += 2L * matrices.m * matrices.n * matrices.k;
+        return matrices.c;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testBlocked(Matrices matrices, Flops flops) {
+        LalgGemm.multiplyBlocked(matrices.a, matrices.b, matrices.c, matrices.m, matrices.n, matrices.k);
+        flops.flops += 2L * matrices.m * matrices.n * matrices.k;
+        return matrices.c;
+    }
+}
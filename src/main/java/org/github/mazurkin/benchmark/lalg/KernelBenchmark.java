@@ -0,0 +1,128 @@
+package org.github.mazurkin.benchmark.lalg;
+
+import org.github.mazurkin.domain.NeuralUtils;
+import org.github.mazurkin.lalg.LalgKernel;
+import org.github.mazurkin.lalg.LalgKernels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scalar vs. Vector API kernels. The vector kernel requires JDK 17+.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(jvmArgsAppend = {
+    // GC
+    "-XX:+UseG1GC",
+    "-XX:+UseGCOverheadLimit",
+    "-XX:MaxGCPauseMillis=10",
+    // memory
+    "-Xms1024m",
+    "-Xmx1024m",
+    "-XX:+AlwaysPreTouch",
+    "-XX:+UseCompressedOops",
+    // vector kernel
+    "--add-modules=jdk.incubator.vector",
+})
+public class KernelBenchmark {
+
+    private static final int MATRIX_ROWS = 330;
+
+    @State(Scope.Thread)
+    public static class Arrays {
+
+        private LalgKernel kernel;
+
+        private double[] a;
+
+        private double[] b;
+
+        private double[] target;
+
+        private double[] matrix;
+
+        private double[] matrixTarget;
+
+        @Param({"scalar", "vector"})
+        @SuppressWarnings("unused")
+        private String kernelName;
+
+        @Param({"330", "1152", "2048"})
+        @SuppressWarnings("unused")
+        private int length;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            this.kernel = LalgKernels.forName(this.kernelName);
+
+            this.a = NeuralUtils.randomArray(this.length, 0xCAFE_21);
+            this.b = NeuralUtils.randomArray(this.length, 0xCAFE_22);
+            this.target = new double[this.length];
+
+            this.matrix = NeuralUtils.randomArray(MATRIX_ROWS * this.length, 0xCAFE_23);
+            this.matrixTarget = new double[MATRIX_ROWS];
+
+            System.gc();
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double testDotProduct(Arrays arrays) {
+        return arrays.kernel.dotProduct(arrays.a, 0, arrays.b, 0, arrays.length);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double testSquaredDistance(Arrays arrays) {
+        return arrays.kernel.squaredDistance(arrays.a, 0, arrays.b, 0, arrays.length);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double testNormMax(Arrays arrays) {
+        return arrays.kernel.normMax(arrays.a, 0, arrays.length);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testAdd(Arrays arrays) {
+        arrays.kernel.add(arrays.a, 0, arrays.b, 0, arrays.target, 0, arrays.length);
+        return arrays.target;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testRelu(Arrays arrays) {
+        arrays.kernel.relu(arrays.target, 0, arrays.length);
+        return arrays.target;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testSoftMax(Arrays arrays) {
+        double offset = arrays.kernel.normMax(arrays.target, 0, arrays.length);
+        double sum = arrays.kernel.expSum(arrays.target, 0, arrays.length, offset);
+        arrays.kernel.divide(arrays.target, 0, arrays.length, sum);
+        return arrays.target;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public double[] testMultiplyByTransposedMatrix(Arrays arrays) {
+        arrays.kernel.multiplyByTransposedMatrix(
+            arrays.a, arrays.matrix, MATRIX_ROWS, arrays.length, arrays.matrixTarget
+        );
+        return arrays.matrixTarget;
+    }
+}
@@ -1,6 +1,10 @@
 package org.github.mazurkin.benchmark.search;
 
 import org.github.mazurkin.domain.NeuralUtils;
+import org.github.mazurkin.search.SearchQuantizedIndex;
+import org.github.mazurkin.search.SearchStorageFormat;
+import org.github.mazurkin.search.SearchTopK;
+import org.github.mazurkin.search.SearchVectorStore;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
@@ -29,6 +33,11 @@ import java.util.concurrent.TimeUnit;
 })
 public class DistanceBenchmark {
 
+    /**
+     * The compressed formats re-rank this number of the best candidates by the exact distance
+     */
+    private static final int RERANK_FACTOR = 4;
+
     @State(Scope.Benchmark)
     public static class Samples {
 
@@ -36,6 +45,8 @@ public class DistanceBenchmark {
 
         private double[][] candidates;
 
+        private SearchQuantizedIndex quantizedIndex;
+
         @Param({"128", "2048", "16384"})
         @SuppressWarnings("unused")
         private int vectorCount;
@@ -44,11 +55,23 @@ public class DistanceBenchmark {
         @SuppressWarnings("unused")
         private int vectorSize;
 
+        // DOUBLE is the plain scan over the arrays, the others scan the compressed codes
+        @Param({"DOUBLE", "INT8", "FP16"})
+        @SuppressWarnings("unused")
+        private String storageFormat;
+
         @Setup(Level.Trial)
         public void setup() {
-            this.vectors = NeuralUtils.randomArray(vectorCount, vectorSize, 0xCAFE_01);
+            // the compressed formats need the values of a realistic range, fp16 flushes the tiny ones to zero
+            this.vectors = NeuralUtils.uniformArray(vectorCount, vectorSize, 0xCAFE_01);
 
-            this.candidates = NeuralUtils.randomArray(64 * 1024, vectorSize, 0xCAFE_02);
+            if (!"DOUBLE".equals(storageFormat)) {
+                this.quantizedIndex = new SearchQuantizedIndex(
+                    new SearchVectorStore(vectors), SearchStorageFormat.valueOf(storageFormat), RERANK_FACTOR
+                );
+            }
+
+            this.candidates = NeuralUtils.uniformArray(64 * 1024, vectorSize, 0xCAFE_02);
 
             System.gc();
         }
@@ -59,8 +82,11 @@ public class DistanceBenchmark {
 
         private int index;
 
+        private final SearchTopK result;
+
         public Index() {
             this.index = 0;
+            this.result = new SearchTopK(1);
         }
 
         public double[] next(double[][] array) {
@@ -78,6 +104,11 @@ public class DistanceBenchmark {
         // pick the next vector from the array
         final double[] candidate = index.next(samples.candidates);
 
+        if (samples.quantizedIndex != null) {
+            samples.quantizedIndex.search(candidate, index.result);
+            return index.result.getId(0);
+        }
+
         // search for the minimal distance
         double minVal = Double.MAX_VALUE;
         int minIdx = -1;
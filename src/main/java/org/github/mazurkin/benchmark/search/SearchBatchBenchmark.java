@@ -0,0 +1,155 @@
+package org.github.mazurkin.benchmark.search;
+
+import org.github.mazurkin.domain.NeuralUtils;
+import org.github.mazurkin.lalg.LalgMatrix;
+import org.github.mazurkin.search.SearchBatchIndex;
+import org.github.mazurkin.search.SearchExactIndex;
+import org.github.mazurkin.search.SearchMetric;
+import org.github.mazurkin.search.SearchTopK;
+import org.github.mazurkin.search.SearchVectorStore;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch search through the distance tiles against the per-query linear scan. The primary score is the number of
+ * batches per second, the {@code queries} counter is the number of queries per second which is comparable
+ * across the batch sizes and the engines.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(jvmArgsAppend = {
+    // GC
+    "-XX:+UseG1GC",
+    "-XX:+UseGCOverheadLimit",
+    "-XX:MaxGCPauseMillis=10",
+    // memory
+    "-Xms4096m",
+    "-Xmx4096m",
+    "-XX:+AlwaysPreTouch",
+    "-XX:+UseCompressedOops",
+})
+public class SearchBatchBenchmark {
+
+    private static final int CANDIDATE_COUNT = 8 * 1024;
+
+    private static final int K = 10;
+
+    @State(Scope.Benchmark)
+    public static class Samples {
+
+        private SearchExactIndex exactIndex;
+
+        private SearchBatchIndex batchIndex;
+
+        private LalgMatrix[] batches;
+
+        @Param({"128", "2048", "16384"})
+        @SuppressWarnings("unused")
+        private int vectorCount;
+
+        @Param({"330", "1024"})
+        @SuppressWarnings("unused")
+        private int vectorSize;
+
+        @Param({"64", "512"})
+        @SuppressWarnings("unused")
+        private int batchSize;
+
+        @Param({"0", "3"})
+        @SuppressWarnings("unused")
+        private int parallelism;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            double[][] vectors = NeuralUtils.randomArray(vectorCount, vectorSize, 0xCAFE_01);
+
+            SearchVectorStore store = new SearchVectorStore(vectors);
+
+            this.exactIndex = new SearchExactIndex(store, SearchMetric.L2);
+            this.batchIndex = new SearchBatchIndex(store, SearchMetric.L2, parallelism);
+
+            double[][] candidates = NeuralUtils.randomArray(CANDIDATE_COUNT, vectorSize, 0xCAFE_02);
+
+            this.batches = new LalgMatrix[CANDIDATE_COUNT / batchSize];
+            for (int b = 0; b < batches.length; b++) {
+                this.batches[b] = new LalgMatrix(Arrays.copyOfRange(candidates, b * batchSize, (b + 1) * batchSize));
+            }
+
+            System.gc();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            this.batchIndex.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Batches {
+
+        private int index;
+
+        private SearchTopK[] results;
+
+        private double[] query;
+
+        @Setup(Level.Trial)
+        public void setup(Samples samples) {
+            this.index = 0;
+            this.results = new SearchTopK[samples.batchSize];
+            Arrays.setAll(this.results, i -> new SearchTopK(K));
+            this.query = new double[samples.vectorSize];
+        }
+
+        public LalgMatrix next(LalgMatrix[] array) {
+            if (index >= array.length) {
+                index = 0;
+            }
+
+            return array[index++];
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Queries {
+
+        public long queries;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public SearchTopK[] testBatch(Samples samples, Batches batches, Queries queries) {
+        LalgMatrix batch = batches.next(samples.batches);
+        samples.batchIndex.search(batch, batches.results);
+        queries.queries += batch.rows;
+        return batches.results;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public SearchTopK[] testLinearScan(Samples samples, Batches batches, Queries queries) {
+        LalgMatrix batch = batches.next(samples.batches);
+
+        for (int q = 0; q < batch.rows; q++) {
+            System.arraycopy(batch.data, q * batch.columns, batches.query, 0, batch.columns);
+            samples.exactIndex.search(batches.query, batches.results[q]);
+        }
+
+        queries.queries += batch.rows;
+        return batches.results;
+    }
+}
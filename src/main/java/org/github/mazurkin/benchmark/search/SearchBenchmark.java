@@ -0,0 +1,107 @@
+package org.github.mazurkin.benchmark.search;
+
+import org.github.mazurkin.domain.NeuralUtils;
+import org.github.mazurkin.search.SearchExactIndex;
+import org.github.mazurkin.search.SearchMetric;
+import org.github.mazurkin.search.SearchTopK;
+import org.github.mazurkin.search.SearchVectorStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The exact search engine over the same samples as {@link DistanceBenchmark}: L2 with k = 1 is the direct
+ * counterpart of the plain linear scan
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(jvmArgsAppend = {
+    // GC
+    "-XX:+UseG1GC",
+    "-XX:+UseGCOverheadLimit",
+    "-XX:MaxGCPauseMillis=10",
+    // memory
+    "-Xms4096m",
+    "-Xmx4096m",
+    "-XX:+AlwaysPreTouch",
+    "-XX:+UseCompressedOops",
+})
+public class SearchBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Samples {
+
+        private SearchExactIndex index;
+
+        private double[][] candidates;
+
+        @Param({"128", "2048", "16384"})
+        @SuppressWarnings("unused")
+        private int vectorCount;
+
+        @Param({"330", "1024"})
+        @SuppressWarnings("unused")
+        private int vectorSize;
+
+        @Param({"L2", "INNER_PRODUCT", "COSINE"})
+        @SuppressWarnings("unused")
+        private SearchMetric metric;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            double[][] vectors = NeuralUtils.randomArray(vectorCount, vectorSize, 0xCAFE_01);
+
+            this.index = new SearchExactIndex(new SearchVectorStore(vectors), metric);
+
+            this.candidates = NeuralUtils.randomArray(64 * 1024, vectorSize, 0xCAFE_02);
+
+            System.gc();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Index {
+
+        private int index;
+
+        private SearchTopK result;
+
+        @Param({"1", "10"})
+        @SuppressWarnings("unused")
+        private int k;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            this.index = 0;
+            this.result = new SearchTopK(k);
+        }
+
+        public double[] next(double[][] array) {
+            if (index >= array.length) {
+                index = 0;
+            }
+
+            return array[index++];
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public int test(Samples samples, Index index) {
+        // pick the next vector from the array
+        final double[] candidate = index.next(samples.candidates);
+
+        samples.index.search(candidate, index.result);
+
+        return index.result.getId(0);
+    }
+}
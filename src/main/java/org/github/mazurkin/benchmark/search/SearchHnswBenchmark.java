@@ -0,0 +1,179 @@
+package org.github.mazurkin.benchmark.search;
+
+import org.github.mazurkin.domain.NeuralUtils;
+import org.github.mazurkin.lalg.LalgMatrix;
+import org.github.mazurkin.search.SearchBatchIndex;
+import org.github.mazurkin.search.SearchExactIndex;
+import org.github.mazurkin.search.SearchHnswIndex;
+import org.github.mazurkin.search.SearchHnswOptions;
+import org.github.mazurkin.search.SearchMetric;
+import org.github.mazurkin.search.SearchTopK;
+import org.github.mazurkin.search.SearchVectorStore;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the HNSW search against the exact linear scan over the {@link DistanceBenchmark} samples. The graph
+ * is built once per trial (see {@link SearchHnswBuildBenchmark} for the build time). The found neighbours are
+ * compared with the precomputed exact ones: recall@k is the {@code hits} counter divided by the {@code relevant}
+ * counter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(jvmArgsAppend = {
+    // GC
+    "-XX:+UseG1GC",
+    "-XX:+UseGCOverheadLimit",
+    "-XX:MaxGCPauseMillis=10",
+    // memory
+    "-Xms4096m",
+    "-Xmx4096m",
+    "-XX:+AlwaysPreTouch",
+    "-XX:+UseCompressedOops",
+})
+public class SearchHnswBenchmark {
+
+    private static final int QUERY_COUNT = 1024;
+
+    private static final int K = 10;
+
+    @State(Scope.Benchmark)
+    public static class Samples {
+
+        private SearchExactIndex exactIndex;
+
+        private SearchHnswIndex hnswIndex;
+
+        private double[][] queries;
+
+        private int[][] expected;
+
+        @Param({"2048", "16384"})
+        @SuppressWarnings("unused")
+        private int vectorCount;
+
+        @Param({"330", "1024"})
+        @SuppressWarnings("unused")
+        private int vectorSize;
+
+        @Param({"16", "64", "256"})
+        @SuppressWarnings("unused")
+        private int ef;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            double[][] vectors = NeuralUtils.randomArray(vectorCount, vectorSize, 0xCAFE_01);
+
+            SearchVectorStore store = new SearchVectorStore(vectors);
+
+            this.exactIndex = new SearchExactIndex(store, SearchMetric.L2);
+            this.hnswIndex = new SearchHnswIndex(store, SearchHnswOptions.defaults());
+            this.hnswIndex.addAll(Runtime.getRuntime().availableProcessors());
+
+            this.queries = NeuralUtils.randomArray(QUERY_COUNT, vectorSize, 0xCAFE_02);
+
+            // the exact neighbours of every query
+            SearchTopK[] results = new SearchTopK[QUERY_COUNT];
+            Arrays.setAll(results, i -> new SearchTopK(K));
+
+            try (SearchBatchIndex batchIndex = new SearchBatchIndex(store, SearchMetric.L2, 0)) {
+                batchIndex.search(new LalgMatrix(queries), results);
+            }
+
+            this.expected = new int[QUERY_COUNT][];
+            for (int q = 0; q < QUERY_COUNT; q++) {
+                this.expected[q] = new int[results[q].size()];
+
+                for (int i = 0; i < results[q].size(); i++) {
+                    this.expected[q][i] = results[q].getId(i);
+                }
+            }
+
+            System.gc();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Queries {
+
+        private int index;
+
+        private SearchTopK result;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            this.index = 0;
+            this.result = new SearchTopK(K);
+        }
+
+        public int next(int limit) {
+            if (index >= limit) {
+                index = 0;
+            }
+
+            return index++;
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Recall {
+
+        public long hits;
+
+        public long relevant;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.hits = 0;
+            this.relevant = 0;
+        }
+
+        void count(int[] expected, SearchTopK result) {
+            for (int id : expected) {
+                for (int i = 0; i < result.size(); i++) {
+                    if (result.getId(i) == id) {
+                        hits++;
+                        break;
+                    }
+                }
+            }
+
+            relevant += expected.length;
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public SearchTopK testHnsw(Samples samples, Queries queries, Recall recall) {
+        int q = queries.next(QUERY_COUNT);
+
+        samples.hnswIndex.search(samples.queries[q], samples.ef, queries.result);
+
+        recall.count(samples.expected[q], queries.result);
+        return queries.result;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public SearchTopK testExact(Samples samples, Queries queries, Recall recall) {
+        int q = queries.next(QUERY_COUNT);
+
+        samples.exactIndex.search(samples.queries[q], queries.result);
+
+        recall.count(samples.expected[q], queries.result);
+        return queries.result;
+    }
+}
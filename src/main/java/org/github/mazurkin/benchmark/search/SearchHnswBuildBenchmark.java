@@ -0,0 +1,78 @@
+package org.github.mazurkin.benchmark.search;
+
+import org.github.mazurkin.domain.NeuralUtils;
+import org.github.mazurkin.search.SearchHnswIndex;
+import org.github.mazurkin.search.SearchHnswOptions;
+import org.github.mazurkin.search.SearchVectorStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to build the HNSW graph over the {@link DistanceBenchmark} samples by the concurrent insertion
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(jvmArgsAppend = {
+    // GC
+    "-XX:+UseG1GC",
+    "-XX:+UseGCOverheadLimit",
+    "-XX:MaxGCPauseMillis=10",
+    // memory
+    "-Xms4096m",
+    "-Xmx4096m",
+    "-XX:+AlwaysPreTouch",
+    "-XX:+UseCompressedOops",
+})
+public class SearchHnswBuildBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Samples {
+
+        private SearchVectorStore store;
+
+        private SearchHnswIndex index;
+
+        @Param({"2048", "16384"})
+        @SuppressWarnings("unused")
+        private int vectorCount;
+
+        @Param({"330", "1024"})
+        @SuppressWarnings("unused")
+        private int vectorSize;
+
+        @Param({"0", "3"})
+        @SuppressWarnings("unused")
+        private int parallelism;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            double[][] vectors = NeuralUtils.randomArray(vectorCount, vectorSize, 0xCAFE_01);
+
+            this.store = new SearchVectorStore(vectors);
+
+            System.gc();
+        }
+
+        @Setup(Level.Iteration)
+        public void setupIteration() {
+            this.index = new SearchHnswIndex(store, SearchHnswOptions.defaults());
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public SearchHnswIndex testBuild(Samples samples) {
+        samples.index.addAll(samples.parallelism);
+        return samples.index;
+    }
+}
@@ -0,0 +1,31 @@
+package org.github.mazurkin.benchmark.search;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.profile.PausesProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+public class SearchHnswBuildBenchmarkRunnerFast {
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(SearchHnswBuildBenchmark.class.getSimpleName())
+            .shouldFailOnError(true)
+            .shouldDoGC(true)
+            .forks(1)
+            // the build is parallelized by the index itself
+            .threads(1)
+            .warmupIterations(1)
+            .measurementIterations(5)
+            .addProfiler(GCProfiler.class)
+            .addProfiler(PausesProfiler.class, "period=1000;threshold=1000")
+            .verbosity(VerboseMode.EXTRA)
+            .build();
+
+        Runner runner = new Runner(opt);
+        runner.run();
+    }
+}
@@ -0,0 +1,123 @@
+package org.github.mazurkin.benchmark.search;
+
+import org.github.mazurkin.domain.NeuralUtils;
+import org.github.mazurkin.search.SearchHnswIndex;
+import org.github.mazurkin.search.SearchHnswOptions;
+import org.github.mazurkin.search.SearchIvfPqIndex;
+import org.github.mazurkin.search.SearchIvfPqOptions;
+import org.github.mazurkin.search.SearchMappedHnswIndex;
+import org.github.mazurkin.search.SearchTopK;
+import org.github.mazurkin.search.SearchVectorStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to open the saved index file and to answer the first query over the {@link DistanceBenchmark} samples.
+ * The index is built and saved once per trial, so the file is in the page cache (the case of a restart or of a
+ * sibling process mapping the same file).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(jvmArgsAppend = {
+    // GC
+    "-XX:+UseG1GC",
+    "-XX:+UseGCOverheadLimit",
+    "-XX:MaxGCPauseMillis=10",
+    // memory
+    "-Xms4096m",
+    "-Xmx4096m",
+    "-XX:+AlwaysPreTouch",
+    "-XX:+UseCompressedOops",
+})
+public class SearchMappedBenchmark {
+
+    private static final int K = 10;
+
+    private static final int NPROBE = 16;
+
+    private static final int EF = 64;
+
+    @State(Scope.Benchmark)
+    public static class Samples {
+
+        private Path path;
+
+        private double[] query;
+
+        @Param({"16384"})
+        @SuppressWarnings("unused")
+        private int vectorCount;
+
+        @Param({"330", "1024"})
+        @SuppressWarnings("unused")
+        private int vectorSize;
+
+        @Param({"IVF_PQ", "HNSW"})
+        @SuppressWarnings("unused")
+        private String indexType;
+
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            double[][] vectors = NeuralUtils.randomArray(vectorCount, vectorSize, 0xCAFE_01);
+
+            SearchVectorStore store = new SearchVectorStore(vectors);
+
+            this.path = Files.createTempFile("search-index", ".bin");
+
+            if ("HNSW".equals(indexType)) {
+                SearchHnswIndex index = new SearchHnswIndex(store, SearchHnswOptions.defaults());
+                index.addAll(Runtime.getRuntime().availableProcessors());
+                index.save(path);
+            } else {
+                new SearchIvfPqIndex(store, SearchIvfPqOptions.defaults()).save(path);
+            }
+
+            this.query = NeuralUtils.randomArray(1, vectorSize, 0xCAFE_02)[0];
+
+            System.gc();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public Object testOpen(Samples samples) throws IOException {
+        if ("HNSW".equals(samples.indexType)) {
+            return SearchMappedHnswIndex.open(samples.path);
+        } else {
+            return SearchIvfPqIndex.open(samples.path);
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("unused")
+    public int testOpenAndSearch(Samples samples) throws IOException {
+        SearchTopK result;
+
+        if ("HNSW".equals(samples.indexType)) {
+            result = SearchMappedHnswIndex.open(samples.path).search(samples.query, EF, K);
+        } else {
+            result = SearchIvfPqIndex.open(samples.path).search(samples.query, NPROBE, K);
+        }
+
+        return result.getId(0);
+    }
+}
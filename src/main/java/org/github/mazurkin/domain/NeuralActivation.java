@@ -0,0 +1,32 @@
+package org.github.mazurkin.domain;
+
+import org.github.mazurkin.lalg.LalgOperations;
+
+/**
+ * Element-wise activation stage of {@link NeuralSequentialModel}
+ */
+public enum NeuralActivation {
+
+    RELU {
+        @Override
+        void apply(double[] data, int from, int till) {
+            LalgOperations.inplaceRelu(data, from, till);
+        }
+    },
+
+    TANH {
+        @Override
+        void apply(double[] data, int from, int till) {
+            LalgOperations.inplaceTanh(data, from, till);
+        }
+    },
+
+    SIGMOID {
+        @Override
+        void apply(double[] data, int from, int till) {
+            LalgOperations.inplaceSigmoid(data, from, till);
+        }
+    };
+
+    abstract void apply(double[] data, int from, int till);
+}
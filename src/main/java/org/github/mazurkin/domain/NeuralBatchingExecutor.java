@@ -0,0 +1,270 @@
+package org.github.mazurkin.domain;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous front end of the inference: the single-row requests of the concurrent callers are queued and
+ * gathered into batches computed by {@link NeuralInference#computeBatch}, so under load many matrix-vector
+ * products become one matrix-matrix product.
+ * <p>
+ * Every worker takes the first queued request and then waits for more requests until the batch is full or the
+ * batching window of the first request expires. The futures are completed by the worker threads, the heavy
+ * dependent stages should use the {@code *Async} methods of the future.
+ */
+@ThreadSafe
+public class NeuralBatchingExecutor implements AutoCloseable {
+
+    /**
+     * How often an idle worker checks the closing
+     */
+    private static final long IDLE_POLL_MILLIS = 10;
+
+    private final NeuralInference inference;
+
+    private final int inputSize;
+
+    private final int outputSize;
+
+    private final int maxBatchSize;
+
+    private final long maxWaitNanos;
+
+    private final BlockingQueue<Request> queue;
+
+    private final Thread[] workers;
+
+    private final LongAdder batchCount;
+
+    private final LongAdder rowCount;
+
+    private volatile boolean closed;
+
+    /**
+     * Creates the executor and starts the workers
+     *
+     * @param inference Inference, it must be safe to call {@link NeuralInference#computeBatch} concurrently
+     * @param inputSize Number of the input features
+     * @param outputSize Number of the output values
+     * @param options Batching options
+     */
+    public NeuralBatchingExecutor(NeuralInference inference, int inputSize, int outputSize,
+                                  NeuralBatchingOptions options)
+    {
+        Preconditions.checkNotNull(inference, "Inference is null");
+        Preconditions.checkNotNull(options, "Options are null");
+        Preconditions.checkArgument(inputSize > 0, "Input size must be positive: %s", inputSize);
+        Preconditions.checkArgument(outputSize > 0, "Output size must be positive: %s", outputSize);
+
+        this.inference = inference;
+        this.inputSize = inputSize;
+        this.outputSize = outputSize;
+        this.maxBatchSize = options.getMaxBatchSize();
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(options.getMaxWaitMicros());
+
+        this.queue = new ArrayBlockingQueue<>(options.getQueueCapacity());
+
+        this.batchCount = new LongAdder();
+        this.rowCount = new LongAdder();
+
+        this.workers = new Thread[options.getWorkerCount()];
+        for (int i = 0; i < this.workers.length; i++) {
+            this.workers[i] = new Thread(this::work, "neural-batching-" + i);
+            this.workers[i].setDaemon(true);
+            this.workers[i].start();
+        }
+    }
+
+    /**
+     * Queue the request
+     *
+     * @param input Input values (the array is copied)
+     * @return Future of the output values (the array is owned by the caller), the future fails with
+     * {@link RejectedExecutionException} if the queue is full or the executor is closed
+     */
+    public CompletableFuture<double[]> submit(int[] input) {
+        if (input.length != inputSize) {
+            throw new IllegalArgumentException(
+                String.format("Input vector size mismatch: %d <> %d", input.length, inputSize)
+            );
+        }
+
+        CompletableFuture<double[]> future = new CompletableFuture<>();
+
+        if (closed) {
+            future.completeExceptionally(new RejectedExecutionException("Executor is closed"));
+            return future;
+        }
+
+        Request request = new Request(input.clone(), future, System.nanoTime());
+
+        if (!queue.offer(request)) {
+            future.completeExceptionally(new RejectedExecutionException("Request queue is full"));
+        } else if (closed && queue.remove(request)) {
+            // the executor was closed after the check and the request could be queued after the final drain,
+            // when the request is not in the queue anymore it is taken by a worker or by the drain
+            future.completeExceptionally(new RejectedExecutionException("Executor is closed"));
+        }
+
+        return future;
+    }
+
+    /**
+     * Number of the computed batches
+     *
+     * @return Counter
+     */
+    public long getBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * Number of the computed rows, the average batch size is this counter divided by {@link #getBatchCount()}
+     *
+     * @return Counter
+     */
+    public long getRowCount() {
+        return rowCount.sum();
+    }
+
+    /**
+     * Stop accepting the requests, compute the queued ones and stop the workers. When it's called by a worker
+     * (e.g. from a callback of a future) that worker isn't waited for, it stops after the current batch, and the
+     * requests still queued after the other workers stop are rejected.
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        boolean interrupted = false;
+
+        for (Thread worker : workers) {
+            // joining itself would never return
+            if (worker == Thread.currentThread()) {
+                continue;
+            }
+
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        // the requests which raced with the closing
+        Request request;
+        while ((request = queue.poll()) != null) {
+            request.future.completeExceptionally(new RejectedExecutionException("Executor is closed"));
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void work() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+
+        try {
+            while (true) {
+                Request first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+
+                if (first == null) {
+                    if (closed) {
+                        break;
+                    }
+
+                    continue;
+                }
+
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+
+                long deadline = first.timestamp + maxWaitNanos;
+
+                while (batch.size() < maxBatchSize && !closed) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+
+                    Request next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+
+                compute(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // the batch interrupted while gathering
+            compute(batch);
+        }
+    }
+
+    private void compute(List<Request> batch) {
+        final int size = batch.size();
+        if (size == 0) {
+            return;
+        }
+
+        int[] inputs = new int[size * inputSize];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(batch.get(i).input, 0, inputs, i * inputSize, inputSize);
+        }
+
+        double[] outputs = new double[size * outputSize];
+
+        try {
+            inference.computeBatch(inputs, size, outputs);
+        } catch (Throwable e) {
+            // the futures are completed even on an error, otherwise the callers would wait forever
+            for (Request request : batch) {
+                request.future.completeExceptionally(e);
+            }
+
+            return;
+        }
+
+        batchCount.increment();
+        rowCount.add(size);
+
+        for (int i = 0; i < size; i++) {
+            batch.get(i).future.complete(Arrays.copyOfRange(outputs, i * outputSize, (i + 1) * outputSize));
+        }
+    }
+
+    private static final class Request {
+
+        private final int[] input;
+
+        private final CompletableFuture<double[]> future;
+
+        private final long timestamp;
+
+        private Request(int[] input, CompletableFuture<double[]> future, long timestamp) {
+            this.input = input;
+            this.future = future;
+            this.timestamp = timestamp;
+        }
+    }
+}
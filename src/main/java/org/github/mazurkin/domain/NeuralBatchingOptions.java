@@ -0,0 +1,114 @@
+package org.github.mazurkin.domain;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Options of {@link NeuralBatchingExecutor}. The instance is immutable, every {@code with*} method returns
+ * a modified copy.
+ */
+@Immutable
+public final class NeuralBatchingOptions {
+
+    private static final NeuralBatchingOptions DEFAULTS = new NeuralBatchingOptions(32, 100L, 2, 64 * 1024);
+
+    private final int maxBatchSize;
+
+    private final long maxWaitMicros;
+
+    private final int workerCount;
+
+    private final int queueCapacity;
+
+    private NeuralBatchingOptions(int maxBatchSize, long maxWaitMicros, int workerCount, int queueCapacity) {
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitMicros = maxWaitMicros;
+        this.workerCount = workerCount;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Default options: batches up to 32 rows gathered within 100 microseconds by two workers
+     *
+     * @return Options
+     */
+    public static NeuralBatchingOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Maximal number of the rows in a batch
+     *
+     * @param maxBatchSize Number of the rows
+     * @return Modified options
+     */
+    public NeuralBatchingOptions withMaxBatchSize(int maxBatchSize) {
+        Preconditions.checkArgument(maxBatchSize > 0, "Batch size must be positive: %s", maxBatchSize);
+
+        return new NeuralBatchingOptions(maxBatchSize, maxWaitMicros, workerCount, queueCapacity);
+    }
+
+    /**
+     * Batching window: the maximal time the first request of a batch waits for the other requests. Zero takes
+     * only the requests which are already queued, so the batches form only when the workers are busy.
+     *
+     * @param maxWaitMicros Window in microseconds
+     * @return Modified options
+     */
+    public NeuralBatchingOptions withMaxWaitMicros(long maxWaitMicros) {
+        Preconditions.checkArgument(maxWaitMicros >= 0, "Wait is negative: %s", maxWaitMicros);
+
+        return new NeuralBatchingOptions(maxBatchSize, maxWaitMicros, workerCount, queueCapacity);
+    }
+
+    /**
+     * Number of the worker threads, every worker gathers and computes its own batches
+     *
+     * @param workerCount Number of the threads
+     * @return Modified options
+     */
+    public NeuralBatchingOptions withWorkerCount(int workerCount) {
+        Preconditions.checkArgument(workerCount > 0, "Worker count must be positive: %s", workerCount);
+
+        return new NeuralBatchingOptions(maxBatchSize, maxWaitMicros, workerCount, queueCapacity);
+    }
+
+    /**
+     * Maximal number of the queued requests, the requests over the limit are rejected
+     *
+     * @param queueCapacity Number of the requests
+     * @return Modified options
+     */
+    public NeuralBatchingOptions withQueueCapacity(int queueCapacity) {
+        Preconditions.checkArgument(queueCapacity > 0, "Queue capacity must be positive: %s", queueCapacity);
+
+        return new NeuralBatchingOptions(maxBatchSize, maxWaitMicros, workerCount, queueCapacity);
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public long getMaxWaitMicros() {
+        return maxWaitMicros;
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public String toString() {
+        return "NeuralBatchingOptions{" +
+            "maxBatchSize=" + maxBatchSize +
+            ", maxWaitMicros=" + maxWaitMicros +
+            ", workerCount=" + workerCount +
+            ", queueCapacity=" + queueCapacity +
+            '}';
+    }
+}
@@ -1,7 +1,8 @@
 package org.github.mazurkin.domain;
 
+import org.github.mazurkin.lalg.LalgOperations;
 import org.jblas.DoubleMatrix;
-import org.jblas.MatrixFunctions;
+import org.jblas.NativeBlas;
 
 import javax.annotation.concurrent.ThreadSafe;
 
@@ -9,106 +10,221 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 /**
- * JBLAS implementation
+ * JBLAS implementation. The intermediate vectors are the per-thread preallocated matrices: the bias is copied into
+ * the target and the product is accumulated over it by the native {@code dgemv}, so a call doesn't allocate
+ * ({@code SimpleBlas.gemv} is not used as it falls back to a plain Java loop). The batch is
+ * computed by one native {@code dgemm} per layer over the column-major (features x batchSize) matrices, where the
+ * JNI overhead is amortized over the whole batch.
  *
  * @see <a href="http://jblas.org/javadoc/index.html">JBLAS</a>
  */
 @ThreadSafe
 public class NeuralBlasInference implements NeuralInference {
 
+    /**
+     * Transposed embedding matrices (embeddingSize x rows), so an embedding is a contiguous column
+     */
     private final List<DoubleMatrix> embeddingList;
 
     private final int[] embeddingCumSizes;
 
     private final int embeddingTotalSize;
 
+    /**
+     * Layer 1 weights (innerSize x embeddingSize)
+     */
     private final DoubleMatrix layer1;
 
+    /**
+     * Layer 2 weights (outputSize x innerSize)
+     */
     private final DoubleMatrix layer2;
 
     private final DoubleMatrix bias1;
 
     private final DoubleMatrix bias2;
 
+    /**
+     * Identifier of the model reported by the flight recorder events, could be null
+     */
+    private final String modelId;
+
+    private final ThreadLocal<Buffers> contextThreadLocal;
+
+    private final ThreadLocal<BatchBuffers> batchContextThreadLocal;
+
     public NeuralBlasInference(List<double[][]> embeddingList,
                                double[][] transposedLayer1,
                                double[][] transposedLayer2,
                                double[] bias1,
                                double[] bias2)
+    {
+        this(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2, null);
+    }
+
+    /**
+     * Creates the inference
+     *
+     * @param embeddingList Embedding matrices
+     * @param transposedLayer1 Transposed weights of the layer 1
+     * @param transposedLayer2 Transposed weights of the layer 2
+     * @param bias1 Bias of the layer 1
+     * @param bias2 Bias of the layer 2
+     * @param modelId Identifier of the model reported by {@link NeuralInferenceEvent}, could be null
+     */
+    public NeuralBlasInference(List<double[][]> embeddingList,
+                               double[][] transposedLayer1,
+                               double[][] transposedLayer2,
+                               double[] bias1,
+                               double[] bias2,
+                               String modelId)
     {
         this.embeddingList = embeddingList.stream()
-                .map(DoubleMatrix::new)
+                .map(e -> new DoubleMatrix(e).transpose())
                 .collect(Collectors.toUnmodifiableList());
 
         this.embeddingCumSizes = computeEmbeddingCumSizes(this.embeddingList);
         this.embeddingTotalSize =  this.embeddingCumSizes[this.embeddingCumSizes.length - 1];
 
-        this.layer1 = new DoubleMatrix(transposedLayer1).transpose();
-        this.layer2 = new DoubleMatrix(transposedLayer2).transpose();
+        this.layer1 = new DoubleMatrix(transposedLayer1);
+        if (this.layer1.columns != this.embeddingTotalSize) {
+            throw new IllegalArgumentException(
+                String.format("Layer 1 column mismatch: %d <> %d", this.embeddingTotalSize, this.layer1.columns)
+            );
+        }
+
+        this.layer2 = new DoubleMatrix(transposedLayer2);
+        if (this.layer2.columns != this.layer1.rows) {
+            throw new IllegalArgumentException(
+                String.format("Layer 2 column mismatch: %d <> %d", this.layer1.rows, this.layer2.columns)
+            );
+        }
+
+        this.bias1 = new DoubleMatrix(bias1);
+        this.bias2 = new DoubleMatrix(bias2);
+
+        this.modelId = modelId;
+
+        this.contextThreadLocal = ThreadLocal.withInitial(
+            () -> new Buffers(this.embeddingTotalSize, this.layer1.rows, this.layer2.rows)
+        );
 
-        this.bias1 = new DoubleMatrix(bias1).transpose();
-        this.bias2 = new DoubleMatrix(bias2).transpose();
+        this.batchContextThreadLocal = new ThreadLocal<>();
     }
 
     @Override
     public double[] compute(int[] input) {
-        DoubleMatrix vec = computeEmbedding(input);
+        checkInputSize(input.length);
 
-        vec = relu(applyLayer(vec, this.layer1, this.bias1));
-        vec = applyLayer(vec, this.layer2, this.bias2);
-        vec = computeSoftMax(vec);
-        vec = computeCumSum(vec);
+        NeuralInferenceEvent event = NeuralInferenceEvent.start();
 
-        return vec.toArray();
+        Buffers buffers = contextThreadLocal.get();
+
+        DoubleMatrix embedding = buffers.embedding;
+        computeEmbedding(input, 0, embedding.data, 0);
+
+        DoubleMatrix postLayer1 = buffers.postLayer1;
+        postLayer1.copy(this.bias1);
+        gemv(this.layer1, embedding, postLayer1);
+
+        // inplace modification
+        postLayer1.maxi(0.0);
+
+        DoubleMatrix postLayer2 = buffers.postLayer2;
+        postLayer2.copy(this.bias2);
+        gemv(this.layer2, postLayer1, postLayer2);
+
+        LalgOperations.inplaceSoftMaxCumSum(postLayer2.data);
+
+        NeuralInferenceEvent.commit(event, this.modelId, "jblas", 1, this.embeddingTotalSize, this.layer1.rows);
+
+        return postLayer2.data;
     }
 
-    private DoubleMatrix computeEmbedding(int[] input) {
-        double[] result = new double[embeddingTotalSize];
+    @Override
+    public void computeBatch(int[] inputs, int batchSize, double[] outputs) {
+        final int inputSize = this.embeddingList.size();
+        final int innerSize = this.layer1.rows;
+        final int outputSize = this.layer2.rows;
+
+        if (batchSize <= 0 || inputs.length != batchSize * inputSize || outputs.length != batchSize * outputSize) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Batch size doesn't match the array sizes: %d (inputs %d, outputs %d)",
+                    batchSize, inputs.length, outputs.length
+                )
+            );
+        }
 
-        for(int i = 0; i < input.length; ++i) {
-            int fromIdx = this.embeddingCumSizes[i];
-            int tillIdx = this.embeddingCumSizes[i + 1];
+        NeuralInferenceEvent event = NeuralInferenceEvent.start();
 
-            DoubleMatrix embedding = this.embeddingList.get(i);
+        BatchBuffers buffers = batchContextThreadLocal.get();
+        if (buffers == null || buffers.capacity < batchSize) {
+            // the buffers grow only, so the steady state with the same batch sizes is allocation-free
+            buffers = new BatchBuffers(batchSize, this.embeddingTotalSize, innerSize, outputSize);
+            batchContextThreadLocal.set(buffers);
+        }
 
-            for(int j = fromIdx, k = 0; j < tillIdx; j++, k++) {
-                result[j] = embedding.get(input[i], k);
-            }
+        // the columns are the rows of the batch, the bias is the initial value of the accumulated product
+        double[] embedding = buffers.embedding.data;
+        double[] postLayer1 = buffers.postLayer1.data;
+        double[] postLayer2 = buffers.postLayer2.data;
+
+        for (int i = 0; i < batchSize; i++) {
+            computeEmbedding(inputs, i * inputSize, embedding, i * this.embeddingTotalSize);
+
+            System.arraycopy(this.bias1.data, 0, postLayer1, i * innerSize, innerSize);
+            System.arraycopy(this.bias2.data, 0, postLayer2, i * outputSize, outputSize);
         }
 
-        return new DoubleMatrix(1, result.length, result);
-    }
+        NativeBlas.dgemm('N', 'N', innerSize, batchSize, this.embeddingTotalSize,
+            1.0, this.layer1.data, 0, innerSize, embedding, 0, this.embeddingTotalSize,
+            1.0, postLayer1, 0, innerSize);
 
-    private static DoubleMatrix relu(DoubleMatrix input) {
-        // inplace modification
-        return input.maxi(0.0f);
-    }
+        LalgOperations.inplaceRelu(postLayer1, 0, batchSize * innerSize);
 
-    private static DoubleMatrix applyLayer(DoubleMatrix input, DoubleMatrix layer, DoubleMatrix bias) {
-        return input.mmul(layer).add(bias);
-    }
+        NativeBlas.dgemm('N', 'N', outputSize, batchSize, innerSize,
+            1.0, this.layer2.data, 0, outputSize, postLayer1, 0, innerSize,
+            1.0, postLayer2, 0, outputSize);
 
-    private static double computeAbsMax(DoubleMatrix input) {
-        return input.normmax();
-    }
+        // the column-major (outputSize x batchSize) result is the row-major (batchSize x outputSize) output
+        for (int i = 0; i < batchSize; i++) {
+            LalgOperations.inplaceSoftMaxCumSum(postLayer2, i * outputSize, (i + 1) * outputSize);
+        }
 
-    private static DoubleMatrix computeSoftMax(DoubleMatrix input) {
-        double absMax = computeAbsMax(input);
+        System.arraycopy(postLayer2, 0, outputs, 0, batchSize * outputSize);
 
-        // not sure why we should subtract absolute from a possible negative number
-        // inplace modification
-        DoubleMatrix sub = input.subi(absMax);
+        NeuralInferenceEvent.commit(event, this.modelId, "jblas", batchSize, this.embeddingTotalSize, innerSize);
+    }
 
-        // inplace modification
-        DoubleMatrix exp = MatrixFunctions.expi(sub);
+    private void checkInputSize(int inputSize) {
+        if (inputSize != this.embeddingList.size()) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Input vector size doesn't the number of embedding matrices: %d <> %d",
+                    inputSize, this.embeddingList.size()
+                )
+            );
+        }
+    }
 
-        // inplace modification
-        return exp.divi(exp.sum());
+    private void computeEmbedding(int[] input, int inputOffset, double[] target, int targetOffset) {
+        for (int i = 0, limit = this.embeddingList.size(); i < limit; i++) {
+            DoubleMatrix embedding = this.embeddingList.get(i);
+
+            System.arraycopy(
+                embedding.data, input[inputOffset + i] * embedding.rows,
+                target, targetOffset + this.embeddingCumSizes[i],
+                embedding.rows
+            );
+        }
     }
 
-    private static DoubleMatrix computeCumSum(DoubleMatrix input) {
-        // inplace modification
-        return input.cumulativeSumi();
+    /**
+     * Accumulate the product of the matrix by the column vector over the target: y += A * x
+     */
+    private static void gemv(DoubleMatrix a, DoubleMatrix x, DoubleMatrix y) {
+        NativeBlas.dgemv('N', a.rows, a.columns, 1.0, a.data, 0, a.rows, x.data, 0, 1, 1.0, y.data, 0, 1);
     }
 
     private static int[] computeEmbeddingCumSizes(List<DoubleMatrix> embeddingList) {
@@ -117,9 +233,48 @@ public class NeuralBlasInference implements NeuralInference {
         for(int i = 0, limit=embeddingList.size(); i < limit; i++) {
             DoubleMatrix embedding = embeddingList.get(i);
 
-            result[i + 1] = result[i] + embedding.columns;
+            result[i + 1] = result[i] + embedding.rows;
         }
 
         return result;
     }
+
+    /**
+     * Per-thread allocated buffers, the column vectors
+     */
+    private static class Buffers {
+
+        private final DoubleMatrix embedding;
+
+        private final DoubleMatrix postLayer1;
+
+        private final DoubleMatrix postLayer2;
+
+        private Buffers(int embedding, int postLayer1, int postLayer2) {
+            this.embedding = new DoubleMatrix(embedding);
+            this.postLayer1 = new DoubleMatrix(postLayer1);
+            this.postLayer2 = new DoubleMatrix(postLayer2);
+        }
+    }
+
+    /**
+     * Per-thread allocated buffers for the batch computation, a column per row of the batch
+     */
+    private static class BatchBuffers {
+
+        private final int capacity;
+
+        private final DoubleMatrix embedding;
+
+        private final DoubleMatrix postLayer1;
+
+        private final DoubleMatrix postLayer2;
+
+        private BatchBuffers(int capacity, int embedding, int postLayer1, int postLayer2) {
+            this.capacity = capacity;
+            this.embedding = new DoubleMatrix(embedding, capacity);
+            this.postLayer1 = new DoubleMatrix(postLayer1, capacity);
+            this.postLayer2 = new DoubleMatrix(postLayer2, capacity);
+        }
+    }
 }
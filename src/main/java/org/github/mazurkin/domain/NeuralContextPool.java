@@ -0,0 +1,107 @@
+package org.github.mazurkin.domain;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded lock-free pool of the inference contexts (the scratch buffers). The pool retains at most
+ * {@code capacity} idle contexts in the slots of an atomic array: {@link #acquire()} takes any occupied slot or
+ * creates a new context when all the slots are empty, {@link #release(Object)} puts the context into any empty
+ * slot or drops it when all the slots are occupied. The scan starts at a random slot, so the concurrent threads
+ * don't contend on the same slots.
+ * <p>
+ * Unlike a {@link ThreadLocal}, the number of the retained contexts doesn't depend on the number of the threads,
+ * which matters for the large request pools and the virtual threads.
+ *
+ * @param <T> Context type
+ */
+@ThreadSafe
+public final class NeuralContextPool<T> {
+
+    private final AtomicReferenceArray<T> slots;
+
+    private final Supplier<T> factory;
+
+    private final LongAdder createdCount;
+
+    /**
+     * Creates the empty pool
+     *
+     * @param capacity Maximal number of the retained idle contexts
+     * @param factory Factory of the contexts (e.g. {@code inference::newContext})
+     */
+    public NeuralContextPool(int capacity, Supplier<T> factory) {
+        Preconditions.checkArgument(capacity > 0, "Capacity must be positive: %s", capacity);
+        Preconditions.checkNotNull(factory, "Factory is null");
+
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.factory = factory;
+        this.createdCount = new LongAdder();
+    }
+
+    /**
+     * Take an idle context or create a new one, the method never blocks
+     *
+     * @return Context for the exclusive use until {@link #release(Object)}
+     */
+    public T acquire() {
+        final int capacity = slots.length();
+        final int start = ThreadLocalRandom.current().nextInt(capacity);
+
+        for (int i = 0, index = start; i < capacity; i++) {
+            T context = slots.get(index);
+
+            if (context != null && slots.compareAndSet(index, context, null)) {
+                return context;
+            }
+
+            if (++index == capacity) {
+                index = 0;
+            }
+        }
+
+        createdCount.increment();
+        return factory.get();
+    }
+
+    /**
+     * Return the context into the pool, it is dropped if the pool is full
+     *
+     * @param context Context taken by {@link #acquire()}
+     */
+    public void release(T context) {
+        Preconditions.checkNotNull(context, "Context is null");
+
+        final int capacity = slots.length();
+        final int start = ThreadLocalRandom.current().nextInt(capacity);
+
+        for (int i = 0, index = start; i < capacity; i++) {
+            if (slots.get(index) == null && slots.compareAndSet(index, null, context)) {
+                return;
+            }
+
+            if (++index == capacity) {
+                index = 0;
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    /**
+     * Number of the contexts created by the pool, it grows when the pool is empty on the acquisition
+     *
+     * @return Counter
+     */
+    public long getCreatedCount() {
+        return createdCount.sum();
+    }
+}
@@ -0,0 +1,252 @@
+package org.github.mazurkin.domain;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
+import org.github.mazurkin.lalg.LalgOperations;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * EJML implementation over the row-major {@link DMatrixRMaj}. The layers are the products by the transposed
+ * weights ({@link CommonOps_DDRM#multTransB}) into the per-thread preallocated operands. The batch is the
+ * (batchSize x features) matrix multiplied by the weights once per layer, the grow-only batch operands are
+ * reshaped to the batch size without the reallocation.
+ *
+ * @see <a href="https://ejml.org">EJML</a>
+ */
+@ThreadSafe
+public class NeuralEjmlInference implements NeuralInference {
+
+    private final List<DMatrixRMaj> embeddingList;
+
+    private final int embeddingTotalSize;
+
+    /**
+     * Layer 1 weights (innerSize x embeddingSize)
+     */
+    private final DMatrixRMaj transposedLayer1;
+
+    /**
+     * Layer 2 weights (outputSize x innerSize)
+     */
+    private final DMatrixRMaj transposedLayer2;
+
+    private final DMatrixRMaj bias1;
+
+    private final DMatrixRMaj bias2;
+
+    /**
+     * Identifier of the model reported by the flight recorder events, could be null
+     */
+    private final String modelId;
+
+    private final ThreadLocal<Buffers> contextThreadLocal;
+
+    private final ThreadLocal<BatchBuffers> batchContextThreadLocal;
+
+    public NeuralEjmlInference(List<double[][]> embeddingList,
+                               double[][] transposedLayer1,
+                               double[][] transposedLayer2,
+                               double[] bias1,
+                               double[] bias2)
+    {
+        this(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2, null);
+    }
+
+    /**
+     * Creates the inference
+     *
+     * @param embeddingList Embedding matrices
+     * @param transposedLayer1 Transposed weights of the layer 1
+     * @param transposedLayer2 Transposed weights of the layer 2
+     * @param bias1 Bias of the layer 1
+     * @param bias2 Bias of the layer 2
+     * @param modelId Identifier of the model reported by {@link NeuralInferenceEvent}, could be null
+     */
+    public NeuralEjmlInference(List<double[][]> embeddingList,
+                               double[][] transposedLayer1,
+                               double[][] transposedLayer2,
+                               double[] bias1,
+                               double[] bias2,
+                               String modelId)
+    {
+        this.embeddingList = embeddingList.stream()
+            .map(DMatrixRMaj::new)
+            .collect(Collectors.toUnmodifiableList());
+
+        this.embeddingTotalSize = this.embeddingList.stream()
+            .mapToInt(m -> m.numCols)
+            .sum();
+
+        this.transposedLayer1 = new DMatrixRMaj(transposedLayer1);
+        if (this.transposedLayer1.numCols != this.embeddingTotalSize) {
+            throw new IllegalArgumentException(
+                String.format("Layer 1 column mismatch: %d <> %d",
+                    this.embeddingTotalSize, this.transposedLayer1.numCols)
+            );
+        }
+
+        this.transposedLayer2 = new DMatrixRMaj(transposedLayer2);
+        if (this.transposedLayer2.numCols != this.transposedLayer1.numRows) {
+            throw new IllegalArgumentException(
+                String.format("Layer 2 column mismatch: %d <> %d",
+                    this.transposedLayer1.numRows, this.transposedLayer2.numCols)
+            );
+        }
+
+        this.bias1 = DMatrixRMaj.wrap(1, bias1.length, bias1.clone());
+        this.bias2 = DMatrixRMaj.wrap(1, bias2.length, bias2.clone());
+
+        this.modelId = modelId;
+
+        this.contextThreadLocal = ThreadLocal.withInitial(
+            () -> new Buffers(this.embeddingTotalSize, this.transposedLayer1.numRows, this.transposedLayer2.numRows)
+        );
+
+        this.batchContextThreadLocal = new ThreadLocal<>();
+    }
+
+    @Override
+    public double[] compute(int[] input) {
+        if (input.length != this.embeddingList.size()) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Input vector size doesn't the number of embedding matrices: %d <> %d",
+                    input.length, this.embeddingList.size()
+                )
+            );
+        }
+
+        NeuralInferenceEvent event = NeuralInferenceEvent.start();
+
+        Buffers buffers = contextThreadLocal.get();
+
+        DMatrixRMaj embedding = buffers.embedding;
+        computeEmbedding(input, 0, embedding.data, 0);
+
+        DMatrixRMaj postLayer1 = buffers.postLayer1;
+        CommonOps_DDRM.multTransB(embedding, this.transposedLayer1, postLayer1);
+        CommonOps_DDRM.addEquals(postLayer1, this.bias1);
+
+        LalgOperations.inplaceRelu(postLayer1.data);
+
+        DMatrixRMaj postLayer2 = buffers.postLayer2;
+        CommonOps_DDRM.multTransB(postLayer1, this.transposedLayer2, postLayer2);
+
+        LalgOperations.inplaceAddSoftMaxCumSum(postLayer2.data, 0, this.bias2.data);
+
+        NeuralInferenceEvent.commit(event, this.modelId, "ejml", 1,
+            this.embeddingTotalSize, this.transposedLayer1.numRows);
+
+        return postLayer2.data;
+    }
+
+    @Override
+    public void computeBatch(int[] inputs, int batchSize, double[] outputs) {
+        final int inputSize = this.embeddingList.size();
+        final int innerSize = this.transposedLayer1.numRows;
+        final int outputSize = this.transposedLayer2.numRows;
+
+        if (batchSize <= 0 || inputs.length != batchSize * inputSize || outputs.length != batchSize * outputSize) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Batch size doesn't match the array sizes: %d (inputs %d, outputs %d)",
+                    batchSize, inputs.length, outputs.length
+                )
+            );
+        }
+
+        NeuralInferenceEvent event = NeuralInferenceEvent.start();
+
+        BatchBuffers buffers = batchContextThreadLocal.get();
+        if (buffers == null || buffers.capacity < batchSize) {
+            // the buffers grow only, so the steady state with the same batch sizes is allocation-free
+            buffers = new BatchBuffers(batchSize, this.embeddingTotalSize, innerSize, outputSize);
+            batchContextThreadLocal.set(buffers);
+        }
+
+        // the data arrays are kept by the reshape as they are large enough
+        DMatrixRMaj embedding = buffers.embedding;
+        embedding.reshape(batchSize, this.embeddingTotalSize);
+
+        for (int i = 0; i < batchSize; i++) {
+            computeEmbedding(inputs, i * inputSize, embedding.data, i * this.embeddingTotalSize);
+        }
+
+        DMatrixRMaj postLayer1 = buffers.postLayer1;
+        CommonOps_DDRM.multTransB(embedding, this.transposedLayer1, postLayer1);
+
+        for (int i = 0; i < batchSize; i++) {
+            LalgOperations.inplaceAdd(postLayer1.data, i * innerSize, this.bias1.data);
+        }
+
+        LalgOperations.inplaceRelu(postLayer1.data, 0, batchSize * innerSize);
+
+        DMatrixRMaj postLayer2 = buffers.postLayer2;
+        CommonOps_DDRM.multTransB(postLayer1, this.transposedLayer2, postLayer2);
+
+        for (int i = 0; i < batchSize; i++) {
+            LalgOperations.inplaceAddSoftMaxCumSum(postLayer2.data, i * outputSize, this.bias2.data);
+        }
+
+        System.arraycopy(postLayer2.data, 0, outputs, 0, batchSize * outputSize);
+
+        NeuralInferenceEvent.commit(event, this.modelId, "ejml", batchSize, this.embeddingTotalSize, innerSize);
+    }
+
+    private void computeEmbedding(int[] input, int inputOffset, double[] target, int targetOffset) {
+        for (int i = 0, limit = this.embeddingList.size(); i < limit; i++) {
+            DMatrixRMaj sourceMatrix = this.embeddingList.get(i);
+
+            System.arraycopy(
+                sourceMatrix.data, input[inputOffset + i] * sourceMatrix.numCols,
+                target, targetOffset,
+                sourceMatrix.numCols
+            );
+
+            targetOffset += sourceMatrix.numCols;
+        }
+    }
+
+    /**
+     * Per-thread allocated buffers, the row vectors
+     */
+    private static class Buffers {
+
+        private final DMatrixRMaj embedding;
+
+        private final DMatrixRMaj postLayer1;
+
+        private final DMatrixRMaj postLayer2;
+
+        private Buffers(int embedding, int postLayer1, int postLayer2) {
+            this.embedding = new DMatrixRMaj(1, embedding);
+            this.postLayer1 = new DMatrixRMaj(1, postLayer1);
+            this.postLayer2 = new DMatrixRMaj(1, postLayer2);
+        }
+    }
+
+    /**
+     * Per-thread allocated buffers for the batch computation, a row per row of the batch
+     */
+    private static class BatchBuffers {
+
+        private final int capacity;
+
+        private final DMatrixRMaj embedding;
+
+        private final DMatrixRMaj postLayer1;
+
+        private final DMatrixRMaj postLayer2;
+
+        private BatchBuffers(int capacity, int embedding, int postLayer1, int postLayer2) {
+            this.capacity = capacity;
+            this.embedding = new DMatrixRMaj(capacity, embedding);
+            this.postLayer1 = new DMatrixRMaj(capacity, postLayer1);
+            this.postLayer2 = new DMatrixRMaj(capacity, postLayer2);
+        }
+    }
+}
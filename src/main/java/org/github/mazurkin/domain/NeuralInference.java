@@ -15,4 +15,42 @@ public interface NeuralInference {
      */
     double[] compute(int[] input);
 
+    /**
+     * Calculate outputs for the batch of inputs. The default implementation just calls {@link #compute(int[])}
+     * for each row, the implementations are expected to override it with a real matrix-matrix path.
+     *
+     * @param inputs Input values as a flat row-major (batchSize x features) array
+     * @param batchSize Number of rows in the batch
+     * @param outputs Output values as a flat row-major (batchSize x outputs) array
+     */
+    default void computeBatch(int[] inputs, int batchSize, double[] outputs) {
+        if (batchSize <= 0 || inputs.length % batchSize != 0 || outputs.length % batchSize != 0) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Batch size doesn't match the array sizes: %d (inputs %d, outputs %d)",
+                    batchSize, inputs.length, outputs.length
+                )
+            );
+        }
+
+        final int inputSize = inputs.length / batchSize;
+        final int outputSize = outputs.length / batchSize;
+
+        int[] input = new int[inputSize];
+
+        for (int i = 0; i < batchSize; i++) {
+            System.arraycopy(inputs, i * inputSize, input, 0, inputSize);
+
+            double[] output = compute(input);
+
+            if (output.length != outputSize) {
+                throw new IllegalArgumentException(
+                    String.format("Output size mismatch: %d <> %d", output.length, outputSize)
+                );
+            }
+
+            System.arraycopy(output, 0, outputs, i * outputSize, outputSize);
+        }
+    }
+
 }
@@ -0,0 +1,79 @@
+package org.github.mazurkin.domain;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event of an inference call (a single input or a batch). Only the calls longer than the threshold
+ * are written and the stack trace is not taken, so the event could be left enabled in production. The event
+ * object is created only when a recording enables the event, so the call doesn't allocate without the recording
+ * and doesn't depend on the JIT eliminating the object. The fields are filled only when the event is going to be
+ * committed.
+ */
+@Name(NeuralInferenceEvent.NAME)
+@Label("Inference")
+@Category({"lalg", "Inference"})
+@Description("Inference call")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class NeuralInferenceEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "org.github.mazurkin.lalg.Inference";
+
+    private static final EventType TYPE = EventType.getEventType(NeuralInferenceEvent.class);
+
+    @Label("Model Id")
+    String modelId;
+
+    @Label("Engine")
+    String engine;
+
+    @Label("Batch Size")
+    int batchSize;
+
+    @Label("Embedding Size")
+    @Description("Size of the concatenated embeddings (the model factor)")
+    int embeddingSize;
+
+    @Label("Inner Size")
+    @Description("Size of the hidden layer (the model factor)")
+    int innerSize;
+
+    /**
+     * Begin the event of the call
+     *
+     * @return Started event or null if no recording enables the event
+     */
+    static NeuralInferenceEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+
+        NeuralInferenceEvent event = new NeuralInferenceEvent();
+        event.begin();
+
+        return event;
+    }
+
+    /**
+     * Fill and write the event if it is started and passes the threshold
+     */
+    static void commit(NeuralInferenceEvent event,
+                       String modelId, String engine, int batchSize, int embeddingSize, int innerSize)
+    {
+        if (event != null && event.shouldCommit()) {
+            event.modelId = modelId;
+            event.engine = engine;
+            event.batchSize = batchSize;
+            event.embeddingSize = embeddingSize;
+            event.innerSize = innerSize;
+
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package org.github.mazurkin.domain;
+
+import org.github.mazurkin.lalg.LalgFloatMatrix;
+import org.github.mazurkin.lalg.LalgFloatOperations;
+import org.github.mazurkin.lalg.LalgFloatRowVector;
+import org.github.mazurkin.lalg.LalgOperations;
+import org.github.mazurkin.lalg.LalgRowVector;
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Single-precision implementation: the embeddings and the layer weights are stored as floats, which halves
+ * the memory footprint and the memory traffic of the matrix-vector products. The output layer (softmax and
+ * cumulative sum) is computed in double precision.
+ */
+@ThreadSafe
+public class NeuralLalgFloatInference implements NeuralInference {
+
+    private final List<LalgFloatMatrix> embeddingMatrices;
+
+    private final LalgFloatMatrix transposedLayer1;
+
+    private final LalgFloatMatrix transposedLayer2;
+
+    private final LalgFloatRowVector bias1;
+
+    private final LalgRowVector bias2;
+
+    private final boolean doubleAccumulator;
+
+    private final ThreadLocal<Buffers> contextThreadLocal;
+
+    public NeuralLalgFloatInference(List<double[][]> embeddingList,
+                                    double[][] transposedLayer1,
+                                    double[][] transposedLayer2,
+                                    double[] bias1,
+                                    double[] bias2)
+    {
+        this(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2, false);
+    }
+
+    /**
+     * Creates the inference
+     *
+     * @param embeddingList Embedding matrices
+     * @param transposedLayer1 Transposed weights of the layer 1
+     * @param transposedLayer2 Transposed weights of the layer 2
+     * @param bias1 Bias of the layer 1
+     * @param bias2 Bias of the layer 2
+     * @param doubleAccumulator Accumulate the matrix-vector products in double precision
+     */
+    public NeuralLalgFloatInference(List<double[][]> embeddingList,
+                                    double[][] transposedLayer1,
+                                    double[][] transposedLayer2,
+                                    double[] bias1,
+                                    double[] bias2,
+                                    boolean doubleAccumulator)
+    {
+        this.embeddingMatrices = embeddingList.stream()
+            .map(LalgFloatMatrix::new)
+            .collect(Collectors.toUnmodifiableList());
+
+        final int embeddingSize = this.embeddingMatrices.stream()
+            .mapToInt(m -> m.columns)
+            .sum();
+
+        this.transposedLayer1 = new LalgFloatMatrix(transposedLayer1);
+        Preconditions.checkArgument(embeddingSize == this.transposedLayer1.columns,
+            "Layer 1 column mismatch: %s <> %s", embeddingSize, this.transposedLayer1.columns);
+
+        this.transposedLayer2 = new LalgFloatMatrix(transposedLayer2);
+        Preconditions.checkArgument(this.transposedLayer1.rows == this.transposedLayer2.columns,
+            "Layer 2 column mismatch: %s <> %s", this.transposedLayer1.rows, this.transposedLayer2.columns);
+
+        this.bias1 = new LalgFloatRowVector(toFloat(bias1));
+        Preconditions.checkArgument(this.bias1.columns == this.transposedLayer1.rows,
+            "Layer 2 column mismatch: %s <> %s", this.bias1.columns, this.transposedLayer1.rows);
+
+        this.bias2 = new LalgRowVector(bias2);
+        Preconditions.checkArgument(this.bias2.columns == this.transposedLayer2.rows,
+            "Layer 2 column mismatch: %s <> %s", this.bias2.columns, this.transposedLayer2.rows);
+
+        this.doubleAccumulator = doubleAccumulator;
+
+        this.contextThreadLocal = ThreadLocal.withInitial(
+            () -> new Buffers(embeddingSize, this.transposedLayer1.rows, this.transposedLayer2.rows)
+        );
+    }
+
+    @Override
+    public double[] compute(int[] input) {
+        Buffers buffers = contextThreadLocal.get();
+
+        LalgFloatRowVector embedding = buffers.embedding;
+        computeEmbedding(input, embedding);
+
+        LalgFloatRowVector postLayer1 = buffers.postLayer1;
+        embedding.multiplyByTransposedMatrix(transposedLayer1, postLayer1, doubleAccumulator);
+
+        LalgFloatOperations.inplaceAdd(postLayer1.data, bias1.data, postLayer1.data);
+
+        LalgFloatOperations.inplaceRelu(postLayer1.data);
+
+        LalgFloatRowVector postLayer2 = buffers.postLayer2;
+        postLayer1.multiplyByTransposedMatrix(transposedLayer2, postLayer2, doubleAccumulator);
+
+        LalgRowVector output = buffers.output;
+        LalgFloatOperations.copyToDouble(postLayer2.data, output.data);
+
+        LalgOperations.inplaceAdd(output.data, bias2.data, output.data);
+
+        LalgOperations.inplaceSoftMax(output.data);
+
+        LalgOperations.inplaceCumSum(output.data);
+
+        return output.data;
+    }
+
+    private void computeEmbedding(int[] input, LalgFloatRowVector target) {
+        if (input.length != this.embeddingMatrices.size()) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Input vector size doesn't the number of embedding matrices: %d <> %d",
+                    input.length, this.embeddingMatrices.size()
+                )
+            );
+        }
+
+        for (int i = 0, targetOffset = 0; i < input.length; i++) {
+            LalgFloatMatrix sourceMatrix = this.embeddingMatrices.get(i);
+
+            int sourceRow = input[i];
+
+            System.arraycopy(
+                sourceMatrix.data, sourceRow * sourceMatrix.columns,
+                target.data, targetOffset,
+                sourceMatrix.columns
+            );
+
+            targetOffset += sourceMatrix.columns;
+        }
+    }
+
+    private static float[] toFloat(double[] source) {
+        float[] result = new float[source.length];
+
+        for (int i = 0; i < source.length; i++) {
+            result[i] = (float) source[i];
+        }
+
+        return result;
+    }
+
+    /**
+     * Per-thread allocated buffers
+     */
+    private static class Buffers {
+
+        private final LalgFloatRowVector embedding;
+
+        private final LalgFloatRowVector postLayer1;
+
+        private final LalgFloatRowVector postLayer2;
+
+        private final LalgRowVector output;
+
+        private Buffers(int embedding, int postLayer1, int postLayer2) {
+            this.embedding = new LalgFloatRowVector(embedding);
+            this.postLayer1 = new LalgFloatRowVector(postLayer1);
+            this.postLayer2 = new LalgFloatRowVector(postLayer2);
+            this.output = new LalgRowVector(postLayer2);
+        }
+    }
+}
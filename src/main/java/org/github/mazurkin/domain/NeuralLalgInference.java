@@ -2,28 +2,112 @@ package org.github.mazurkin.domain;
 
 import org.github.mazurkin.lalg.LalgMatrix;
 import org.github.mazurkin.lalg.LalgOperations;
+import org.github.mazurkin.lalg.LalgParallelGemv;
+import org.github.mazurkin.lalg.LalgQuantizedMatrix;
+import org.github.mazurkin.lalg.LalgQuantizedRowVector;
 import org.github.mazurkin.lalg.LalgRowVector;
 import com.google.common.base.Preconditions;
 
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
-
+import java.util.stream.IntStream;
+
+/**
+ * Two-layer inference over the heap matrices. The scratch buffers of a computation are held by a {@link Context}:
+ * {@link #compute(int[])} uses a context per thread, {@link #compute(int[], Context, double[])} takes the context
+ * from the caller (for example from a {@link NeuralContextPool}), so the number of the buffer sets doesn't grow
+ * with the number of the threads.
+ * <p>
+ * With the intra-call parallelism the inference owns the worker pool, {@link #close()} stops the workers.
+ */
 @ThreadSafe
-public class NeuralLalgInference implements NeuralInference {
+public class NeuralLalgInference implements NeuralInference, AutoCloseable {
 
     private final List<LalgMatrix> embeddingMatrices;
 
+    /**
+     * Features multiplied through the layer 1 at the inference
+     */
+    private final int[] gemvFeatures;
+
+    /**
+     * Features with the pre-projected embedding tables
+     */
+    private final int[] projectedFeatures;
+
+    /**
+     * Embedding tables of the projected features multiplied by the layer 1 in advance (rows x innerSize),
+     * the first table also includes the bias of the layer 1
+     */
+    private final List<LalgMatrix> projections;
+
+    /**
+     * Layer 1 weights over the columns of the GEMV features in double precision, null in the quantized mode
+     * or if all the features are projected
+     */
     private final LalgMatrix transposedLayer1;
 
+    /**
+     * Layer 1 weights over the columns of the GEMV features in int8, null if the quantized mode is disabled
+     * or if all the features are projected
+     */
+    private final LalgQuantizedMatrix quantizedLayer1;
+
     private final LalgMatrix transposedLayer2;
 
+    /**
+     * Layer 2 weights in the column-major order (innerSize x outputSize) for the sparse activations,
+     * null if the sparse path is disabled
+     */
+    private final LalgMatrix layer2;
+
+    /**
+     * Maximal number of the non-zero activations for the sparse layer 2
+     */
+    private final int sparseLayer2Limit;
+
     private final LalgRowVector bias1;
 
     private final LalgRowVector bias2;
 
-    private final ThreadLocal<Buffers> contextThreadLocal;
+    /**
+     * Size of the concatenated embeddings of the GEMV features
+     */
+    private final int embeddingSize;
+
+    private final int innerSize;
+
+    /**
+     * Workers of the intra-call parallelism, null if it is disabled
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Recorder of the stage latencies, null if it is disabled
+     */
+    private final NeuralStageTimings stageTimings;
+
+    /**
+     * Identifier of the model reported by the flight recorder events, could be null
+     */
+    private final String modelId;
+
+    /**
+     * Identity of the contexts of this inference. The context doesn't reference the inference itself: it is also
+     * the value of the thread local, and the back reference would keep the model reachable from every thread
+     */
+    private final Object contextOwner;
+
+    private final ThreadLocal<Context> contextThreadLocal;
+
+    private final ThreadLocal<BatchBuffers> batchContextThreadLocal;
 
     public NeuralLalgInference(List<double[][]> embeddingList,
                                double[][] transposedLayer1,
@@ -31,79 +115,379 @@ public class NeuralLalgInference implements NeuralInference {
                                double[] bias1,
                                double[] bias2)
     {
+        this(embeddingList, transposedLayer1, transposedLayer2, bias1, bias2, NeuralLalgOptions.defaults());
+    }
+
+    /**
+     * Creates the inference
+     *
+     * @param embeddingList Embedding matrices
+     * @param transposedLayer1 Transposed weights of the layer 1
+     * @param transposedLayer2 Transposed weights of the layer 2
+     * @param bias1 Bias of the layer 1
+     * @param bias2 Bias of the layer 2
+     * @param options Optional modes
+     */
+    public NeuralLalgInference(List<double[][]> embeddingList,
+                               double[][] transposedLayer1,
+                               double[][] transposedLayer2,
+                               double[] bias1,
+                               double[] bias2,
+                               NeuralLalgOptions options)
+    {
+        Preconditions.checkNotNull(options, "Options are null");
+
         this.embeddingMatrices = embeddingList.stream()
             .map(LalgMatrix::new)
             .collect(Collectors.toUnmodifiableList());
 
-        final int embeddingSize = this.embeddingMatrices.stream()
+        final int fullEmbeddingSize = this.embeddingMatrices.stream()
             .mapToInt(m -> m.columns)
             .sum();
 
-        this.transposedLayer1 = new LalgMatrix(transposedLayer1);
-        Preconditions.checkArgument(embeddingSize == this.transposedLayer1.columns,
-            "Layer 1 column mismatch: %s <> %s", embeddingSize, this.transposedLayer1.columns);
+        LalgMatrix layer1 = new LalgMatrix(transposedLayer1);
+        Preconditions.checkArgument(fullEmbeddingSize == layer1.columns,
+            "Layer 1 column mismatch: %s <> %s", fullEmbeddingSize, layer1.columns);
+
+        this.innerSize = layer1.rows;
+
+        LalgRowVector bias1Vector = new LalgRowVector(bias1);
+        Preconditions.checkArgument(bias1Vector.columns == this.innerSize,
+            "Layer 2 column mismatch: %s <> %s", bias1Vector.columns, this.innerSize);
+
+        boolean[] projected = selectProjectedFeatures(
+            this.embeddingMatrices, this.innerSize, options.getProjectionBudgetBytes());
+
+        this.gemvFeatures = IntStream.range(0, projected.length)
+            .filter(i -> !projected[i])
+            .toArray();
+
+        this.projectedFeatures = IntStream.range(0, projected.length)
+            .filter(i -> projected[i])
+            .toArray();
+
+        this.embeddingSize = Arrays.stream(this.gemvFeatures)
+            .map(i -> this.embeddingMatrices.get(i).columns)
+            .sum();
+
+        List<LalgMatrix> projectionList = new ArrayList<>(this.projectedFeatures.length);
+        for (int feature : this.projectedFeatures) {
+            LalgMatrix embeddingMatrix = this.embeddingMatrices.get(feature);
+
+            LalgMatrix projection = new LalgMatrix(embeddingMatrix.rows, this.innerSize);
+            embeddingMatrix.multiplyByTransposedMatrix(selectColumns(layer1, new int[] { feature }), projection);
+
+            if (projectionList.isEmpty()) {
+                // the bias is folded into the first table, so it costs nothing at the inference
+                for (int offset = 0; offset < projection.data.length; offset += this.innerSize) {
+                    LalgOperations.inplaceAdd(projection.data, offset, bias1Vector.data);
+                }
+            }
+
+            projectionList.add(projection);
+        }
+        this.projections = Collections.unmodifiableList(projectionList);
+
+        LalgMatrix gemvLayer1 = null;
+        if (this.gemvFeatures.length == this.embeddingMatrices.size()) {
+            gemvLayer1 = layer1;
+        } else if (this.gemvFeatures.length > 0) {
+            gemvLayer1 = selectColumns(layer1, this.gemvFeatures);
+        }
+
+        if (gemvLayer1 != null && options.isQuantizedLayer1()) {
+            this.transposedLayer1 = null;
+            this.quantizedLayer1 = new LalgQuantizedMatrix(gemvLayer1);
+        } else {
+            this.transposedLayer1 = gemvLayer1;
+            this.quantizedLayer1 = null;
+        }
 
         this.transposedLayer2 = new LalgMatrix(transposedLayer2);
-        Preconditions.checkArgument(this.transposedLayer1.rows == this.transposedLayer2.columns,
-            "Layer 2 column mismatch: %s <> %s", this.transposedLayer1.rows, this.transposedLayer2.columns);
+        Preconditions.checkArgument(this.innerSize == this.transposedLayer2.columns,
+            "Layer 2 column mismatch: %s <> %s", this.innerSize, this.transposedLayer2.columns);
+
+        if (options.getSparseLayer2Density() > 0.0) {
+            this.layer2 = new LalgMatrix(this.transposedLayer2.columns, this.transposedLayer2.rows);
+            this.transposedLayer2.transpose(this.layer2);
+            this.sparseLayer2Limit = (int) (options.getSparseLayer2Density() * this.innerSize);
+        } else {
+            this.layer2 = null;
+            this.sparseLayer2Limit = 0;
+        }
 
-        this.bias1 = new LalgRowVector(bias1);
-        Preconditions.checkArgument(this.bias1.columns == this.transposedLayer1.rows,
-            "Layer 2 column mismatch: %s <> %s", this.bias1.columns, this.transposedLayer1.rows);
+        this.bias1 = bias1Vector;
 
         this.bias2 = new LalgRowVector(bias2);
         Preconditions.checkArgument(this.bias2.columns == this.transposedLayer2.rows,
             "Layer 2 column mismatch: %s <> %s", this.bias2.columns, this.transposedLayer2.rows);
 
-        this.contextThreadLocal = ThreadLocal.withInitial(
-            () -> new Buffers(embeddingSize, this.transposedLayer1.rows, this.transposedLayer2.rows)
+        this.pool = options.getParallelism() > 0 ? new ForkJoinPool(options.getParallelism()) : null;
+
+        this.stageTimings = options.getStageTimings();
+
+        this.modelId = options.getModelId();
+
+        this.contextOwner = new Object();
+
+        this.contextThreadLocal = ThreadLocal.withInitial(this::newContext);
+
+        this.batchContextThreadLocal = new ThreadLocal<>();
+    }
+
+    /**
+     * Creates the scratch buffers of the computation, the context belongs to this inference
+     *
+     * @return Context
+     */
+    public Context newContext() {
+        return new Context(
+            this.contextOwner, this.embeddingSize, this.innerSize, this.transposedLayer2.rows, this.layer2 != null,
+            parallelGemv(this.transposedLayer1), parallelGemv(this.transposedLayer2)
         );
     }
 
+    public int getOutputSize() {
+        return this.transposedLayer2.rows;
+    }
+
     @Override
     public double[] compute(int[] input) {
-        Buffers buffers = contextThreadLocal.get();
+        return compute(input, contextThreadLocal.get());
+    }
 
-        LalgRowVector embedding = buffers.embedding;
-        computeEmbedding(input, embedding);
+    /**
+     * Calculate output with the caller-supplied context
+     *
+     * @param input Input values
+     * @param context Context of this inference, it must not be used concurrently
+     * @param output Output values of {@link #getOutputSize()} elements
+     */
+    public void compute(int[] input, Context context, double[] output) {
+        if (context.owner != this.contextOwner) {
+            throw new IllegalArgumentException("Context belongs to the other inference");
+        }
+
+        if (output.length != this.transposedLayer2.rows) {
+            throw new IllegalArgumentException(
+                String.format("Output vector size mismatch: %d <> %d", output.length, this.transposedLayer2.rows)
+            );
+        }
+
+        double[] result = compute(input, context);
+
+        System.arraycopy(result, 0, output, 0, output.length);
+    }
+
+    private double[] compute(int[] input, Context buffers) {
+        if (input.length != this.embeddingMatrices.size()) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Input vector size doesn't the number of embedding matrices: %d <> %d",
+                    input.length, this.embeddingMatrices.size()
+                )
+            );
+        }
+
+        NeuralInferenceEvent event = NeuralInferenceEvent.start();
 
         LalgRowVector postLayer1 = buffers.postLayer1;
-        embedding.multiplyByTransposedMatrix(transposedLayer1, postLayer1);
 
-        LalgOperations.inplaceAdd(postLayer1.data, bias1.data, postLayer1.data);
+        boolean sparse = false;
+        int activeCount = 0;
 
-        LalgOperations.inplaceRelu(postLayer1.data);
+        long start = this.stageTimings != null ? System.nanoTime() : 0L;
+
+        LalgRowVector embedding = buffers.embedding;
+        if (embedding != null) {
+            computeEmbedding(input, 0, embedding.data, 0);
+        }
+
+        start = recordStage(NeuralStage.EMBEDDING, start);
+
+        if (quantizedLayer1 == null && projections.isEmpty() && layer2 == null) {
+            // the bias and the rectification are applied to every output of the product while it is in a register
+            if (buffers.layer1Gemv != null) {
+                buffers.layer1Gemv.multiplyAddRelu(embedding, bias1, postLayer1);
+            } else {
+                embedding.multiplyByTransposedMatrixAddRelu(transposedLayer1, bias1, postLayer1);
+            }
+        } else {
+            computeLayer1(input, buffers);
+
+            if (layer2 != null) {
+                // the density of the activations is measured on every call
+                activeCount = LalgOperations.inplaceReluNonZero(postLayer1.data, buffers.activeIndices);
+                sparse = activeCount <= sparseLayer2Limit;
+            } else {
+                LalgOperations.inplaceRelu(postLayer1.data);
+            }
+        }
+
+        start = recordStage(NeuralStage.LAYER1, start);
 
         LalgRowVector postLayer2 = buffers.postLayer2;
-        postLayer1.multiplyByTransposedMatrix(transposedLayer2, postLayer2);
+        if (sparse) {
+            postLayer1.multiplyByMatrix(layer2, buffers.activeIndices, activeCount, postLayer2);
+        } else if (buffers.layer2Gemv != null) {
+            buffers.layer2Gemv.multiply(postLayer1, postLayer2);
+        } else {
+            postLayer1.multiplyByTransposedMatrix(transposedLayer2, postLayer2);
+        }
+
+        start = recordStage(NeuralStage.LAYER2, start);
 
-        LalgOperations.inplaceAdd(postLayer2.data, bias2.data, postLayer2.data);
+        LalgOperations.inplaceAddSoftMaxCumSum(postLayer2.data, 0, bias2.data);
 
-        LalgOperations.inplaceSoftMax(postLayer2.data);
+        recordStage(NeuralStage.SOFTMAX, start);
 
-        LalgOperations.inplaceCumSum(postLayer2.data);
+        NeuralInferenceEvent.commit(event, this.modelId, "lalg", 1, this.embeddingSize, this.innerSize);
 
         return postLayer2.data;
     }
 
-    private void computeEmbedding(int[] input, LalgRowVector target) {
-        if (input.length != this.embeddingMatrices.size()) {
+    /**
+     * Record the stage started at the time if the recording is enabled
+     *
+     * @return Start time of the next stage
+     */
+    private long recordStage(NeuralStage stage, long start) {
+        if (this.stageTimings == null) {
+            return 0L;
+        }
+
+        long now = System.nanoTime();
+        this.stageTimings.record(stage, now - start);
+        return now;
+    }
+
+    /**
+     * Stop the workers of the intra-call parallelism, the inference must not be used after that
+     */
+    @Override
+    public void close() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+    }
+
+    @Override
+    public void computeBatch(int[] inputs, int batchSize, double[] outputs) {
+        final int inputSize = this.embeddingMatrices.size();
+        final int outputSize = this.transposedLayer2.rows;
+
+        if (batchSize <= 0 || inputs.length != batchSize * inputSize || outputs.length != batchSize * outputSize) {
             throw new IllegalArgumentException(
                 String.format(
-                    "Input vector size doesn't the number of embedding matrices: %d <> %d",
-                    input.length, this.embeddingMatrices.size()
+                    "Batch size doesn't match the array sizes: %d (inputs %d, outputs %d)",
+                    batchSize, inputs.length, outputs.length
                 )
             );
         }
 
-        for (int i = 0, targetOffset = 0; i < input.length; i++) {
-            LalgMatrix sourceMatrix = this.embeddingMatrices.get(i);
+        NeuralInferenceEvent event = NeuralInferenceEvent.start();
+
+        BatchBuffers buffers = batchContextThreadLocal.get();
+        if (buffers == null || buffers.capacity < batchSize) {
+            // the buffers grow only, so the steady state with the same batch sizes is allocation-free
+            buffers = new BatchBuffers(batchSize, this.embeddingSize, this.innerSize, outputSize);
+            batchContextThreadLocal.set(buffers);
+        }
+
+        // each weight matrix is streamed once per batch and not once per row
+        LalgMatrix postLayer1 = buffers.postLayer1;
+        if (gemvFeatures.length > 0) {
+            LalgMatrix embedding = buffers.embedding;
+            for (int i = 0; i < batchSize; i++) {
+                computeEmbedding(inputs, i * inputSize, embedding.data, i * this.embeddingSize);
+            }
+
+            if (quantizedLayer1 != null) {
+                // integer GEMV row by row, the int8 weights are 8x cheaper to stream than the doubles
+                LalgQuantizedRowVector quantizedEmbedding = buffers.quantizedEmbedding;
+                for (int i = 0; i < batchSize; i++) {
+                    quantizedEmbedding.quantize(embedding.data, i * this.embeddingSize);
+                    quantizedEmbedding.multiplyByTransposedMatrix(quantizedLayer1, postLayer1.data, i * this.innerSize);
+                }
+            } else {
+                embedding.multiplyByTransposedMatrix(transposedLayer1, postLayer1, batchSize);
+            }
+        } else {
+            Arrays.fill(postLayer1.data, 0, batchSize * this.innerSize, 0.0);
+        }
+
+        for (int i = 0; i < batchSize; i++) {
+            if (projections.isEmpty()) {
+                LalgOperations.inplaceAdd(postLayer1.data, i * this.innerSize, bias1.data);
+            } else {
+                computeProjections(inputs, i * inputSize, postLayer1.data, i * this.innerSize);
+            }
+        }
+
+        LalgOperations.inplaceRelu(postLayer1.data, 0, batchSize * postLayer1.columns);
+
+        LalgMatrix postLayer2 = buffers.postLayer2;
+        postLayer1.multiplyByTransposedMatrix(transposedLayer2, postLayer2, batchSize);
+
+        for (int i = 0, offset = 0; i < batchSize; i++, offset += outputSize) {
+            LalgOperations.inplaceAddSoftMaxCumSum(postLayer2.data, offset, bias2.data);
+        }
+
+        System.arraycopy(postLayer2.data, 0, outputs, 0, batchSize * outputSize);
+
+        NeuralInferenceEvent.commit(event, this.modelId, "lalg", batchSize, this.embeddingSize, this.innerSize);
+    }
+
+    /**
+     * Number of floating point operations of the layer 1 (including the bias) per one input row, the
+     * multiply-add of the GEMV is counted as two operations
+     *
+     * @return Number of operations
+     */
+    public long getLayer1Flops() {
+        return 2L * this.innerSize * this.embeddingSize
+            + (long) this.innerSize * Math.max(1, this.projections.size());
+    }
+
+    /**
+     * Unfused layer 1 (the quantized product or the projected embeddings) over the gathered embedding: the product
+     * and the bias without the rectification
+     */
+    private void computeLayer1(int[] input, Context buffers) {
+        LalgRowVector postLayer1 = buffers.postLayer1;
+
+        if (gemvFeatures.length > 0) {
+            LalgRowVector embedding = buffers.embedding;
+
+            if (quantizedLayer1 != null) {
+                LalgQuantizedRowVector quantizedEmbedding = buffers.quantizedEmbedding;
+                quantizedEmbedding.quantize(embedding);
+                quantizedEmbedding.multiplyByTransposedMatrix(quantizedLayer1, postLayer1);
+            } else if (buffers.layer1Gemv != null) {
+                buffers.layer1Gemv.multiply(embedding, postLayer1);
+            } else {
+                embedding.multiplyByTransposedMatrix(transposedLayer1, postLayer1);
+            }
+        } else {
+            Arrays.fill(postLayer1.data, 0.0);
+        }
+
+        if (projections.isEmpty()) {
+            LalgOperations.inplaceAdd(postLayer1.data, bias1.data, postLayer1.data);
+        } else {
+            computeProjections(input, 0, postLayer1.data, 0);
+        }
+    }
+
+    private void computeEmbedding(int[] input, int inputOffset, double[] target, int targetOffset) {
+        for (int feature : this.gemvFeatures) {
+            LalgMatrix sourceMatrix = this.embeddingMatrices.get(feature);
 
-            int sourceRow = input[i];
+            int sourceRow = input[inputOffset + feature];
 
             System.arraycopy(
                 sourceMatrix.data, sourceRow * sourceMatrix.columns,
-                target.data, targetOffset,
+                target, targetOffset,
                 sourceMatrix.columns
             );
 
@@ -112,20 +496,138 @@ public class NeuralLalgInference implements NeuralInference {
     }
 
     /**
-     * Per-thread allocated buffers
+     * Parallel product for the double-precision matrix, null if it should not be split
+     */
+    private LalgParallelGemv parallelGemv(LalgMatrix transposedMatrix) {
+        if (this.pool == null || transposedMatrix == null) {
+            return null;
+        }
+
+        LalgParallelGemv gemv = new LalgParallelGemv(this.pool, transposedMatrix);
+
+        return gemv.getSliceCount() > 1 ? gemv : null;
+    }
+
+    private void computeProjections(int[] input, int inputOffset, double[] target, int targetOffset) {
+        for (int i = 0; i < this.projectedFeatures.length; i++) {
+            int sourceRow = input[inputOffset + this.projectedFeatures[i]];
+
+            this.projections.get(i).addRowTo(sourceRow, target, targetOffset);
+        }
+    }
+
+    /**
+     * Select the features to project: the smallest tables first while the projections fit into the budget
      */
-    private static class Buffers {
+    private static boolean[] selectProjectedFeatures(List<LalgMatrix> embeddingMatrices, int innerSize, long budget) {
+        boolean[] projected = new boolean[embeddingMatrices.size()];
+
+        int[] order = IntStream.range(0, embeddingMatrices.size())
+            .boxed()
+            .sorted(Comparator.comparingInt(i -> embeddingMatrices.get(i).rows))
+            .mapToInt(Integer::intValue)
+            .toArray();
+
+        long used = 0;
+        for (int feature : order) {
+            long size = (long) embeddingMatrices.get(feature).rows * innerSize * Double.BYTES;
+            if (used + size > budget) {
+                break;
+            }
+
+            projected[feature] = true;
+            used += size;
+        }
+
+        return projected;
+    }
+
+    /**
+     * Copy the layer 1 columns which correspond to the embeddings of the given features
+     */
+    private LalgMatrix selectColumns(LalgMatrix layer1, int[] features) {
+        int[] offsets = new int[this.embeddingMatrices.size()];
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] = offsets[i - 1] + this.embeddingMatrices.get(i - 1).columns;
+        }
+
+        int columns = Arrays.stream(features)
+            .map(i -> this.embeddingMatrices.get(i).columns)
+            .sum();
+
+        LalgMatrix result = new LalgMatrix(layer1.rows, columns);
+
+        for (int r = 0; r < layer1.rows; r++) {
+            int targetOffset = r * columns;
+
+            for (int feature : features) {
+                int width = this.embeddingMatrices.get(feature).columns;
+
+                System.arraycopy(layer1.data, r * layer1.columns + offsets[feature], result.data, targetOffset, width);
+
+                targetOffset += width;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Scratch buffers of one computation, created by {@link #newContext()}
+     */
+    public static final class Context {
+
+        private final Object owner;
 
         private final LalgRowVector embedding;
 
+        private final LalgQuantizedRowVector quantizedEmbedding;
+
         private final LalgRowVector postLayer1;
 
         private final LalgRowVector postLayer2;
 
-        private Buffers(int embedding, int postLayer1, int postLayer2) {
-            this.embedding = new LalgRowVector(embedding);
+        private final int[] activeIndices;
+
+        private final LalgParallelGemv layer1Gemv;
+
+        private final LalgParallelGemv layer2Gemv;
+
+        private Context(Object owner, int embedding, int postLayer1, int postLayer2, boolean sparse,
+                        LalgParallelGemv layer1Gemv, LalgParallelGemv layer2Gemv)
+        {
+            this.owner = owner;
+            this.embedding = embedding > 0 ? new LalgRowVector(embedding) : null;
+            this.quantizedEmbedding = embedding > 0 ? new LalgQuantizedRowVector(embedding) : null;
             this.postLayer1 = new LalgRowVector(postLayer1);
             this.postLayer2 = new LalgRowVector(postLayer2);
+            this.activeIndices = sparse ? new int[postLayer1] : null;
+            this.layer1Gemv = layer1Gemv;
+            this.layer2Gemv = layer2Gemv;
+        }
+    }
+
+    /**
+     * Per-thread allocated buffers for the batch computation
+     */
+    private static class BatchBuffers {
+
+        private final int capacity;
+
+        private final LalgMatrix embedding;
+
+        private final LalgQuantizedRowVector quantizedEmbedding;
+
+        private final LalgMatrix postLayer1;
+
+        private final LalgMatrix postLayer2;
+
+        private BatchBuffers(int capacity, int embedding, int postLayer1, int postLayer2) {
+            this.capacity = capacity;
+            this.embedding = embedding > 0 ? new LalgMatrix(capacity, embedding) : null;
+            this.quantizedEmbedding = embedding > 0 ? new LalgQuantizedRowVector(embedding) : null;
+            this.postLayer1 = new LalgMatrix(capacity, postLayer1);
+            this.postLayer2 = new LalgMatrix(capacity, postLayer2);
         }
     }
 }
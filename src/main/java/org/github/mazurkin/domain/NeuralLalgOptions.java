@@ -0,0 +1,168 @@
+package org.github.mazurkin.domain;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Optional modes of {@link NeuralLalgInference}. The instance is immutable, every {@code with*} method returns
+ * a modified copy.
+ */
+@Immutable
+public final class NeuralLalgOptions {
+
+    private static final NeuralLalgOptions DEFAULTS = new NeuralLalgOptions(false, 0L, 0, 0.0, null, null);
+
+    private final boolean quantizedLayer1;
+
+    private final long projectionBudgetBytes;
+
+    private final int parallelism;
+
+    private final double sparseLayer2Density;
+
+    private final NeuralStageTimings stageTimings;
+
+    private final String modelId;
+
+    private NeuralLalgOptions(boolean quantizedLayer1, long projectionBudgetBytes, int parallelism,
+                              double sparseLayer2Density, NeuralStageTimings stageTimings, String modelId)
+    {
+        this.quantizedLayer1 = quantizedLayer1;
+        this.projectionBudgetBytes = projectionBudgetBytes;
+        this.parallelism = parallelism;
+        this.sparseLayer2Density = sparseLayer2Density;
+        this.stageTimings = stageTimings;
+        this.modelId = modelId;
+    }
+
+    /**
+     * Default options: all the weights are kept in double precision, no embedding is pre-projected,
+     * the computation runs in the calling thread
+     *
+     * @return Options
+     */
+    public static NeuralLalgOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Store the layer 1 weights as int8 with the per-row scale and zero point
+     * (approximately 8x less memory traffic for the largest matrix-vector product)
+     *
+     * @param quantizedLayer1 Enable the quantization
+     * @return Modified options
+     */
+    public NeuralLalgOptions withQuantizedLayer1(boolean quantizedLayer1) {
+        return new NeuralLalgOptions(quantizedLayer1, projectionBudgetBytes, parallelism, sparseLayer2Density,
+            stageTimings, modelId);
+    }
+
+    /**
+     * Memory budget for the embedding tables pre-projected through the layer 1. The layer 1 is linear, so for
+     * a feature with a small cardinality the product of every embedding row with the corresponding columns of
+     * the layer 1 could be computed in advance (rows x innerSize doubles). The features are projected in the
+     * order of the ascending cardinality while the tables fit into the budget.
+     *
+     * @param projectionBudgetBytes Budget in bytes, zero disables the projection
+     * @return Modified options
+     */
+    public NeuralLalgOptions withProjectionBudgetBytes(long projectionBudgetBytes) {
+        Preconditions.checkArgument(projectionBudgetBytes >= 0,
+            "Projection budget is negative: %s", projectionBudgetBytes);
+
+        return new NeuralLalgOptions(quantizedLayer1, projectionBudgetBytes, parallelism, sparseLayer2Density,
+            stageTimings, modelId);
+    }
+
+    /**
+     * Number of the worker threads of the dedicated fork-join pool which share the rows of the double-precision
+     * matrix-vector products with the calling thread. This reduces the latency of a single call at the cost of
+     * the throughput, the products of the small layers are not split at all.
+     *
+     * @param parallelism Number of the workers, zero disables the intra-call parallelism
+     * @return Modified options
+     * @see org.github.mazurkin.lalg.LalgParallelGemv
+     */
+    public NeuralLalgOptions withParallelism(int parallelism) {
+        Preconditions.checkArgument(parallelism >= 0, "Parallelism is negative: %s", parallelism);
+
+        return new NeuralLalgOptions(quantizedLayer1, projectionBudgetBytes, parallelism, sparseLayer2Density,
+            stageTimings, modelId);
+    }
+
+    /**
+     * Density of the rectified layer 1 activations below which the layer 2 is computed as the sum of the weight
+     * rows of the non-zero activations only. The density is measured on every call, the layer 2 weights are
+     * kept additionally in the column-major order.
+     *
+     * @param sparseLayer2Density Fraction of the non-zero activations (0..1), zero disables the sparse path
+     * @return Modified options
+     */
+    public NeuralLalgOptions withSparseLayer2Density(double sparseLayer2Density) {
+        Preconditions.checkArgument(sparseLayer2Density >= 0.0 && sparseLayer2Density <= 1.0,
+            "Density is out of range: %s", sparseLayer2Density);
+
+        return new NeuralLalgOptions(quantizedLayer1, projectionBudgetBytes, parallelism, sparseLayer2Density,
+            stageTimings, modelId);
+    }
+
+    /**
+     * Record the latencies of the stages of {@link NeuralLalgInference#compute(int[])} (the batch computation is not
+     * recorded). The recorder is shared, not copied, so the same recorder could collect several inferences.
+     *
+     * @param stageTimings Recorder, null disables the recording
+     * @return Modified options
+     */
+    public NeuralLalgOptions withStageTimings(NeuralStageTimings stageTimings) {
+        return new NeuralLalgOptions(quantizedLayer1, projectionBudgetBytes, parallelism, sparseLayer2Density,
+            stageTimings, modelId);
+    }
+
+    /**
+     * Identifier of the model reported by {@link NeuralInferenceEvent}
+     *
+     * @param modelId Identifier, null if it is not reported
+     * @return Modified options
+     */
+    public NeuralLalgOptions withModelId(String modelId) {
+        return new NeuralLalgOptions(quantizedLayer1, projectionBudgetBytes, parallelism, sparseLayer2Density,
+            stageTimings, modelId);
+    }
+
+    public boolean isQuantizedLayer1() {
+        return quantizedLayer1;
+    }
+
+    public long getProjectionBudgetBytes() {
+        return projectionBudgetBytes;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public double getSparseLayer2Density() {
+        return sparseLayer2Density;
+    }
+
+    public NeuralStageTimings getStageTimings() {
+        return stageTimings;
+    }
+
+    public String getModelId() {
+        return modelId;
+    }
+
+    @Override
+    public String toString() {
+        return "NeuralLalgOptions{" +
+            "quantizedLayer1=" + quantizedLayer1 +
+            ", projectionBudgetBytes=" + projectionBudgetBytes +
+            ", parallelism=" + parallelism +
+            ", sparseLayer2Density=" + sparseLayer2Density +
+            ", stageTimings=" + (stageTimings != null) +
+            ", modelId=" + modelId +
+            '}';
+    }
+}
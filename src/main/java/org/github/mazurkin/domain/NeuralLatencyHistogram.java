@@ -0,0 +1,166 @@
+package org.github.mazurkin.domain;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.util.Arrays;
+
+/**
+ * Snapshot of the latency distribution in nanoseconds. The buckets are logarithmic: every power of two is split
+ * into {@value #SUB_BUCKET_COUNT} linear sub-buckets, so a value is reported with the relative error of at most
+ * 1/{@value #SUB_BUCKET_COUNT}. The values below {@value #SUB_BUCKET_COUNT} nanoseconds are exact.
+ *
+ * @see NeuralStageTimings
+ */
+@Immutable
+public final class NeuralLatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 3;
+
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Buckets of all the non-negative long values
+     */
+    static final int BUCKET_COUNT = (Long.SIZE - 1 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final long[] counts;
+
+    private final long count;
+
+    private final long totalNanos;
+
+    NeuralLatencyHistogram(long[] counts, long totalNanos) {
+        Preconditions.checkArgument(counts.length == BUCKET_COUNT,
+            "Bucket count mismatch: %s <> %s", counts.length, BUCKET_COUNT);
+
+        this.counts = counts;
+        this.count = Arrays.stream(counts).sum();
+        this.totalNanos = totalNanos;
+    }
+
+    /**
+     * Empty histogram
+     *
+     * @return Histogram
+     */
+    public static NeuralLatencyHistogram empty() {
+        return new NeuralLatencyHistogram(new long[BUCKET_COUNT], 0L);
+    }
+
+    /**
+     * Bucket of the value
+     *
+     * @param nanos Non-negative value
+     * @return Bucket index
+     */
+    static int bucketIndex(long nanos) {
+        if (nanos < SUB_BUCKET_COUNT) {
+            return (int) Math.max(nanos, 0L);
+        }
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(nanos);
+        int shift = exponent - SUB_BUCKET_BITS;
+
+        return (shift + 1) * SUB_BUCKET_COUNT + (int) ((nanos >>> shift) & (SUB_BUCKET_COUNT - 1));
+    }
+
+    /**
+     * Highest value of the bucket
+     *
+     * @param index Bucket index
+     * @return Value
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * Mean value
+     *
+     * @return Nanoseconds, zero when the histogram is empty
+     */
+    public double getMean() {
+        return count > 0 ? (double) totalNanos / count : 0.0;
+    }
+
+    /**
+     * Value at the percentile, the highest value of the bucket is reported
+     *
+     * @param percentile Percentile (0..100)
+     * @return Nanoseconds, zero when the histogram is empty
+     */
+    public long getPercentile(double percentile) {
+        Preconditions.checkArgument(percentile >= 0.0 && percentile <= 100.0,
+            "Percentile is out of range: %s", percentile);
+
+        if (count == 0) {
+            return 0L;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * count));
+
+        long accumulated = 0;
+        for (int i = 0; i < counts.length; i++) {
+            accumulated += counts[i];
+
+            if (accumulated >= rank) {
+                return bucketUpperBound(i);
+            }
+        }
+
+        return getMax();
+    }
+
+    /**
+     * Maximal value, the highest value of the bucket is reported
+     *
+     * @return Nanoseconds, zero when the histogram is empty
+     */
+    public long getMax() {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] > 0) {
+                return bucketUpperBound(i);
+            }
+        }
+
+        return 0L;
+    }
+
+    /**
+     * Sum of the distributions, for example of the different inferences or the different processes
+     *
+     * @param other Other histogram
+     * @return Merged histogram
+     */
+    public NeuralLatencyHistogram merge(NeuralLatencyHistogram other) {
+        long[] merged = counts.clone();
+        for (int i = 0; i < merged.length; i++) {
+            merged[i] += other.counts[i];
+        }
+
+        return new NeuralLatencyHistogram(merged, totalNanos + other.totalNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.0f p50=%d p99=%d p99.9=%d max=%d",
+            count, getMean(), getPercentile(50.0), getPercentile(99.0), getPercentile(99.9), getMax());
+    }
+}
@@ -0,0 +1,188 @@
+package org.github.mazurkin.domain;
+
+import org.github.mazurkin.lalg.LalgBufferMatrix;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Model memory-mapped from the binary file written by {@link NeuralModelWriter}. Nothing is copied to the heap,
+ * the opening is near-instant and the pages are shared with the other processes mapping the same file.
+ *
+ * @see NeuralModelFormat
+ */
+@Immutable
+public final class NeuralMappedModel {
+
+    private final List<LalgBufferMatrix> embeddings;
+
+    private final LalgBufferMatrix transposedLayer1;
+
+    private final LalgBufferMatrix transposedLayer2;
+
+    private final LalgBufferMatrix bias1;
+
+    private final LalgBufferMatrix bias2;
+
+    private NeuralMappedModel(List<LalgBufferMatrix> embeddings,
+                              LalgBufferMatrix transposedLayer1,
+                              LalgBufferMatrix transposedLayer2,
+                              LalgBufferMatrix bias1,
+                              LalgBufferMatrix bias2)
+    {
+        this.embeddings = Collections.unmodifiableList(embeddings);
+        this.transposedLayer1 = transposedLayer1;
+        this.transposedLayer2 = transposedLayer2;
+        this.bias1 = bias1;
+        this.bias2 = bias2;
+    }
+
+    /**
+     * Map the model file
+     *
+     * @param path Model file
+     * @return Mapped model
+     * @throws IOException on I/O error or if the file is malformed
+     */
+    public static NeuralMappedModel open(Path path) throws IOException {
+        NeuralModelLoadEvent event = new NeuralModelLoadEvent();
+        event.begin();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+
+            ByteBuffer header = read(channel, 0, NeuralModelFormat.HEADER_SIZE, fileSize);
+
+            int magic = header.getInt();
+            if (magic != NeuralModelFormat.MAGIC) {
+                throw new IOException(String.format("Not a model file (magic %08x): %s", magic, path));
+            }
+
+            int version = header.getInt();
+            if (version != NeuralModelFormat.VERSION) {
+                throw new IOException(String.format("Unsupported model file version %d: %s", version, path));
+            }
+
+            int sectionCount = header.getInt();
+            if (sectionCount < 5) {
+                throw new IOException(String.format("Invalid number of sections %d: %s", sectionCount, path));
+            }
+
+            ByteBuffer table = read(channel, NeuralModelFormat.HEADER_SIZE,
+                NeuralModelFormat.SECTION_ENTRY_SIZE * sectionCount, fileSize);
+
+            List<LalgBufferMatrix> embeddings = new ArrayList<>();
+            LalgBufferMatrix layer1 = null;
+            LalgBufferMatrix layer2 = null;
+            LalgBufferMatrix bias1 = null;
+            LalgBufferMatrix bias2 = null;
+
+            for (int i = 0; i < sectionCount; i++) {
+                int kind = table.getInt();
+                int rows = table.getInt();
+                int columns = table.getInt();
+                table.getInt();
+                long offset = table.getLong();
+
+                LalgBufferMatrix matrix = map(channel, path, offset, rows, columns, fileSize);
+
+                switch (kind) {
+                    case NeuralModelFormat.KIND_EMBEDDING:
+                        embeddings.add(matrix);
+                        break;
+                    case NeuralModelFormat.KIND_LAYER1:
+                        layer1 = matrix;
+                        break;
+                    case NeuralModelFormat.KIND_LAYER2:
+                        layer2 = matrix;
+                        break;
+                    case NeuralModelFormat.KIND_BIAS1:
+                        bias1 = matrix;
+                        break;
+                    case NeuralModelFormat.KIND_BIAS2:
+                        bias2 = matrix;
+                        break;
+                    default:
+                        throw new IOException(String.format("Unknown section kind %d: %s", kind, path));
+                }
+            }
+
+            if (embeddings.isEmpty() || layer1 == null || layer2 == null || bias1 == null || bias2 == null) {
+                throw new IOException(String.format("Model file misses the required sections: %s", path));
+            }
+
+            event.commit(path.toString(), fileSize, sectionCount);
+
+            // the mappings stay valid after the channel is closed
+            return new NeuralMappedModel(embeddings, layer1, layer2, bias1, bias2);
+        }
+    }
+
+    public List<LalgBufferMatrix> getEmbeddings() {
+        return embeddings;
+    }
+
+    public LalgBufferMatrix getTransposedLayer1() {
+        return transposedLayer1;
+    }
+
+    public LalgBufferMatrix getTransposedLayer2() {
+        return transposedLayer2;
+    }
+
+    public LalgBufferMatrix getBias1() {
+        return bias1;
+    }
+
+    public LalgBufferMatrix getBias2() {
+        return bias2;
+    }
+
+    private static ByteBuffer read(FileChannel channel, long offset, int size, long fileSize) throws IOException {
+        if (offset + size > fileSize) {
+            throw new IOException(String.format("Model file is truncated: %d < %d", fileSize, offset + size));
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(NeuralModelFormat.ORDER);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the model file");
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    private static LalgBufferMatrix map(FileChannel channel, Path path, long offset, int rows, int columns,
+                                        long fileSize) throws IOException
+    {
+        long size = (long) rows * columns * Double.BYTES;
+
+        if (rows <= 0 || columns <= 0 || offset % NeuralModelFormat.ALIGNMENT != 0 || offset + size > fileSize) {
+            throw new IOException(
+                String.format("Invalid section [%d x %d at %d] of %d bytes: %s", rows, columns, offset, fileSize, path)
+            );
+        }
+
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Section is too large to be mapped: %d bytes: %s", size, path));
+        }
+
+        DoubleBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, offset, size)
+            .order(NeuralModelFormat.ORDER)
+            .asDoubleBuffer();
+
+        return new LalgBufferMatrix(data, rows, columns);
+    }
+}
@@ -0,0 +1,58 @@
+package org.github.mazurkin.domain;
+
+import java.nio.ByteOrder;
+
+/**
+ * Binary model file layout (version 1). All the numbers are little-endian.
+ *
+ * <pre>
+ * header (16 bytes):
+ *   int32 magic ("LALG")
+ *   int32 version
+ *   int32 number of sections
+ *   int32 reserved
+ * section table (24 bytes per section):
+ *   int32 kind (see the constants)
+ *   int32 rows
+ *   int32 columns
+ *   int32 reserved
+ *   int64 offset of the section data from the start of the file
+ * sections:
+ *   rows x columns doubles in the row-major order, every section starts at the 64-byte boundary
+ * </pre>
+ *
+ * The sections go in the order: embeddings (one section per feature), layer 1, layer 2, bias 1, bias 2.
+ * The layers are stored <em>transposed</em>, the biases are 1xN.
+ */
+final class NeuralModelFormat {
+
+    static final int MAGIC = 0x474C414C;
+
+    static final int VERSION = 1;
+
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final int ALIGNMENT = 64;
+
+    static final int HEADER_SIZE = 16;
+
+    static final int SECTION_ENTRY_SIZE = 24;
+
+    static final int KIND_EMBEDDING = 1;
+
+    static final int KIND_LAYER1 = 2;
+
+    static final int KIND_LAYER2 = 3;
+
+    static final int KIND_BIAS1 = 4;
+
+    static final int KIND_BIAS2 = 5;
+
+    private NeuralModelFormat() {
+        // utility class
+    }
+
+    static long align(long offset) {
+        return (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
@@ -0,0 +1,42 @@
+package org.github.mazurkin.domain;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of the model file mapping by {@link NeuralMappedModel#open(java.nio.file.Path)}
+ */
+@Name(NeuralModelLoadEvent.NAME)
+@Label("Model Load")
+@Category({"lalg", "Inference"})
+@Description("Model file mapping")
+public final class NeuralModelLoadEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "org.github.mazurkin.lalg.ModelLoad";
+
+    @Label("Path")
+    String path;
+
+    @Label("File Size")
+    @DataAmount
+    long fileSize;
+
+    @Label("Sections")
+    int sectionCount;
+
+    /**
+     * Fill and write the event if it passes the threshold
+     */
+    void commit(String path, long fileSize, int sectionCount) {
+        if (shouldCommit()) {
+            this.path = path;
+            this.fileSize = fileSize;
+            this.sectionCount = sectionCount;
+
+            commit();
+        }
+    }
+}
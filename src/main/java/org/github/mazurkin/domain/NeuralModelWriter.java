@@ -0,0 +1,161 @@
+package org.github.mazurkin.domain;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writer of the binary model file
+ *
+ * @see NeuralModelFormat
+ * @see NeuralMappedModel
+ */
+public final class NeuralModelWriter {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private NeuralModelWriter() {
+        // utility class
+    }
+
+    /**
+     * Write the model into the file (the file is truncated if it exists)
+     *
+     * @param path Target file
+     * @param embeddingList Embedding matrices
+     * @param transposedLayer1 Transposed weights of the layer 1
+     * @param transposedLayer2 Transposed weights of the layer 2
+     * @param bias1 Bias of the layer 1
+     * @param bias2 Bias of the layer 2
+     * @throws IOException on I/O error
+     */
+    public static void write(Path path,
+                             List<double[][]> embeddingList,
+                             double[][] transposedLayer1,
+                             double[][] transposedLayer2,
+                             double[] bias1,
+                             double[] bias2) throws IOException
+    {
+        Preconditions.checkArgument(!embeddingList.isEmpty(), "Embedding list is empty");
+
+        List<Section> sections = new ArrayList<>();
+
+        for (double[][] embedding : embeddingList) {
+            sections.add(new Section(NeuralModelFormat.KIND_EMBEDDING, embedding));
+        }
+
+        sections.add(new Section(NeuralModelFormat.KIND_LAYER1, transposedLayer1));
+        sections.add(new Section(NeuralModelFormat.KIND_LAYER2, transposedLayer2));
+        sections.add(new Section(NeuralModelFormat.KIND_BIAS1, new double[][] { bias1 }));
+        sections.add(new Section(NeuralModelFormat.KIND_BIAS2, new double[][] { bias2 }));
+
+        long offset = NeuralModelFormat.align(
+            NeuralModelFormat.HEADER_SIZE + (long) NeuralModelFormat.SECTION_ENTRY_SIZE * sections.size()
+        );
+
+        for (Section section : sections) {
+            section.offset = offset;
+            offset = NeuralModelFormat.align(offset + section.size());
+        }
+
+        try (FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(NeuralModelFormat.ORDER);
+
+            buffer.putInt(NeuralModelFormat.MAGIC);
+            buffer.putInt(NeuralModelFormat.VERSION);
+            buffer.putInt(sections.size());
+            buffer.putInt(0);
+
+            for (Section section : sections) {
+                buffer.putInt(section.kind);
+                buffer.putInt(section.rows);
+                buffer.putInt(section.columns);
+                buffer.putInt(0);
+                buffer.putLong(section.offset);
+            }
+
+            long position = buffer.position();
+
+            for (Section section : sections) {
+                position = pad(channel, buffer, position, section.offset);
+
+                for (double[] row : section.data) {
+                    for (double value : row) {
+                        if (!buffer.hasRemaining()) {
+                            flush(channel, buffer);
+                        }
+
+                        buffer.putDouble(value);
+                        position += Double.BYTES;
+                    }
+                }
+            }
+
+            pad(channel, buffer, position, offset);
+            flush(channel, buffer);
+
+            channel.force(true);
+        }
+    }
+
+    private static long pad(FileChannel channel, ByteBuffer buffer, long position, long offset) throws IOException {
+        for (; position < offset; position++) {
+            if (!buffer.hasRemaining()) {
+                flush(channel, buffer);
+            }
+
+            buffer.put((byte) 0);
+        }
+
+        return position;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    private static class Section {
+
+        private final int kind;
+
+        private final double[][] data;
+
+        private final int rows;
+
+        private final int columns;
+
+        private long offset;
+
+        private Section(int kind, double[][] data) {
+            Preconditions.checkArgument(data.length > 0, "Section has no rows");
+
+            this.kind = kind;
+            this.data = data;
+            this.rows = data.length;
+            this.columns = data[0].length;
+
+            for (double[] row : data) {
+                Preconditions.checkArgument(row.length == this.columns,
+                    "Array has different size of rows: %s and %s", row.length, this.columns);
+            }
+        }
+
+        private long size() {
+            return (long) rows * columns * Double.BYTES;
+        }
+    }
+}
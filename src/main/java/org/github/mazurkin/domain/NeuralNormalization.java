@@ -0,0 +1,36 @@
+package org.github.mazurkin.domain;
+
+import org.github.mazurkin.lalg.LalgOperations;
+
+/**
+ * Normalization stage of {@link NeuralSequentialModel} which works over the whole vector
+ */
+public enum NeuralNormalization {
+
+    SOFT_MAX {
+        @Override
+        void apply(double[] data, int from, int till) {
+            LalgOperations.inplaceSoftMax(data, from, till);
+        }
+    },
+
+    CUM_SUM {
+        @Override
+        void apply(double[] data, int from, int till) {
+            LalgOperations.inplaceCumSum(data, from, till);
+        }
+    },
+
+    /**
+     * Cumulative sum of the soft max, the planner replaces {@link #SOFT_MAX} followed by {@link #CUM_SUM}
+     * with this fused stage
+     */
+    SOFT_MAX_CUM_SUM {
+        @Override
+        void apply(double[] data, int from, int till) {
+            LalgOperations.inplaceSoftMaxCumSum(data, from, till);
+        }
+    };
+
+    abstract void apply(double[] data, int from, int till);
+}
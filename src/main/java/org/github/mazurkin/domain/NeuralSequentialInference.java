@@ -0,0 +1,53 @@
+package org.github.mazurkin.domain;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Inference of the {@link NeuralSequentialModel}. Every thread gets its own scratch arena planned by the model,
+ * the computation doesn't allocate.
+ */
+@ThreadSafe
+public class NeuralSequentialInference implements NeuralInference {
+
+    private final NeuralSequentialModel model;
+
+    private final ThreadLocal<Buffers> contextThreadLocal;
+
+    public NeuralSequentialInference(NeuralSequentialModel model) {
+        Preconditions.checkNotNull(model, "Model is null");
+
+        this.model = model;
+
+        this.contextThreadLocal = ThreadLocal.withInitial(
+            () -> new Buffers(model.getArenaSize(), model.getOutputSize())
+        );
+    }
+
+    @Override
+    public double[] compute(int[] input) {
+        Buffers buffers = contextThreadLocal.get();
+
+        int outputOffset = model.compute(input, buffers.arena);
+
+        System.arraycopy(buffers.arena, outputOffset, buffers.output, 0, buffers.output.length);
+
+        return buffers.output;
+    }
+
+    /**
+     * Per-thread allocated buffers
+     */
+    private static class Buffers {
+
+        private final double[] arena;
+
+        private final double[] output;
+
+        private Buffers(int arena, int output) {
+            this.arena = new double[arena];
+            this.output = new double[output];
+        }
+    }
+}
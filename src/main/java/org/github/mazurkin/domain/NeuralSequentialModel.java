@@ -0,0 +1,440 @@
+package org.github.mazurkin.domain;
+
+import org.github.mazurkin.lalg.LalgMatrix;
+import org.github.mazurkin.lalg.LalgOperations;
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Sequential model: the embedding lookup followed by the dense, activation and normalization stages.
+ * <p>
+ * The stages are planned at the build time. The adjacent stages are fused where the library has a fused
+ * operation (the dense stage with the bias followed by ReLU, the soft max followed by the cumulative sum, the bias
+ * of the dense stage followed by a normalization). All the intermediate vectors live in one contiguous scratch
+ * arena of two ping-pong regions: a stage reads one region and writes the other one, the element-wise stages work
+ * inplace. So the arena size doesn't depend on the depth of the model.
+ *
+ * @see NeuralSequentialInference
+ */
+@Immutable
+public final class NeuralSequentialModel {
+
+    /**
+     * The regions start at the cache line boundary (8 doubles)
+     */
+    private static final int ALIGNMENT = 8;
+
+    private final List<LalgMatrix> embeddingMatrices;
+
+    private final List<Step> steps;
+
+    private final int arenaSize;
+
+    private final int outputOffset;
+
+    private final int outputSize;
+
+    private NeuralSequentialModel(List<LalgMatrix> embeddingMatrices, List<Step> steps, int arenaSize,
+                                  int outputOffset, int outputSize)
+    {
+        this.embeddingMatrices = embeddingMatrices;
+        this.steps = steps;
+        this.arenaSize = arenaSize;
+        this.outputOffset = outputOffset;
+        this.outputSize = outputSize;
+    }
+
+    /**
+     * Starts the model
+     *
+     * @param embeddingList Embedding matrices, one per input feature
+     * @return Builder
+     */
+    public static Builder builder(List<double[][]> embeddingList) {
+        return new Builder(embeddingList);
+    }
+
+    /**
+     * The model of {@link NeuralLalgInference}: embedding, dense + ReLU, dense, soft max, cumulative sum
+     *
+     * @param embeddingList Embedding matrices
+     * @param transposedLayer1 Transposed weights of the layer 1
+     * @param transposedLayer2 Transposed weights of the layer 2
+     * @param bias1 Bias of the layer 1
+     * @param bias2 Bias of the layer 2
+     * @return Model
+     */
+    public static NeuralSequentialModel twoLayer(List<double[][]> embeddingList,
+                                                 double[][] transposedLayer1,
+                                                 double[][] transposedLayer2,
+                                                 double[] bias1,
+                                                 double[] bias2)
+    {
+        return builder(embeddingList)
+            .dense(transposedLayer1, bias1)
+            .activation(NeuralActivation.RELU)
+            .dense(transposedLayer2, bias2)
+            .normalization(NeuralNormalization.SOFT_MAX)
+            .normalization(NeuralNormalization.CUM_SUM)
+            .build();
+    }
+
+    /**
+     * Number of the input features
+     *
+     * @return Input size
+     */
+    public int getInputSize() {
+        return embeddingMatrices.size();
+    }
+
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    /**
+     * Number of doubles in the per-thread scratch arena
+     *
+     * @return Arena size
+     */
+    public int getArenaSize() {
+        return arenaSize;
+    }
+
+    /**
+     * Compute the model in the arena
+     *
+     * @param input Input feature values
+     * @param arena Scratch arena of {@link #getArenaSize()} elements
+     * @return Offset of the output in the arena
+     */
+    int compute(int[] input, double[] arena) {
+        if (input.length != this.embeddingMatrices.size()) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Input vector size doesn't the number of embedding matrices: %d <> %d",
+                    input.length, this.embeddingMatrices.size()
+                )
+            );
+        }
+
+        for (int i = 0, targetOffset = 0; i < input.length; i++) {
+            LalgMatrix sourceMatrix = this.embeddingMatrices.get(i);
+
+            System.arraycopy(
+                sourceMatrix.data, input[i] * sourceMatrix.columns,
+                arena, targetOffset,
+                sourceMatrix.columns
+            );
+
+            targetOffset += sourceMatrix.columns;
+        }
+
+        for (int i = 0, limit = this.steps.size(); i < limit; i++) {
+            this.steps.get(i).compute(arena);
+        }
+
+        return this.outputOffset;
+    }
+
+    @Override
+    public String toString() {
+        return steps.stream()
+            .map(Object::toString)
+            .collect(Collectors.joining(" -> ", "embedding -> ", ""));
+    }
+
+    private static int align(int size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    /**
+     * Builder of the model
+     */
+    @NotThreadSafe
+    public static final class Builder {
+
+        private final List<LalgMatrix> embeddingMatrices;
+
+        private final List<Stage> stages;
+
+        private int width;
+
+        private Builder(List<double[][]> embeddingList) {
+            Preconditions.checkArgument(!embeddingList.isEmpty(), "Embedding list is empty");
+
+            this.embeddingMatrices = embeddingList.stream()
+                .map(LalgMatrix::new)
+                .collect(Collectors.toUnmodifiableList());
+
+            this.stages = new ArrayList<>();
+
+            this.width = this.embeddingMatrices.stream()
+                .mapToInt(m -> m.columns)
+                .sum();
+        }
+
+        /**
+         * Add the dense stage x * W + b
+         *
+         * @param transposedWeights Transposed weights MxN (N is the width of the previous stage)
+         * @param bias Bias of M elements, or null
+         * @return This builder
+         */
+        public Builder dense(double[][] transposedWeights, double[] bias) {
+            LalgMatrix matrix = new LalgMatrix(transposedWeights);
+            Preconditions.checkArgument(matrix.columns == this.width,
+                "Dense stage column mismatch: %s <> %s", matrix.columns, this.width);
+
+            if (bias != null) {
+                Preconditions.checkArgument(bias.length == matrix.rows,
+                    "Bias size mismatch: %s <> %s", bias.length, matrix.rows);
+            }
+
+            this.stages.add(new Stage(matrix, bias != null ? bias.clone() : null, null, null));
+            this.width = matrix.rows;
+            return this;
+        }
+
+        /**
+         * Add the element-wise activation stage
+         *
+         * @param activation Activation
+         * @return This builder
+         */
+        public Builder activation(NeuralActivation activation) {
+            Preconditions.checkNotNull(activation, "Activation is null");
+
+            this.stages.add(new Stage(null, null, activation, null));
+            return this;
+        }
+
+        /**
+         * Add the normalization stage
+         *
+         * @param normalization Normalization
+         * @return This builder
+         */
+        public Builder normalization(NeuralNormalization normalization) {
+            Preconditions.checkNotNull(normalization, "Normalization is null");
+
+            this.stages.add(new Stage(null, null, null, normalization));
+            return this;
+        }
+
+        /**
+         * Plan the stages and the arena
+         *
+         * @return Model
+         */
+        public NeuralSequentialModel build() {
+            List<Stage> merged = mergeNormalizations(this.stages);
+
+            int embeddingSize = this.embeddingMatrices.stream()
+                .mapToInt(m -> m.columns)
+                .sum();
+
+            int regionSize = embeddingSize;
+            for (Stage stage : merged) {
+                if (stage.matrix != null) {
+                    regionSize = Math.max(regionSize, stage.matrix.rows);
+                }
+            }
+            regionSize = align(regionSize);
+
+            List<Step> steps = new ArrayList<>();
+
+            // the embedding is written into the first region
+            int current = 0;
+            int currentWidth = embeddingSize;
+
+            for (int i = 0; i < merged.size(); i++) {
+                Stage stage = merged.get(i);
+                Stage next = i + 1 < merged.size() ? merged.get(i + 1) : null;
+
+                if (stage.matrix != null) {
+                    int target = current == 0 ? regionSize : 0;
+
+                    if (stage.bias != null && next != null && next.activation == NeuralActivation.RELU) {
+                        steps.add(new DenseStep(stage.matrix, stage.bias, true, current, target));
+                        i++;
+                    } else if (stage.bias != null && next != null && next.normalization != null) {
+                        steps.add(new DenseStep(stage.matrix, null, false, current, target));
+                        steps.add(new NormalizationStep(next.normalization, stage.bias, target, stage.matrix.rows));
+                        i++;
+                    } else {
+                        steps.add(new DenseStep(stage.matrix, stage.bias, false, current, target));
+                    }
+
+                    current = target;
+                    currentWidth = stage.matrix.rows;
+                } else if (stage.activation != null) {
+                    steps.add(new ActivationStep(stage.activation, current, currentWidth));
+                } else {
+                    steps.add(new NormalizationStep(stage.normalization, null, current, currentWidth));
+                }
+            }
+
+            return new NeuralSequentialModel(
+                this.embeddingMatrices, List.copyOf(steps), 2 * regionSize, current, currentWidth
+            );
+        }
+
+        private static List<Stage> mergeNormalizations(List<Stage> stages) {
+            List<Stage> result = new ArrayList<>(stages.size());
+
+            for (int i = 0; i < stages.size(); i++) {
+                Stage stage = stages.get(i);
+                Stage next = i + 1 < stages.size() ? stages.get(i + 1) : null;
+
+                if (stage.normalization == NeuralNormalization.SOFT_MAX
+                    && next != null && next.normalization == NeuralNormalization.CUM_SUM)
+                {
+                    result.add(new Stage(null, null, null, NeuralNormalization.SOFT_MAX_CUM_SUM));
+                    i++;
+                } else {
+                    result.add(stage);
+                }
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Stage definition (only one of the matrix, the activation or the normalization is set)
+     */
+    private static final class Stage {
+
+        private final LalgMatrix matrix;
+
+        private final double[] bias;
+
+        private final NeuralActivation activation;
+
+        private final NeuralNormalization normalization;
+
+        private Stage(LalgMatrix matrix, double[] bias, NeuralActivation activation,
+                      NeuralNormalization normalization)
+        {
+            this.matrix = matrix;
+            this.bias = bias;
+            this.activation = activation;
+            this.normalization = normalization;
+        }
+    }
+
+    /**
+     * Planned stage working over the fixed segments of the arena
+     */
+    private interface Step {
+
+        void compute(double[] arena);
+    }
+
+    private static final class DenseStep implements Step {
+
+        private final LalgMatrix matrix;
+
+        private final double[] bias;
+
+        private final boolean relu;
+
+        private final int inputOffset;
+
+        private final int outputOffset;
+
+        private DenseStep(LalgMatrix matrix, double[] bias, boolean relu, int inputOffset, int outputOffset) {
+            this.matrix = matrix;
+            this.bias = bias;
+            this.relu = relu;
+            this.inputOffset = inputOffset;
+            this.outputOffset = outputOffset;
+        }
+
+        @Override
+        public void compute(double[] arena) {
+            if (relu) {
+                LalgOperations.multiplyByTransposedMatrixAddRelu(arena, inputOffset, matrix, bias, arena, outputOffset);
+            } else {
+                LalgOperations.multiplyByTransposedMatrix(arena, inputOffset, matrix, arena, outputOffset);
+
+                if (bias != null) {
+                    LalgOperations.inplaceAdd(arena, outputOffset, bias);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("dense%s%s[%d]", bias != null ? "+bias" : "", relu ? "+relu" : "", matrix.rows);
+        }
+    }
+
+    private static final class ActivationStep implements Step {
+
+        private final NeuralActivation activation;
+
+        private final int offset;
+
+        private final int size;
+
+        private ActivationStep(NeuralActivation activation, int offset, int size) {
+            this.activation = activation;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        @Override
+        public void compute(double[] arena) {
+            activation.apply(arena, offset, offset + size);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s[%d]", activation.name().toLowerCase(), size);
+        }
+    }
+
+    private static final class NormalizationStep implements Step {
+
+        private final NeuralNormalization normalization;
+
+        private final double[] bias;
+
+        private final int offset;
+
+        private final int size;
+
+        private NormalizationStep(NeuralNormalization normalization, double[] bias, int offset, int size) {
+            this.normalization = normalization;
+            this.bias = bias;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        @Override
+        public void compute(double[] arena) {
+            if (bias != null && normalization == NeuralNormalization.SOFT_MAX_CUM_SUM) {
+                LalgOperations.inplaceAddSoftMaxCumSum(arena, offset, bias);
+            } else {
+                if (bias != null) {
+                    LalgOperations.inplaceAdd(arena, offset, bias);
+                }
+
+                normalization.apply(arena, offset, offset + size);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s%s[%d]", bias != null ? "bias+" : "", normalization.name().toLowerCase(), size);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package org.github.mazurkin.domain;
+
+/**
+ * Stage of the {@link NeuralLalgInference} computation measured by {@link NeuralStageTimings}
+ */
+public enum NeuralStage {
+
+    /**
+     * Gather of the embedding rows
+     */
+    EMBEDDING,
+
+    /**
+     * Layer 1 product with the bias (or the pre-projected tables) and the rectification
+     */
+    LAYER1,
+
+    /**
+     * Layer 2 product
+     */
+    LAYER2,
+
+    /**
+     * Layer 2 bias, the soft max and the cumulative sum
+     */
+    SOFTMAX
+}
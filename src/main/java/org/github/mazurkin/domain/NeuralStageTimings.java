@@ -0,0 +1,148 @@
+package org.github.mazurkin.domain;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Recorder of the per-stage latencies of {@link NeuralLalgInference} (see
+ * {@link NeuralLalgOptions#withStageTimings(NeuralStageTimings)}). A thread records into its own stripe of the
+ * log-bucketed counters selected by the thread id, so the threads don't share the cache lines while the number
+ * of the threads doesn't exceed the number of the stripes. The recording is lock-free and allocation-free,
+ * the reporting thread takes the {@link #snapshot() snapshots} at any time.
+ */
+@ThreadSafe
+public final class NeuralStageTimings {
+
+    private static final NeuralStage[] STAGES = NeuralStage.values();
+
+    /**
+     * Counters of a stage: the buckets and the total
+     */
+    private static final int STAGE_SIZE = NeuralLatencyHistogram.BUCKET_COUNT + 1;
+
+    private final AtomicLongArray[] stripes;
+
+    private final int stripeMask;
+
+    /**
+     * Recorder with the number of the stripes for twice the number of the processors
+     */
+    public NeuralStageTimings() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Recorder
+     *
+     * @param stripeCount Number of the stripes, it is rounded up to the power of two
+     */
+    public NeuralStageTimings(int stripeCount) {
+        Preconditions.checkArgument(stripeCount > 0, "Stripe count must be positive: %s", stripeCount);
+
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) {
+            size <<= 1;
+        }
+
+        this.stripes = new AtomicLongArray[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new AtomicLongArray(STAGES.length * STAGE_SIZE);
+        }
+
+        this.stripeMask = size - 1;
+    }
+
+    /**
+     * Record the duration of the stage
+     *
+     * @param stage Stage
+     * @param nanos Duration in nanoseconds
+     */
+    public void record(NeuralStage stage, long nanos) {
+        AtomicLongArray stripe = stripes[(int) Thread.currentThread().getId() & stripeMask];
+
+        int offset = stage.ordinal() * STAGE_SIZE;
+
+        stripe.getAndIncrement(offset + NeuralLatencyHistogram.bucketIndex(nanos));
+        stripe.getAndAdd(offset + NeuralLatencyHistogram.BUCKET_COUNT, nanos);
+    }
+
+    /**
+     * Merge the stripes. The recording threads are not stopped, so a call in progress could be present in one
+     * stage and absent in the following one.
+     *
+     * @return Snapshot
+     */
+    public Snapshot snapshot() {
+        Map<NeuralStage, NeuralLatencyHistogram> histograms = new EnumMap<>(NeuralStage.class);
+
+        for (NeuralStage stage : STAGES) {
+            int offset = stage.ordinal() * STAGE_SIZE;
+
+            long[] counts = new long[NeuralLatencyHistogram.BUCKET_COUNT];
+            long totalNanos = 0;
+
+            for (AtomicLongArray stripe : stripes) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += stripe.get(offset + i);
+                }
+
+                totalNanos += stripe.get(offset + NeuralLatencyHistogram.BUCKET_COUNT);
+            }
+
+            histograms.put(stage, new NeuralLatencyHistogram(counts, totalNanos));
+        }
+
+        return new Snapshot(histograms);
+    }
+
+    /**
+     * Latency distributions of the stages
+     */
+    @Immutable
+    public static final class Snapshot {
+
+        private final Map<NeuralStage, NeuralLatencyHistogram> histograms;
+
+        private Snapshot(Map<NeuralStage, NeuralLatencyHistogram> histograms) {
+            this.histograms = histograms;
+        }
+
+        public NeuralLatencyHistogram getHistogram(NeuralStage stage) {
+            return histograms.get(stage);
+        }
+
+        /**
+         * Sum of the snapshots, for example of the different inferences
+         *
+         * @param other Other snapshot
+         * @return Merged snapshot
+         */
+        public Snapshot merge(Snapshot other) {
+            Map<NeuralStage, NeuralLatencyHistogram> merged = new EnumMap<>(NeuralStage.class);
+
+            for (NeuralStage stage : STAGES) {
+                merged.put(stage, histograms.get(stage).merge(other.histograms.get(stage)));
+            }
+
+            return new Snapshot(merged);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+
+            for (NeuralStage stage : STAGES) {
+                builder.append(String.format("%-9s %s%n", stage, histograms.get(stage)));
+            }
+
+            return builder.toString();
+        }
+    }
+}
@@ -53,6 +53,29 @@ public final class NeuralUtils {
         return result;
     }
 
+    /**
+     * Random matrix with the values uniform in [-0.5, 0.5), unlike {@link #randomArray(int, int, int)} the values
+     * are of the same magnitude, so they survive the lossy compression
+     *
+     * @param rows Number of rows
+     * @param columns Number of columns
+     * @param seed Seed
+     * @return Matrix
+     */
+    public static double[][] uniformArray(int rows, int columns, int seed) {
+        Random random = new Random(seed);
+
+        double[][] result = new double[rows][columns];
+
+        for (double[] row : result) {
+            for (int c = 0; c < columns; c++) {
+                row[c] = random.nextDouble() - 0.5;
+            }
+        }
+
+        return result;
+    }
+
     public static List<double[][]> buildEmbeddingList(int embeddingSize) {
         // 9 features
         return ImmutableList.of(
@@ -0,0 +1,87 @@
+package org.github.mazurkin.lalg;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * Read-only MxN row-major matrix over a {@link DoubleBuffer} (typically a memory-mapped file section).
+ * Only the absolute accessors of the buffer are used, so the same instance could be shared across threads.
+ *
+ * @see LalgMatrix
+ */
+public class LalgBufferMatrix {
+
+    public final DoubleBuffer data;
+
+    public final int rows;
+
+    public final int columns;
+
+    /**
+     * Creates a matrix over the buffer, the matrix starts at the index 0 of the buffer
+     *
+     * @param data Values
+     * @param rows Number of rows
+     * @param columns Number of columns
+     */
+    public LalgBufferMatrix(DoubleBuffer data, int rows, int columns) {
+        Preconditions.checkNotNull(data, "Buffer is null");
+
+        Preconditions.checkArgument(rows > 0, "Number of rows is invalid: %s", rows);
+        Preconditions.checkArgument(columns > 0, "Number of columns is invalid: %s", columns);
+
+        Preconditions.checkArgument(data.limit() >= rows * columns,
+            "Buffer size mismatch: %s < (%s * %s)", data.limit(), rows, columns);
+
+        this.rows = rows;
+        this.columns = columns;
+        this.data = data;
+    }
+
+    /**
+     * Get the element
+     *
+     * @param row Row index
+     * @param column Column index
+     * @return Value
+     */
+    public double get(int row, int column) {
+        return data.get(row * columns + column);
+    }
+
+    /**
+     * Copy the row into the array
+     *
+     * @param row Row index
+     * @param target Target array
+     * @param targetOffset Offset in the target array
+     */
+    public void copyRow(int row, double[] target, int targetOffset) {
+        if (row < 0 || row >= this.rows) {
+            throw new IllegalArgumentException(
+                String.format("Row is out of range: %d (rows %d)", row, this.rows)
+            );
+        }
+
+        for (int j = 0, srcIdx = row * columns; j < columns; j++, srcIdx++) {
+            target[targetOffset + j] = data.get(srcIdx);
+        }
+    }
+
+    /**
+     * Copy the whole matrix to the heap
+     *
+     * @return Heap matrix
+     */
+    public LalgMatrix toMatrix() {
+        double[] copy = new double[rows * columns];
+
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = data.get(i);
+        }
+
+        return new LalgMatrix(copy, rows, columns);
+    }
+
+}
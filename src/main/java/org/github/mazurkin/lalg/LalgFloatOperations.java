@@ -0,0 +1,224 @@
+package org.github.mazurkin.lalg;
+
+/**
+ * Collection of operations on each element of a single-precision data array
+ *
+ * @see LalgOperations
+ */
+public final class LalgFloatOperations {
+
+    private LalgFloatOperations() {
+        // utility class
+    }
+
+    /**
+     * Calculate max(abs(data))
+     * @param data Data array to scan
+     * @return Result value
+     */
+    public static float computeNormMax(float[] data) {
+        float max = 0.0f;
+
+        for (float item : data) {
+            float v = Math.abs(item);
+
+            if (v > max) {
+                max = v;
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Calculate max(data)
+     * @param data Data array to scan
+     * @return Result value
+     */
+    public static float computeMax(float[] data) {
+        float max = -Float.MAX_VALUE;
+
+        for (float item : data) {
+            if (item > max) {
+                max = item;
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Calculate min(data)
+     * @param data Data array to scan
+     * @return Result value
+     */
+    public static float computeMin(float[] data) {
+        float min = Float.MAX_VALUE;
+
+        for (float item : data) {
+            if (item < min) {
+                min = item;
+            }
+        }
+
+        return min;
+    }
+
+    /**
+     * Calculate sum(data) with the double precision accumulator
+     * @param data Data array to scan
+     * @return Result value
+     */
+    public static double computeSum(float[] data) {
+        double sum = 0.0;
+
+        for (float item : data) {
+            sum += item;
+        }
+
+        return sum;
+    }
+
+    /**
+     * Calculate dot product of two arrays
+     * @param data1 Data array 1
+     * @param data2 Data array 2
+     * @return Result value
+     * @see <a href="https://en.wikipedia.org/wiki/Dot_product">Dot product</a>
+     */
+    public static float computeDotProduct(float[] data1, float[] data2) {
+        if (data1.length != data2.length) {
+            throw new IllegalArgumentException(
+                String.format("Array length mismatch: %d <> %d", data1.length, data2.length)
+            );
+        }
+
+        float sum = 0.0f;
+
+        for (int i = 0, limit = data1.length; i < limit; i++) {
+            sum += data1[i] * data2[i];
+        }
+
+        return sum;
+    }
+
+    /**
+     * Calculate element-wise (hadamard) product of two arrays (data1[i] * data2[i]) -> target[i]
+     * @param data1 Data array 1
+     * @param data2 Data array 2
+     * @param target Target array (could be either data1 or data2 or even other array)
+     */
+    public static void inplaceMul(float[] data1, float[] data2, float[] target) {
+        checkLengths(data1, data2, target);
+
+        for (int i = 0, limit = data1.length; i < limit; i++) {
+            target[i] = data1[i] * data2[i];
+        }
+    }
+
+    /**
+     * Calculate element-wise sum of two arrays (data1[i] + data2[i]) -> target[i]
+     * @param data1 Data array 1
+     * @param data2 Data array 2
+     * @param target Target array (could be either data1 or data2 or even other array)
+     */
+    public static void inplaceAdd(float[] data1, float[] data2, float[] target) {
+        checkLengths(data1, data2, target);
+
+        for (int i = 0, limit = data1.length; i < limit; i++) {
+            target[i] = data1[i] + data2[i];
+        }
+    }
+
+    /**
+     * Calculate element-wise substraction of two arrays (data1[i] - data2[i]) -> target[i]
+     * @param data1 Data array 1
+     * @param data2 Data array 2
+     * @param target Target array (could be either data1 or data2 or even other array)
+     */
+    public static void inplaceSub(float[] data1, float[] data2, float[] target) {
+        checkLengths(data1, data2, target);
+
+        for (int i = 0, limit = data1.length; i < limit; i++) {
+            target[i] = data1[i] - data2[i];
+        }
+    }
+
+    /**
+     * Rectification (inplace)
+     * @param data Data array to modify
+     */
+    public static void inplaceRelu(float[] data) {
+        for (int i = 0, limit = data.length; i < limit; i++) {
+            float v = data[i];
+
+            if (v < 0.0f) {
+                data[i] = 0.0f;
+            }
+        }
+    }
+
+    /**
+     * Soft max (inplace), the exponents are summed in double precision
+     * @param data Data array to modify
+     */
+    public static void inplaceSoftMax(float[] data) {
+        float offset = computeNormMax(data);
+
+        double sum = 0.0;
+
+        for (int i = 0, limit = data.length; i < limit; i++) {
+            float v = (float) Math.exp(data[i] - offset);
+            data[i] = v;
+            sum += v;
+        }
+
+        for (int i = 0, limit = data.length; i < limit; i++) {
+            data[i] = (float) (data[i] / sum);
+        }
+    }
+
+    /**
+     * Cumulative sum (inplace), the running sum is kept in double precision
+     * @param data Data array to modify
+     */
+    public static void inplaceCumSum(float[] data) {
+        double sum = 0.0;
+
+        for (int i = 0, limit = data.length; i < limit; i++) {
+            sum += data[i];
+            data[i] = (float) sum;
+        }
+    }
+
+    /**
+     * Widen the values (source[i]) -> target[i]
+     * @param source Source array
+     * @param target Target array
+     */
+    public static void copyToDouble(float[] source, double[] target) {
+        if (source.length != target.length) {
+            throw new IllegalArgumentException(
+                String.format("Array length mismatch (source, target): %d <> %d", source.length, target.length)
+            );
+        }
+
+        for (int i = 0, limit = source.length; i < limit; i++) {
+            target[i] = source[i];
+        }
+    }
+
+    private static void checkLengths(float[] data1, float[] data2, float[] target) {
+        if (data1.length != data2.length) {
+            throw new IllegalArgumentException(
+                String.format("Array length mismatch (data1, data2): %d <> %d", data1.length, data2.length)
+            );
+        }
+
+        if (data1.length != target.length) {
+            throw new IllegalArgumentException(
+                String.format("Array length mismatch (data1, target): %d <> %d", data1.length, target.length)
+            );
+        }
+    }
+}
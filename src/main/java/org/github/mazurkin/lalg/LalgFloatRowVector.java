@@ -0,0 +1,144 @@
+package org.github.mazurkin.lalg;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Single-precision row (1xN, multi-column) vector with immutable dimensions but mutable content
+ *
+ * @see LalgRowVector
+ */
+public class LalgFloatRowVector {
+
+    public final float[] data;
+
+    public final int columns;
+
+    /**
+     * Creates 1xN multi-column vector with data
+     * @param data Values
+     */
+    public LalgFloatRowVector(float[] data) {
+        Preconditions.checkNotNull(data, "Array is null");
+        this.data = data;
+
+        this.columns = data.length;
+        Preconditions.checkArgument(this.columns > 0, "Array has no elements");
+    }
+
+    /**
+     * Creates zero 1xN vector
+     * @param columns Number of columns
+     */
+    public LalgFloatRowVector(int columns) {
+        Preconditions.checkArgument(columns > 0, "Number of columns is invalid: %s", columns);
+        this.columns = columns;
+
+        this.data = new float[columns];
+    }
+
+    /**
+     * Creates same copy of this vector with new data array
+     * @return New vector
+     */
+    public LalgFloatRowVector copy() {
+        float[] copy = Arrays.copyOf(this.data, this.data.length);
+        return new LalgFloatRowVector(copy);
+    }
+
+    /**
+     * Transpose to Nx1 vector
+     * @return Nx1 vector
+     */
+    public LalgFloatColVector transpose() {
+        return new LalgFloatColVector(this.data);
+    }
+
+    /**
+     * Multiply this 1xN vector by the <em>transposed</em> matrix MxN and put result to the target 1xM vector
+     *
+     * @param transposedMatrix Transposed MxN matrix (original matrix was NxM)
+     * @param target Target 1xM vector
+     */
+    public void multiplyByTransposedMatrix(LalgFloatMatrix transposedMatrix, LalgFloatRowVector target) {
+        multiplyByTransposedMatrix(transposedMatrix, target, false);
+    }
+
+    /**
+     * Multiply this 1xN vector by the <em>transposed</em> matrix MxN and put result to the target 1xM vector
+     *
+     * @param transposedMatrix Transposed MxN matrix (original matrix was NxM)
+     * @param target Target 1xM vector
+     * @param doubleAccumulator Accumulate the dot products in double precision (slower but the rounding error
+     *                          doesn't grow with the length of the vector)
+     */
+    public void multiplyByTransposedMatrix(LalgFloatMatrix transposedMatrix, LalgFloatRowVector target,
+                                           boolean doubleAccumulator)
+    {
+        if (this.columns != transposedMatrix.columns) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Source vector columns and transposed matrix columns do not match: %d <> %d",
+                    this.columns, transposedMatrix.columns
+                )
+            );
+        }
+
+        if (target.columns != transposedMatrix.rows) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Target vector columns and transposed matrix rows do not match: %s <> %s",
+                    target.columns, transposedMatrix.rows
+                )
+            );
+        }
+
+        if (doubleAccumulator) {
+            for (int i = 0, mtxOffset = 0; i < transposedMatrix.rows; i++) {
+                double sum = 0.0;
+
+                for (int j = 0; j < this.columns; j++, mtxOffset++) {
+                    sum += (double) this.data[j] * transposedMatrix.data[mtxOffset];
+                }
+
+                target.data[i] = (float) sum;
+            }
+        } else {
+            for (int i = 0, mtxOffset = 0; i < transposedMatrix.rows; i++) {
+                float sum = 0.0f;
+
+                for (int j = 0; j < this.columns; j++, mtxOffset++) {
+                    sum += this.data[j] * transposedMatrix.data[mtxOffset];
+                }
+
+                target.data[i] = sum;
+            }
+        }
+    }
+
+    /**
+     * Multiply by Nx1 vector
+     * @param vector Nx1 vector
+     * @return scalar result
+     */
+    public float multiplyByVector(LalgFloatColVector vector) {
+        if (this.columns != vector.rows) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "This vector's columns and other vector's rows do not match: %d <> %d",
+                    this.columns, vector.rows
+                )
+            );
+        }
+
+        float sum = 0.0f;
+
+        for (int i = 0; i < columns; i++) {
+            sum += this.data[i] * vector.data[i];
+        }
+
+        return sum;
+    }
+
+}
@@ -0,0 +1,265 @@
+package org.github.mazurkin.lalg;
+
+/**
+ * General matrix-matrix multiplication kernels for the layout used by {@link LalgMatrix}: the left matrix A is MxK,
+ * the right matrix is given <em>transposed</em> as B (NxK), so every element of the result C (MxN) is a dot product
+ * of a row of A and a row of B. All matrices are flat row-major arrays.
+ *
+ * @see <a href="https://www.cs.utexas.edu/~flame/pubs/GotoTOMS_revision.pdf">Anatomy of High-Performance Matrix Multiplication</a>
+ */
+public final class LalgGemm {
+
+    /**
+     * Rows of A in the register micro-tile
+     */
+    static final int MR = 4;
+
+    /**
+     * Rows of B (columns of C) in the register micro-tile
+     */
+    static final int NR = 4;
+
+    /**
+     * Depth of the packed panels, NR x KC micro-panel of B should stay in L1
+     */
+    static final int KC = 256;
+
+    /**
+     * Rows of the packed block of A, MC x KC block should stay in L2
+     */
+    static final int MC = 64;
+
+    /**
+     * Rows of the packed panel of B, NC x KC panel should stay in L3
+     */
+    static final int NC = 512;
+
+    private static final ThreadLocal<Panels> PANELS = ThreadLocal.withInitial(Panels::new);
+
+    private LalgGemm() {
+        // utility class
+    }
+
+    /**
+     * Multiply the first M rows of A (MxK) by B (NxK) transposed and put the result into C (MxN)
+     *
+     * @param a Matrix A
+     * @param b Matrix B (transposed right matrix)
+     * @param c Result matrix C
+     * @param m Number of rows of A and C
+     * @param n Number of rows of B and columns of C
+     * @param k Number of columns of A and B
+     */
+    public static void multiply(double[] a, double[] b, double[] c, int m, int n, int k) {
+        multiply(a, 0, b, 0, c, m, n, k);
+    }
+
+    /**
+     * Multiply the rows [aRow, aRow + M) of A by the rows [bRow, bRow + N) of B transposed and put the result
+     * into C (MxN), the rows of A and B are K elements long
+     *
+     * @param a Matrix A
+     * @param aRow First row of A
+     * @param b Matrix B (transposed right matrix)
+     * @param bRow First row of B
+     * @param c Result matrix C
+     * @param m Number of rows of A and C
+     * @param n Number of rows of B and columns of C
+     * @param k Number of columns of A and B
+     */
+    public static void multiply(double[] a, int aRow, double[] b, int bRow, double[] c, int m, int n, int k) {
+        if (m < MR || n < NR) {
+            // packing doesn't pay off for the matrix-vector products
+            multiplyNaive(a, aRow, b, bRow, c, m, n, k);
+        } else {
+            multiplyBlocked(a, aRow, b, bRow, c, m, n, k);
+        }
+    }
+
+    /**
+     * Reference triple loop with a single accumulator
+     *
+     * @param a Matrix A
+     * @param b Matrix B (transposed right matrix)
+     * @param c Result matrix C
+     * @param m Number of rows of A and C
+     * @param n Number of rows of B and columns of C
+     * @param k Number of columns of A and B
+     */
+    public static void multiplyNaive(double[] a, double[] b, double[] c, int m, int n, int k) {
+        multiplyNaive(a, 0, b, 0, c, m, n, k);
+    }
+
+    private static void multiplyNaive(double[] a, int aRow, double[] b, int bRow, double[] c, int m, int n, int k) {
+        for (int i = 0, cIdx = 0, aOfst = aRow * k; i < m; i++, aOfst += k) {
+            for (int j = 0, bIdx = bRow * k; j < n; j++, cIdx++) {
+                double sum = 0.0;
+
+                for (int p = 0, aIdx = aOfst; p < k; p++, aIdx++, bIdx++) {
+                    sum += a[aIdx] * b[bIdx];
+                }
+
+                c[cIdx] = sum;
+            }
+        }
+    }
+
+    /**
+     * Cache-blocked kernel: the panels of B and the blocks of A are packed into the contiguous buffers in the order
+     * the MRxNR register micro-kernel reads them
+     *
+     * @param a Matrix A
+     * @param b Matrix B (transposed right matrix)
+     * @param c Result matrix C
+     * @param m Number of rows of A and C
+     * @param n Number of rows of B and columns of C
+     * @param k Number of columns of A and B
+     */
+    public static void multiplyBlocked(double[] a, double[] b, double[] c, int m, int n, int k) {
+        multiplyBlocked(a, 0, b, 0, c, m, n, k);
+    }
+
+    private static void multiplyBlocked(double[] a, int aRow, double[] b, int bRow, double[] c, int m, int n, int k) {
+        Panels panels = PANELS.get();
+
+        double[] packedA = panels.a;
+        double[] packedB = panels.b;
+
+        for (int jc = 0; jc < n; jc += NC) {
+            int nc = Math.min(NC, n - jc);
+
+            for (int pc = 0; pc < k; pc += KC) {
+                int kc = Math.min(KC, k - pc);
+                boolean accumulate = pc > 0;
+
+                pack(b, k, bRow + jc, nc, pc, kc, NR, packedB);
+
+                for (int ic = 0; ic < m; ic += MC) {
+                    int mc = Math.min(MC, m - ic);
+
+                    pack(a, k, aRow + ic, mc, pc, kc, MR, packedA);
+
+                    for (int jr = 0; jr < nc; jr += NR) {
+                        int nr = Math.min(NR, nc - jr);
+                        int bOfst = jr * kc;
+
+                        for (int ir = 0; ir < mc; ir += MR) {
+                            int mr = Math.min(MR, mc - ir);
+                            int aOfst = ir * kc;
+
+                            int cOfst = (ic + ir) * n + jc + jr;
+
+                            if (mr == MR && nr == NR) {
+                                kernel(packedA, aOfst, packedB, bOfst, kc, c, cOfst, n, accumulate);
+                            } else {
+                                kernelEdge(packedA, aOfst, packedB, bOfst, kc, c, cOfst, n, mr, nr, accumulate);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Pack the block (rows x depth) of the row-major source into the groups of the given height where
+     * each column of the group is contiguous. The incomplete last group is padded with zeros.
+     */
+    private static void pack(double[] src, int stride, int row0, int rows, int col0, int cols,
+                             int group, double[] target)
+    {
+        int tgtIdx = 0;
+
+        for (int g = 0; g < rows; g += group) {
+            int height = Math.min(group, rows - g);
+
+            for (int r = 0; r < group; r++) {
+                if (r < height) {
+                    int srcIdx = (row0 + g + r) * stride + col0;
+
+                    for (int p = 0, t = tgtIdx + r; p < cols; p++, t += group) {
+                        target[t] = src[srcIdx + p];
+                    }
+                } else {
+                    for (int p = 0, t = tgtIdx + r; p < cols; p++, t += group) {
+                        target[t] = 0.0;
+                    }
+                }
+            }
+
+            tgtIdx += group * cols;
+        }
+    }
+
+    private static void kernel(double[] a, int aIdx, double[] b, int bIdx, int kc,
+                               double[] c, int cIdx, int ldc, boolean accumulate)
+    {
+        double c00 = 0.0, c01 = 0.0, c02 = 0.0, c03 = 0.0;
+        double c10 = 0.0, c11 = 0.0, c12 = 0.0, c13 = 0.0;
+        double c20 = 0.0, c21 = 0.0, c22 = 0.0, c23 = 0.0;
+        double c30 = 0.0, c31 = 0.0, c32 = 0.0, c33 = 0.0;
+
+        for (int p = 0; p < kc; p++, aIdx += MR, bIdx += NR) {
+            double a0 = a[aIdx];
+            double a1 = a[aIdx + 1];
+            double a2 = a[aIdx + 2];
+            double a3 = a[aIdx + 3];
+
+            double b0 = b[bIdx];
+            double b1 = b[bIdx + 1];
+            double b2 = b[bIdx + 2];
+            double b3 = b[bIdx + 3];
+
+            c00 += a0 * b0; c01 += a0 * b1; c02 += a0 * b2; c03 += a0 * b3;
+            c10 += a1 * b0; c11 += a1 * b1; c12 += a1 * b2; c13 += a1 * b3;
+            c20 += a2 * b0; c21 += a2 * b1; c22 += a2 * b2; c23 += a2 * b3;
+            c30 += a3 * b0; c31 += a3 * b1; c32 += a3 * b2; c33 += a3 * b3;
+        }
+
+        if (accumulate) {
+            c00 += c[cIdx]; c01 += c[cIdx + 1]; c02 += c[cIdx + 2]; c03 += c[cIdx + 3];
+            cIdx += ldc;
+            c10 += c[cIdx]; c11 += c[cIdx + 1]; c12 += c[cIdx + 2]; c13 += c[cIdx + 3];
+            cIdx += ldc;
+            c20 += c[cIdx]; c21 += c[cIdx + 1]; c22 += c[cIdx + 2]; c23 += c[cIdx + 3];
+            cIdx += ldc;
+            c30 += c[cIdx]; c31 += c[cIdx + 1]; c32 += c[cIdx + 2]; c33 += c[cIdx + 3];
+            cIdx -= 3 * ldc;
+        }
+
+        c[cIdx] = c00; c[cIdx + 1] = c01; c[cIdx + 2] = c02; c[cIdx + 3] = c03;
+        cIdx += ldc;
+        c[cIdx] = c10; c[cIdx + 1] = c11; c[cIdx + 2] = c12; c[cIdx + 3] = c13;
+        cIdx += ldc;
+        c[cIdx] = c20; c[cIdx + 1] = c21; c[cIdx + 2] = c22; c[cIdx + 3] = c23;
+        cIdx += ldc;
+        c[cIdx] = c30; c[cIdx + 1] = c31; c[cIdx + 2] = c32; c[cIdx + 3] = c33;
+    }
+
+    private static void kernelEdge(double[] a, int aOfst, double[] b, int bOfst, int kc,
+                                   double[] c, int cOfst, int ldc, int mr, int nr, boolean accumulate)
+    {
+        for (int i = 0; i < mr; i++) {
+            for (int j = 0; j < nr; j++) {
+                double sum = 0.0;
+
+                for (int p = 0, aIdx = aOfst + i, bIdx = bOfst + j; p < kc; p++, aIdx += MR, bIdx += NR) {
+                    sum += a[aIdx] * b[bIdx];
+                }
+
+                int cIdx = cOfst + i * ldc + j;
+                c[cIdx] = accumulate ? c[cIdx] + sum : sum;
+            }
+        }
+    }
+
+    /**
+     * Per-thread packing buffers
+     */
+    private static class Panels {
+
+        private final double[] a = new double[MC * KC];
+
+        private final double[] b = new double[NC * KC];
+    }
+}
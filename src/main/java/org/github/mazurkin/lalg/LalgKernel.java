@@ -0,0 +1,183 @@
+package org.github.mazurkin.lalg;
+
+/**
+ * Low-level loops over array segments used by {@link LalgOperations} and the vector classes. The arguments are
+ * <em>not</em> validated here, the callers check the dimensions.
+ *
+ * @see LalgKernels
+ */
+public interface LalgKernel {
+
+    /**
+     * Name of the kernel implementation
+     *
+     * @return Name
+     */
+    String name();
+
+    /**
+     * Calculate sum(a[aOffset + i] * b[bOffset + i])
+     *
+     * @param a Data array 1
+     * @param aOffset Offset in the data array 1
+     * @param b Data array 2
+     * @param bOffset Offset in the data array 2
+     * @param length Number of elements
+     * @return Result value
+     */
+    double dotProduct(double[] a, int aOffset, double[] b, int bOffset, int length);
+
+    /**
+     * Calculate sum((a[aOffset + i] - b[bOffset + i])^2)
+     *
+     * @param a Data array 1
+     * @param aOffset Offset in the data array 1
+     * @param b Data array 2
+     * @param bOffset Offset in the data array 2
+     * @param length Number of elements
+     * @return Result value
+     */
+    double squaredDistance(double[] a, int aOffset, double[] b, int bOffset, int length);
+
+    /**
+     * Calculate max(abs(data[from..till)))
+     *
+     * @param data Data array to scan
+     * @param from First index (inclusive)
+     * @param till Last index (exclusive)
+     * @return Result value
+     */
+    double normMax(double[] data, int from, int till);
+
+    /**
+     * Calculate (a[aOffset + i] + b[bOffset + i]) -> target[targetOffset + i]
+     *
+     * @param a Data array 1
+     * @param aOffset Offset in the data array 1
+     * @param b Data array 2
+     * @param bOffset Offset in the data array 2
+     * @param target Target array (could be either a or b)
+     * @param targetOffset Offset in the target array
+     * @param length Number of elements
+     */
+    void add(double[] a, int aOffset, double[] b, int bOffset, double[] target, int targetOffset, int length);
+
+    /**
+     * Rectification of data[from..till) (inplace)
+     *
+     * @param data Data array to modify
+     * @param from First index (inclusive)
+     * @param till Last index (exclusive)
+     */
+    void relu(double[] data, int from, int till);
+
+    /**
+     * Calculate exp(data[i] - offset) -> data[i] for data[from..till) and return the sum of the new values
+     *
+     * @param data Data array to modify
+     * @param from First index (inclusive)
+     * @param till Last index (exclusive)
+     * @param offset Value to subtract before the exponent
+     * @return Sum of the exponents
+     */
+    double expSum(double[] data, int from, int till, double offset);
+
+    /**
+     * Calculate data[i] + other[otherOffset + i - from] -> data[i] for data[from..till) and return the maximum
+     * of the absolute new values (fused bias and the norm of the soft max)
+     *
+     * @param data Data array to modify
+     * @param from First index (inclusive)
+     * @param till Last index (exclusive)
+     * @param other Array to add
+     * @param otherOffset Offset in the array to add
+     * @return Maximum of the absolute values
+     */
+    double addNormMax(double[] data, int from, int till, double[] other, int otherOffset);
+
+    /**
+     * Calculate the cumulative sum of exp(data[i] - offset) -> data[i] for data[from..till) and return the total
+     * (fused exponent and the cumulative sum of the soft max)
+     *
+     * @param data Data array to modify
+     * @param from First index (inclusive)
+     * @param till Last index (exclusive)
+     * @param offset Value to subtract before the exponent
+     * @return Sum of the exponents
+     */
+    double expCumSum(double[] data, int from, int till, double offset);
+
+    /**
+     * Calculate data[i] / divisor -> data[i] for data[from..till)
+     *
+     * @param data Data array to modify
+     * @param from First index (inclusive)
+     * @param till Last index (exclusive)
+     * @param divisor Divisor
+     */
+    void divide(double[] data, int from, int till, double divisor);
+
+    /**
+     * Multiply 1xN vector by the <em>transposed</em> MxN row-major matrix and put the result into 1xM vector
+     *
+     * @param vector Vector data, N elements
+     * @param matrix Transposed matrix data, M x N elements
+     * @param rows Number of rows of the transposed matrix (M)
+     * @param columns Number of columns of the transposed matrix (N)
+     * @param target Target vector data, M elements
+     */
+    default void multiplyByTransposedMatrix(double[] vector, double[] matrix, int rows, int columns, double[] target) {
+        multiplyByTransposedMatrix(vector, 0, matrix, 0, rows, columns, target, 0);
+    }
+
+    /**
+     * Compute the elements target[targetOffset + fromRow..targetOffset + tillRow) of the product of 1xN vector
+     * and the <em>transposed</em> MxN row-major matrix, the rest of the target is not touched (used to split
+     * the product between threads and to keep the vectors in a shared arena)
+     *
+     * @param vector Vector data, N elements from the offset
+     * @param vectorOffset Offset of the vector in its array
+     * @param matrix Transposed matrix data, M x N elements
+     * @param fromRow First row of the transposed matrix (inclusive)
+     * @param tillRow Last row of the transposed matrix (exclusive)
+     * @param columns Number of columns of the transposed matrix (N)
+     * @param target Target vector data, M elements from the offset
+     * @param targetOffset Offset of the target vector in its array
+     */
+    void multiplyByTransposedMatrix(double[] vector, int vectorOffset, double[] matrix, int fromRow, int tillRow,
+                                    int columns, double[] target, int targetOffset);
+
+    /**
+     * Compute the elements target[targetOffset + fromRow..targetOffset + tillRow) of
+     * max(0, vector x transposed matrix + bias): the product of 1xN vector and the <em>transposed</em> MxN
+     * row-major matrix with the bias and the rectification applied to each element as soon as it is computed
+     *
+     * @param vector Vector data, N elements from the offset
+     * @param vectorOffset Offset of the vector in its array
+     * @param matrix Transposed matrix data, M x N elements
+     * @param fromRow First row of the transposed matrix (inclusive)
+     * @param tillRow Last row of the transposed matrix (exclusive)
+     * @param columns Number of columns of the transposed matrix (N)
+     * @param bias Bias data, M elements
+     * @param target Target vector data, M elements from the offset
+     * @param targetOffset Offset of the target vector in its array
+     */
+    void multiplyByTransposedMatrixAddRelu(double[] vector, int vectorOffset, double[] matrix, int fromRow,
+                                           int tillRow, int columns, double[] bias, double[] target,
+                                           int targetOffset);
+
+    /**
+     * Multiply the sparse 1xN vector by the NxM row-major matrix and put the result into 1xM vector: only the
+     * listed elements of the vector are non-zero, so the result is the weighted sum of the corresponding rows
+     *
+     * @param vector Vector data, N elements
+     * @param indices Indices of the non-zero elements of the vector
+     * @param count Number of the indices
+     * @param matrix Matrix data, N x M elements
+     * @param columns Number of columns of the matrix (M)
+     * @param target Target vector data, M elements
+     */
+    void multiplyBySparseVector(double[] vector, int[] indices, int count, double[] matrix, int columns,
+                                double[] target);
+
+}
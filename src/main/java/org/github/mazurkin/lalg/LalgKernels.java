@@ -0,0 +1,110 @@
+package org.github.mazurkin.lalg;
+
+/**
+ * Selection of the {@link LalgKernel} implementation.
+ * <p>
+ * The vector kernel is built on the incubating Vector API ({@code jdk.incubator.vector}) and it is compiled only
+ * on JDK 17+. It is used when the JVM runs with {@code --add-modules jdk.incubator.vector}, otherwise the scalar
+ * kernel is the fallback. The choice could be forced with the system property {@code lalg.kernel}
+ * ({@code scalar} or {@code vector}).
+ */
+public final class LalgKernels {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    private static final String VECTOR_CLASS = "org.github.mazurkin.lalg.LalgVectorKernel";
+
+    private static final LalgKernel VECTOR = loadVector();
+
+    /**
+     * Kernel used by the operations, it's a constant so JIT could inline the calls
+     */
+    static final LalgKernel KERNEL = select(System.getProperty("lalg.kernel", ""));
+
+    private LalgKernels() {
+        // utility class
+    }
+
+    /**
+     * Kernel used by {@link LalgOperations} and the vector classes
+     *
+     * @return Kernel
+     */
+    public static LalgKernel current() {
+        return KERNEL;
+    }
+
+    /**
+     * Scalar kernel which is always available
+     *
+     * @return Kernel
+     */
+    public static LalgKernel scalar() {
+        return LalgScalarKernel.INSTANCE;
+    }
+
+    /**
+     * Check whether the vector kernel is available in this JVM
+     *
+     * @return true if available
+     */
+    public static boolean isVectorAvailable() {
+        return VECTOR != null;
+    }
+
+    /**
+     * Vector API kernel
+     *
+     * @return Kernel
+     * @throws IllegalStateException if the vector kernel is not available
+     */
+    public static LalgKernel vector() {
+        if (VECTOR == null) {
+            throw new IllegalStateException(
+                String.format("Vector kernel is not available, run JDK 17+ with --add-modules %s", VECTOR_MODULE)
+            );
+        }
+
+        return VECTOR;
+    }
+
+    /**
+     * Kernel by the name
+     *
+     * @param name Name of the kernel ({@code scalar} or {@code vector})
+     * @return Kernel
+     */
+    public static LalgKernel forName(String name) {
+        switch (name) {
+            case "scalar":
+                return scalar();
+            case "vector":
+                return vector();
+            default:
+                throw new IllegalArgumentException(String.format("Unknown kernel: %s", name));
+        }
+    }
+
+    private static LalgKernel select(String name) {
+        if (name.isEmpty()) {
+            return VECTOR != null ? VECTOR : LalgScalarKernel.INSTANCE;
+        } else {
+            return forName(name);
+        }
+    }
+
+    private static LalgKernel loadVector() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null;
+        }
+
+        try {
+            return (LalgKernel) Class.forName(VECTOR_CLASS)
+                .getDeclaredConstructor()
+                .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // the class is not compiled (JDK 11 build) or it can't be linked
+            return null;
+        }
+    }
+}
@@ -169,6 +169,32 @@ public class LalgMatrix {
         return this.data[0];
     }
 
+    /**
+     * Add the row of this matrix to the range of the target array (target += row)
+     *
+     * @param row Row index
+     * @param target Target array
+     * @param targetOffset Offset of the range in the target array (the range length is the number of columns)
+     */
+    public void addRowTo(int row, double[] target, int targetOffset) {
+        if (row < 0 || row >= this.rows) {
+            throw new IllegalArgumentException(
+                String.format("Row index is out of range: %d (rows %d)", row, this.rows)
+            );
+        }
+
+        if (targetOffset < 0 || targetOffset + this.columns > target.length) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Target range is out of bounds: %d + %d (length %d)",
+                    targetOffset, this.columns, target.length
+                )
+            );
+        }
+
+        LalgKernels.KERNEL.add(target, targetOffset, this.data, row * this.columns, target, targetOffset, this.columns);
+    }
+
     /**
      * Multiply this MxN matrix by Nx1 multi-row vector computing Mx1 multi-row vector
      *
@@ -212,6 +238,25 @@ public class LalgMatrix {
      * @param target Result MxK matrix
      */
     public void multiplyByTransposedMatrix(LalgMatrix transposedMatrix, LalgMatrix target) {
+        multiplyByTransposedMatrix(transposedMatrix, target, this.rows);
+    }
+
+    /**
+     * Multiply the first rows of this MxN matrix by other <em>transposed</em> KxN matrix and put result into
+     * the first rows of the target MxK matrix. Useful when the matrix is a preallocated buffer for a batch
+     * which is not always full.
+     *
+     * @param transposedMatrix transposed KxN matrix to multiply by (the original matrix was NxK)
+     * @param target Result MxK matrix
+     * @param rowCount Number of rows to multiply (the rest of the target rows are not touched)
+     */
+    public void multiplyByTransposedMatrix(LalgMatrix transposedMatrix, LalgMatrix target, int rowCount) {
+        if (rowCount < 0 || rowCount > this.rows) {
+            throw new IllegalArgumentException(
+                String.format("Row count is out of range: %d (rows %d)", rowCount, this.rows)
+            );
+        }
+
         if (this.columns != transposedMatrix.columns) {
             throw new IllegalArgumentException(
                 String.format(
@@ -239,17 +284,57 @@ public class LalgMatrix {
             );
         }
 
-        for (int thisRow = 0, targetIdx = 0, thisOfst = 0; thisRow < this.rows; thisRow++, thisOfst += this.columns) {
-            for (int thatRow = 0, thatIdx = 0; thatRow < transposedMatrix.rows; thatRow++, targetIdx++) {
-                double sum = 0.0;
+        LalgGemm.multiply(this.data, transposedMatrix.data, target.data, rowCount, transposedMatrix.rows, this.columns);
+    }
 
-                for (int i = 0, thisIdx = thisOfst; i < this.columns; i++, thisIdx++, thatIdx++) {
-                    sum += this.data[thisIdx] * transposedMatrix.data[thatIdx];
-                }
+    /**
+     * Multiply the tile of rows [fromRow, fromRow + rowCount) of this MxN matrix by the tile of rows
+     * [fromOtherRow, fromOtherRow + otherRowCount) of other <em>transposed</em> KxN matrix and put the
+     * rowCount x otherRowCount result into the beginning of the target array (row-major). Used to stream a large
+     * product through a small buffer.
+     *
+     * @param fromRow First row of this matrix
+     * @param rowCount Number of rows of this matrix
+     * @param transposedMatrix transposed KxN matrix to multiply by (the original matrix was NxK)
+     * @param fromOtherRow First row of the other matrix
+     * @param otherRowCount Number of rows of the other matrix
+     * @param target Result tile
+     */
+    public void multiplyTileByTransposedMatrix(int fromRow, int rowCount, LalgMatrix transposedMatrix,
+                                               int fromOtherRow, int otherRowCount, double[] target)
+    {
+        if (fromRow < 0 || rowCount < 0 || fromRow + rowCount > this.rows) {
+            throw new IllegalArgumentException(
+                String.format("Row range is out of range: [%d, %d) (rows %d)", fromRow, fromRow + rowCount, this.rows)
+            );
+        }
 
-                target.data[targetIdx] = sum;
-            }
+        if (fromOtherRow < 0 || otherRowCount < 0 || fromOtherRow + otherRowCount > transposedMatrix.rows) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Other row range is out of range: [%d, %d) (rows %d)",
+                    fromOtherRow, fromOtherRow + otherRowCount, transposedMatrix.rows
+                )
+            );
+        }
+
+        if (this.columns != transposedMatrix.columns) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "This matrix's columns and other matrix's columns do not match: %d <> %d",
+                    this.columns, transposedMatrix.columns
+                )
+            );
+        }
+
+        if (target.length < rowCount * otherRowCount) {
+            throw new IllegalArgumentException(
+                String.format("Target array is too small: %d < (%d * %d)", target.length, rowCount, otherRowCount)
+            );
         }
+
+        LalgGemm.multiply(this.data, fromRow, transposedMatrix.data, fromOtherRow, target,
+            rowCount, otherRowCount, this.columns);
     }
 
 }
@@ -1,10 +1,13 @@
 package org.github.mazurkin.lalg;
 
 /**
- * Collection of operations on each element of a data array
+ * Collection of operations on each element of a data array. The hot loops are delegated to the
+ * {@link LalgKernels#current() current kernel} (scalar or Vector API).
  */
 public final class LalgOperations {
 
+    private static final LalgKernel KERNEL = LalgKernels.KERNEL;
+
     private LalgOperations() {
         // utility class
     }
@@ -15,17 +18,20 @@ public final class LalgOperations {
      * @return Result value
      */
     public static double computeNormMax(double[] data) {
-        double max = 0.0;
-
-        for (double item : data) {
-            double v = Math.abs(item);
+        return computeNormMax(data, 0, data.length);
+    }
 
-            if (v > max) {
-                max = v;
-            }
-        }
+    /**
+     * Calculate max(abs(data[from..till)))
+     * @param data Data array to scan
+     * @param from First index (inclusive)
+     * @param till Last index (exclusive)
+     * @return Result value
+     */
+    public static double computeNormMax(double[] data, int from, int till) {
+        checkRange(data, from, till);
 
-        return max;
+        return KERNEL.normMax(data, from, till);
     }
 
     /**
@@ -91,13 +97,41 @@ public final class LalgOperations {
             );
         }
 
-        double sum = 0.0;
+        return KERNEL.dotProduct(data1, 0, data2, 0, data1.length);
+    }
 
-        for (int i = 0, limit = data1.length; i < limit; i++) {
-            sum += data1[i] * data2[i];
-        }
+    /**
+     * Calculate dot product of two array segments
+     * @param data1 Data array 1
+     * @param offset1 Offset in the data array 1
+     * @param data2 Data array 2
+     * @param offset2 Offset in the data array 2
+     * @param length Number of elements
+     * @return Result value
+     */
+    public static double computeDotProduct(double[] data1, int offset1, double[] data2, int offset2, int length) {
+        checkRange(data1, offset1, offset1 + length);
+        checkRange(data2, offset2, offset2 + length);
 
-        return sum;
+        return KERNEL.dotProduct(data1, offset1, data2, offset2, length);
+    }
+
+    /**
+     * Calculate squared euclidean distance between two array segments
+     * @param data1 Data array 1
+     * @param offset1 Offset in the data array 1
+     * @param data2 Data array 2
+     * @param offset2 Offset in the data array 2
+     * @param length Number of elements
+     * @return Result value
+     */
+    public static double computeSquaredDistance(double[] data1, int offset1, double[] data2, int offset2,
+                                                int length)
+    {
+        checkRange(data1, offset1, offset1 + length);
+        checkRange(data2, offset2, offset2 + length);
+
+        return KERNEL.squaredDistance(data1, offset1, data2, offset2, length);
     }
 
     /**
@@ -144,9 +178,34 @@ public final class LalgOperations {
             );
         }
 
-        for (int i = 0, limit = data1.length; i < limit; i++) {
-            target[i] = data1[i] + data2[i];
-        }
+        KERNEL.add(data1, 0, data2, 0, target, 0, data1.length);
+    }
+
+    /**
+     * Calculate element-wise sum of the array segment and other array (data[offset + i] + other[i]) -> data[offset + i]
+     * @param data Data array to modify
+     * @param offset Offset of the segment in the data array
+     * @param other Other array (its length defines the length of the segment)
+     */
+    public static void inplaceAdd(double[] data, int offset, double[] other) {
+        checkRange(data, offset, offset + other.length);
+
+        KERNEL.add(data, offset, other, 0, data, offset, other.length);
+    }
+
+    /**
+     * Calculate element-wise sum of two array segments (data[offset + i] + other[otherOffset + i]) -> data[offset + i]
+     * @param data Data array to modify
+     * @param offset Offset of the segment in the data array
+     * @param other Other array
+     * @param otherOffset Offset of the segment in the other array
+     * @param length Number of elements
+     */
+    public static void inplaceAdd(double[] data, int offset, double[] other, int otherOffset, int length) {
+        checkRange(data, offset, offset + length);
+        checkRange(other, otherOffset, otherOffset + length);
+
+        KERNEL.add(data, offset, other, otherOffset, data, offset, length);
     }
 
     /**
@@ -178,13 +237,73 @@ public final class LalgOperations {
      * @param data Data array to modify
      */
     public static void inplaceRelu(double[] data) {
-        for (int i = 0, limit = data.length; i < limit; i++) {
-            double v = data[i];
+        inplaceRelu(data, 0, data.length);
+    }
 
-            if (v < 0.0) {
+    /**
+     * Rectification of the array segment (inplace)
+     * @param data Data array to modify
+     * @param from First index (inclusive)
+     * @param till Last index (exclusive)
+     */
+    public static void inplaceRelu(double[] data, int from, int till) {
+        checkRange(data, from, till);
+
+        KERNEL.relu(data, from, till);
+    }
+
+    /**
+     * Hyperbolic tangent of the array segment (inplace)
+     * @param data Data array to modify
+     * @param from First index (inclusive)
+     * @param till Last index (exclusive)
+     */
+    public static void inplaceTanh(double[] data, int from, int till) {
+        checkRange(data, from, till);
+
+        for (int i = from; i < till; i++) {
+            data[i] = Math.tanh(data[i]);
+        }
+    }
+
+    /**
+     * Logistic function 1 / (1 + exp(-x)) of the array segment (inplace)
+     * @param data Data array to modify
+     * @param from First index (inclusive)
+     * @param till Last index (exclusive)
+     */
+    public static void inplaceSigmoid(double[] data, int from, int till) {
+        checkRange(data, from, till);
+
+        for (int i = from; i < till; i++) {
+            data[i] = 1.0 / (1.0 + Math.exp(-data[i]));
+        }
+    }
+
+    /**
+     * Rectification (inplace) which also collects the indices of the non-zero elements
+     * @param data Data array to modify
+     * @param indices Target array for the indices, at least of the data size
+     * @return Number of the non-zero elements
+     */
+    public static int inplaceReluNonZero(double[] data, int[] indices) {
+        if (indices.length < data.length) {
+            throw new IllegalArgumentException(
+                String.format("Index array is too small: %d < %d", indices.length, data.length)
+            );
+        }
+
+        int count = 0;
+
+        for (int i = 0, limit = data.length; i < limit; i++) {
+            if (data[i] > 0.0) {
+                indices[count++] = i;
+            } else {
                 data[i] = 0.0;
             }
         }
+
+        return count;
     }
 
     /**
@@ -192,19 +311,21 @@ public final class LalgOperations {
      * @param data Data array to modify
      */
     public static void inplaceSoftMax(double[] data) {
-        double offset = computeNormMax(data);
+        inplaceSoftMax(data, 0, data.length);
+    }
 
-        double sum = 0.0;
+    /**
+     * Soft max of the array segment (inplace)
+     * @param data Data array to modify
+     * @param from First index (inclusive)
+     * @param till Last index (exclusive)
+     */
+    public static void inplaceSoftMax(double[] data, int from, int till) {
+        double offset = computeNormMax(data, from, till);
 
-        for (int i = 0, limit = data.length; i < limit; i++) {
-            double v = Math.exp(data[i] - offset);
-            data[i] = v;
-            sum += v;
-        }
+        double sum = KERNEL.expSum(data, from, till, offset);
 
-        for (int i = 0, limit = data.length; i < limit; i++) {
-            data[i] = data[i] / sum;
-        }
+        KERNEL.divide(data, from, till, sum);
     }
 
     /**
@@ -212,11 +333,120 @@ public final class LalgOperations {
      * @param data Data array to modify
      */
     public static void inplaceCumSum(double[] data) {
+        inplaceCumSum(data, 0, data.length);
+    }
+
+    /**
+     * Cumulative sum of the array segment (inplace)
+     * @param data Data array to modify
+     * @param from First index (inclusive)
+     * @param till Last index (exclusive)
+     */
+    public static void inplaceCumSum(double[] data, int from, int till) {
+        checkRange(data, from, till);
+
         double sum = 0.0;
 
-        for (int i = 0, limit = data.length; i < limit; i++) {
+        for (int i = from; i < till; i++) {
             sum += data[i];
             data[i] = sum;
         }
     }
+
+    /**
+     * Cumulative sum of the soft max (inplace), same as {@link #inplaceSoftMax(double[])} followed by
+     * {@link #inplaceCumSum(double[])} but with the exponent and the cumulative sum computed in one pass
+     * @param data Data array to modify
+     */
+    public static void inplaceSoftMaxCumSum(double[] data) {
+        inplaceSoftMaxCumSum(data, 0, data.length);
+    }
+
+    /**
+     * Cumulative sum of the soft max of the array segment (inplace)
+     * @param data Data array to modify
+     * @param from First index (inclusive)
+     * @param till Last index (exclusive)
+     */
+    public static void inplaceSoftMaxCumSum(double[] data, int from, int till) {
+        double offset = computeNormMax(data, from, till);
+
+        double sum = KERNEL.expCumSum(data, from, till, offset);
+
+        KERNEL.divide(data, from, till, sum);
+    }
+
+    /**
+     * Add the bias to the array segment and compute the cumulative sum of the soft max (inplace), same as
+     * {@link #inplaceAdd(double[], int, double[])}, {@link #inplaceSoftMax(double[], int, int)} and
+     * {@link #inplaceCumSum(double[], int, int)} but in three passes over the segment instead of six
+     * @param data Data array to modify
+     * @param offset Offset of the segment in the data array
+     * @param bias Bias array (its length defines the length of the segment)
+     */
+    public static void inplaceAddSoftMaxCumSum(double[] data, int offset, double[] bias) {
+        int till = offset + bias.length;
+
+        checkRange(data, offset, till);
+
+        double max = KERNEL.addNormMax(data, offset, till, bias, 0);
+
+        double sum = KERNEL.expCumSum(data, offset, till, max);
+
+        KERNEL.divide(data, offset, till, sum);
+    }
+
+    /**
+     * Multiply the 1xN vector placed in the array segment by the <em>transposed</em> MxN matrix and put result
+     * to the array segment of M elements (the vectors could share the same array, e.g. a scratch arena, but
+     * the segments must not overlap)
+     * @param vector Vector array
+     * @param vectorOffset Offset of the vector segment
+     * @param transposedMatrix Transposed MxN matrix (original matrix was NxM)
+     * @param target Target array
+     * @param targetOffset Offset of the target segment
+     */
+    public static void multiplyByTransposedMatrix(double[] vector, int vectorOffset, LalgMatrix transposedMatrix,
+                                                  double[] target, int targetOffset)
+    {
+        checkRange(vector, vectorOffset, vectorOffset + transposedMatrix.columns);
+        checkRange(target, targetOffset, targetOffset + transposedMatrix.rows);
+
+        KERNEL.multiplyByTransposedMatrix(
+            vector, vectorOffset, transposedMatrix.data, 0, transposedMatrix.rows, transposedMatrix.columns,
+            target, targetOffset
+        );
+    }
+
+    /**
+     * Same as {@link #multiplyByTransposedMatrix(double[], int, LalgMatrix, double[], int)} with the bias and
+     * the rectification fused (max(0, x * W + b))
+     * @param vector Vector array
+     * @param vectorOffset Offset of the vector segment
+     * @param transposedMatrix Transposed MxN matrix (original matrix was NxM)
+     * @param bias Bias array of M elements
+     * @param target Target array
+     * @param targetOffset Offset of the target segment
+     */
+    public static void multiplyByTransposedMatrixAddRelu(double[] vector, int vectorOffset,
+                                                         LalgMatrix transposedMatrix, double[] bias,
+                                                         double[] target, int targetOffset)
+    {
+        checkRange(vector, vectorOffset, vectorOffset + transposedMatrix.columns);
+        checkRange(target, targetOffset, targetOffset + transposedMatrix.rows);
+        checkRange(bias, 0, transposedMatrix.rows);
+
+        KERNEL.multiplyByTransposedMatrixAddRelu(
+            vector, vectorOffset, transposedMatrix.data, 0, transposedMatrix.rows, transposedMatrix.columns,
+            bias, target, targetOffset
+        );
+    }
+
+    private static void checkRange(double[] data, int from, int till) {
+        if (from < 0 || from > till || till > data.length) {
+            throw new IllegalArgumentException(
+                String.format("Array range is invalid: [%d, %d) of %d", from, till, data.length)
+            );
+        }
+    }
 }
@@ -0,0 +1,223 @@
+package org.github.mazurkin.lalg;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Product of 1xN vector and the <em>transposed</em> MxN matrix with the rows split between the calling thread
+ * and the workers of the fork-join pool. The number of slices adapts to the matrix size: every slice gets at
+ * least {@link #MIN_SLICE_WORK} multiply-adds, so the small matrices stay single-threaded.
+ * <p>
+ * The instance owns the reusable tasks and is meant to be kept in the per-thread buffers, the multiplication
+ * does not allocate.
+ */
+@NotThreadSafe
+public final class LalgParallelGemv {
+
+    /**
+     * Minimal number of multiply-adds per slice: the hand-off to a worker costs several microseconds
+     */
+    public static final int MIN_SLICE_WORK = 128 * 1024;
+
+    /**
+     * Slice boundaries are aligned to the row block of the kernels
+     */
+    private static final int ROW_ALIGNMENT = 4;
+
+    private final ForkJoinPool pool;
+
+    private final LalgMatrix transposedMatrix;
+
+    private final Slice[] slices;
+
+    /**
+     * Creates the product
+     *
+     * @param pool Worker pool
+     * @param transposedMatrix Transposed MxN matrix (original matrix was NxM)
+     */
+    public LalgParallelGemv(ForkJoinPool pool, LalgMatrix transposedMatrix) {
+        Preconditions.checkNotNull(pool, "Pool is null");
+        Preconditions.checkNotNull(transposedMatrix, "Matrix is null");
+
+        this.pool = pool;
+        this.transposedMatrix = transposedMatrix;
+
+        int sliceCount = sliceCount(transposedMatrix.rows, transposedMatrix.columns, pool.getParallelism() + 1);
+        int sliceRows = align((transposedMatrix.rows + sliceCount - 1) / sliceCount);
+
+        this.slices = new Slice[(transposedMatrix.rows + sliceRows - 1) / sliceRows];
+        for (int i = 0; i < this.slices.length; i++) {
+            int fromRow = i * sliceRows;
+            int tillRow = Math.min(fromRow + sliceRows, transposedMatrix.rows);
+
+            this.slices[i] = new Slice(fromRow, tillRow);
+        }
+    }
+
+    /**
+     * Number of slices for the matrix
+     *
+     * @param rows Number of rows of the transposed matrix
+     * @param columns Number of columns of the transposed matrix
+     * @param threads Number of threads (the workers and the calling thread)
+     * @return Number of slices, 1 if the product should not be split
+     */
+    public static int sliceCount(int rows, int columns, int threads) {
+        long work = (long) rows * columns;
+
+        long count = Math.min(work / MIN_SLICE_WORK, (rows + ROW_ALIGNMENT - 1) / ROW_ALIGNMENT);
+
+        return (int) Math.max(1, Math.min(count, threads));
+    }
+
+    public int getSliceCount() {
+        return slices.length;
+    }
+
+    /**
+     * Multiply the 1xN vector by the matrix and put result to the target 1xM vector
+     *
+     * @param vector Source 1xN vector
+     * @param target Target 1xM vector
+     */
+    public void multiply(LalgRowVector vector, LalgRowVector target) {
+        check(vector, target);
+
+        run(vector.data, null, target.data);
+    }
+
+    /**
+     * Multiply the 1xN vector by the matrix, add the bias and rectify the result (max(0, x * W + b)) putting it
+     * to the target 1xM vector
+     *
+     * @param vector Source 1xN vector
+     * @param bias Bias 1xM vector
+     * @param target Target 1xM vector
+     */
+    public void multiplyAddRelu(LalgRowVector vector, LalgRowVector bias, LalgRowVector target) {
+        check(vector, target);
+
+        if (bias.columns != transposedMatrix.rows) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Bias vector columns and transposed matrix rows do not match: %s <> %s",
+                    bias.columns, transposedMatrix.rows
+                )
+            );
+        }
+
+        run(vector.data, bias.data, target.data);
+    }
+
+    private void check(LalgRowVector vector, LalgRowVector target) {
+        if (vector.columns != transposedMatrix.columns) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Source vector columns and transposed matrix columns do not match: %d <> %d",
+                    vector.columns, transposedMatrix.columns
+                )
+            );
+        }
+
+        if (target.columns != transposedMatrix.rows) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Target vector columns and transposed matrix rows do not match: %s <> %s",
+                    target.columns, transposedMatrix.rows
+                )
+            );
+        }
+    }
+
+    private void run(double[] vector, double[] bias, double[] target) {
+        int dispatched = 1;
+
+        try {
+            for (; dispatched < slices.length; dispatched++) {
+                Slice slice = slices[dispatched];
+                slice.reinitialize();
+                slice.vector = vector;
+                slice.bias = bias;
+                slice.target = target;
+                pool.execute(slice);
+            }
+
+            // the calling thread takes the first slice instead of waiting idle
+            slices[0].compute(vector, bias, target);
+        } finally {
+            // the dispatched slices are awaited even if the calling thread fails, so a reused slice is never
+            // reinitialized by the next call while it is still running
+            await(dispatched);
+        }
+
+        for (int i = 1; i < slices.length; i++) {
+            // the failure of a slice is rethrown
+            slices[i].join();
+        }
+    }
+
+    private void await(int dispatched) {
+        for (int i = 1; i < dispatched; i++) {
+            Slice slice = slices[i];
+
+            // the blocked join of a non-worker thread allocates the waiter node, the slices are short enough
+            // to wait for them yielding the processor to the workers
+            while (!slice.isDone()) {
+                Thread.yield();
+            }
+
+            slice.vector = null;
+            slice.bias = null;
+            slice.target = null;
+        }
+    }
+
+    private static int align(int rows) {
+        return (rows + ROW_ALIGNMENT - 1) / ROW_ALIGNMENT * ROW_ALIGNMENT;
+    }
+
+    /**
+     * Reusable task computing the range of rows
+     */
+    private final class Slice extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int fromRow;
+
+        private final int tillRow;
+
+        private transient double[] vector;
+
+        private transient double[] bias;
+
+        private transient double[] target;
+
+        private Slice(int fromRow, int tillRow) {
+            this.fromRow = fromRow;
+            this.tillRow = tillRow;
+        }
+
+        @Override
+        protected void compute() {
+            compute(vector, bias, target);
+        }
+
+        private void compute(double[] vector, double[] bias, double[] target) {
+            if (bias != null) {
+                LalgKernels.KERNEL.multiplyByTransposedMatrixAddRelu(
+                    vector, 0, transposedMatrix.data, fromRow, tillRow, transposedMatrix.columns, bias, target, 0
+                );
+            } else {
+                LalgKernels.KERNEL.multiplyByTransposedMatrix(
+                    vector, 0, transposedMatrix.data, fromRow, tillRow, transposedMatrix.columns, target, 0
+                );
+            }
+        }
+    }
+}
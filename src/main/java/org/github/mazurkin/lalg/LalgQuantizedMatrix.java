@@ -0,0 +1,97 @@
+package org.github.mazurkin.lalg;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * MxN matrix quantized into int8 with the per-row affine mapping {@code value = scale * (code - zeroPoint)}.
+ * The matrix is immutable.
+ *
+ * @see LalgQuantizedRowVector
+ */
+public class LalgQuantizedMatrix {
+
+    /**
+     * Maximum number of columns when the int32 accumulator of the dot product can't overflow
+     */
+    public static final int MAX_COLUMNS = Integer.MAX_VALUE / (128 * 128);
+
+    public final byte[] data;
+
+    public final double[] scales;
+
+    public final int[] zeroPoints;
+
+    public final int rows;
+
+    public final int columns;
+
+    /**
+     * Creates the quantized copy of the matrix
+     *
+     * @param source Source matrix
+     */
+    public LalgQuantizedMatrix(LalgMatrix source) {
+        Preconditions.checkNotNull(source, "Matrix is null");
+
+        this.rows = source.rows;
+        this.columns = source.columns;
+        Preconditions.checkArgument(this.columns <= MAX_COLUMNS,
+            "Too many columns for the int32 accumulator: %s > %s", this.columns, MAX_COLUMNS);
+
+        this.data = new byte[this.rows * this.columns];
+        this.scales = new double[this.rows];
+        this.zeroPoints = new int[this.rows];
+
+        for (int i = 0, offset = 0; i < this.rows; i++, offset += this.columns) {
+            quantizeRow(source.data, offset, i);
+        }
+    }
+
+    /**
+     * Restore the approximate value of the element
+     *
+     * @param row Row index
+     * @param column Column index
+     * @return Dequantized value
+     */
+    public double get(int row, int column) {
+        return scales[row] * (data[row * columns + column] - zeroPoints[row]);
+    }
+
+    private void quantizeRow(double[] source, int offset, int row) {
+        // the range always includes zero, so zero is exactly representable
+        double min = 0.0;
+        double max = 0.0;
+
+        for (int j = 0; j < this.columns; j++) {
+            double v = source[offset + j];
+
+            if (v < min) {
+                min = v;
+            }
+            if (v > max) {
+                max = v;
+            }
+        }
+
+        double scale = (max - min) / 255.0;
+
+        if (scale == 0.0) {
+            // all zeros
+            this.scales[row] = 1.0;
+            this.zeroPoints[row] = 0;
+            return;
+        }
+
+        int zeroPoint = (int) Math.round(-min / scale) - 128;
+
+        for (int j = 0; j < this.columns; j++) {
+            long code = Math.round(source[offset + j] / scale) + zeroPoint;
+            this.data[offset + j] = (byte) Math.max(-128, Math.min(127, code));
+        }
+
+        this.scales[row] = scale;
+        this.zeroPoints[row] = zeroPoint;
+    }
+
+}
@@ -0,0 +1,147 @@
+package org.github.mazurkin.lalg;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Row (1xN) vector quantized into int8 with the symmetric mapping {@code value = scale * code}. The content is
+ * mutable, the vector is meant to be a buffer which is refilled by {@link #quantize(double[], int)} before each
+ * multiplication.
+ *
+ * @see LalgQuantizedMatrix
+ */
+public class LalgQuantizedRowVector {
+
+    public final byte[] data;
+
+    public final int columns;
+
+    private double scale;
+
+    private int sum;
+
+    /**
+     * Creates zero 1xN vector
+     * @param columns Number of columns
+     */
+    public LalgQuantizedRowVector(int columns) {
+        Preconditions.checkArgument(columns > 0, "Number of columns is invalid: %s", columns);
+        this.columns = columns;
+
+        this.data = new byte[columns];
+        this.scale = 1.0;
+        this.sum = 0;
+    }
+
+    /**
+     * Quantize the values of the 1xN vector into this vector
+     *
+     * @param source Source vector
+     */
+    public void quantize(LalgRowVector source) {
+        if (source.columns != this.columns) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Source vector columns and this vector columns do not match: %d <> %d",
+                    source.columns, this.columns
+                )
+            );
+        }
+
+        quantize(source.data, 0);
+    }
+
+    /**
+     * Quantize N values of the array segment into this vector
+     *
+     * @param source Source array
+     * @param offset Offset of the segment
+     */
+    public void quantize(double[] source, int offset) {
+        if (offset < 0 || offset + this.columns > source.length) {
+            throw new IllegalArgumentException(
+                String.format("Array range is invalid: [%d, %d) of %d", offset, offset + this.columns, source.length)
+            );
+        }
+
+        double max = LalgOperations.computeNormMax(source, offset, offset + this.columns);
+
+        double s = max > 0.0 ? max / 127.0 : 1.0;
+        double inverse = 1.0 / s;
+
+        int total = 0;
+
+        for (int j = 0; j < this.columns; j++) {
+            int code = (int) Math.round(source[offset + j] * inverse);
+            this.data[j] = (byte) code;
+            total += code;
+        }
+
+        this.scale = s;
+        this.sum = total;
+    }
+
+    /**
+     * Multiply this 1xN vector by the <em>transposed</em> quantized matrix MxN and put the dequantized result
+     * to the target 1xM vector. The dot products are accumulated in int32.
+     *
+     * @param transposedMatrix Transposed MxN matrix (original matrix was NxM)
+     * @param target Target 1xM vector
+     */
+    public void multiplyByTransposedMatrix(LalgQuantizedMatrix transposedMatrix, LalgRowVector target) {
+        if (target.columns != transposedMatrix.rows) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Target vector columns and transposed matrix rows do not match: %s <> %s",
+                    target.columns, transposedMatrix.rows
+                )
+            );
+        }
+
+        multiplyByTransposedMatrix(transposedMatrix, target.data, 0);
+    }
+
+    /**
+     * Multiply this 1xN vector by the <em>transposed</em> quantized matrix MxN and put the dequantized result
+     * to the M elements of the target array
+     *
+     * @param transposedMatrix Transposed MxN matrix (original matrix was NxM)
+     * @param target Target array
+     * @param targetOffset Offset in the target array
+     */
+    public void multiplyByTransposedMatrix(LalgQuantizedMatrix transposedMatrix, double[] target, int targetOffset) {
+        if (this.columns != transposedMatrix.columns) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Source vector columns and transposed matrix columns do not match: %d <> %d",
+                    this.columns, transposedMatrix.columns
+                )
+            );
+        }
+
+        if (targetOffset < 0 || targetOffset + transposedMatrix.rows > target.length) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Target array range is invalid: [%d, %d) of %d",
+                    targetOffset, targetOffset + transposedMatrix.rows, target.length
+                )
+            );
+        }
+
+        final byte[] x = this.data;
+        final byte[] w = transposedMatrix.data;
+
+        for (int i = 0, mtxOffset = 0; i < transposedMatrix.rows; i++) {
+            int acc = 0;
+
+            for (int j = 0; j < this.columns; j++, mtxOffset++) {
+                acc += x[j] * w[mtxOffset];
+            }
+
+            // sum(x * (w - zero)) = sum(x * w) - zero * sum(x)
+            long corrected = (long) acc - (long) transposedMatrix.zeroPoints[i] * this.sum;
+
+            target[targetOffset + i] = this.scale * transposedMatrix.scales[i] * corrected;
+        }
+    }
+
+}
@@ -2,6 +2,7 @@ package org.github.mazurkin.lalg;
 
 import com.google.common.base.Preconditions;
 
+import java.nio.DoubleBuffer;
 import java.util.Arrays;
 
 /**
@@ -78,14 +79,141 @@ public class LalgRowVector {
             );
         }
 
+        LalgKernels.KERNEL.multiplyByTransposedMatrix(
+            this.data, transposedMatrix.data, transposedMatrix.rows, transposedMatrix.columns, target.data
+        );
+    }
+
+    /**
+     * Multiply this 1xN vector by the <em>transposed</em> matrix MxN, add the bias and rectify the result
+     * (max(0, x * W + b)) in one pass over the target 1xM vector
+     *
+     * @param transposedMatrix Transposed MxN matrix (original matrix was NxM)
+     * @param bias Bias 1xM vector
+     * @param target Target 1xM vector
+     */
+    public void multiplyByTransposedMatrixAddRelu(LalgMatrix transposedMatrix, LalgRowVector bias,
+                                                  LalgRowVector target)
+    {
+        if (this.columns != transposedMatrix.columns) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Source vector columns and transposed matrix columns do not match: %d <> %d",
+                    this.columns, transposedMatrix.columns
+                )
+            );
+        }
+
+        if (target.columns != transposedMatrix.rows) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Target vector columns and transposed matrix rows do not match: %s <> %s",
+                    target.columns, transposedMatrix.rows
+                )
+            );
+        }
+
+        if (bias.columns != transposedMatrix.rows) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Bias vector columns and transposed matrix rows do not match: %s <> %s",
+                    bias.columns, transposedMatrix.rows
+                )
+            );
+        }
+
+        LalgKernels.KERNEL.multiplyByTransposedMatrixAddRelu(
+            this.data, 0, transposedMatrix.data, 0, transposedMatrix.rows, transposedMatrix.columns,
+            bias.data, target.data, 0
+        );
+    }
+
+    /**
+     * Multiply this 1xN vector by the (not transposed) NxM matrix and put result to the target 1xM vector using
+     * only the listed elements of this vector, the rest of them must be zero. Fast when the most of the elements
+     * are zero, e.g. after the rectification.
+     *
+     * @param matrix NxM matrix
+     * @param indices Indices of the non-zero elements of this vector
+     * @param count Number of the indices
+     * @param target Target 1xM vector
+     * @see LalgOperations#inplaceReluNonZero(double[], int[])
+     */
+    public void multiplyByMatrix(LalgMatrix matrix, int[] indices, int count, LalgRowVector target) {
+        if (this.columns != matrix.rows) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Source vector columns and matrix rows do not match: %d <> %d",
+                    this.columns, matrix.rows
+                )
+            );
+        }
+
+        if (target.columns != matrix.columns) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Target vector columns and matrix columns do not match: %s <> %s",
+                    target.columns, matrix.columns
+                )
+            );
+        }
+
+        if (count < 0 || count > indices.length || count > this.columns) {
+            throw new IllegalArgumentException(
+                String.format("Index count is out of range: %d (indices %d)", count, indices.length)
+            );
+        }
+
+        LalgKernels.KERNEL.multiplyBySparseVector(
+            this.data, indices, count, matrix.data, matrix.columns, target.data
+        );
+    }
+
+    /**
+     * Multiply this 1xN vector by the <em>transposed</em> buffer-backed matrix MxN and put result to
+     * the target 1xM vector
+     *
+     * @param transposedMatrix Transposed MxN matrix (original matrix was NxM)
+     * @param target Target 1xM vector
+     */
+    public void multiplyByTransposedMatrix(LalgBufferMatrix transposedMatrix, LalgRowVector target) {
+        if (this.columns != transposedMatrix.columns) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Source vector columns and transposed matrix columns do not match: %d <> %d",
+                    this.columns, transposedMatrix.columns
+                )
+            );
+        }
+
+        if (target.columns != transposedMatrix.rows) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Target vector columns and transposed matrix rows do not match: %s <> %s",
+                    target.columns, transposedMatrix.rows
+                )
+            );
+        }
+
+        final DoubleBuffer matrix = transposedMatrix.data;
+
         for (int i = 0, mtxOffset = 0; i < transposedMatrix.rows; i++) {
-            double sum = 0.0;
+            // two accumulators to break the dependency chain of the additions
+            double sum0 = 0.0;
+            double sum1 = 0.0;
+
+            int j = 0;
+
+            for (; j + 1 < this.columns; j += 2, mtxOffset += 2) {
+                sum0 += this.data[j] * matrix.get(mtxOffset);
+                sum1 += this.data[j + 1] * matrix.get(mtxOffset + 1);
+            }
 
-            for(int j = 0; j < this.columns; j++, mtxOffset++) {
-                sum += this.data[j] * transposedMatrix.data[mtxOffset];
+            for (; j < this.columns; j++, mtxOffset++) {
+                sum0 += this.data[j] * matrix.get(mtxOffset);
             }
 
-            target.data[i] = sum;
+            target.data[i] = sum0 + sum1;
         }
     }
 
@@ -0,0 +1,181 @@
+package org.github.mazurkin.lalg;
+
+/**
+ * Plain scalar loops, the fallback when the vector kernel is not available
+ */
+final class LalgScalarKernel implements LalgKernel {
+
+    static final LalgScalarKernel INSTANCE = new LalgScalarKernel();
+
+    private LalgScalarKernel() {
+        // singleton
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public double dotProduct(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double sum = 0.0;
+
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+
+        return sum;
+    }
+
+    @Override
+    public double squaredDistance(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double sum = 0.0;
+
+        for (int i = 0; i < length; i++) {
+            double d = a[aOffset + i] - b[bOffset + i];
+            sum += d * d;
+        }
+
+        return sum;
+    }
+
+    @Override
+    public double normMax(double[] data, int from, int till) {
+        double max = 0.0;
+
+        for (int i = from; i < till; i++) {
+            double v = Math.abs(data[i]);
+
+            if (v > max) {
+                max = v;
+            }
+        }
+
+        return max;
+    }
+
+    @Override
+    public void add(double[] a, int aOffset, double[] b, int bOffset, double[] target, int targetOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            target[targetOffset + i] = a[aOffset + i] + b[bOffset + i];
+        }
+    }
+
+    @Override
+    public void relu(double[] data, int from, int till) {
+        for (int i = from; i < till; i++) {
+            double v = data[i];
+
+            if (v < 0.0) {
+                data[i] = 0.0;
+            }
+        }
+    }
+
+    @Override
+    public double expSum(double[] data, int from, int till, double offset) {
+        double sum = 0.0;
+
+        for (int i = from; i < till; i++) {
+            double v = Math.exp(data[i] - offset);
+            data[i] = v;
+            sum += v;
+        }
+
+        return sum;
+    }
+
+    @Override
+    public double addNormMax(double[] data, int from, int till, double[] other, int otherOffset) {
+        double max = 0.0;
+
+        for (int i = from, j = otherOffset; i < till; i++, j++) {
+            double v = data[i] + other[j];
+            data[i] = v;
+
+            double a = Math.abs(v);
+
+            if (a > max) {
+                max = a;
+            }
+        }
+
+        return max;
+    }
+
+    @Override
+    public double expCumSum(double[] data, int from, int till, double offset) {
+        double sum = 0.0;
+
+        for (int i = from; i < till; i++) {
+            sum += Math.exp(data[i] - offset);
+            data[i] = sum;
+        }
+
+        return sum;
+    }
+
+    @Override
+    public void divide(double[] data, int from, int till, double divisor) {
+        for (int i = from; i < till; i++) {
+            data[i] = data[i] / divisor;
+        }
+    }
+
+    @Override
+    public void multiplyByTransposedMatrix(double[] vector, int vectorOffset, double[] matrix, int fromRow,
+                                           int tillRow, int columns, double[] target, int targetOffset)
+    {
+        multiply(vector, vectorOffset, matrix, fromRow, tillRow, columns, null, target, targetOffset);
+    }
+
+    @Override
+    public void multiplyByTransposedMatrixAddRelu(double[] vector, int vectorOffset, double[] matrix, int fromRow,
+                                                  int tillRow, int columns, double[] bias, double[] target,
+                                                  int targetOffset)
+    {
+        multiply(vector, vectorOffset, matrix, fromRow, tillRow, columns, bias, target, targetOffset);
+    }
+
+    private static void multiply(double[] vector, int vectorOffset, double[] matrix, int fromRow, int tillRow,
+                                 int columns, double[] bias, double[] target, int targetOffset)
+    {
+        for (int i = fromRow, mtxOffset = fromRow * columns; i < tillRow; i++) {
+            double sum = 0.0;
+
+            for (int j = 0; j < columns; j++, mtxOffset++) {
+                sum += vector[vectorOffset + j] * matrix[mtxOffset];
+            }
+
+            target[targetOffset + i] = epilogue(sum, bias, i);
+        }
+    }
+
+    private static double epilogue(double sum, double[] bias, int row) {
+        if (bias == null) {
+            return sum;
+        }
+
+        double v = sum + bias[row];
+
+        return v < 0.0 ? 0.0 : v;
+    }
+
+    @Override
+    public void multiplyBySparseVector(double[] vector, int[] indices, int count, double[] matrix, int columns,
+                                       double[] target)
+    {
+        for (int j = 0; j < columns; j++) {
+            target[j] = 0.0;
+        }
+
+        for (int k = 0; k < count; k++) {
+            int row = indices[k];
+            double x = vector[row];
+
+            for (int j = 0, mtxOffset = row * columns; j < columns; j++, mtxOffset++) {
+                target[j] += x * matrix[mtxOffset];
+            }
+        }
+    }
+}
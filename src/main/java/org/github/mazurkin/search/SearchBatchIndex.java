@@ -0,0 +1,218 @@
+package org.github.mazurkin.search;
+
+import org.github.mazurkin.lalg.LalgMatrix;
+import org.github.mazurkin.lalg.LalgOperations;
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Exact k nearest neighbours search for many queries at once. The distances are expressed through the dot
+ * products, ||q - v||² = ||q||² + ||v||² - 2 q·v, so a tile of queries against a tile of stored vectors is one
+ * blocked matrix product: every stored vector is read once per query tile instead of once per query. The tiles
+ * of the distance matrix are streamed into the per-query top-k heaps and never materialized as a whole.
+ * <p>
+ * The query tiles are independent and are split between the workers of the fork-join pool, the pool is owned by
+ * the index and {@link #close()} stops the workers.
+ */
+@ThreadSafe
+public class SearchBatchIndex implements AutoCloseable {
+
+    /**
+     * Queries per tile, a multiple of the block of the left matrix of the product
+     */
+    static final int QUERY_TILE = 64;
+
+    /**
+     * Stored vectors per tile, the QUERY_TILE x VECTOR_TILE distance tile takes 512KB
+     */
+    static final int VECTOR_TILE = 1024;
+
+    private final SearchVectorStore store;
+
+    private final LalgMatrix vectors;
+
+    private final SearchMetric metric;
+
+    private final ForkJoinPool pool;
+
+    private final ThreadLocal<Tile> tileThreadLocal;
+
+    /**
+     * Creates the index
+     *
+     * @param store Vector store
+     * @param metric Metric
+     * @param parallelism Number of the workers, 0 to search in the calling thread
+     */
+    public SearchBatchIndex(SearchVectorStore store, SearchMetric metric, int parallelism) {
+        Preconditions.checkNotNull(store, "Store is null");
+        Preconditions.checkNotNull(metric, "Metric is null");
+        Preconditions.checkArgument(parallelism >= 0, "Parallelism is negative: %s", parallelism);
+
+        this.store = store;
+        this.vectors = store.asMatrix();
+        this.metric = metric;
+        this.pool = parallelism > 0 ? new ForkJoinPool(parallelism) : null;
+
+        final int vectorTile = Math.min(VECTOR_TILE, store.count);
+        this.tileThreadLocal = ThreadLocal.withInitial(() -> new Tile(vectorTile));
+    }
+
+    public SearchVectorStore getStore() {
+        return store;
+    }
+
+    public SearchMetric getMetric() {
+        return metric;
+    }
+
+    /**
+     * Stop the workers, the index must not be used after that
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Search for the nearest vectors of every query
+     *
+     * @param queries Queries as the rows of the matrix
+     * @param results Reusable results, one per query, they are cleared and sorted by the call
+     */
+    public void search(LalgMatrix queries, SearchTopK[] results) {
+        if (queries.columns != store.dimension) {
+            throw new IllegalArgumentException(
+                String.format("Query vector size doesn't match the store: %d <> %d", queries.columns, store.dimension)
+            );
+        }
+
+        if (results.length != queries.rows) {
+            throw new IllegalArgumentException(
+                String.format("Number of results doesn't match the queries: %d <> %d", results.length, queries.rows)
+            );
+        }
+
+        SearchEvent event = SearchEvent.start();
+
+        int tileCount = (queries.rows + QUERY_TILE - 1) / QUERY_TILE;
+
+        if (pool == null || tileCount == 1) {
+            searchTiles(queries, results, 0, tileCount);
+        } else {
+            pool.invoke(new TileTask(queries, results, 0, tileCount));
+        }
+
+        SearchEvent.commit(event, "batch", store.count, store.dimension, queries.rows,
+            results.length > 0 ? results[0].getK() : 0);
+    }
+
+    private void searchTiles(LalgMatrix queries, SearchTopK[] results, int fromTile, int tillTile) {
+        Tile tile = tileThreadLocal.get();
+
+        for (int t = fromTile; t < tillTile; t++) {
+            int fromQuery = t * QUERY_TILE;
+            int queryCount = Math.min(QUERY_TILE, queries.rows - fromQuery);
+
+            searchTile(queries, results, fromQuery, queryCount, tile);
+        }
+    }
+
+    private void searchTile(LalgMatrix queries, SearchTopK[] results, int fromQuery, int queryCount, Tile tile) {
+        final double[] products = tile.products;
+        final double[] queryNorms = tile.queryNorms;
+
+        for (int i = 0; i < queryCount; i++) {
+            int offset = (fromQuery + i) * queries.columns;
+
+            queryNorms[i] = Math.sqrt(
+                LalgOperations.computeDotProduct(queries.data, offset, queries.data, offset, queries.columns)
+            );
+
+            results[fromQuery + i].clear();
+        }
+
+        for (int fromVector = 0; fromVector < store.count; fromVector += VECTOR_TILE) {
+            int vectorCount = Math.min(VECTOR_TILE, store.count - fromVector);
+
+            queries.multiplyTileByTransposedMatrix(fromQuery, queryCount, vectors, fromVector, vectorCount, products);
+
+            for (int i = 0, p = 0; i < queryCount; i++) {
+                SearchTopK result = results[fromQuery + i];
+                double queryNorm = queryNorms[i];
+                double threshold = result.threshold();
+
+                for (int j = 0; j < vectorCount; j++, p++) {
+                    double distance = metric.fromDotProduct(products[p], queryNorm, store, fromVector + j);
+
+                    if (distance < threshold) {
+                        result.offer(fromVector + j, distance);
+                        threshold = result.threshold();
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < queryCount; i++) {
+            results[fromQuery + i].sort();
+        }
+    }
+
+    /**
+     * Splits the range of the query tiles in halves
+     */
+    private final class TileTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient LalgMatrix queries;
+
+        private final transient SearchTopK[] results;
+
+        private final int fromTile;
+
+        private final int tillTile;
+
+        private TileTask(LalgMatrix queries, SearchTopK[] results, int fromTile, int tillTile) {
+            this.queries = queries;
+            this.results = results;
+            this.fromTile = fromTile;
+            this.tillTile = tillTile;
+        }
+
+        @Override
+        protected void compute() {
+            if (tillTile - fromTile == 1) {
+                searchTiles(queries, results, fromTile, tillTile);
+            } else {
+                int middle = (fromTile + tillTile) >>> 1;
+
+                invokeAll(
+                    new TileTask(queries, results, fromTile, middle),
+                    new TileTask(queries, results, middle, tillTile)
+                );
+            }
+        }
+    }
+
+    /**
+     * Per-thread buffers of the tile
+     */
+    private static class Tile {
+
+        private final double[] products;
+
+        private final double[] queryNorms;
+
+        private Tile(int vectorTile) {
+            this.products = new double[QUERY_TILE * vectorTile];
+            this.queryNorms = new double[QUERY_TILE];
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.github.mazurkin.search;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.Arrays;
+
+/**
+ * Min-heap of the graph nodes to expand by the distance
+ */
+@NotThreadSafe
+final class SearchCandidates {
+
+    private int[] ids = new int[64];
+
+    private double[] distances = new double[64];
+
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    double peekDistance() {
+        return distances[0];
+    }
+
+    void push(int id, double distance) {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, 2 * size);
+            distances = Arrays.copyOf(distances, 2 * size);
+        }
+
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (distances[parent] <= distance) {
+                break;
+            }
+
+            ids[i] = ids[parent];
+            distances[i] = distances[parent];
+            i = parent;
+        }
+
+        ids[i] = id;
+        distances[i] = distance;
+    }
+
+    int pop() {
+        int result = ids[0];
+
+        int lastId = ids[--size];
+        double lastDistance = distances[size];
+
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+
+            if (child + 1 < size && distances[child + 1] < distances[child]) {
+                child++;
+            }
+
+            if (distances[child] >= lastDistance) {
+                break;
+            }
+
+            ids[i] = ids[child];
+            distances[i] = distances[child];
+            i = child;
+        }
+
+        ids[i] = lastId;
+        distances[i] = lastDistance;
+
+        return result;
+    }
+}
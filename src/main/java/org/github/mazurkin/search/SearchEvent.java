@@ -0,0 +1,74 @@
+package org.github.mazurkin.search;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event of a search call (a single query or a batch of queries). Only the calls longer than the
+ * threshold are written and the stack trace is not taken, so the event could be left enabled in production. The
+ * event object is created only when a recording enables the event, so the search doesn't allocate without the
+ * recording.
+ */
+@Name(SearchEvent.NAME)
+@Label("Search")
+@Category({"lalg", "Search"})
+@Description("Nearest neighbours search")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class SearchEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "org.github.mazurkin.lalg.Search";
+
+    private static final EventType TYPE = EventType.getEventType(SearchEvent.class);
+
+    @Label("Index")
+    String index;
+
+    @Label("Vector Count")
+    int vectorCount;
+
+    @Label("Dimension")
+    int dimension;
+
+    @Label("Query Count")
+    int queryCount;
+
+    @Label("K")
+    int k;
+
+    /**
+     * Begin the event of the search
+     *
+     * @return Started event or null if no recording enables the event
+     */
+    static SearchEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+
+        SearchEvent event = new SearchEvent();
+        event.begin();
+
+        return event;
+    }
+
+    /**
+     * Fill and write the event if it is started and passes the threshold
+     */
+    static void commit(SearchEvent event, String index, int vectorCount, int dimension, int queryCount, int k) {
+        if (event != null && event.shouldCommit()) {
+            event.index = index;
+            event.vectorCount = vectorCount;
+            event.dimension = dimension;
+            event.queryCount = queryCount;
+            event.k = k;
+
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.github.mazurkin.search;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Exact k nearest neighbours search: the linear scan over the flat store keeping the top-k heap. The current k-th
+ * best distance is passed to the metric, so the L2 distances of the far vectors are abandoned early.
+ */
+@ThreadSafe
+public class SearchExactIndex {
+
+    private final SearchVectorStore store;
+
+    private final SearchMetric metric;
+
+    public SearchExactIndex(SearchVectorStore store, SearchMetric metric) {
+        Preconditions.checkNotNull(store, "Store is null");
+        Preconditions.checkNotNull(metric, "Metric is null");
+
+        this.store = store;
+        this.metric = metric;
+    }
+
+    public SearchVectorStore getStore() {
+        return store;
+    }
+
+    public SearchMetric getMetric() {
+        return metric;
+    }
+
+    /**
+     * Search for the k nearest vectors
+     *
+     * @param query Query vector
+     * @param k Number of the vectors to find
+     * @return Sorted result
+     */
+    public SearchTopK search(double[] query, int k) {
+        SearchTopK result = new SearchTopK(k);
+
+        search(query, result);
+
+        return result;
+    }
+
+    /**
+     * Search for the nearest vectors into the reusable result (the search doesn't allocate)
+     *
+     * @param query Query vector
+     * @param result Result, it is cleared and sorted by the call
+     */
+    public void search(double[] query, SearchTopK result) {
+        if (query.length != store.dimension) {
+            throw new IllegalArgumentException(
+                String.format("Query vector size doesn't match the store: %d <> %d", query.length, store.dimension)
+            );
+        }
+
+        SearchEvent event = SearchEvent.start();
+
+        result.clear();
+
+        final double queryNorm = metric.prepare(query);
+
+        for (int id = 0, count = store.count; id < count; id++) {
+            double distance = metric.distance(store, id, query, queryNorm, result.threshold());
+
+            result.offer(id, distance);
+        }
+
+        result.sort();
+
+        SearchEvent.commit(event, "exact", store.count, store.dimension, 1, result.getK());
+    }
+}
@@ -0,0 +1,89 @@
+package org.github.mazurkin.search;
+
+/**
+ * Conversion between float and IEEE 754 half precision float kept in {@code short} (the JDK has it only since
+ * Java 20). The decoding uses the table of all 65536 values.
+ */
+final class SearchHalfFloat {
+
+    private static final float[] DECODED = new float[1 << 16];
+
+    static {
+        for (int i = 0; i < DECODED.length; i++) {
+            DECODED[i] = decode(i);
+        }
+    }
+
+    private SearchHalfFloat() {
+        // utility class
+    }
+
+    /**
+     * Encode the value, the values out of range become the infinity, the tiny values become the zero
+     *
+     * @param value Value
+     * @return Half float bits
+     */
+    static short encode(float value) {
+        int bits = Float.floatToRawIntBits(value);
+
+        int sign = (bits >>> 16) & 0x8000;
+        int magnitude = bits & 0x7FFF_FFFF;
+
+        if (magnitude >= 0x7F80_0000) {
+            // infinity or NaN
+            return (short) (sign | 0x7C00 | (magnitude > 0x7F80_0000 ? 0x0200 : 0));
+        }
+
+        // rounding to the nearest of the 13 dropped bits of the mantissa
+        int rounded = magnitude + 0x1000;
+
+        if (rounded >= 0x4780_0000) {
+            // >= 65520 overflows
+            return (short) (sign | 0x7C00);
+        }
+
+        if (rounded >= 0x3880_0000) {
+            // normal
+            return (short) (sign | ((rounded - 0x3800_0000) >>> 13));
+        }
+
+        if (magnitude < 0x3300_0000) {
+            // less than the half of the smallest subnormal
+            return (short) sign;
+        }
+
+        // subnormal: the implicit bit is restored and the mantissa is shifted with the rounding
+        int exponent = magnitude >>> 23;
+        int mantissa = (magnitude & 0x007F_FFFF) | 0x0080_0000;
+
+        return (short) (sign | ((mantissa + (0x0080_0000 >>> (exponent - 102))) >>> (126 - exponent)));
+    }
+
+    /**
+     * Decode the value
+     *
+     * @param half Half float bits
+     * @return Value
+     */
+    static float decode(short half) {
+        return DECODED[half & 0xFFFF];
+    }
+
+    private static float decode(int bits) {
+        int sign = (bits & 0x8000) << 16;
+        int exponent = (bits >>> 10) & 0x1F;
+        int mantissa = bits & 0x03FF;
+
+        if (exponent == 0) {
+            float value = mantissa * 0x1p-24f;
+            return sign != 0 ? -value : value;
+        }
+
+        if (exponent == 0x1F) {
+            return Float.intBitsToFloat(sign | 0x7F80_0000 | (mantissa << 13));
+        }
+
+        return Float.intBitsToFloat(sign | ((exponent + 112) << 23) | (mantissa << 13));
+    }
+}
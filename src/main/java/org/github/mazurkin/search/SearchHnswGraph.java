@@ -0,0 +1,37 @@
+package org.github.mazurkin.search;
+
+/**
+ * Links and vectors of the HNSW graph read by {@link SearchHnswSearch}, the graph is either built in the heap
+ * ({@link SearchHnswIndex}) or mapped from the file ({@link SearchMappedHnswIndex})
+ */
+interface SearchHnswGraph {
+
+    /**
+     * Number of the links of the node on the layer
+     *
+     * @param id Node
+     * @param layer Layer
+     * @return Number of the links, 0 if the node doesn't reach the layer
+     */
+    int getLinkCount(int id, int layer);
+
+    /**
+     * Link of the node on the layer
+     *
+     * @param id Node
+     * @param layer Layer
+     * @param index Index of the link in [0, link count)
+     * @return Linked node
+     */
+    int getLink(int id, int layer, int index);
+
+    /**
+     * Squared L2 distance from the query to the vector of the node
+     *
+     * @param query Query data
+     * @param queryOffset Offset of the query vector in the data
+     * @param id Node
+     * @return Distance
+     */
+    double distance(double[] query, int queryOffset, int id);
+}
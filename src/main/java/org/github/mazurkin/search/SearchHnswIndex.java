@@ -0,0 +1,561 @@
+package org.github.mazurkin.search;
+
+import org.github.mazurkin.lalg.LalgOperations;
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Approximate k nearest neighbours search (squared L2) over the hierarchical navigable small world graph (HNSW)
+ * of the vectors of the store.
+ * <p>
+ * Every node has a random level, the upper layers are the sparse "express" graphs and the bottom layer links
+ * all the nodes. A search descends greedily through the upper layers and then runs the best-first search with
+ * {@code ef} candidates on the bottom layer.
+ * <p>
+ * The links are kept in the flat arrays: the bottom layer is one {@code int[]} with a slot of (1 + 2M) ints per
+ * node, the upper layers of a node are one {@code int[]} with a slot of (1 + M) ints per level. The first int of
+ * a slot is the number of the links. The vectors are inserted concurrently: a link slot is modified only under
+ * the striped lock of its node and the number of the links is published with the release store, so the readers
+ * (the searches and the other insertions) don't take any lock.
+ * <p>
+ * The built graph is saved with {@link #save(Path)} together with the vectors and is served read-only by
+ * {@link SearchMappedHnswIndex} right from the memory-mapped file.
+ *
+ * @see <a href="https://arxiv.org/abs/1603.09320">Efficient and robust approximate nearest neighbor search using
+ * Hierarchical Navigable Small World graphs</a>
+ */
+@ThreadSafe
+public class SearchHnswIndex {
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private static final int LOCK_STRIPES = 1024;
+
+    private static final long EMPTY = -1L;
+
+    private final SearchVectorStore store;
+
+    private final int m;
+
+    private final int m0;
+
+    private final int efConstruction;
+
+    private final long seed;
+
+    private final double levelFactor;
+
+    /**
+     * Level of the node, -1 until the node is added
+     */
+    private final int[] levels;
+
+    private final int[] bottomLinks;
+
+    private final int[][] upperLinks;
+
+    private final Object[] locks;
+
+    private final Object entryLock;
+
+    /**
+     * Entry node and its level packed into one value: (level << 32) | node
+     */
+    private volatile long entry;
+
+    private final AtomicInteger size;
+
+    private final SearchHnswGraph graph;
+
+    private final ThreadLocal<Buffers> contextThreadLocal;
+
+    /**
+     * Creates the empty index over the store, the vectors are added with {@link #add(int)} or {@link #addAll(int)}
+     *
+     * @param store Vector store
+     * @param options Build options
+     */
+    public SearchHnswIndex(SearchVectorStore store, SearchHnswOptions options) {
+        Preconditions.checkNotNull(store, "Store is null");
+        Preconditions.checkNotNull(options, "Options are null");
+
+        this.store = store;
+        this.m = options.getM();
+        this.m0 = 2 * options.getM();
+        this.efConstruction = options.getEfConstruction();
+        this.seed = options.getSeed();
+        this.levelFactor = 1.0 / Math.log(options.getM());
+
+        this.levels = new int[store.count];
+        Arrays.fill(this.levels, -1);
+
+        this.bottomLinks = new int[store.count * (m0 + 1)];
+        this.upperLinks = new int[store.count][];
+
+        this.locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            this.locks[i] = new Object();
+        }
+
+        this.entryLock = new Object();
+        this.entry = EMPTY;
+        this.size = new AtomicInteger();
+
+        this.graph = new Graph();
+        this.contextThreadLocal = ThreadLocal.withInitial(Buffers::new);
+    }
+
+    public SearchVectorStore getStore() {
+        return store;
+    }
+
+    /**
+     * Number of the added vectors
+     *
+     * @return Size
+     */
+    public int getSize() {
+        return size.get();
+    }
+
+    /**
+     * Level of the entry node
+     *
+     * @return Level, -1 for the empty index
+     */
+    public int getMaxLevel() {
+        long e = entry;
+        return e == EMPTY ? -1 : (int) (e >>> 32);
+    }
+
+    /**
+     * Add all the vectors of the store to the empty index
+     *
+     * @param parallelism Number of the threads, 0 to add in the calling thread
+     */
+    public void addAll(int parallelism) {
+        Preconditions.checkArgument(parallelism >= 0, "Parallelism is negative: %s", parallelism);
+
+        SearchIndexBuildEvent event = new SearchIndexBuildEvent();
+        event.begin();
+
+        if (parallelism == 0) {
+            for (int id = 0; id < store.count; id++) {
+                add(id);
+            }
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.submit(() -> IntStream.range(0, store.count).parallel().forEach(this::add)).join();
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        event.commit("hnsw", store.count, store.dimension, parallelism);
+    }
+
+    /**
+     * Add the vector of the store to the graph, the method could be called concurrently
+     *
+     * @param id Index of the vector in the store
+     */
+    public void add(int id) {
+        Preconditions.checkElementIndex(id, store.count, "Vector");
+
+        int level = randomLevel(id);
+
+        if (!INTS.compareAndSet(levels, id, -1, level)) {
+            throw new IllegalArgumentException(String.format("Vector is already added: %d", id));
+        }
+
+        if (level > 0) {
+            upperLinks[id] = new int[level * (m + 1)];
+        }
+
+        long e = entry;
+        if (e == EMPTY) {
+            synchronized (entryLock) {
+                if (entry == EMPTY) {
+                    entry = pack(level, id);
+                    size.incrementAndGet();
+                    return;
+                }
+
+                e = entry;
+            }
+        }
+
+        Buffers buffers = contextThreadLocal.get();
+
+        final double[] query = store.data;
+        final int queryOffset = store.getOffset(id);
+
+        int entryLevel = (int) (e >>> 32);
+
+        SearchHnswSearch search = buffers.search;
+
+        int current = (int) e;
+        double currentDistance = distance(query, queryOffset, current);
+
+        for (int layer = entryLevel; layer > level; layer--) {
+            current = search.greedy(graph, query, queryOffset, current, currentDistance, layer);
+            currentDistance = search.getGreedyDistance();
+        }
+
+        SearchTopK found = search.found(efConstruction);
+
+        for (int layer = Math.min(level, entryLevel); layer >= 0; layer--) {
+            search.searchLayer(graph, query, queryOffset, current, currentDistance, layer, found);
+
+            int maxLinks = layer == 0 ? m0 : m;
+
+            int candidateCount = found.size();
+            for (int i = 0; i < candidateCount; i++) {
+                buffers.candidateIds[i] = found.getId(i);
+                buffers.candidateDistances[i] = found.getDistance(i);
+            }
+
+            int selectedCount = select(buffers.candidateIds, buffers.candidateDistances, candidateCount,
+                maxLinks, buffers.selected);
+
+            int[] links = links(id, layer);
+            int base = base(id, layer);
+
+            synchronized (lock(id)) {
+                if (links[base] == 0) {
+                    System.arraycopy(buffers.selected, 0, links, base + 1, selectedCount);
+                    INTS.setRelease(links, base, selectedCount);
+                } else {
+                    // the concurrent insertions have already linked to the node through link(id, ...)
+                    merge(id, links, base, selectedCount, maxLinks, buffers);
+                }
+            }
+
+            for (int i = 0; i < selectedCount; i++) {
+                int neighbour = buffers.selected[i];
+
+                link(neighbour, id, layer, buffers);
+            }
+
+            // the nearest found node is the entry of the next layer
+            current = found.getId(0);
+            currentDistance = found.getDistance(0);
+        }
+
+        if (level > entryLevel) {
+            synchronized (entryLock) {
+                if (level > (int) (entry >>> 32)) {
+                    entry = pack(level, id);
+                }
+            }
+        }
+
+        size.incrementAndGet();
+    }
+
+    /**
+     * Save the graph and the vectors into the file (the file is truncated if it exists). The vectors must not be
+     * added concurrently with the saving.
+     *
+     * @param path Target file
+     * @throws IOException on I/O error
+     * @see SearchMappedHnswIndex#open(Path)
+     */
+    public void save(Path path) throws IOException {
+        long e = entry;
+
+        // the upper layers of all the nodes are concatenated, the nodes without the upper layers have -1
+        int[] upperOffsets = new int[store.count];
+        int upperSize = 0;
+
+        for (int id = 0; id < store.count; id++) {
+            if (upperLinks[id] != null) {
+                upperOffsets[id] = upperSize;
+                upperSize += upperLinks[id].length;
+            } else {
+                upperOffsets[id] = -1;
+            }
+        }
+
+        int[] upper = new int[upperSize];
+        for (int id = 0; id < store.count; id++) {
+            if (upperLinks[id] != null) {
+                System.arraycopy(upperLinks[id], 0, upper, upperOffsets[id], upperLinks[id].length);
+            }
+        }
+
+        new SearchIndexWriter(SearchIndexFormat.TYPE_HNSW)
+            .addInts(SearchIndexFormat.KIND_PARAMETERS, store.count, store.dimension, m,
+                e == EMPTY ? -1 : (int) e, e == EMPTY ? -1 : (int) (e >>> 32), size.get())
+            .addDoubles(SearchIndexFormat.KIND_VECTORS, store.data)
+            .addInts(SearchIndexFormat.KIND_BOTTOM_LINKS, bottomLinks)
+            .addInts(SearchIndexFormat.KIND_UPPER_OFFSETS, upperOffsets)
+            .addInts(SearchIndexFormat.KIND_UPPER_LINKS, upper)
+            .write(path);
+    }
+
+    /**
+     * Search for the k nearest vectors
+     *
+     * @param query Query vector
+     * @param ef Number of the candidates of the bottom layer search
+     * @param k Number of the vectors to find
+     * @return Sorted result
+     */
+    public SearchTopK search(double[] query, int ef, int k) {
+        SearchTopK result = new SearchTopK(k);
+
+        search(query, ef, result);
+
+        return result;
+    }
+
+    /**
+     * Search for the nearest vectors into the reusable result (the search doesn't allocate)
+     *
+     * @param query Query vector
+     * @param ef Number of the candidates of the bottom layer search (not less than k is used), more candidates
+     *           give the better recall
+     * @param result Result, it is cleared and sorted by the call
+     */
+    public void search(double[] query, int ef, SearchTopK result) {
+        if (query.length != store.dimension) {
+            throw new IllegalArgumentException(
+                String.format("Query vector size doesn't match the store: %d <> %d", query.length, store.dimension)
+            );
+        }
+
+        Preconditions.checkArgument(ef > 0, "Ef must be positive: %s", ef);
+
+        SearchEvent event = SearchEvent.start();
+
+        result.clear();
+
+        long e = entry;
+        if (e != EMPTY) {
+            contextThreadLocal.get().search.search(graph, query, (int) e, (int) (e >>> 32), ef, result);
+        }
+
+        result.sort();
+
+        SearchEvent.commit(event, "hnsw", size.get(), store.dimension, 1, result.getK());
+    }
+
+    /**
+     * Add the link to the new node into the links of the neighbour, the overflowed links are pruned
+     */
+    private void link(int neighbour, int id, int layer, Buffers buffers) {
+        int maxLinks = layer == 0 ? m0 : m;
+
+        int[] links = links(neighbour, layer);
+        int base = base(neighbour, layer);
+
+        synchronized (lock(neighbour)) {
+            int count = links[base];
+
+            if (count < maxLinks) {
+                links[base + 1 + count] = id;
+                INTS.setRelease(links, base, count + 1);
+                return;
+            }
+
+            // the existing links and the new one sorted by the distance to the neighbour
+            int[] pruneIds = buffers.pruneIds;
+            double[] pruneDistances = buffers.pruneDistances;
+
+            final int offset = store.getOffset(neighbour);
+
+            for (int i = 0; i <= count; i++) {
+                int candidate = i < count ? links[base + 1 + i] : id;
+                double distance = distance(store.data, offset, candidate);
+
+                int j = i;
+                while (j > 0 && pruneDistances[j - 1] > distance) {
+                    pruneIds[j] = pruneIds[j - 1];
+                    pruneDistances[j] = pruneDistances[j - 1];
+                    j--;
+                }
+
+                pruneIds[j] = candidate;
+                pruneDistances[j] = distance;
+            }
+
+            int selectedCount = select(pruneIds, pruneDistances, count + 1, maxLinks, buffers.pruneSelected);
+
+            System.arraycopy(buffers.pruneSelected, 0, links, base + 1, selectedCount);
+            INTS.setRelease(links, base, selectedCount);
+        }
+    }
+
+    /**
+     * Merge the selected links of the new node with the back-links already added to its slot, the overflowed
+     * links are pruned. The method is called under the lock of the node.
+     */
+    private void merge(int id, int[] links, int base, int selectedCount, int maxLinks, Buffers buffers) {
+        int[] mergeIds = buffers.pruneIds;
+        double[] mergeDistances = buffers.pruneDistances;
+
+        final int offset = store.getOffset(id);
+
+        int existing = links[base];
+        int count = 0;
+
+        for (int i = 0; i < existing + selectedCount; i++) {
+            int candidate = i < existing ? links[base + 1 + i] : buffers.selected[i - existing];
+
+            boolean duplicate = false;
+            for (int j = 0; j < count; j++) {
+                if (mergeIds[j] == candidate) {
+                    duplicate = true;
+                    break;
+                }
+            }
+
+            if (duplicate) {
+                continue;
+            }
+
+            double distance = distance(store.data, offset, candidate);
+
+            int j = count++;
+            while (j > 0 && mergeDistances[j - 1] > distance) {
+                mergeIds[j] = mergeIds[j - 1];
+                mergeDistances[j] = mergeDistances[j - 1];
+                j--;
+            }
+
+            mergeIds[j] = candidate;
+            mergeDistances[j] = distance;
+        }
+
+        int mergedCount = select(mergeIds, mergeDistances, count, maxLinks, buffers.pruneSelected);
+
+        System.arraycopy(buffers.pruneSelected, 0, links, base + 1, mergedCount);
+        INTS.setRelease(links, base, mergedCount);
+    }
+
+    /**
+     * Neighbour selection heuristic: a candidate is skipped if it is closer to an already selected node than
+     * to the base node, so the links go in the different directions
+     *
+     * @param ids Candidates sorted by the distance to the base node
+     * @param distances Distances to the base node
+     * @param count Number of the candidates
+     * @param maxLinks Maximal number of the selected nodes
+     * @param target Selected nodes
+     * @return Number of the selected nodes
+     */
+    private int select(int[] ids, double[] distances, int count, int maxLinks, int[] target) {
+        int selected = 0;
+
+        for (int i = 0; i < count && selected < maxLinks; i++) {
+            int candidate = ids[i];
+            int offset = store.getOffset(candidate);
+
+            boolean good = true;
+            for (int j = 0; j < selected; j++) {
+                if (distance(store.data, offset, target[j]) < distances[i]) {
+                    good = false;
+                    break;
+                }
+            }
+
+            if (good) {
+                target[selected++] = candidate;
+            }
+        }
+
+        return selected;
+    }
+
+    private double distance(double[] query, int queryOffset, int id) {
+        return LalgOperations.computeSquaredDistance(
+            store.data, store.getOffset(id), query, queryOffset, store.dimension
+        );
+    }
+
+    private int[] links(int id, int layer) {
+        return layer == 0 ? bottomLinks : upperLinks[id];
+    }
+
+    private int base(int id, int layer) {
+        return layer == 0 ? id * (m0 + 1) : (layer - 1) * (m + 1);
+    }
+
+    private Object lock(int id) {
+        return locks[id & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * Level of the node: -ln(U) / ln(M) with U uniform in (0, 1] derived from the seed and the index (SplitMix64),
+     * so the build doesn't share a random generator between the threads
+     */
+    private int randomLevel(int id) {
+        long z = seed + (id + 1L) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+
+        double u = ((z >>> 11) + 1) * 0x1.0p-53;
+
+        return (int) (-Math.log(u) * levelFactor);
+    }
+
+    private static long pack(int level, int id) {
+        return ((long) level << 32) | id;
+    }
+
+    /**
+     * Per-thread allocated buffers
+     */
+    private class Buffers {
+
+        private final SearchHnswSearch search = new SearchHnswSearch(store.count);
+
+        private final int[] candidateIds = new int[efConstruction];
+
+        private final double[] candidateDistances = new double[efConstruction];
+
+        private final int[] selected = new int[m0];
+
+        // the pruned links of a neighbour (m0 + 1) or the merged links of the new node (up to 2 * m0)
+        private final int[] pruneIds = new int[2 * m0];
+
+        private final double[] pruneDistances = new double[2 * m0];
+
+        private final int[] pruneSelected = new int[m0 + 1];
+    }
+
+    /**
+     * Links of the heap arrays, the number of the links is read with the acquire load
+     */
+    private class Graph implements SearchHnswGraph {
+
+        @Override
+        public int getLinkCount(int id, int layer) {
+            int[] links = links(id, layer);
+            return links != null ? (int) INTS.getAcquire(links, base(id, layer)) : 0;
+        }
+
+        @Override
+        public int getLink(int id, int layer, int index) {
+            return links(id, layer)[base(id, layer) + 1 + index];
+        }
+
+        @Override
+        public double distance(double[] query, int queryOffset, int id) {
+            return SearchHnswIndex.this.distance(query, queryOffset, id);
+        }
+    }
+}
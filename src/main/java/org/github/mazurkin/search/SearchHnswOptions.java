@@ -0,0 +1,91 @@
+package org.github.mazurkin.search;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Build parameters of {@link SearchHnswIndex}. The instance is immutable, every {@code with*} method returns
+ * a modified copy.
+ */
+@Immutable
+public final class SearchHnswOptions {
+
+    private static final SearchHnswOptions DEFAULTS = new SearchHnswOptions(16, 100, 0L);
+
+    private final int m;
+
+    private final int efConstruction;
+
+    private final long seed;
+
+    private SearchHnswOptions(int m, int efConstruction, long seed) {
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.seed = seed;
+    }
+
+    /**
+     * Default options: 16 links per node (32 on the bottom layer), 100 candidates at the insertion
+     *
+     * @return Options
+     */
+    public static SearchHnswOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Maximal number of the links of a node on the upper layers, the bottom layer keeps twice as many
+     *
+     * @param m Number of the links
+     * @return Modified options
+     */
+    public SearchHnswOptions withM(int m) {
+        Preconditions.checkArgument(m >= 2, "M must be at least 2: %s", m);
+
+        return new SearchHnswOptions(m, efConstruction, seed);
+    }
+
+    /**
+     * Size of the candidate list of the insertion, the larger list builds the better graph slower
+     *
+     * @param efConstruction Number of the candidates
+     * @return Modified options
+     */
+    public SearchHnswOptions withEfConstruction(int efConstruction) {
+        Preconditions.checkArgument(efConstruction > 0, "Ef must be positive: %s", efConstruction);
+
+        return new SearchHnswOptions(m, efConstruction, seed);
+    }
+
+    /**
+     * Seed of the random node levels, the level of a node depends only on the seed and the vector index
+     *
+     * @param seed Seed
+     * @return Modified options
+     */
+    public SearchHnswOptions withSeed(long seed) {
+        return new SearchHnswOptions(m, efConstruction, seed);
+    }
+
+    public int getM() {
+        return m;
+    }
+
+    public int getEfConstruction() {
+        return efConstruction;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchHnswOptions{" +
+            "m=" + m +
+            ", efConstruction=" + efConstruction +
+            ", seed=" + seed +
+            '}';
+    }
+}
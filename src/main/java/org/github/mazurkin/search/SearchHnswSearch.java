@@ -0,0 +1,142 @@
+package org.github.mazurkin.search;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Search over the HNSW graph with the reusable per-thread buffers, so a search doesn't allocate. It is shared by
+ * the search and the insertion of {@link SearchHnswIndex} and by the search of {@link SearchMappedHnswIndex}.
+ */
+@NotThreadSafe
+final class SearchHnswSearch {
+
+    private final SearchVisited visited;
+
+    private final SearchCandidates candidates;
+
+    private SearchTopK found;
+
+    private double greedyDistance;
+
+    SearchHnswSearch(int count) {
+        this.visited = new SearchVisited(count);
+        this.candidates = new SearchCandidates();
+    }
+
+    /**
+     * Search for the nearest vectors into the result: the greedy descent through the upper layers and the
+     * best-first search of the bottom layer
+     *
+     * @param graph Graph
+     * @param query Query vector
+     * @param entryId Entry node
+     * @param entryLevel Level of the entry node
+     * @param ef Number of the candidates of the bottom layer search (not less than k is used)
+     * @param result Result, it is filled but not sorted
+     */
+    void search(SearchHnswGraph graph, double[] query, int entryId, int entryLevel, int ef, SearchTopK result) {
+        int current = entryId;
+        double currentDistance = graph.distance(query, 0, current);
+
+        for (int layer = entryLevel; layer > 0; layer--) {
+            current = greedy(graph, query, 0, current, currentDistance, layer);
+            currentDistance = greedyDistance;
+        }
+
+        SearchTopK candidates = found(Math.max(ef, result.getK()));
+
+        searchLayer(graph, query, 0, current, currentDistance, 0, candidates);
+
+        for (int i = 0, limit = Math.min(candidates.size(), result.getK()); i < limit; i++) {
+            result.offer(candidates.getId(i), candidates.getDistance(i));
+        }
+    }
+
+    /**
+     * Greedy walk to the nearest node of the layer, the distance is kept for {@link #getGreedyDistance()}
+     */
+    int greedy(SearchHnswGraph graph, double[] query, int queryOffset, int current, double currentDistance,
+               int layer)
+    {
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            int count = graph.getLinkCount(current, layer);
+            int node = current;
+
+            for (int i = 0; i < count; i++) {
+                int neighbour = graph.getLink(node, layer, i);
+                double distance = graph.distance(query, queryOffset, neighbour);
+
+                if (distance < currentDistance) {
+                    current = neighbour;
+                    currentDistance = distance;
+                    changed = true;
+                }
+            }
+        }
+
+        greedyDistance = currentDistance;
+        return current;
+    }
+
+    /**
+     * Best-first search of the layer from the entry node, the found nodes are sorted by the distance
+     */
+    void searchLayer(SearchHnswGraph graph, double[] query, int queryOffset, int entryId, double entryDistance,
+                     int layer, SearchTopK found)
+    {
+        visited.clear();
+        candidates.clear();
+        found.clear();
+
+        visited.testAndSet(entryId);
+        candidates.push(entryId, entryDistance);
+        found.offer(entryId, entryDistance);
+
+        while (candidates.size() > 0) {
+            if (candidates.peekDistance() > found.threshold()) {
+                break;
+            }
+
+            int current = candidates.pop();
+            int count = graph.getLinkCount(current, layer);
+
+            for (int i = 0; i < count; i++) {
+                int neighbour = graph.getLink(current, layer, i);
+
+                if (visited.testAndSet(neighbour)) {
+                    continue;
+                }
+
+                double distance = graph.distance(query, queryOffset, neighbour);
+
+                if (distance < found.threshold()) {
+                    found.offer(neighbour, distance);
+                    candidates.push(neighbour, distance);
+                }
+            }
+        }
+
+        found.sort();
+    }
+
+    double getGreedyDistance() {
+        return greedyDistance;
+    }
+
+    /**
+     * Reusable candidates of the layer search
+     *
+     * @param ef Number of the candidates
+     * @return Buffer
+     */
+    SearchTopK found(int ef) {
+        if (found == null || found.getK() != ef) {
+            found = new SearchTopK(ef);
+        }
+
+        return found;
+    }
+}
@@ -0,0 +1,44 @@
+package org.github.mazurkin.search;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of the index build (the training and the encoding of IVF-PQ, the graph of HNSW)
+ */
+@Name(SearchIndexBuildEvent.NAME)
+@Label("Index Build")
+@Category({"lalg", "Search"})
+@Description("Vector index build")
+public final class SearchIndexBuildEvent extends jdk.jfr.Event {
+
+    public static final String NAME = "org.github.mazurkin.lalg.IndexBuild";
+
+    @Label("Index")
+    String index;
+
+    @Label("Vector Count")
+    int vectorCount;
+
+    @Label("Dimension")
+    int dimension;
+
+    @Label("Parallelism")
+    int parallelism;
+
+    /**
+     * Fill and write the event if it passes the threshold
+     */
+    void commit(String index, int vectorCount, int dimension, int parallelism) {
+        if (shouldCommit()) {
+            this.index = index;
+            this.vectorCount = vectorCount;
+            this.dimension = dimension;
+            this.parallelism = parallelism;
+
+            commit();
+        }
+    }
+}
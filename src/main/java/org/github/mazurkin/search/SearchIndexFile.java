@@ -0,0 +1,220 @@
+package org.github.mazurkin.search;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index file written by {@link SearchIndexWriter} with every section memory-mapped read-only. Nothing is copied to
+ * the heap, the pages are loaded on the first access and are shared with the other processes mapping the same
+ * file. A section is mapped in the chunks of {@link SearchIndexSection#CHUNK_SIZE} bytes, so it could be larger
+ * than 2 GB.
+ *
+ * @see SearchIndexFormat
+ */
+@Immutable
+final class SearchIndexFile {
+
+    private final Path path;
+
+    private final Map<Integer, SearchIndexSection> sections;
+
+    private SearchIndexFile(Path path, Map<Integer, SearchIndexSection> sections) {
+        this.path = path;
+        this.sections = sections;
+    }
+
+    /**
+     * Map the index file
+     *
+     * @param path Index file
+     * @param type Expected index type
+     * @return Mapped file
+     * @throws IOException on I/O error or if the file is malformed
+     */
+    static SearchIndexFile open(Path path, int type) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+
+            ByteBuffer header = read(channel, 0, SearchIndexFormat.HEADER_SIZE, fileSize);
+
+            int magic = header.getInt();
+            if (magic != SearchIndexFormat.MAGIC) {
+                throw new IOException(String.format("Not an index file (magic %08x): %s", magic, path));
+            }
+
+            int version = header.getInt();
+            if (version != SearchIndexFormat.VERSION) {
+                throw new IOException(String.format("Unsupported index file version %d: %s", version, path));
+            }
+
+            int actualType = header.getInt();
+            if (actualType != type) {
+                throw new IOException(String.format("Unexpected index type %d <> %d: %s", actualType, type, path));
+            }
+
+            // the table must fit into the file, so the size of the table doesn't overflow
+            long maxSectionCount = (fileSize - SearchIndexFormat.HEADER_SIZE) / SearchIndexFormat.SECTION_ENTRY_SIZE;
+
+            int sectionCount = header.getInt();
+            if (sectionCount <= 0 || sectionCount > maxSectionCount) {
+                throw new IOException(String.format("Invalid number of sections %d: %s", sectionCount, path));
+            }
+
+            ByteBuffer table = read(channel, SearchIndexFormat.HEADER_SIZE,
+                SearchIndexFormat.SECTION_ENTRY_SIZE * sectionCount, fileSize);
+
+            Map<Integer, SearchIndexSection> sections = new HashMap<>();
+
+            for (int i = 0; i < sectionCount; i++) {
+                int kind = table.getInt();
+                int elementType = table.getInt();
+                long length = table.getLong();
+                long offset = table.getLong();
+
+                if (elementType < SearchIndexFormat.ELEMENT_BYTE || elementType > SearchIndexFormat.ELEMENT_DOUBLE) {
+                    throw new IOException(String.format("Unknown element type %d: %s", elementType, path));
+                }
+
+                long size = sectionSize(length, elementType);
+
+                if (length < 0 || offset < 0 || offset % SearchIndexFormat.ALIGNMENT != 0 || size < 0
+                    || size > fileSize - offset)
+                {
+                    throw new IOException(
+                        String.format("Invalid section [%d at %d] of %d bytes: %s", length, offset, fileSize, path)
+                    );
+                }
+
+                ByteBuffer[] chunks = new ByteBuffer[SearchIndexSection.chunkCount(size)];
+
+                for (int c = 0; c < chunks.length; c++) {
+                    long from = (long) c << SearchIndexSection.CHUNK_SHIFT;
+                    long chunkSize = Math.min(SearchIndexSection.CHUNK_SIZE, size - from);
+
+                    chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY, offset + from, chunkSize)
+                        .order(SearchIndexFormat.ORDER);
+                }
+
+                if (sections.put(kind, new SearchIndexSection(elementType, length, chunks)) != null) {
+                    throw new IOException(String.format("Duplicate section kind %d: %s", kind, path));
+                }
+            }
+
+            // the mappings stay valid after the channel is closed
+            return new SearchIndexFile(path, sections);
+        }
+    }
+
+    SearchIndexSection getBytes(int kind) throws IOException {
+        return section(kind, SearchIndexFormat.ELEMENT_BYTE);
+    }
+
+    SearchIndexSection getInts(int kind) throws IOException {
+        return section(kind, SearchIndexFormat.ELEMENT_INT);
+    }
+
+    SearchIndexSection getDoubles(int kind) throws IOException {
+        return section(kind, SearchIndexFormat.ELEMENT_DOUBLE);
+    }
+
+    /**
+     * Int section of the expected size
+     *
+     * @param kind Section kind
+     * @param length Number of the elements
+     * @return Section
+     * @throws IOException if the section is missing or has the other size
+     */
+    SearchIndexSection getInts(int kind, long length) throws IOException {
+        return checkLength(kind, getInts(kind), length);
+    }
+
+    /**
+     * Double section of the expected size
+     *
+     * @param kind Section kind
+     * @param length Number of the elements
+     * @return Section
+     * @throws IOException if the section is missing or has the other size
+     */
+    SearchIndexSection getDoubles(int kind, long length) throws IOException {
+        return checkLength(kind, getDoubles(kind), length);
+    }
+
+    /**
+     * Byte section of the expected size
+     *
+     * @param kind Section kind
+     * @param length Number of the elements
+     * @return Section
+     * @throws IOException if the section is missing or has the other size
+     */
+    SearchIndexSection getBytes(int kind, long length) throws IOException {
+        return checkLength(kind, getBytes(kind), length);
+    }
+
+    private SearchIndexSection section(int kind, int elementType) throws IOException {
+        SearchIndexSection data = sections.get(kind);
+        if (data == null) {
+            throw new IOException(String.format("Index file misses the section %d: %s", kind, path));
+        }
+
+        int actualType = data.getElementType();
+        if (actualType != elementType) {
+            throw new IOException(
+                String.format("Section %d has the element type %d <> %d: %s", kind, actualType, elementType, path)
+            );
+        }
+
+        return data;
+    }
+
+    private SearchIndexSection checkLength(int kind, SearchIndexSection data, long length) throws IOException {
+        if (data.length() != length) {
+            throw new IOException(
+                String.format("Section %d has %d elements instead of %d: %s", kind, data.length(), length, path)
+            );
+        }
+
+        return data;
+    }
+
+    /**
+     * Size of the section in bytes
+     *
+     * @param length Number of the elements
+     * @param elementType Element type
+     * @return Size, -1 if it overflows
+     */
+    private static long sectionSize(long length, int elementType) {
+        try {
+            return Math.multiplyExact(length, SearchIndexFormat.elementSize(elementType));
+        } catch (ArithmeticException e) {
+            return -1;
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long offset, int size, long fileSize) throws IOException {
+        if (offset + size > fileSize) {
+            throw new IOException(String.format("Index file is truncated: %d < %d", fileSize, offset + size));
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(SearchIndexFormat.ORDER);
+
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the index file");
+            }
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+}
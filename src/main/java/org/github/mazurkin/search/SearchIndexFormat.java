@@ -0,0 +1,90 @@
+package org.github.mazurkin.search;
+
+import java.nio.ByteOrder;
+
+/**
+ * Binary index file layout (version 1). All the numbers are little-endian.
+ *
+ * <pre>
+ * header (16 bytes):
+ *   int32 magic ("SIDX")
+ *   int32 version
+ *   int32 index type (see the constants)
+ *   int32 number of sections
+ * section table (24 bytes per section):
+ *   int32 kind (see the constants)
+ *   int32 element type (see the constants)
+ *   int64 number of the elements
+ *   int64 offset of the section data from the start of the file
+ * sections:
+ *   the flat arrays, every section starts at the 64-byte boundary
+ * </pre>
+ *
+ * The sections are mapped as they are, so the arrays of the index are written in the layout its search reads.
+ * The scalar parameters of an index are the int section {@link #KIND_PARAMETERS}.
+ */
+final class SearchIndexFormat {
+
+    static final int MAGIC = 0x58444953;
+
+    static final int VERSION = 1;
+
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final int ALIGNMENT = 64;
+
+    static final int HEADER_SIZE = 16;
+
+    static final int SECTION_ENTRY_SIZE = 24;
+
+    static final int TYPE_IVF_PQ = 1;
+
+    static final int TYPE_HNSW = 2;
+
+    static final int ELEMENT_BYTE = 1;
+
+    static final int ELEMENT_INT = 2;
+
+    static final int ELEMENT_DOUBLE = 3;
+
+    static final int KIND_PARAMETERS = 1;
+
+    static final int KIND_VECTORS = 2;
+
+    static final int KIND_COARSE_CENTROIDS = 3;
+
+    static final int KIND_CODEBOOKS = 4;
+
+    static final int KIND_LIST_OFFSETS = 5;
+
+    static final int KIND_LIST_IDS = 6;
+
+    static final int KIND_LIST_CODES = 7;
+
+    static final int KIND_BOTTOM_LINKS = 8;
+
+    static final int KIND_UPPER_OFFSETS = 9;
+
+    static final int KIND_UPPER_LINKS = 10;
+
+    private SearchIndexFormat() {
+        // utility class
+    }
+
+    static long align(long offset) {
+        return (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    static int elementSize(int elementType) {
+        switch (elementType) {
+            case ELEMENT_BYTE:
+                return Byte.BYTES;
+            case ELEMENT_INT:
+                return Integer.BYTES;
+            case ELEMENT_DOUBLE:
+                return Double.BYTES;
+            default:
+                throw new IllegalArgumentException(String.format("Unknown element type: %d", elementType));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.github.mazurkin.search;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Section of the index file split into the chunks of {@link #CHUNK_SIZE} bytes, so a section isn't limited by the
+ * 2 GB size of a single buffer. The chunk size is a multiple of any element size, so an element never spans two
+ * chunks. The chunks are used only with the absolute accessors, so the section is shared by the threads.
+ *
+ * @see SearchIndexFile
+ */
+@Immutable
+final class SearchIndexSection {
+
+    static final int CHUNK_SHIFT = 30;
+
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int elementType;
+
+    private final long length;
+
+    private final ByteBuffer[] chunks;
+
+    SearchIndexSection(int elementType, long length, ByteBuffer[] chunks) {
+        this.elementType = elementType;
+        this.length = length;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Section over the heap buffer
+     *
+     * @param elementType Element type
+     * @param data Buffer with the elements from the position 0 till the limit
+     * @return Section
+     */
+    static SearchIndexSection wrap(int elementType, ByteBuffer data) {
+        int size = data.limit();
+
+        ByteBuffer[] chunks = new ByteBuffer[chunkCount(size)];
+
+        for (int c = 0; c < chunks.length; c++) {
+            int from = c * CHUNK_SIZE;
+            int till = (int) Math.min((long) from + CHUNK_SIZE, size);
+
+            chunks[c] = data.duplicate().position(from).limit(till).slice().order(SearchIndexFormat.ORDER);
+        }
+
+        return new SearchIndexSection(elementType, size / SearchIndexFormat.elementSize(elementType), chunks);
+    }
+
+    /**
+     * Number of the chunks of the section, an empty section has one empty chunk
+     *
+     * @param size Size in bytes
+     * @return Number of the chunks
+     */
+    static int chunkCount(long size) {
+        return (int) Math.max(1, (size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+    }
+
+    int getElementType() {
+        return elementType;
+    }
+
+    /**
+     * Number of the elements
+     *
+     * @return Length
+     */
+    long length() {
+        return length;
+    }
+
+    byte getByte(long index) {
+        return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) (index & CHUNK_MASK));
+    }
+
+    int getInt(long index) {
+        long position = index << 2;
+        return chunks[(int) (position >>> CHUNK_SHIFT)].getInt((int) (position & CHUNK_MASK));
+    }
+
+    double getDouble(long index) {
+        long position = index << 3;
+        return chunks[(int) (position >>> CHUNK_SHIFT)].getDouble((int) (position & CHUNK_MASK));
+    }
+
+    /**
+     * Copy the first elements of the int section
+     *
+     * @param target Target array
+     */
+    void get(int[] target) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] = getInt(i);
+        }
+    }
+
+    /**
+     * Copy the first elements of the double section
+     *
+     * @param target Target array
+     */
+    void get(double[] target) {
+        get(0, target, 0, target.length);
+    }
+
+    /**
+     * Copy the elements of the double section
+     *
+     * @param index Index of the first element
+     * @param target Target array
+     * @param offset Offset in the target array
+     * @param length Number of the elements
+     */
+    void get(long index, double[] target, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            target[offset + i] = getDouble(index + i);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.github.mazurkin.search;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writer of the binary index file, the sections are collected and then written at once
+ *
+ * @see SearchIndexFormat
+ * @see SearchIndexFile
+ */
+@NotThreadSafe
+final class SearchIndexWriter {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final int type;
+
+    private final List<Section> sections;
+
+    SearchIndexWriter(int type) {
+        this.type = type;
+        this.sections = new ArrayList<>();
+    }
+
+    SearchIndexWriter addSection(int kind, SearchIndexSection data) {
+        sections.add(new Section(kind, data.getElementType(), data, null, null));
+        return this;
+    }
+
+    SearchIndexWriter addInts(int kind, int... data) {
+        sections.add(new Section(kind, SearchIndexFormat.ELEMENT_INT, null, IntBuffer.wrap(data), null));
+        return this;
+    }
+
+    SearchIndexWriter addDoubles(int kind, double[] data) {
+        sections.add(new Section(kind, SearchIndexFormat.ELEMENT_DOUBLE, null, null, DoubleBuffer.wrap(data)));
+        return this;
+    }
+
+    /**
+     * Write the file (the file is truncated if it exists)
+     *
+     * @param path Target file
+     * @throws IOException on I/O error
+     */
+    void write(Path path) throws IOException {
+        long offset = SearchIndexFormat.align(
+            SearchIndexFormat.HEADER_SIZE + (long) SearchIndexFormat.SECTION_ENTRY_SIZE * sections.size()
+        );
+
+        for (Section section : sections) {
+            section.offset = offset;
+            offset = SearchIndexFormat.align(offset + section.size());
+        }
+
+        try (FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(SearchIndexFormat.ORDER);
+
+            buffer.putInt(SearchIndexFormat.MAGIC);
+            buffer.putInt(SearchIndexFormat.VERSION);
+            buffer.putInt(type);
+            buffer.putInt(sections.size());
+
+            for (Section section : sections) {
+                buffer.putInt(section.kind);
+                buffer.putInt(section.elementType);
+                buffer.putLong(section.length);
+                buffer.putLong(section.offset);
+            }
+
+            long position = buffer.position();
+
+            for (Section section : sections) {
+                position = pad(channel, buffer, position, section.offset);
+                position += section.write(channel, buffer);
+            }
+
+            pad(channel, buffer, position, offset);
+            flush(channel, buffer);
+
+            channel.force(true);
+        }
+    }
+
+    private static long pad(FileChannel channel, ByteBuffer buffer, long position, long offset) throws IOException {
+        for (; position < offset; position++) {
+            if (!buffer.hasRemaining()) {
+                flush(channel, buffer);
+            }
+
+            buffer.put((byte) 0);
+        }
+
+        return position;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+    private static class Section {
+
+        private final int kind;
+
+        private final int elementType;
+
+        private final SearchIndexSection section;
+
+        private final IntBuffer ints;
+
+        private final DoubleBuffer doubles;
+
+        private final long length;
+
+        private long offset;
+
+        private Section(int kind, int elementType, SearchIndexSection section, IntBuffer ints, DoubleBuffer doubles) {
+            this.kind = kind;
+            this.elementType = elementType;
+            this.section = section;
+            this.ints = ints;
+            this.doubles = doubles;
+
+            if (section != null) {
+                this.length = section.length();
+            } else if (ints != null) {
+                this.length = ints.limit();
+            } else {
+                this.length = doubles.limit();
+            }
+        }
+
+        private long size() {
+            return length * SearchIndexFormat.elementSize(elementType);
+        }
+
+        /**
+         * Put the elements with the absolute accessors (the source buffers could be shared with the searches)
+         */
+        private long write(FileChannel channel, ByteBuffer buffer) throws IOException {
+            int elementSize = SearchIndexFormat.elementSize(elementType);
+
+            for (long i = 0; i < length; i++) {
+                if (buffer.remaining() < elementSize) {
+                    flush(channel, buffer);
+                }
+
+                if (section != null) {
+                    if (elementType == SearchIndexFormat.ELEMENT_BYTE) {
+                        buffer.put(section.getByte(i));
+                    } else if (elementType == SearchIndexFormat.ELEMENT_INT) {
+                        buffer.putInt(section.getInt(i));
+                    } else {
+                        buffer.putDouble(section.getDouble(i));
+                    }
+                } else if (ints != null) {
+                    buffer.putInt(ints.get((int) i));
+                } else {
+                    buffer.putDouble(doubles.get((int) i));
+                }
+            }
+
+            return size();
+        }
+    }
+}
@@ -0,0 +1,462 @@
+package org.github.mazurkin.search;
+
+import org.github.mazurkin.lalg.LalgOperations;
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Approximate k nearest neighbours search (squared L2) with the inverted file and the product quantization
+ * (IVF-PQ).
+ * <p>
+ * The coarse quantizer (k-means) splits the vectors into the inverted lists. Within a list a vector is stored
+ * only as the product-quantized code of its residual (the vector minus the list centroid): the residual is cut
+ * into M subvectors and each of them is replaced by the index of the nearest of 256 subspace centroids, so the
+ * vector takes M bytes instead of 8 x dimension. A query probes the {@code nprobe} nearest lists: for every list
+ * the squared distances from the query residual to all the subspace centroids are tabulated once (asymmetric
+ * distance computation) and the distance to a stored vector is the sum of M table lookups.
+ * <p>
+ * The distances in the result are approximate.
+ * <p>
+ * The index is saved with {@link #save(Path)} and opened with {@link #open(Path)}: the ids and the codes of the
+ * inverted lists (the bulk of the index) are searched right in the memory-mapped file, only the centroids are
+ * copied to the heap.
+ *
+ * @see <a href="https://hal.inria.fr/inria-00514462/document">Product quantization for nearest neighbor search</a>
+ */
+@ThreadSafe
+public class SearchIvfPqIndex {
+
+    /**
+     * Centroids per subspace, the code of a subvector is one byte
+     */
+    static final int SUBSPACE_CENTROIDS = 256;
+
+    private final int count;
+
+    private final int dimension;
+
+    private final int listCount;
+
+    private final int subspaceCount;
+
+    private final int subspaceCentroids;
+
+    /**
+     * Boundaries of the subspaces, subspace s is [subspaceFrom[s], subspaceFrom[s + 1])
+     */
+    private final int[] subspaceFrom;
+
+    /**
+     * Coarse centroids, listCount x dimension
+     */
+    private final double[] coarseCentroids;
+
+    /**
+     * Codebooks, the centroids of the subspace s are subspaceCentroids x subDimension elements starting from
+     * subspaceCentroids * subspaceFrom[s]
+     */
+    private final double[] codebooks;
+
+    /**
+     * The list l is [listOffsets[l], listOffsets[l + 1]) of the ids and the codes
+     */
+    private final int[] listOffsets;
+
+    /**
+     * Ids of the vectors of all the lists
+     */
+    private final SearchIndexSection listIds;
+
+    /**
+     * Codes of the vectors of all the lists, subspaceCount bytes per vector
+     */
+    private final SearchIndexSection listCodes;
+
+    private final ThreadLocal<Buffers> contextThreadLocal;
+
+    /**
+     * Trains the quantizers on the sample of the store and encodes all the vectors
+     *
+     * @param store Vector store (it is not referenced by the index)
+     * @param options Build options
+     */
+    public SearchIvfPqIndex(SearchVectorStore store, SearchIvfPqOptions options) {
+        Preconditions.checkNotNull(store, "Store is null");
+        Preconditions.checkNotNull(options, "Options are null");
+        Preconditions.checkArgument(options.getSubspaceCount() <= store.dimension,
+            "Subspace count exceeds the dimension: %s > %s", options.getSubspaceCount(), store.dimension);
+
+        SearchIndexBuildEvent event = new SearchIndexBuildEvent();
+        event.begin();
+
+        this.count = store.count;
+        this.dimension = store.dimension;
+        this.subspaceCount = options.getSubspaceCount();
+
+        this.subspaceFrom = new int[subspaceCount + 1];
+        for (int s = 0; s <= subspaceCount; s++) {
+            this.subspaceFrom[s] = s * dimension / subspaceCount;
+        }
+
+        Random random = new Random(options.getSeed());
+
+        // training sample
+        int sampleCount = Math.min(options.getTrainSampleSize(), count);
+        double[] sample = sample(store, sampleCount, random);
+
+        // coarse quantizer
+        this.listCount = Math.min(options.getListCount(), sampleCount);
+        this.coarseCentroids = SearchKMeans.train(
+            sample, sampleCount, dimension, 0, dimension, listCount, options.getIterations(), random
+        );
+
+        // product quantizer of the residuals
+        for (int i = 0; i < sampleCount; i++) {
+            int offset = i * dimension;
+            int list = SearchKMeans.nearest(coarseCentroids, listCount, dimension, sample, offset);
+
+            subtract(sample, offset, coarseCentroids, list * dimension, sample, offset, dimension);
+        }
+
+        this.subspaceCentroids = Math.min(SUBSPACE_CENTROIDS, sampleCount);
+        this.codebooks = new double[subspaceCentroids * dimension];
+
+        for (int s = 0; s < subspaceCount; s++) {
+            int from = subspaceFrom[s];
+            int subDimension = subspaceFrom[s + 1] - from;
+
+            double[] codebook = SearchKMeans.train(
+                sample, sampleCount, dimension, from, subDimension, subspaceCentroids, options.getIterations(), random
+            );
+
+            System.arraycopy(codebook, 0, codebooks, subspaceCentroids * from, codebook.length);
+        }
+
+        // inverted lists
+        int[] assignment = new int[count];
+        this.listOffsets = new int[listCount + 1];
+
+        for (int id = 0; id < count; id++) {
+            assignment[id] = SearchKMeans.nearest(
+                coarseCentroids, listCount, dimension, store.data, store.getOffset(id)
+            );
+            listOffsets[assignment[id] + 1]++;
+        }
+
+        for (int list = 0; list < listCount; list++) {
+            listOffsets[list + 1] += listOffsets[list];
+        }
+
+        int[] ids = new int[count];
+        byte[] codes = new byte[count * subspaceCount];
+
+        int[] listFill = Arrays.copyOf(listOffsets, listCount);
+        double[] residual = new double[dimension];
+
+        for (int id = 0; id < count; id++) {
+            int list = assignment[id];
+            int position = listFill[list]++;
+
+            subtract(store.data, store.getOffset(id), coarseCentroids, list * dimension, residual, 0, dimension);
+
+            ids[position] = id;
+            encode(residual, codes, position * subspaceCount);
+        }
+
+        ByteBuffer idBytes = ByteBuffer.allocate(count * Integer.BYTES).order(SearchIndexFormat.ORDER);
+        idBytes.asIntBuffer().put(ids);
+
+        this.listIds = SearchIndexSection.wrap(SearchIndexFormat.ELEMENT_INT, idBytes);
+        this.listCodes = SearchIndexSection.wrap(SearchIndexFormat.ELEMENT_BYTE, ByteBuffer.wrap(codes));
+
+        this.contextThreadLocal = ThreadLocal.withInitial(Buffers::new);
+
+        event.commit("ivf-pq", count, dimension, 0);
+    }
+
+    private SearchIvfPqIndex(int count, int dimension, int listCount, int subspaceCount, int subspaceCentroids,
+                             double[] coarseCentroids, double[] codebooks, int[] listOffsets,
+                             SearchIndexSection listIds, SearchIndexSection listCodes)
+    {
+        this.count = count;
+        this.dimension = dimension;
+        this.listCount = listCount;
+        this.subspaceCount = subspaceCount;
+        this.subspaceCentroids = subspaceCentroids;
+
+        this.subspaceFrom = new int[subspaceCount + 1];
+        for (int s = 0; s <= subspaceCount; s++) {
+            this.subspaceFrom[s] = s * dimension / subspaceCount;
+        }
+
+        this.coarseCentroids = coarseCentroids;
+        this.codebooks = codebooks;
+        this.listOffsets = listOffsets;
+        this.listIds = listIds;
+        this.listCodes = listCodes;
+
+        this.contextThreadLocal = ThreadLocal.withInitial(Buffers::new);
+    }
+
+    /**
+     * Map the index file written by {@link #save(Path)}
+     *
+     * @param path Index file
+     * @return Index searching the mapped lists
+     * @throws IOException on I/O error or if the file is malformed
+     */
+    public static SearchIvfPqIndex open(Path path) throws IOException {
+        SearchIndexFile file = SearchIndexFile.open(path, SearchIndexFormat.TYPE_IVF_PQ);
+
+        SearchIndexSection parameters = file.getInts(SearchIndexFormat.KIND_PARAMETERS, 5);
+
+        int count = parameters.getInt(0);
+        int dimension = parameters.getInt(1);
+        int listCount = parameters.getInt(2);
+        int subspaceCount = parameters.getInt(3);
+        int subspaceCentroids = parameters.getInt(4);
+
+        if (count <= 0 || dimension <= 0 || listCount <= 0 || subspaceCount <= 0 || subspaceCount > dimension
+            || subspaceCentroids <= 0 || subspaceCentroids > SUBSPACE_CENTROIDS)
+        {
+            throw new IOException(String.format("Invalid index parameters: %s", path));
+        }
+
+        double[] coarseCentroids = new double[listCount * dimension];
+        file.getDoubles(SearchIndexFormat.KIND_COARSE_CENTROIDS, coarseCentroids.length).get(coarseCentroids);
+
+        double[] codebooks = new double[subspaceCentroids * dimension];
+        file.getDoubles(SearchIndexFormat.KIND_CODEBOOKS, codebooks.length).get(codebooks);
+
+        int[] listOffsets = new int[listCount + 1];
+        file.getInts(SearchIndexFormat.KIND_LIST_OFFSETS, listOffsets.length).get(listOffsets);
+
+        if (listOffsets[0] != 0 || listOffsets[listCount] != count) {
+            throw new IOException(String.format("Invalid list offsets: %s", path));
+        }
+
+        for (int list = 0; list < listCount; list++) {
+            if (listOffsets[list] > listOffsets[list + 1]) {
+                throw new IOException(String.format("Invalid list offsets: %s", path));
+            }
+        }
+
+        SearchIndexSection listIds = file.getInts(SearchIndexFormat.KIND_LIST_IDS, count);
+        SearchIndexSection listCodes = file.getBytes(SearchIndexFormat.KIND_LIST_CODES, (long) count * subspaceCount);
+
+        return new SearchIvfPqIndex(count, dimension, listCount, subspaceCount, subspaceCentroids,
+            coarseCentroids, codebooks, listOffsets, listIds, listCodes);
+    }
+
+    /**
+     * Save the index into the file (the file is truncated if it exists)
+     *
+     * @param path Target file
+     * @throws IOException on I/O error
+     */
+    public void save(Path path) throws IOException {
+        new SearchIndexWriter(SearchIndexFormat.TYPE_IVF_PQ)
+            .addInts(SearchIndexFormat.KIND_PARAMETERS, count, dimension, listCount, subspaceCount, subspaceCentroids)
+            .addDoubles(SearchIndexFormat.KIND_COARSE_CENTROIDS, coarseCentroids)
+            .addDoubles(SearchIndexFormat.KIND_CODEBOOKS, codebooks)
+            .addInts(SearchIndexFormat.KIND_LIST_OFFSETS, listOffsets)
+            .addSection(SearchIndexFormat.KIND_LIST_IDS, listIds)
+            .addSection(SearchIndexFormat.KIND_LIST_CODES, listCodes)
+            .write(path);
+    }
+
+    public int getListCount() {
+        return listCount;
+    }
+
+    public int getSubspaceCount() {
+        return subspaceCount;
+    }
+
+    /**
+     * Size of the codes of all the vectors
+     *
+     * @return Number of bytes
+     */
+    public long getCodeBytes() {
+        return (long) count * subspaceCount;
+    }
+
+    /**
+     * Search for the k nearest vectors
+     *
+     * @param query Query vector
+     * @param nprobe Number of the nearest inverted lists to scan
+     * @param k Number of the vectors to find
+     * @return Sorted result
+     */
+    public SearchTopK search(double[] query, int nprobe, int k) {
+        SearchTopK result = new SearchTopK(k);
+
+        search(query, nprobe, result);
+
+        return result;
+    }
+
+    /**
+     * Search for the nearest vectors into the reusable result (the search doesn't allocate)
+     *
+     * @param query Query vector
+     * @param nprobe Number of the nearest inverted lists to scan, more lists give the better recall
+     * @param result Result, it is cleared and sorted by the call
+     */
+    public void search(double[] query, int nprobe, SearchTopK result) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException(
+                String.format("Query vector size doesn't match the index: %d <> %d", query.length, dimension)
+            );
+        }
+
+        Preconditions.checkArgument(nprobe > 0, "Number of probes must be positive: %s", nprobe);
+
+        SearchEvent event = SearchEvent.start();
+
+        Buffers buffers = contextThreadLocal.get();
+
+        SearchTopK probes = buffers.probes(Math.min(nprobe, listCount));
+        for (int list = 0; list < listCount; list++) {
+            probes.offer(list, LalgOperations.computeSquaredDistance(
+                coarseCentroids, list * dimension, query, 0, dimension
+            ));
+        }
+        probes.sort();
+
+        result.clear();
+
+        final double[] residual = buffers.residual;
+        final double[] table = buffers.table;
+
+        final SearchIndexSection ids = listIds;
+        final SearchIndexSection codes = listCodes;
+
+        for (int p = 0; p < probes.size(); p++) {
+            int list = probes.getId(p);
+
+            int from = listOffsets[list];
+            int till = listOffsets[list + 1];
+
+            subtract(query, 0, coarseCentroids, list * dimension, residual, 0, dimension);
+
+            computeTable(residual, table);
+
+            double threshold = result.threshold();
+
+            long c = (long) from * subspaceCount;
+
+            for (int i = from; i < till; i++) {
+                double distance = 0.0;
+
+                for (int s = 0, t = 0; s < subspaceCount; s++, c++, t += subspaceCentroids) {
+                    distance += table[t + (codes.getByte(c) & 0xFF)];
+                }
+
+                if (distance < threshold) {
+                    result.offer(ids.getInt(i), distance);
+                    threshold = result.threshold();
+                }
+            }
+        }
+
+        result.sort();
+
+        SearchEvent.commit(event, "ivf-pq", count, dimension, 1, result.getK());
+    }
+
+    /**
+     * Tabulate the squared distances from the subvectors of the residual to all the subspace centroids
+     */
+    private void computeTable(double[] residual, double[] table) {
+        for (int s = 0, t = 0; s < subspaceCount; s++) {
+            int from = subspaceFrom[s];
+            int subDimension = subspaceFrom[s + 1] - from;
+
+            for (int j = 0, offset = subspaceCentroids * from; j < subspaceCentroids;
+                 j++, t++, offset += subDimension)
+            {
+                table[t] = LalgOperations.computeSquaredDistance(residual, from, codebooks, offset, subDimension);
+            }
+        }
+    }
+
+    private void encode(double[] residual, byte[] codes, int codeOffset) {
+        for (int s = 0; s < subspaceCount; s++) {
+            int from = subspaceFrom[s];
+            int subDimension = subspaceFrom[s + 1] - from;
+
+            int code = 0;
+            double best = Double.POSITIVE_INFINITY;
+
+            for (int j = 0, offset = subspaceCentroids * from; j < subspaceCentroids; j++, offset += subDimension) {
+                double distance = LalgOperations.computeSquaredDistance(residual, from, codebooks, offset, subDimension);
+
+                if (distance < best) {
+                    best = distance;
+                    code = j;
+                }
+            }
+
+            codes[codeOffset + s] = (byte) code;
+        }
+    }
+
+    private static double[] sample(SearchVectorStore store, int sampleCount, Random random) {
+        int[] order = new int[store.count];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+
+        double[] sample = new double[sampleCount * store.dimension];
+
+        for (int i = 0; i < sampleCount; i++) {
+            int j = i + random.nextInt(order.length - i);
+            int id = order[j];
+            order[j] = order[i];
+            order[i] = id;
+
+            System.arraycopy(store.data, store.getOffset(id), sample, i * store.dimension, store.dimension);
+        }
+
+        return sample;
+    }
+
+    private static void subtract(double[] data1, int offset1, double[] data2, int offset2,
+                                 double[] target, int targetOffset, int length)
+    {
+        for (int i = 0; i < length; i++) {
+            target[targetOffset + i] = data1[offset1 + i] - data2[offset2 + i];
+        }
+    }
+
+    /**
+     * Per-thread allocated buffers
+     */
+    private class Buffers {
+
+        private final double[] residual = new double[dimension];
+
+        private final double[] table = new double[subspaceCount * subspaceCentroids];
+
+        private SearchTopK probes;
+
+        private SearchTopK probes(int nprobe) {
+            if (probes == null || probes.getK() != nprobe) {
+                probes = new SearchTopK(nprobe);
+            }
+
+            probes.clear();
+            return probes;
+        }
+    }
+}
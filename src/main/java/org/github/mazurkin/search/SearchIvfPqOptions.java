@@ -0,0 +1,132 @@
+package org.github.mazurkin.search;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Build parameters of {@link SearchIvfPqIndex}. The instance is immutable, every {@code with*} method returns
+ * a modified copy.
+ */
+@Immutable
+public final class SearchIvfPqOptions {
+
+    private static final SearchIvfPqOptions DEFAULTS = new SearchIvfPqOptions(128, 8, 10, 8192, 0L);
+
+    private final int listCount;
+
+    private final int subspaceCount;
+
+    private final int iterations;
+
+    private final int trainSampleSize;
+
+    private final long seed;
+
+    private SearchIvfPqOptions(int listCount, int subspaceCount, int iterations, int trainSampleSize, long seed) {
+        this.listCount = listCount;
+        this.subspaceCount = subspaceCount;
+        this.iterations = iterations;
+        this.trainSampleSize = trainSampleSize;
+        this.seed = seed;
+    }
+
+    /**
+     * Default options: 128 inverted lists, 8 bytes per code, 10 k-means iterations on 8192 sampled vectors
+     *
+     * @return Options
+     */
+    public static SearchIvfPqOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Number of the inverted lists (the centroids of the coarse quantizer). It is reduced to the number of the
+     * training vectors if the store is small.
+     *
+     * @param listCount Number of the lists
+     * @return Modified options
+     */
+    public SearchIvfPqOptions withListCount(int listCount) {
+        Preconditions.checkArgument(listCount > 0, "List count must be positive: %s", listCount);
+
+        return new SearchIvfPqOptions(listCount, subspaceCount, iterations, trainSampleSize, seed);
+    }
+
+    /**
+     * Number of the subspaces of the product quantizer, every subspace takes one byte of the code (256 centroids)
+     *
+     * @param subspaceCount Number of the subspaces, not more than the dimension
+     * @return Modified options
+     */
+    public SearchIvfPqOptions withSubspaceCount(int subspaceCount) {
+        Preconditions.checkArgument(subspaceCount > 0, "Subspace count must be positive: %s", subspaceCount);
+
+        return new SearchIvfPqOptions(listCount, subspaceCount, iterations, trainSampleSize, seed);
+    }
+
+    /**
+     * Number of the k-means iterations for every quantizer
+     *
+     * @param iterations Number of the iterations
+     * @return Modified options
+     */
+    public SearchIvfPqOptions withIterations(int iterations) {
+        Preconditions.checkArgument(iterations > 0, "Iterations must be positive: %s", iterations);
+
+        return new SearchIvfPqOptions(listCount, subspaceCount, iterations, trainSampleSize, seed);
+    }
+
+    /**
+     * Number of the randomly sampled vectors the quantizers are trained on
+     *
+     * @param trainSampleSize Number of the vectors
+     * @return Modified options
+     */
+    public SearchIvfPqOptions withTrainSampleSize(int trainSampleSize) {
+        Preconditions.checkArgument(trainSampleSize > 0, "Train sample size must be positive: %s", trainSampleSize);
+
+        return new SearchIvfPqOptions(listCount, subspaceCount, iterations, trainSampleSize, seed);
+    }
+
+    /**
+     * Seed of the sampling and the k-means initialization, the same seed builds the same index
+     *
+     * @param seed Seed
+     * @return Modified options
+     */
+    public SearchIvfPqOptions withSeed(long seed) {
+        return new SearchIvfPqOptions(listCount, subspaceCount, iterations, trainSampleSize, seed);
+    }
+
+    public int getListCount() {
+        return listCount;
+    }
+
+    public int getSubspaceCount() {
+        return subspaceCount;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public int getTrainSampleSize() {
+        return trainSampleSize;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchIvfPqOptions{" +
+            "listCount=" + listCount +
+            ", subspaceCount=" + subspaceCount +
+            ", iterations=" + iterations +
+            ", trainSampleSize=" + trainSampleSize +
+            ", seed=" + seed +
+            '}';
+    }
+}
@@ -0,0 +1,108 @@
+package org.github.mazurkin.search;
+
+import org.github.mazurkin.lalg.LalgOperations;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Lloyd's k-means over the segments of the flat row-major point array: the point i is
+ * data[i * stride + from .. i * stride + from + dimension), so the same code trains the coarse quantizer on the
+ * whole vectors and the product quantizer on the subvectors
+ */
+final class SearchKMeans {
+
+    private SearchKMeans() {
+        // utility class
+    }
+
+    /**
+     * Train the centroids
+     *
+     * @param data Points
+     * @param count Number of the points
+     * @param stride Distance between the points in the array
+     * @param from Offset of the segment in the point
+     * @param dimension Length of the segment
+     * @param clusters Number of the centroids, not more than the number of the points
+     * @param iterations Number of the iterations
+     * @param random Random generator of the initialization
+     * @return Centroids as the flat clusters x dimension array
+     */
+    static double[] train(double[] data, int count, int stride, int from, int dimension, int clusters,
+                          int iterations, Random random)
+    {
+        double[] centroids = new double[clusters * dimension];
+
+        // the initial centroids are the distinct random points
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+
+        for (int c = 0; c < clusters; c++) {
+            int j = c + random.nextInt(count - c);
+            int point = order[j];
+            order[j] = order[c];
+            order[c] = point;
+
+            System.arraycopy(data, point * stride + from, centroids, c * dimension, dimension);
+        }
+
+        double[] sums = new double[clusters * dimension];
+        int[] sizes = new int[clusters];
+
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            Arrays.fill(sums, 0.0);
+            Arrays.fill(sizes, 0);
+
+            for (int i = 0; i < count; i++) {
+                int offset = i * stride + from;
+                int c = nearest(centroids, clusters, dimension, data, offset);
+
+                LalgOperations.inplaceAdd(sums, c * dimension, data, offset, dimension);
+                sizes[c]++;
+            }
+
+            for (int c = 0; c < clusters; c++) {
+                if (sizes[c] == 0) {
+                    // the empty cluster is restarted from a random point
+                    int point = random.nextInt(count);
+                    System.arraycopy(data, point * stride + from, centroids, c * dimension, dimension);
+                } else {
+                    for (int d = 0, idx = c * dimension; d < dimension; d++, idx++) {
+                        centroids[idx] = sums[idx] / sizes[c];
+                    }
+                }
+            }
+        }
+
+        return centroids;
+    }
+
+    /**
+     * Find the nearest centroid (squared L2) to the segment data[offset..offset + dimension)
+     *
+     * @param centroids Centroids as the flat clusters x dimension array
+     * @param clusters Number of the centroids
+     * @param dimension Dimension of the centroids
+     * @param data Data array
+     * @param offset Offset of the segment
+     * @return Index of the centroid
+     */
+    static int nearest(double[] centroids, int clusters, int dimension, double[] data, int offset) {
+        int best = 0;
+        double bestDistance = Double.POSITIVE_INFINITY;
+
+        for (int c = 0; c < clusters; c++) {
+            double distance = LalgOperations.computeSquaredDistance(centroids, c * dimension, data, offset, dimension);
+
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+
+        return best;
+    }
+}
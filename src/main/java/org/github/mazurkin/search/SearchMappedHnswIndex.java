@@ -0,0 +1,218 @@
+package org.github.mazurkin.search;
+
+import org.github.mazurkin.lalg.LalgOperations;
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Read-only HNSW graph served from the memory-mapped file written by {@link SearchHnswIndex#save(Path)}. The links
+ * and the vectors are read right from the mapped sections, so the opening doesn't depend on the size of the index
+ * and the pages are shared with the other processes mapping the same file. The search is the one of
+ * {@link SearchHnswIndex} running over the mapped links.
+ * <p>
+ * Only the header and the sizes of the sections are validated on the opening, the links are trusted.
+ */
+@ThreadSafe
+public class SearchMappedHnswIndex {
+
+    private final int count;
+
+    private final int dimension;
+
+    private final int m;
+
+    private final int m0;
+
+    private final int entryId;
+
+    private final int entryLevel;
+
+    private final int size;
+
+    private final SearchIndexSection vectors;
+
+    private final SearchIndexSection bottomLinks;
+
+    private final SearchIndexSection upperOffsets;
+
+    private final SearchIndexSection upperLinks;
+
+    private final ThreadLocal<Graph> contextThreadLocal;
+
+    private SearchMappedHnswIndex(int count, int dimension, int m, int entryId, int entryLevel, int size,
+                                  SearchIndexSection vectors, SearchIndexSection bottomLinks,
+                                  SearchIndexSection upperOffsets, SearchIndexSection upperLinks)
+    {
+        this.count = count;
+        this.dimension = dimension;
+        this.m = m;
+        this.m0 = 2 * m;
+        this.entryId = entryId;
+        this.entryLevel = entryLevel;
+        this.size = size;
+        this.vectors = vectors;
+        this.bottomLinks = bottomLinks;
+        this.upperOffsets = upperOffsets;
+        this.upperLinks = upperLinks;
+
+        this.contextThreadLocal = ThreadLocal.withInitial(Graph::new);
+    }
+
+    /**
+     * Map the index file
+     *
+     * @param path Index file
+     * @return Mapped index
+     * @throws IOException on I/O error or if the file is malformed
+     */
+    public static SearchMappedHnswIndex open(Path path) throws IOException {
+        SearchIndexFile file = SearchIndexFile.open(path, SearchIndexFormat.TYPE_HNSW);
+
+        SearchIndexSection parameters = file.getInts(SearchIndexFormat.KIND_PARAMETERS, 6);
+
+        int count = parameters.getInt(0);
+        int dimension = parameters.getInt(1);
+        int m = parameters.getInt(2);
+        int entryId = parameters.getInt(3);
+        int entryLevel = parameters.getInt(4);
+        int size = parameters.getInt(5);
+
+        if (count <= 0 || dimension <= 0 || m <= 0 || entryId < -1 || entryId >= count
+            || size < 0 || size > count || (entryId < 0) != (size == 0))
+        {
+            throw new IOException(String.format("Invalid index parameters: %s", path));
+        }
+
+        SearchIndexSection vectors = file.getDoubles(SearchIndexFormat.KIND_VECTORS, (long) count * dimension);
+        SearchIndexSection bottomLinks = file.getInts(SearchIndexFormat.KIND_BOTTOM_LINKS, (long) count * (2 * m + 1));
+        SearchIndexSection upperOffsets = file.getInts(SearchIndexFormat.KIND_UPPER_OFFSETS, count);
+        SearchIndexSection upperLinks = file.getInts(SearchIndexFormat.KIND_UPPER_LINKS);
+
+        return new SearchMappedHnswIndex(count, dimension, m, entryId, entryLevel, size,
+            vectors, bottomLinks, upperOffsets, upperLinks);
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Number of the vectors in the graph
+     *
+     * @return Size
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Level of the entry node
+     *
+     * @return Level, -1 for the empty index
+     */
+    public int getMaxLevel() {
+        return entryLevel;
+    }
+
+    /**
+     * Search for the k nearest vectors
+     *
+     * @param query Query vector
+     * @param ef Number of the candidates of the bottom layer search
+     * @param k Number of the vectors to find
+     * @return Sorted result
+     */
+    public SearchTopK search(double[] query, int ef, int k) {
+        SearchTopK result = new SearchTopK(k);
+
+        search(query, ef, result);
+
+        return result;
+    }
+
+    /**
+     * Search for the nearest vectors into the reusable result (the search doesn't allocate)
+     *
+     * @param query Query vector
+     * @param ef Number of the candidates of the bottom layer search (not less than k is used)
+     * @param result Result, it is cleared and sorted by the call
+     */
+    public void search(double[] query, int ef, SearchTopK result) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException(
+                String.format("Query vector size doesn't match the index: %d <> %d", query.length, dimension)
+            );
+        }
+
+        Preconditions.checkArgument(ef > 0, "Ef must be positive: %s", ef);
+
+        SearchEvent event = SearchEvent.start();
+
+        result.clear();
+
+        if (entryId >= 0) {
+            Graph graph = contextThreadLocal.get();
+            graph.search.search(graph, query, entryId, entryLevel, ef, result);
+        }
+
+        result.sort();
+
+        SearchEvent.commit(event, "hnsw-mapped", size, dimension, 1, result.getK());
+    }
+
+    /**
+     * Links of the mapped sections with the per-thread search buffers
+     */
+    private class Graph implements SearchHnswGraph {
+
+        private final SearchHnswSearch search;
+
+        /**
+         * Vector copied from the mapped section for the distance
+         */
+        private final double[] vector;
+
+        private Graph() {
+            this.search = new SearchHnswSearch(count);
+            this.vector = new double[dimension];
+        }
+
+        @Override
+        public int getLinkCount(int id, int layer) {
+            if (layer == 0) {
+                return bottomLinks.getInt((long) id * (m0 + 1));
+            }
+
+            int offset = upperOffsets.getInt(id);
+            return offset >= 0 ? upperLinks.getInt(upperLinkOffset(offset, layer)) : 0;
+        }
+
+        @Override
+        public int getLink(int id, int layer, int index) {
+            if (layer == 0) {
+                return bottomLinks.getInt((long) id * (m0 + 1) + 1 + index);
+            }
+
+            return upperLinks.getInt(upperLinkOffset(upperOffsets.getInt(id), layer) + 1 + index);
+        }
+
+        /**
+         * Position of the link count of the layer in the upper links, it's computed in long as the sum could
+         * exceed the int range
+         */
+        private long upperLinkOffset(int offset, int layer) {
+            return offset + (long) (layer - 1) * (m + 1);
+        }
+
+        @Override
+        public double distance(double[] query, int queryOffset, int id) {
+            vectors.get((long) id * dimension, vector, 0, dimension);
+
+            return LalgOperations.computeSquaredDistance(vector, 0, query, queryOffset, dimension);
+        }
+    }
+}
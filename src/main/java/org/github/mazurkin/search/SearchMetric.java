@@ -0,0 +1,127 @@
+package org.github.mazurkin.search;
+
+import org.github.mazurkin.lalg.LalgOperations;
+
+/**
+ * Distance between the query and the stored vector. For every metric the smaller distance means the closer vector,
+ * so the same top-k selection works for all of them.
+ */
+public enum SearchMetric {
+
+    /**
+     * Squared euclidean distance. The partial sum only grows, so the computation is abandoned in blocks as soon
+     * as it exceeds the current k-th best distance.
+     */
+    L2 {
+        @Override
+        double distance(SearchVectorStore store, int id, double[] query, double queryNorm, double threshold) {
+            final int dimension = store.dimension;
+            final int offset = store.getOffset(id);
+
+            double sum = 0.0;
+
+            for (int from = 0; from < dimension; from += ABANDON_BLOCK) {
+                int length = Math.min(ABANDON_BLOCK, dimension - from);
+
+                sum += LalgOperations.computeSquaredDistance(store.data, offset + from, query, from, length);
+
+                if (sum > threshold) {
+                    break;
+                }
+            }
+
+            return sum;
+        }
+
+        @Override
+        double fromDotProduct(double dot, double queryNorm, SearchVectorStore store, int id) {
+            // the rounding could make the distance of the (almost) equal vectors slightly negative
+            return Math.max(0.0, queryNorm * queryNorm + store.getSquaredNorm(id) - 2.0 * dot);
+        }
+    },
+
+    /**
+     * Negated inner product (maximum inner product search)
+     */
+    INNER_PRODUCT {
+        @Override
+        double distance(SearchVectorStore store, int id, double[] query, double queryNorm, double threshold) {
+            return -LalgOperations.computeDotProduct(store.data, store.getOffset(id), query, 0, store.dimension);
+        }
+
+        @Override
+        double fromDotProduct(double dot, double queryNorm, SearchVectorStore store, int id) {
+            return -dot;
+        }
+    },
+
+    /**
+     * Cosine distance 1 - cos(q, v) with the precomputed norms of the stored vectors. The vectors with the zero
+     * norm are at the distance 1.
+     */
+    COSINE {
+        @Override
+        double prepare(double[] query) {
+            return Math.sqrt(LalgOperations.computeDotProduct(query, query));
+        }
+
+        @Override
+        double distance(SearchVectorStore store, int id, double[] query, double queryNorm, double threshold) {
+            double norm = queryNorm * store.getNorm(id);
+            if (norm == 0.0) {
+                return 1.0;
+            }
+
+            double dot = LalgOperations.computeDotProduct(store.data, store.getOffset(id), query, 0, store.dimension);
+
+            return 1.0 - dot / norm;
+        }
+
+        @Override
+        double fromDotProduct(double dot, double queryNorm, SearchVectorStore store, int id) {
+            double norm = queryNorm * store.getNorm(id);
+
+            return norm == 0.0 ? 1.0 : 1.0 - dot / norm;
+        }
+    };
+
+    /**
+     * Number of elements between the checks of the early abandoning
+     */
+    static final int ABANDON_BLOCK = 64;
+
+    /**
+     * Precompute the per-query value (the norm of the query for the cosine metric)
+     *
+     * @param query Query vector
+     * @return Value passed to {@link #distance}
+     */
+    double prepare(double[] query) {
+        return 0.0;
+    }
+
+    /**
+     * Distance between the query and the stored vector
+     *
+     * @param store Vector store
+     * @param id Index of the vector in the store
+     * @param query Query vector
+     * @param queryNorm Value returned by {@link #prepare}
+     * @param threshold Current k-th best distance: when the result exceeds it the metric may return any larger
+     *                  value instead of the exact one
+     * @return Distance
+     */
+    abstract double distance(SearchVectorStore store, int id, double[] query, double queryNorm, double threshold);
+
+    /**
+     * Distance between the query and the stored vector expressed through their dot product (the batch search
+     * computes the dot products of the query and the vector tiles with the matrix product)
+     *
+     * @param dot Dot product of the query and the vector
+     * @param queryNorm Euclidean norm of the query
+     * @param store Vector store
+     * @param id Index of the vector in the store
+     * @return Distance
+     */
+    abstract double fromDotProduct(double dot, double queryNorm, SearchVectorStore store, int id);
+}
@@ -0,0 +1,131 @@
+package org.github.mazurkin.search;
+
+import org.github.mazurkin.lalg.LalgOperations;
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Exact-scan k nearest neighbours search (squared L2) over the compressed vectors. The scan reads 4-8x less
+ * memory than {@link SearchExactIndex}, the optional re-rank recomputes the distances of the best candidates
+ * from the full precision store.
+ */
+@ThreadSafe
+public class SearchQuantizedIndex {
+
+    private final SearchVectorStore store;
+
+    private final SearchQuantizedStore quantizedStore;
+
+    private final int rerankFactor;
+
+    private final ThreadLocal<Buffers> contextThreadLocal;
+
+    /**
+     * Creates the index
+     *
+     * @param store Full precision vector store
+     * @param format Format of the compressed vectors
+     * @param rerankFactor The scan keeps rerankFactor x k candidates which are re-ranked by the exact distances,
+     *                     zero disables the re-rank (the result has the approximate distances)
+     */
+    public SearchQuantizedIndex(SearchVectorStore store, SearchStorageFormat format, int rerankFactor) {
+        Preconditions.checkNotNull(store, "Store is null");
+        Preconditions.checkArgument(rerankFactor >= 0, "Re-rank factor is negative: %s", rerankFactor);
+
+        this.store = store;
+        this.quantizedStore = new SearchQuantizedStore(store, format);
+        this.rerankFactor = rerankFactor;
+
+        this.contextThreadLocal = ThreadLocal.withInitial(Buffers::new);
+    }
+
+    public SearchQuantizedStore getQuantizedStore() {
+        return quantizedStore;
+    }
+
+    public int getRerankFactor() {
+        return rerankFactor;
+    }
+
+    /**
+     * Search for the k nearest vectors
+     *
+     * @param query Query vector
+     * @param k Number of the vectors to find
+     * @return Sorted result
+     */
+    public SearchTopK search(double[] query, int k) {
+        SearchTopK result = new SearchTopK(k);
+
+        search(query, result);
+
+        return result;
+    }
+
+    /**
+     * Search for the nearest vectors into the reusable result (the search doesn't allocate)
+     *
+     * @param query Query vector
+     * @param result Result, it is cleared and sorted by the call
+     */
+    public void search(double[] query, SearchTopK result) {
+        if (query.length != store.dimension) {
+            throw new IllegalArgumentException(
+                String.format("Query vector size doesn't match the store: %d <> %d", query.length, store.dimension)
+            );
+        }
+
+        Buffers buffers = contextThreadLocal.get();
+
+        SearchTopK candidates = rerankFactor > 0 ? buffers.candidates(rerankFactor * result.getK()) : result;
+
+        candidates.clear();
+
+        for (int id = 0, count = store.count; id < count; id++) {
+            double distance = quantizedStore.distance(id, query, buffers.decoded, candidates.threshold());
+
+            candidates.offer(id, distance);
+        }
+
+        candidates.sort();
+
+        if (rerankFactor > 0) {
+            result.clear();
+
+            for (int i = 0; i < candidates.size(); i++) {
+                int id = candidates.getId(i);
+
+                double distance = LalgOperations.computeSquaredDistance(
+                    store.data, store.getOffset(id), query, 0, store.dimension
+                );
+
+                result.offer(id, distance);
+            }
+
+            result.sort();
+        }
+    }
+
+    /**
+     * Per-thread allocated buffers
+     */
+    private static class Buffers {
+
+        private final double[] decoded;
+
+        private SearchTopK candidates;
+
+        private Buffers() {
+            this.decoded = new double[SearchMetric.ABANDON_BLOCK];
+        }
+
+        private SearchTopK candidates(int k) {
+            if (candidates == null || candidates.getK() != k) {
+                candidates = new SearchTopK(k);
+            }
+
+            return candidates;
+        }
+    }
+}
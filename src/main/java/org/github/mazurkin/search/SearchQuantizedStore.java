@@ -0,0 +1,158 @@
+package org.github.mazurkin.search;
+
+import org.github.mazurkin.lalg.LalgOperations;
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Compressed copy of the {@link SearchVectorStore}: int8 codes with the per-dimension min/max or fp16 values.
+ * The squared L2 distances are computed on the vectors decoded block by block against the full precision query.
+ */
+@Immutable
+public final class SearchQuantizedStore {
+
+    public final SearchStorageFormat format;
+
+    public final int count;
+
+    public final int dimension;
+
+    /**
+     * INT8 codes, null for the other formats
+     */
+    private final byte[] codes;
+
+    /**
+     * FP16 values, null for the other formats
+     */
+    private final short[] halves;
+
+    private final double[] mins;
+
+    private final double[] scales;
+
+    /**
+     * Creates the compressed copy of the store
+     *
+     * @param store Vector store
+     * @param format Format
+     */
+    public SearchQuantizedStore(SearchVectorStore store, SearchStorageFormat format) {
+        Preconditions.checkNotNull(store, "Store is null");
+        Preconditions.checkNotNull(format, "Format is null");
+
+        this.format = format;
+        this.count = store.count;
+        this.dimension = store.dimension;
+
+        if (format == SearchStorageFormat.INT8) {
+            this.codes = new byte[count * dimension];
+            this.halves = null;
+            this.mins = new double[dimension];
+            this.scales = new double[dimension];
+
+            quantize(store);
+        } else {
+            this.codes = null;
+            this.halves = new short[count * dimension];
+            this.mins = null;
+            this.scales = null;
+
+            for (int i = 0; i < halves.length; i++) {
+                this.halves[i] = SearchHalfFloat.encode((float) store.data[i]);
+            }
+        }
+    }
+
+    /**
+     * Size of the compressed vectors
+     *
+     * @return Number of bytes
+     */
+    public long getCodeBytes() {
+        return (long) count * dimension * (format == SearchStorageFormat.INT8 ? Byte.BYTES : Short.BYTES);
+    }
+
+    /**
+     * Restore the approximate value of the element
+     *
+     * @param id Index of the vector
+     * @param column Index of the element
+     * @return Dequantized value
+     */
+    public double get(int id, int column) {
+        int index = id * dimension + column;
+
+        if (format == SearchStorageFormat.INT8) {
+            return mins[column] + scales[column] * (codes[index] + 128);
+        } else {
+            return SearchHalfFloat.decode(halves[index]);
+        }
+    }
+
+    /**
+     * Squared L2 distance between the query and the compressed vector. The vector is decoded block by block and
+     * the computation is abandoned as soon as it exceeds the threshold.
+     *
+     * @param id Index of the vector
+     * @param query Query vector
+     * @param decoded Buffer of {@link SearchMetric#ABANDON_BLOCK} elements for the decoded block
+     * @param threshold Current k-th best distance
+     * @return Distance (any value larger than the threshold when abandoned)
+     */
+    double distance(int id, double[] query, double[] decoded, double threshold) {
+        final int offset = id * dimension;
+
+        double sum = 0.0;
+
+        for (int from = 0; from < dimension; from += SearchMetric.ABANDON_BLOCK) {
+            int length = Math.min(SearchMetric.ABANDON_BLOCK, dimension - from);
+
+            decode(offset + from, from, decoded, length);
+
+            sum += LalgOperations.computeSquaredDistance(decoded, 0, query, from, length);
+
+            if (sum > threshold) {
+                break;
+            }
+        }
+
+        return sum;
+    }
+
+    private void decode(int index, int column, double[] target, int length) {
+        if (format == SearchStorageFormat.INT8) {
+            for (int i = 0; i < length; i++) {
+                target[i] = mins[column + i] + scales[column + i] * (codes[index + i] + 128);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                target[i] = SearchHalfFloat.decode(halves[index + i]);
+            }
+        }
+    }
+
+    private void quantize(SearchVectorStore store) {
+        for (int d = 0; d < dimension; d++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+
+            for (int i = 0, index = d; i < count; i++, index += dimension) {
+                min = Math.min(min, store.data[index]);
+                max = Math.max(max, store.data[index]);
+            }
+
+            // a constant dimension is restored exactly by the code -128
+            double scale = max > min ? (max - min) / 255.0 : 1.0;
+
+            this.mins[d] = min;
+            this.scales[d] = scale;
+
+            for (int i = 0, index = d; i < count; i++, index += dimension) {
+                long code = Math.round((store.data[index] - min) / scale) - 128;
+                this.codes[index] = (byte) Math.max(-128, Math.min(127, code));
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.github.mazurkin.search;
+
+/**
+ * Compressed format of the vectors of {@link SearchQuantizedStore}
+ */
+public enum SearchStorageFormat {
+
+    /**
+     * One byte per element with the per-dimension affine mapping {@code value = min + scale * (code + 128)}
+     * (8x less memory than double)
+     */
+    INT8,
+
+    /**
+     * IEEE 754 half precision float per element in {@code short} (4x less memory than double)
+     */
+    FP16
+}
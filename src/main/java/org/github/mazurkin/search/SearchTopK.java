@@ -0,0 +1,167 @@
+package org.github.mazurkin.search;
+
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * The k nearest vectors found so far: a bounded max-heap on the distance, so the current k-th best distance
+ * (the early abandoning threshold) is always at the root. The instance is reusable, {@link #clear()} it before
+ * the next search.
+ */
+@NotThreadSafe
+public final class SearchTopK {
+
+    private final int k;
+
+    private final int[] ids;
+
+    private final double[] distances;
+
+    private int size;
+
+    private boolean sorted;
+
+    public SearchTopK(int k) {
+        Preconditions.checkArgument(k > 0, "K must be positive: %s", k);
+
+        this.k = k;
+        this.ids = new int[k];
+        this.distances = new double[k];
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        this.size = 0;
+        this.sorted = false;
+    }
+
+    /**
+     * Distance a candidate must beat to get into the result
+     *
+     * @return Current k-th best distance or the positive infinity while the result is not full
+     */
+    public double threshold() {
+        return size < k ? Double.POSITIVE_INFINITY : distances[0];
+    }
+
+    /**
+     * Offer the candidate
+     *
+     * @param id Index of the vector
+     * @param distance Distance to the query
+     * @return true if the candidate got into the result
+     */
+    public boolean offer(int id, double distance) {
+        Preconditions.checkState(!sorted, "Result is already sorted");
+
+        if (size < k) {
+            int i = size++;
+
+            // sift up
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (distances[parent] >= distance) {
+                    break;
+                }
+
+                ids[i] = ids[parent];
+                distances[i] = distances[parent];
+                i = parent;
+            }
+
+            ids[i] = id;
+            distances[i] = distance;
+            return true;
+        }
+
+        if (distance >= distances[0]) {
+            return false;
+        }
+
+        siftDown(id, distance, size);
+        return true;
+    }
+
+    /**
+     * Sort the result by the ascending distance, no more candidates could be offered until {@link #clear()}
+     */
+    public void sort() {
+        if (sorted) {
+            return;
+        }
+
+        // heap sort: the maximum goes to the end of the shrinking heap
+        for (int end = size - 1; end > 0; end--) {
+            int id = ids[end];
+            double distance = distances[end];
+
+            ids[end] = ids[0];
+            distances[end] = distances[0];
+
+            siftDown(id, distance, end);
+        }
+
+        this.sorted = true;
+    }
+
+    /**
+     * Index of the vector at the position of the sorted result
+     *
+     * @param position Position, 0 is the nearest
+     * @return Index of the vector
+     */
+    public int getId(int position) {
+        checkPosition(position);
+        return ids[position];
+    }
+
+    /**
+     * Distance at the position of the sorted result
+     *
+     * @param position Position, 0 is the nearest
+     * @return Distance
+     */
+    public double getDistance(int position) {
+        checkPosition(position);
+        return distances[position];
+    }
+
+    private void checkPosition(int position) {
+        Preconditions.checkState(sorted, "Result is not sorted");
+        Preconditions.checkElementIndex(position, size, "Position");
+    }
+
+    private void siftDown(int id, double distance, int limit) {
+        int i = 0;
+
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= limit) {
+                break;
+            }
+
+            if (child + 1 < limit && distances[child + 1] > distances[child]) {
+                child++;
+            }
+
+            if (distances[child] <= distance) {
+                break;
+            }
+
+            ids[i] = ids[child];
+            distances[i] = distances[child];
+            i = child;
+        }
+
+        ids[i] = id;
+        distances[i] = distance;
+    }
+}
@@ -0,0 +1,96 @@
+package org.github.mazurkin.search;
+
+import org.github.mazurkin.lalg.LalgMatrix;
+import org.github.mazurkin.lalg.LalgOperations;
+import com.google.common.base.Preconditions;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Flat store of N vectors of the same dimension: the vectors are the rows of one contiguous row-major array, so
+ * the linear scan reads the memory sequentially and the store could be used as a matrix. The euclidean norms of
+ * the vectors are precomputed.
+ */
+@Immutable
+public final class SearchVectorStore {
+
+    public final double[] data;
+
+    public final int count;
+
+    public final int dimension;
+
+    private final double[] norms;
+
+    private final double[] squaredNorms;
+
+    /**
+     * Creates a store from the 2D array
+     *
+     * @param vectors Vectors
+     */
+    public SearchVectorStore(double[][] vectors) {
+        Preconditions.checkNotNull(vectors, "Array is null");
+
+        this.count = vectors.length;
+        Preconditions.checkArgument(this.count > 0, "Array has no vectors");
+
+        this.dimension = vectors[0].length;
+        Preconditions.checkArgument(this.dimension > 0, "Array has no columns");
+
+        this.data = new double[this.count * this.dimension];
+        this.norms = new double[this.count];
+        this.squaredNorms = new double[this.count];
+
+        for (int i = 0, offset = 0; i < this.count; i++, offset += this.dimension) {
+            double[] vector = vectors[i];
+
+            Preconditions.checkArgument(vector.length == this.dimension,
+                "Array has different size of vectors: %s and %s", vector.length, this.dimension);
+
+            System.arraycopy(vector, 0, this.data, offset, this.dimension);
+
+            this.squaredNorms[i] = LalgOperations.computeDotProduct(vector, vector);
+            this.norms[i] = Math.sqrt(this.squaredNorms[i]);
+        }
+    }
+
+    /**
+     * The vectors as the rows of the count x dimension matrix sharing the data array
+     *
+     * @return Matrix view
+     */
+    public LalgMatrix asMatrix() {
+        return new LalgMatrix(data, count, dimension);
+    }
+
+    /**
+     * Offset of the vector in the data array
+     *
+     * @param id Index of the vector
+     * @return Offset
+     */
+    public int getOffset(int id) {
+        return id * dimension;
+    }
+
+    /**
+     * Euclidean norm of the vector
+     *
+     * @param id Index of the vector
+     * @return Norm
+     */
+    public double getNorm(int id) {
+        return norms[id];
+    }
+
+    /**
+     * Squared euclidean norm of the vector
+     *
+     * @param id Index of the vector
+     * @return Squared norm
+     */
+    public double getSquaredNorm(int id) {
+        return squaredNorms[id];
+    }
+}
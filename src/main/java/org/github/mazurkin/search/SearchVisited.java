@@ -0,0 +1,53 @@
+package org.github.mazurkin.search;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Reusable visited set of the graph search: one bit per node. The non-zero words are remembered, so the set is
+ * cleared in the time proportional to the number of the visited nodes and not to the size of the graph.
+ */
+@NotThreadSafe
+final class SearchVisited {
+
+    private final long[] words;
+
+    private final int[] touched;
+
+    private int touchedCount;
+
+    SearchVisited(int capacity) {
+        this.words = new long[(capacity + 63) >>> 6];
+        this.touched = new int[this.words.length];
+    }
+
+    /**
+     * Mark the node
+     *
+     * @param id Node
+     * @return true if the node was already marked
+     */
+    boolean testAndSet(int id) {
+        int index = id >>> 6;
+        long bit = 1L << id;
+
+        long word = words[index];
+        if ((word & bit) != 0) {
+            return true;
+        }
+
+        if (word == 0) {
+            touched[touchedCount++] = index;
+        }
+
+        words[index] = word | bit;
+        return false;
+    }
+
+    void clear() {
+        for (int i = 0; i < touchedCount; i++) {
+            words[touched[i]] = 0;
+        }
+
+        touchedCount = 0;
+    }
+}
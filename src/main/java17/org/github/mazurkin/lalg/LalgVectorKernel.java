@@ -0,0 +1,438 @@
+package org.github.mazurkin.lalg;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * Vector API kernel. The reductions use four independent accumulators to hide the latency of the vector FMA/MAX
+ * instructions, the tails are processed with the scalar loops.
+ * <p>
+ * The class is compiled from the separate source root only on JDK 17+ and it is loaded by {@link LalgKernels}
+ * reflectively.
+ */
+final class LalgVectorKernel implements LalgKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private static final int LANES = SPECIES.length();
+
+    private static final int UNROLL = 4 * LANES;
+
+    LalgVectorKernel() {
+        // instantiated by LalgKernels
+    }
+
+    @Override
+    public String name() {
+        return "vector" + SPECIES.vectorBitSize();
+    }
+
+    @Override
+    public double dotProduct(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        DoubleVector acc0 = DoubleVector.zero(SPECIES);
+        DoubleVector acc1 = DoubleVector.zero(SPECIES);
+        DoubleVector acc2 = DoubleVector.zero(SPECIES);
+        DoubleVector acc3 = DoubleVector.zero(SPECIES);
+
+        int i = 0;
+
+        for (int bound = length - UNROLL; i <= bound; i += UNROLL) {
+            acc0 = DoubleVector.fromArray(SPECIES, a, aOffset + i)
+                .fma(DoubleVector.fromArray(SPECIES, b, bOffset + i), acc0);
+            acc1 = DoubleVector.fromArray(SPECIES, a, aOffset + i + LANES)
+                .fma(DoubleVector.fromArray(SPECIES, b, bOffset + i + LANES), acc1);
+            acc2 = DoubleVector.fromArray(SPECIES, a, aOffset + i + 2 * LANES)
+                .fma(DoubleVector.fromArray(SPECIES, b, bOffset + i + 2 * LANES), acc2);
+            acc3 = DoubleVector.fromArray(SPECIES, a, aOffset + i + 3 * LANES)
+                .fma(DoubleVector.fromArray(SPECIES, b, bOffset + i + 3 * LANES), acc3);
+        }
+
+        for (int bound = length - LANES; i <= bound; i += LANES) {
+            acc0 = DoubleVector.fromArray(SPECIES, a, aOffset + i)
+                .fma(DoubleVector.fromArray(SPECIES, b, bOffset + i), acc0);
+        }
+
+        double sum = acc0.add(acc1).add(acc2.add(acc3)).reduceLanes(VectorOperators.ADD);
+
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+
+        return sum;
+    }
+
+    @Override
+    public double squaredDistance(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        DoubleVector acc0 = DoubleVector.zero(SPECIES);
+        DoubleVector acc1 = DoubleVector.zero(SPECIES);
+        DoubleVector acc2 = DoubleVector.zero(SPECIES);
+        DoubleVector acc3 = DoubleVector.zero(SPECIES);
+
+        int i = 0;
+
+        for (int bound = length - UNROLL; i <= bound; i += UNROLL) {
+            DoubleVector d0 = DoubleVector.fromArray(SPECIES, a, aOffset + i)
+                .sub(DoubleVector.fromArray(SPECIES, b, bOffset + i));
+            DoubleVector d1 = DoubleVector.fromArray(SPECIES, a, aOffset + i + LANES)
+                .sub(DoubleVector.fromArray(SPECIES, b, bOffset + i + LANES));
+            DoubleVector d2 = DoubleVector.fromArray(SPECIES, a, aOffset + i + 2 * LANES)
+                .sub(DoubleVector.fromArray(SPECIES, b, bOffset + i + 2 * LANES));
+            DoubleVector d3 = DoubleVector.fromArray(SPECIES, a, aOffset + i + 3 * LANES)
+                .sub(DoubleVector.fromArray(SPECIES, b, bOffset + i + 3 * LANES));
+
+            acc0 = d0.fma(d0, acc0);
+            acc1 = d1.fma(d1, acc1);
+            acc2 = d2.fma(d2, acc2);
+            acc3 = d3.fma(d3, acc3);
+        }
+
+        for (int bound = length - LANES; i <= bound; i += LANES) {
+            DoubleVector d0 = DoubleVector.fromArray(SPECIES, a, aOffset + i)
+                .sub(DoubleVector.fromArray(SPECIES, b, bOffset + i));
+
+            acc0 = d0.fma(d0, acc0);
+        }
+
+        double sum = acc0.add(acc1).add(acc2.add(acc3)).reduceLanes(VectorOperators.ADD);
+
+        for (; i < length; i++) {
+            double d = a[aOffset + i] - b[bOffset + i];
+            sum += d * d;
+        }
+
+        return sum;
+    }
+
+    @Override
+    public double normMax(double[] data, int from, int till) {
+        DoubleVector max0 = DoubleVector.zero(SPECIES);
+        DoubleVector max1 = DoubleVector.zero(SPECIES);
+        DoubleVector max2 = DoubleVector.zero(SPECIES);
+        DoubleVector max3 = DoubleVector.zero(SPECIES);
+
+        int i = from;
+
+        for (int bound = till - UNROLL; i <= bound; i += UNROLL) {
+            max0 = max0.max(DoubleVector.fromArray(SPECIES, data, i).abs());
+            max1 = max1.max(DoubleVector.fromArray(SPECIES, data, i + LANES).abs());
+            max2 = max2.max(DoubleVector.fromArray(SPECIES, data, i + 2 * LANES).abs());
+            max3 = max3.max(DoubleVector.fromArray(SPECIES, data, i + 3 * LANES).abs());
+        }
+
+        for (int bound = till - LANES; i <= bound; i += LANES) {
+            max0 = max0.max(DoubleVector.fromArray(SPECIES, data, i).abs());
+        }
+
+        double max = max0.max(max1).max(max2.max(max3)).reduceLanes(VectorOperators.MAX);
+
+        for (; i < till; i++) {
+            double v = Math.abs(data[i]);
+
+            if (v > max) {
+                max = v;
+            }
+        }
+
+        return max;
+    }
+
+    @Override
+    public void add(double[] a, int aOffset, double[] b, int bOffset, double[] target, int targetOffset, int length) {
+        int i = 0;
+
+        for (int bound = length - LANES; i <= bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, a, aOffset + i)
+                .add(DoubleVector.fromArray(SPECIES, b, bOffset + i))
+                .intoArray(target, targetOffset + i);
+        }
+
+        for (; i < length; i++) {
+            target[targetOffset + i] = a[aOffset + i] + b[bOffset + i];
+        }
+    }
+
+    @Override
+    public void relu(double[] data, int from, int till) {
+        int i = from;
+
+        for (int bound = till - LANES; i <= bound; i += LANES) {
+            DoubleVector v = DoubleVector.fromArray(SPECIES, data, i);
+
+            // same as the scalar branch, the negative zero and NaN are kept as is
+            VectorMask<Double> negative = v.compare(VectorOperators.LT, 0.0);
+            v.blend(0.0, negative).intoArray(data, i);
+        }
+
+        for (; i < till; i++) {
+            if (data[i] < 0.0) {
+                data[i] = 0.0;
+            }
+        }
+    }
+
+    @Override
+    public double expSum(double[] data, int from, int till, double offset) {
+        DoubleVector acc0 = DoubleVector.zero(SPECIES);
+        DoubleVector acc1 = DoubleVector.zero(SPECIES);
+
+        int i = from;
+
+        for (int bound = till - 2 * LANES; i <= bound; i += 2 * LANES) {
+            DoubleVector v0 = DoubleVector.fromArray(SPECIES, data, i)
+                .sub(offset)
+                .lanewise(VectorOperators.EXP);
+            DoubleVector v1 = DoubleVector.fromArray(SPECIES, data, i + LANES)
+                .sub(offset)
+                .lanewise(VectorOperators.EXP);
+
+            v0.intoArray(data, i);
+            v1.intoArray(data, i + LANES);
+
+            acc0 = acc0.add(v0);
+            acc1 = acc1.add(v1);
+        }
+
+        double sum = acc0.add(acc1).reduceLanes(VectorOperators.ADD);
+
+        for (; i < till; i++) {
+            double v = Math.exp(data[i] - offset);
+            data[i] = v;
+            sum += v;
+        }
+
+        return sum;
+    }
+
+    @Override
+    public double addNormMax(double[] data, int from, int till, double[] other, int otherOffset) {
+        DoubleVector max0 = DoubleVector.zero(SPECIES);
+        DoubleVector max1 = DoubleVector.zero(SPECIES);
+
+        int i = from;
+        int j = otherOffset;
+
+        for (int bound = till - 2 * LANES; i <= bound; i += 2 * LANES, j += 2 * LANES) {
+            DoubleVector v0 = DoubleVector.fromArray(SPECIES, data, i)
+                .add(DoubleVector.fromArray(SPECIES, other, j));
+            DoubleVector v1 = DoubleVector.fromArray(SPECIES, data, i + LANES)
+                .add(DoubleVector.fromArray(SPECIES, other, j + LANES));
+
+            v0.intoArray(data, i);
+            v1.intoArray(data, i + LANES);
+
+            max0 = max0.max(v0.abs());
+            max1 = max1.max(v1.abs());
+        }
+
+        double max = max0.max(max1).reduceLanes(VectorOperators.MAX);
+
+        for (; i < till; i++, j++) {
+            double v = data[i] + other[j];
+            data[i] = v;
+
+            double a = Math.abs(v);
+
+            if (a > max) {
+                max = a;
+            }
+        }
+
+        return max;
+    }
+
+    @Override
+    public double expCumSum(double[] data, int from, int till, double offset) {
+        double sum = 0.0;
+
+        int i = from;
+
+        // the exponents are computed in vectors, the prefix sum runs over the chunk while it is still in L1
+        for (int bound = till - LANES; i <= bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, data, i)
+                .sub(offset)
+                .lanewise(VectorOperators.EXP)
+                .intoArray(data, i);
+
+            for (int k = i, limit = i + LANES; k < limit; k++) {
+                sum += data[k];
+                data[k] = sum;
+            }
+        }
+
+        for (; i < till; i++) {
+            sum += Math.exp(data[i] - offset);
+            data[i] = sum;
+        }
+
+        return sum;
+    }
+
+    @Override
+    public void divide(double[] data, int from, int till, double divisor) {
+        int i = from;
+
+        for (int bound = till - LANES; i <= bound; i += LANES) {
+            DoubleVector.fromArray(SPECIES, data, i)
+                .div(divisor)
+                .intoArray(data, i);
+        }
+
+        for (; i < till; i++) {
+            data[i] = data[i] / divisor;
+        }
+    }
+
+    @Override
+    public void multiplyByTransposedMatrix(double[] vector, int vectorOffset, double[] matrix, int fromRow,
+                                           int tillRow, int columns, double[] target, int targetOffset)
+    {
+        multiply(vector, vectorOffset, matrix, fromRow, tillRow, columns, null, target, targetOffset);
+    }
+
+    @Override
+    public void multiplyByTransposedMatrixAddRelu(double[] vector, int vectorOffset, double[] matrix, int fromRow,
+                                                  int tillRow, int columns, double[] bias, double[] target,
+                                                  int targetOffset)
+    {
+        multiply(vector, vectorOffset, matrix, fromRow, tillRow, columns, bias, target, targetOffset);
+    }
+
+    private void multiply(double[] vector, int vectorOffset, double[] matrix, int fromRow, int tillRow, int columns,
+                          double[] bias, double[] target, int targetOffset)
+    {
+        int row = fromRow;
+
+        // four rows at once: every chunk of the vector is loaded once and feeds four independent accumulators
+        for (int rowOffset = row * columns; row + 4 <= tillRow; row += 4, rowOffset += 4 * columns) {
+            int offset0 = rowOffset;
+            int offset1 = offset0 + columns;
+            int offset2 = offset1 + columns;
+            int offset3 = offset2 + columns;
+
+            DoubleVector acc0 = DoubleVector.zero(SPECIES);
+            DoubleVector acc1 = DoubleVector.zero(SPECIES);
+            DoubleVector acc2 = DoubleVector.zero(SPECIES);
+            DoubleVector acc3 = DoubleVector.zero(SPECIES);
+
+            int j = 0;
+
+            for (int bound = columns - LANES; j <= bound; j += LANES) {
+                DoubleVector x = DoubleVector.fromArray(SPECIES, vector, vectorOffset + j);
+
+                acc0 = x.fma(DoubleVector.fromArray(SPECIES, matrix, offset0 + j), acc0);
+                acc1 = x.fma(DoubleVector.fromArray(SPECIES, matrix, offset1 + j), acc1);
+                acc2 = x.fma(DoubleVector.fromArray(SPECIES, matrix, offset2 + j), acc2);
+                acc3 = x.fma(DoubleVector.fromArray(SPECIES, matrix, offset3 + j), acc3);
+            }
+
+            double sum0 = acc0.reduceLanes(VectorOperators.ADD);
+            double sum1 = acc1.reduceLanes(VectorOperators.ADD);
+            double sum2 = acc2.reduceLanes(VectorOperators.ADD);
+            double sum3 = acc3.reduceLanes(VectorOperators.ADD);
+
+            for (; j < columns; j++) {
+                double x = vector[vectorOffset + j];
+
+                sum0 += x * matrix[offset0 + j];
+                sum1 += x * matrix[offset1 + j];
+                sum2 += x * matrix[offset2 + j];
+                sum3 += x * matrix[offset3 + j];
+            }
+
+            target[targetOffset + row] = epilogue(sum0, bias, row);
+            target[targetOffset + row + 1] = epilogue(sum1, bias, row + 1);
+            target[targetOffset + row + 2] = epilogue(sum2, bias, row + 2);
+            target[targetOffset + row + 3] = epilogue(sum3, bias, row + 3);
+        }
+
+        for (; row < tillRow; row++) {
+            double sum = dotProduct(vector, vectorOffset, matrix, row * columns, columns);
+
+            target[targetOffset + row] = epilogue(sum, bias, row);
+        }
+    }
+
+    private static double epilogue(double sum, double[] bias, int row) {
+        if (bias == null) {
+            return sum;
+        }
+
+        double v = sum + bias[row];
+
+        return v < 0.0 ? 0.0 : v;
+    }
+
+    @Override
+    public void multiplyBySparseVector(double[] vector, int[] indices, int count, double[] matrix, int columns,
+                                       double[] target)
+    {
+        Arrays.fill(target, 0, columns, 0.0);
+
+        int k = 0;
+
+        // four rows at once: every chunk of the target is loaded and stored once per four rows
+        for (; k + 4 <= count; k += 4) {
+            int offset0 = indices[k] * columns;
+            int offset1 = indices[k + 1] * columns;
+            int offset2 = indices[k + 2] * columns;
+            int offset3 = indices[k + 3] * columns;
+
+            double x0 = vector[indices[k]];
+            double x1 = vector[indices[k + 1]];
+            double x2 = vector[indices[k + 2]];
+            double x3 = vector[indices[k + 3]];
+
+            DoubleVector b0 = DoubleVector.broadcast(SPECIES, x0);
+            DoubleVector b1 = DoubleVector.broadcast(SPECIES, x1);
+            DoubleVector b2 = DoubleVector.broadcast(SPECIES, x2);
+            DoubleVector b3 = DoubleVector.broadcast(SPECIES, x3);
+
+            int j = 0;
+
+            for (int bound = columns - LANES; j <= bound; j += LANES) {
+                DoubleVector acc = DoubleVector.fromArray(SPECIES, target, j);
+
+                acc = DoubleVector.fromArray(SPECIES, matrix, offset0 + j).fma(b0, acc);
+                acc = DoubleVector.fromArray(SPECIES, matrix, offset1 + j).fma(b1, acc);
+                acc = DoubleVector.fromArray(SPECIES, matrix, offset2 + j).fma(b2, acc);
+                acc = DoubleVector.fromArray(SPECIES, matrix, offset3 + j).fma(b3, acc);
+
+                acc.intoArray(target, j);
+            }
+
+            for (; j < columns; j++) {
+                double sum = target[j];
+
+                sum += x0 * matrix[offset0 + j];
+                sum += x1 * matrix[offset1 + j];
+                sum += x2 * matrix[offset2 + j];
+                sum += x3 * matrix[offset3 + j];
+
+                target[j] = sum;
+            }
+        }
+
+        for (; k < count; k++) {
+            int offset = indices[k] * columns;
+            double x = vector[indices[k]];
+
+            DoubleVector b = DoubleVector.broadcast(SPECIES, x);
+
+            int j = 0;
+
+            for (int bound = columns - LANES; j <= bound; j += LANES) {
+                DoubleVector.fromArray(SPECIES, matrix, offset + j)
+                    .fma(b, DoubleVector.fromArray(SPECIES, target, j))
+                    .intoArray(target, j);
+            }
+
+            for (; j < columns; j++) {
+                target[j] += x * matrix[offset + j];
+            }
+        }
+    }
+}
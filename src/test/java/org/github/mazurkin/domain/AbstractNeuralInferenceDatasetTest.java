@@ -3,16 +3,28 @@ package org.github.mazurkin.domain;
 import com.google.common.primitives.Doubles;
 import org.apache.commons.math3.stat.StatUtils;
 import org.assertj.core.data.Offset;
+import org.github.mazurkin.test.AllocationMeter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 abstract class AbstractNeuralInferenceDatasetTest {
 
+    /**
+     * Calls before the measured rounds of the allocation test, twice the number of calls after which the tiered
+     * compilation has {@link NeuralInference#compute(int[])} compiled by C2 (about 5000)
+     */
+    private static final int WARM_UP_CALLS = 10_000;
+
     private static List<double[][]> embeddings;
 
     private static double[][] layer1;
@@ -25,6 +37,10 @@ abstract class AbstractNeuralInferenceDatasetTest {
 
     private static int[][] inputs;
 
+    private static NeuralInference reference;
+
+    private final List<NeuralInference> inferences = new ArrayList<>();
+
     @BeforeAll
     static void setUp() {
         int embeddingSize = 128;
@@ -41,6 +57,52 @@ abstract class AbstractNeuralInferenceDatasetTest {
         bias2 = NeuralUtils.buildBias2();
 
         inputs = NeuralUtils.buildInputs(embeddings, 6);
+
+        reference = null;
+    }
+
+    @AfterAll
+    static void tearDown() {
+        reference = null;
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        // the engines with the worker pools stop the workers
+        for (NeuralInference inference : inferences) {
+            if (inference instanceof AutoCloseable) {
+                ((AutoCloseable) inference).close();
+            }
+        }
+
+        inferences.clear();
+    }
+
+    /**
+     * Maximum absolute deviation of the outputs from the reference double-precision engine
+     *
+     * @return Tolerance
+     */
+    protected double getMaxDeviation() {
+        return 1E-12;
+    }
+
+    /**
+     * Approximate engines (reduced precision) are checked only by the deviation test
+     *
+     * @return true if the engine must reproduce the reference values
+     */
+    protected boolean isExact() {
+        return true;
+    }
+
+    /**
+     * The engines with the known per-call allocations only report the allocation
+     *
+     * @return true if {@link NeuralInference#compute(int[])} must not allocate after the warm-up
+     */
+    protected boolean isAllocationFree() {
+        return true;
     }
 
     protected abstract NeuralInference createInference(
@@ -51,9 +113,19 @@ abstract class AbstractNeuralInferenceDatasetTest {
         double[] bias2
     );
 
+    private NeuralInference create() {
+        NeuralInference inference = createInference(embeddings, layer1, layer2, bias1, bias2);
+
+        inferences.add(inference);
+
+        return inference;
+    }
+
     @Test
     void test() {
-        NeuralInference inference = createInference(embeddings, layer1, layer2, bias1, bias2);
+        Assumptions.assumeTrue(isExact(), "approximate engine");
+
+        NeuralInference inference = create();
         Assertions.assertNotNull(inference);
 
         int[][] inputs =  NeuralUtils.buildInputs(embeddings, 1);
@@ -84,4 +156,78 @@ abstract class AbstractNeuralInferenceDatasetTest {
             .isCloseTo(66.346, Offset.offset(0.001));
     }
 
+    @Test
+    void testDeviation() {
+        NeuralInference inference = create();
+        Assertions.assertNotNull(inference);
+
+        if (reference == null) {
+            reference = new NeuralLalgInference(embeddings, layer1, layer2, bias1, bias2);
+        }
+
+        double maxDeviation = 0.0;
+
+        for (int[] input : inputs) {
+            double[] expected = reference.compute(input);
+            double[] actual = inference.compute(input);
+
+            assertThat(actual).hasSameSizeAs(expected);
+
+            for (int i = 0; i < expected.length; i++) {
+                maxDeviation = Math.max(maxDeviation, Math.abs(actual[i] - expected[i]));
+            }
+        }
+
+        assertThat(maxDeviation)
+            .as("%s: max deviation from the double engine", getClass().getSimpleName())
+            .isLessThanOrEqualTo(getMaxDeviation());
+    }
+
+    @Test
+    void testBatch() {
+        NeuralInference inference = create();
+        Assertions.assertNotNull(inference);
+
+        int batchSize = inputs.length;
+        int inputSize = inputs[0].length;
+
+        int[] batchInputs = new int[batchSize * inputSize];
+        for (int i = 0; i < batchSize; i++) {
+            System.arraycopy(inputs[i], 0, batchInputs, i * inputSize, inputSize);
+        }
+
+        double[] batchOutputs = new double[batchSize * 330];
+        inference.computeBatch(batchInputs, batchSize, batchOutputs);
+
+        for (int i = 0; i < batchSize; i++) {
+            double[] expected = inference.compute(inputs[i]).clone();
+            double[] actual = Arrays.copyOfRange(batchOutputs, i * 330, (i + 1) * 330);
+
+            assertThat(actual)
+                .usingComparatorWithPrecision(0.001E-8)
+                .containsExactly(expected);
+        }
+    }
+
+    @Test
+    void testAllocation() {
+        Assumptions.assumeTrue(AllocationMeter.isAvailable(), "the thread allocation counter is not available");
+
+        NeuralInference inference = create();
+        Assertions.assertNotNull(inference);
+
+        int[] index = {0};
+
+        double bytes = AllocationMeter.measure(() -> {
+            inference.compute(inputs[index[0]]);
+            index[0] = (index[0] + 1) % inputs.length;
+        }, WARM_UP_CALLS, 10, 200);
+
+        Assumptions.assumeTrue(isAllocationFree(), "the engine is known to allocate");
+
+        assertThat(bytes)
+            .as("%s: bytes allocated per call", getClass().getSimpleName())
+            .isLessThan(1.0);
+    }
+
 }
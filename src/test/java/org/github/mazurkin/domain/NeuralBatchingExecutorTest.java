@@ -0,0 +1,173 @@
+package org.github.mazurkin.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.github.mazurkin.test.TestData.randomMatrix;
+
+class NeuralBatchingExecutorTest {
+
+    private static final int INNER_SIZE = 40;
+
+    private static final int OUTPUT_SIZE = 7;
+
+    @Test
+    void testBatches() throws Exception {
+        List<double[][]> embeddingList = List.of(randomMatrix(10, 4, 1), randomMatrix(20, 5, 2));
+
+        NeuralInference inference = new NeuralLalgInference(
+            embeddingList,
+            randomMatrix(INNER_SIZE, 9, 3),
+            randomMatrix(OUTPUT_SIZE, INNER_SIZE, 4),
+            randomMatrix(1, INNER_SIZE, 5)[0],
+            randomMatrix(1, OUTPUT_SIZE, 6)[0]
+        );
+
+        int[][] inputs = NeuralUtils.buildInputs(embeddingList, 500);
+
+        NeuralBatchingOptions options = NeuralBatchingOptions.defaults()
+            .withMaxBatchSize(16)
+            .withMaxWaitMicros(1000);
+
+        List<CompletableFuture<double[]>> futures = new ArrayList<>();
+
+        try (NeuralBatchingExecutor executor = new NeuralBatchingExecutor(inference, 2, OUTPUT_SIZE, options)) {
+            for (int[] input : inputs) {
+                futures.add(executor.submit(input));
+            }
+
+            for (int i = 0; i < inputs.length; i++) {
+                double[] expected = inference.compute(inputs[i]);
+                double[] actual = futures.get(i).get(10, TimeUnit.SECONDS);
+
+                assertThat(actual).usingComparatorWithPrecision(1E-12).containsExactly(expected);
+            }
+
+            assertThat(executor.getRowCount()).isEqualTo(inputs.length);
+
+            // the requests submitted at once are gathered
+            assertThat(executor.getBatchCount()).isLessThan(inputs.length / 2);
+        }
+    }
+
+    @Test
+    void testFailure() {
+        NeuralInference inference = input -> {
+            throw new IllegalStateException("broken");
+        };
+
+        try (NeuralBatchingExecutor executor =
+                 new NeuralBatchingExecutor(inference, 1, 1, NeuralBatchingOptions.defaults()))
+        {
+            CompletableFuture<double[]> future = executor.submit(new int[] {1});
+
+            assertThatThrownBy(() -> future.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+
+            assertThatThrownBy(() -> executor.submit(new int[] {1, 2}))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void testError() {
+        NeuralInference inference = input -> {
+            throw new AssertionError("broken");
+        };
+
+        try (NeuralBatchingExecutor executor =
+                 new NeuralBatchingExecutor(inference, 1, 1, NeuralBatchingOptions.defaults().withWorkerCount(1)))
+        {
+            // the worker survives the error and completes the following requests as well
+            for (int i = 0; i < 2; i++) {
+                CompletableFuture<double[]> future = executor.submit(new int[] {1});
+
+                assertThatThrownBy(() -> future.get(10, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(AssertionError.class);
+            }
+        }
+    }
+
+    @Test
+    void testRejection() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        NeuralInference inference = input -> {
+            entered.countDown();
+
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            return new double[] {input[0]};
+        };
+
+        NeuralBatchingOptions options = NeuralBatchingOptions.defaults()
+            .withMaxBatchSize(1)
+            .withWorkerCount(1)
+            .withQueueCapacity(1);
+
+        NeuralBatchingExecutor executor = new NeuralBatchingExecutor(inference, 1, 1, options);
+
+        CompletableFuture<double[]> first = executor.submit(new int[] {1});
+        assertThat(entered.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // the worker is busy, the second request fills the queue
+        CompletableFuture<double[]> second = executor.submit(new int[] {2});
+        CompletableFuture<double[]> third = executor.submit(new int[] {3});
+
+        assertThatThrownBy(() -> third.get(10, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(RejectedExecutionException.class);
+
+        release.countDown();
+        executor.close();
+
+        // the queued request is computed on the closing
+        assertThat(first.get(10, TimeUnit.SECONDS)).containsExactly(1.0);
+        assertThat(second.get(10, TimeUnit.SECONDS)).containsExactly(2.0);
+
+        assertThatThrownBy(() -> executor.submit(new int[] {4}).get(10, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void testCloseFromCallback() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        NeuralInference inference = input -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            return new double[] {input[0]};
+        };
+
+        NeuralBatchingExecutor executor =
+            new NeuralBatchingExecutor(inference, 1, 1, NeuralBatchingOptions.defaults().withWorkerCount(1));
+
+        // the request is completed after the callback is attached, so the callback runs on the worker thread
+        CompletableFuture<Void> closed = executor.submit(new int[] {1}).thenRun(executor::close);
+        release.countDown();
+
+        closed.get(10, TimeUnit.SECONDS);
+
+        assertThatThrownBy(() -> executor.submit(new int[] {2}).get(10, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+}
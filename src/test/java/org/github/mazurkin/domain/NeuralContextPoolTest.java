@@ -0,0 +1,120 @@
+package org.github.mazurkin.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.github.mazurkin.test.TestData.randomMatrix;
+
+class NeuralContextPoolTest {
+
+    @Test
+    void testReuse() {
+        NeuralContextPool<Object> pool = new NeuralContextPool<>(2, Object::new);
+
+        Object a = pool.acquire();
+        Object b = pool.acquire();
+        Object c = pool.acquire();
+
+        assertThat(pool.getCreatedCount()).isEqualTo(3);
+
+        pool.release(a);
+        pool.release(b);
+
+        // the pool is full, the third context is dropped
+        pool.release(c);
+
+        Object d = pool.acquire();
+        Object e = pool.acquire();
+        Object f = pool.acquire();
+
+        assertThat(List.of(d, e)).containsExactlyInAnyOrder(a, b);
+        assertThat(f).isNotIn(a, b, c);
+        assertThat(pool.getCreatedCount()).isEqualTo(4);
+    }
+
+    @Test
+    void testExclusiveUse() throws Exception {
+        NeuralContextPool<AtomicBoolean> pool = new NeuralContextPool<>(4, AtomicBoolean::new);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 100_000; i++) {
+                        AtomicBoolean context = pool.acquire();
+
+                        // the context is never given to two threads at once
+                        if (!context.compareAndSet(false, true)) {
+                            return false;
+                        }
+
+                        context.set(false);
+                        pool.release(context);
+                    }
+
+                    return true;
+                }));
+            }
+
+            for (Future<Boolean> future : futures) {
+                assertThat(future.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testInferenceContext() {
+        List<double[][]> embeddingList = List.of(randomMatrix(10, 4, 1), randomMatrix(20, 5, 2));
+
+        NeuralLalgInference inference = new NeuralLalgInference(
+            embeddingList,
+            randomMatrix(40, 9, 3),
+            randomMatrix(7, 40, 4),
+            randomMatrix(1, 40, 5)[0],
+            randomMatrix(1, 7, 6)[0]
+        );
+
+        NeuralContextPool<NeuralLalgInference.Context> pool = new NeuralContextPool<>(2, inference::newContext);
+
+        double[] output = new double[inference.getOutputSize()];
+
+        for (int[] input : NeuralUtils.buildInputs(embeddingList, 20)) {
+            NeuralLalgInference.Context context = pool.acquire();
+            try {
+                inference.compute(input, context, output);
+            } finally {
+                pool.release(context);
+            }
+
+            assertThat(output).containsExactly(inference.compute(input));
+        }
+
+        assertThat(pool.getCreatedCount()).isEqualTo(1);
+
+        NeuralLalgInference other = new NeuralLalgInference(
+            embeddingList,
+            randomMatrix(40, 9, 3),
+            randomMatrix(7, 40, 4),
+            randomMatrix(1, 40, 5)[0],
+            randomMatrix(1, 7, 6)[0]
+        );
+
+        assertThatThrownBy(() -> inference.compute(new int[] {0, 0}, other.newContext(), output))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThatThrownBy(() -> inference.compute(new int[] {0, 0}, inference.newContext(), new double[6]))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
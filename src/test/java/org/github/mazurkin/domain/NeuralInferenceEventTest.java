@@ -0,0 +1,81 @@
+package org.github.mazurkin.domain;
+
+import org.github.mazurkin.search.SearchEvent;
+import org.github.mazurkin.search.SearchExactIndex;
+import org.github.mazurkin.search.SearchMetric;
+import org.github.mazurkin.search.SearchVectorStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NeuralInferenceEventTest {
+
+    @Test
+    void testEvents(@TempDir Path dir) throws Exception {
+        List<double[][]> embeddingList = NeuralUtils.buildEmbeddingList(8);
+
+        NeuralLalgInference inference = new NeuralLalgInference(
+            embeddingList,
+            NeuralUtils.buildTransposedLayer1(8, 64),
+            NeuralUtils.buildTransposedLayer2(64),
+            NeuralUtils.buildBias1(64),
+            NeuralUtils.buildBias2(),
+            NeuralLalgOptions.defaults().withModelId("test-model")
+        );
+
+        SearchExactIndex index = new SearchExactIndex(
+            new SearchVectorStore(NeuralUtils.randomArray(100, 16, 1)), SearchMetric.L2);
+
+        int[][] inputs = NeuralUtils.buildInputs(embeddingList, 3);
+
+        Path file = dir.resolve("events.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(NeuralInferenceEvent.NAME).withThreshold(Duration.ZERO);
+            recording.enable(SearchEvent.NAME).withThreshold(Duration.ZERO);
+            recording.start();
+
+            for (int[] input : inputs) {
+                inference.compute(input);
+            }
+
+            index.search(NeuralUtils.randomArray(16, 2), 5);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+
+        List<RecordedEvent> inferenceEvents = events.stream()
+            .filter(e -> e.getEventType().getName().equals(NeuralInferenceEvent.NAME))
+            .collect(Collectors.toList());
+
+        assertThat(inferenceEvents).hasSize(inputs.length);
+        assertThat(inferenceEvents).allSatisfy(e -> {
+            assertThat(e.getString("modelId")).isEqualTo("test-model");
+            assertThat(e.getString("engine")).isEqualTo("lalg");
+            assertThat(e.getInt("batchSize")).isEqualTo(1);
+            assertThat(e.getInt("innerSize")).isEqualTo(64);
+        });
+
+        List<RecordedEvent> searchEvents = events.stream()
+            .filter(e -> e.getEventType().getName().equals(SearchEvent.NAME))
+            .collect(Collectors.toList());
+
+        assertThat(searchEvents).hasSize(1);
+        assertThat(searchEvents.get(0).getString("index")).isEqualTo("exact");
+        assertThat(searchEvents.get(0).getInt("k")).isEqualTo(5);
+        assertThat(searchEvents.get(0).getInt("vectorCount")).isEqualTo(100);
+    }
+}
@@ -0,0 +1,17 @@
+package org.github.mazurkin.domain;
+
+import java.util.List;
+
+class NeuralLalgFloatDoubleSumInferenceDatasetTest extends AbstractNeuralInferenceDatasetTest {
+
+    @Override
+    protected double getMaxDeviation() {
+        return 1E-6;
+    }
+
+    @Override
+    protected NeuralInference createInference(List<double[][]> embeddingList, double[][] layer1, double[][] layer2, double[] bias1, double[] bias2) {
+        return new NeuralLalgFloatInference(embeddingList, layer1, layer2, bias1, bias2, true);
+    }
+
+}
@@ -0,0 +1,15 @@
+package org.github.mazurkin.domain;
+
+import java.util.List;
+
+class NeuralLalgParallelInferenceDatasetTest extends AbstractNeuralInferenceDatasetTest {
+
+    @Override
+    protected NeuralInference createInference(List<double[][]> embeddingList, double[][] layer1, double[][] layer2, double[] bias1, double[] bias2) {
+        NeuralLalgOptions options = NeuralLalgOptions.defaults()
+            .withParallelism(3);
+
+        return new NeuralLalgInference(embeddingList, layer1, layer2, bias1, bias2, options);
+    }
+
+}
@@ -0,0 +1,16 @@
+package org.github.mazurkin.domain;
+
+import java.util.List;
+
+class NeuralLalgProjectedInferenceDatasetTest extends AbstractNeuralInferenceDatasetTest {
+
+    @Override
+    protected NeuralInference createInference(List<double[][]> embeddingList, double[][] layer1, double[][] layer2, double[] bias1, double[] bias2) {
+        // all the small tables are projected, the two large ones stay in the GEMV
+        NeuralLalgOptions options = NeuralLalgOptions.defaults()
+            .withProjectionBudgetBytes(16L * 1024 * 1024);
+
+        return new NeuralLalgInference(embeddingList, layer1, layer2, bias1, bias2, options);
+    }
+
+}
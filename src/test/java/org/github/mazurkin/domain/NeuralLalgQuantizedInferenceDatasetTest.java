@@ -0,0 +1,25 @@
+package org.github.mazurkin.domain;
+
+import java.util.List;
+
+class NeuralLalgQuantizedInferenceDatasetTest extends AbstractNeuralInferenceDatasetTest {
+
+    @Override
+    protected boolean isExact() {
+        return false;
+    }
+
+    @Override
+    protected double getMaxDeviation() {
+        return 1E-2;
+    }
+
+    @Override
+    protected NeuralInference createInference(List<double[][]> embeddingList, double[][] layer1, double[][] layer2, double[] bias1, double[] bias2) {
+        NeuralLalgOptions options = NeuralLalgOptions.defaults()
+            .withQuantizedLayer1(true);
+
+        return new NeuralLalgInference(embeddingList, layer1, layer2, bias1, bias2, options);
+    }
+
+}
@@ -0,0 +1,16 @@
+package org.github.mazurkin.domain;
+
+import java.util.List;
+
+class NeuralLalgSparseInferenceDatasetTest extends AbstractNeuralInferenceDatasetTest {
+
+    @Override
+    protected NeuralInference createInference(List<double[][]> embeddingList, double[][] layer1, double[][] layer2, double[] bias1, double[] bias2) {
+        // the dataset activations are dense, the maximal density forces the sparse path on every call
+        NeuralLalgOptions options = NeuralLalgOptions.defaults()
+            .withSparseLayer2Density(1.0);
+
+        return new NeuralLalgInference(embeddingList, layer1, layer2, bias1, bias2, options);
+    }
+
+}
@@ -0,0 +1,29 @@
+package org.github.mazurkin.domain;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+class NeuralMappedInferenceDatasetTest extends AbstractNeuralInferenceDatasetTest {
+
+    @Override
+    protected NeuralInference createInference(List<double[][]> embeddingList, double[][] layer1, double[][] layer2, double[] bias1, double[] bias2) {
+        try {
+            Path path = Files.createTempFile("lalg-model-", ".bin");
+
+            try {
+                NeuralModelWriter.write(path, embeddingList, layer1, layer2, bias1, bias2);
+
+                return new NeuralMappedInference(NeuralMappedModel.open(path));
+            } finally {
+                // the mapping stays valid after the file is deleted
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
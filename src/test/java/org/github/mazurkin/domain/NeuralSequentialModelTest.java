@@ -0,0 +1,89 @@
+package org.github.mazurkin.domain;
+
+import org.github.mazurkin.lalg.LalgMatrix;
+import org.github.mazurkin.lalg.LalgOperations;
+import org.github.mazurkin.lalg.LalgRowVector;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.github.mazurkin.test.TestData.randomArray;
+import static org.github.mazurkin.test.TestData.randomMatrix;
+
+class NeuralSequentialModelTest {
+
+    @Test
+    void testPlan() {
+        NeuralSequentialModel model = NeuralSequentialModel.twoLayer(
+            List.of(randomMatrix(5, 3, 1), randomMatrix(4, 6, 2)),
+            randomMatrix(20, 9, 3),
+            randomMatrix(7, 20, 4),
+            randomArray(20, 5),
+            randomArray(7, 6)
+        );
+
+        assertThat(model.toString())
+            .isEqualTo("embedding -> dense+bias+relu[20] -> dense[7] -> bias+soft_max_cum_sum[7]");
+
+        // two regions of the widest stage aligned to 8 doubles
+        assertThat(model.getArenaSize()).isEqualTo(48);
+        assertThat(model.getOutputSize()).isEqualTo(7);
+    }
+
+    @Test
+    void testDeepModel() {
+        double[][] embedding = randomMatrix(5, 6, 1);
+        double[][] weights1 = randomMatrix(11, 6, 2);
+        double[][] weights2 = randomMatrix(9, 11, 3);
+        double[][] weights3 = randomMatrix(4, 9, 4);
+        double[] bias1 = randomArray(11, 5);
+        double[] bias3 = randomArray(4, 6);
+
+        NeuralSequentialModel model = NeuralSequentialModel.builder(Collections.singletonList(embedding))
+            .dense(weights1, bias1)
+            .activation(NeuralActivation.TANH)
+            .dense(weights2, null)
+            .activation(NeuralActivation.SIGMOID)
+            .dense(weights3, bias3)
+            .normalization(NeuralNormalization.SOFT_MAX)
+            .build();
+
+        assertThat(model.toString())
+            .isEqualTo("embedding -> dense+bias[11] -> tanh[11] -> dense[9] -> sigmoid[9] -> dense[4] -> bias+soft_max[4]");
+
+        NeuralSequentialInference inference = new NeuralSequentialInference(model);
+
+        double[] actual = inference.compute(new int[] {3});
+
+        LalgRowVector x = new LalgRowVector(embedding[3]);
+
+        LalgRowVector h1 = new LalgRowVector(11);
+        x.multiplyByTransposedMatrix(new LalgMatrix(weights1), h1);
+        LalgOperations.inplaceAdd(h1.data, 0, bias1);
+        LalgOperations.inplaceTanh(h1.data, 0, 11);
+
+        LalgRowVector h2 = new LalgRowVector(9);
+        h1.multiplyByTransposedMatrix(new LalgMatrix(weights2), h2);
+        LalgOperations.inplaceSigmoid(h2.data, 0, 9);
+
+        LalgRowVector h3 = new LalgRowVector(4);
+        h2.multiplyByTransposedMatrix(new LalgMatrix(weights3), h3);
+        LalgOperations.inplaceAdd(h3.data, 0, bias3);
+        LalgOperations.inplaceSoftMax(h3.data);
+
+        assertThat(actual)
+            .usingComparatorWithPrecision(1E-12)
+            .containsExactly(h3.data);
+    }
+
+    @Test
+    void testColumnMismatch() {
+        NeuralSequentialModel.Builder builder = NeuralSequentialModel.builder(Collections.singletonList(randomMatrix(5, 6, 1)));
+
+        assertThatThrownBy(() -> builder.dense(randomMatrix(3, 7, 2), null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,129 @@
+package org.github.mazurkin.domain;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.github.mazurkin.test.TestData.randomMatrix;
+
+class NeuralStageTimingsTest {
+
+    @Test
+    void testBuckets() {
+        Random random = new Random(1);
+
+        for (int i = 0; i < 100_000; i++) {
+            long value = i < 10_000 ? i : random.nextLong() >>> (1 + random.nextInt(63));
+
+            int index = NeuralLatencyHistogram.bucketIndex(value);
+
+            assertThat(index).isBetween(0, NeuralLatencyHistogram.BUCKET_COUNT - 1);
+            assertThat(NeuralLatencyHistogram.bucketUpperBound(index)).isGreaterThanOrEqualTo(value);
+
+            if (index > 0) {
+                assertThat(NeuralLatencyHistogram.bucketUpperBound(index - 1)).isLessThan(value);
+            }
+
+            // the relative error is bounded by the sub-bucket resolution
+            assertThat((double) (NeuralLatencyHistogram.bucketUpperBound(index) - value))
+                .isLessThanOrEqualTo(value / (double) NeuralLatencyHistogram.SUB_BUCKET_COUNT);
+        }
+
+        assertThat(NeuralLatencyHistogram.bucketUpperBound(NeuralLatencyHistogram.bucketIndex(Long.MAX_VALUE)))
+            .isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void testPercentiles() {
+        NeuralStageTimings timings = new NeuralStageTimings(4);
+
+        for (int i = 1; i <= 1000; i++) {
+            timings.record(NeuralStage.LAYER1, i * 1000L);
+        }
+
+        NeuralLatencyHistogram histogram = timings.snapshot().getHistogram(NeuralStage.LAYER1);
+
+        assertThat(histogram.getCount()).isEqualTo(1000);
+        assertThat(histogram.getMean()).isEqualTo(500_500.0);
+        assertThat((double) histogram.getPercentile(50.0)).isCloseTo(500_000.0, Offset.offset(500_000.0 / 8));
+        assertThat((double) histogram.getPercentile(99.0)).isCloseTo(990_000.0, Offset.offset(990_000.0 / 8));
+        assertThat(histogram.getMax()).isGreaterThanOrEqualTo(1_000_000L);
+        assertThat(histogram.getPercentile(100.0)).isEqualTo(histogram.getMax());
+
+        assertThat(timings.snapshot().getHistogram(NeuralStage.LAYER2).getCount()).isZero();
+        assertThat(NeuralLatencyHistogram.empty().getPercentile(99.0)).isZero();
+    }
+
+    @Test
+    void testMerge() {
+        NeuralStageTimings timings1 = new NeuralStageTimings(1);
+        NeuralStageTimings timings2 = new NeuralStageTimings(1);
+
+        timings1.record(NeuralStage.EMBEDDING, 100);
+        timings2.record(NeuralStage.EMBEDDING, 300);
+        timings2.record(NeuralStage.SOFTMAX, 50);
+
+        NeuralStageTimings.Snapshot merged = timings1.snapshot().merge(timings2.snapshot());
+
+        assertThat(merged.getHistogram(NeuralStage.EMBEDDING).getCount()).isEqualTo(2);
+        assertThat(merged.getHistogram(NeuralStage.EMBEDDING).getMean()).isEqualTo(200.0);
+        assertThat(merged.getHistogram(NeuralStage.SOFTMAX).getCount()).isEqualTo(1);
+        assertThat(merged.getHistogram(NeuralStage.LAYER1).getCount()).isZero();
+    }
+
+    @Test
+    void testInference() throws Exception {
+        List<double[][]> embeddingList = List.of(randomMatrix(10, 4, 1), randomMatrix(20, 5, 2));
+
+        NeuralStageTimings timings = new NeuralStageTimings();
+
+        NeuralLalgInference inference = new NeuralLalgInference(
+            embeddingList,
+            randomMatrix(40, 9, 3),
+            randomMatrix(7, 40, 4),
+            randomMatrix(1, 40, 5)[0],
+            randomMatrix(1, 7, 6)[0],
+            NeuralLalgOptions.defaults().withStageTimings(timings)
+        );
+
+        NeuralLalgInference reference = new NeuralLalgInference(
+            embeddingList,
+            randomMatrix(40, 9, 3),
+            randomMatrix(7, 40, 4),
+            randomMatrix(1, 40, 5)[0],
+            randomMatrix(1, 7, 6)[0]
+        );
+
+        int[][] inputs = NeuralUtils.buildInputs(embeddingList, 100);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<?>[] futures = new Future<?>[3];
+            for (int t = 0; t < futures.length; t++) {
+                futures[t] = executor.submit(() -> {
+                    for (int[] input : inputs) {
+                        assertThat(inference.compute(input)).containsExactly(reference.compute(input));
+                    }
+                });
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        NeuralStageTimings.Snapshot snapshot = timings.snapshot();
+
+        for (NeuralStage stage : NeuralStage.values()) {
+            assertThat(snapshot.getHistogram(stage).getCount()).isEqualTo(3L * inputs.length);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package org.github.mazurkin.lalg;
+
+import org.github.mazurkin.test.AllocationMeter;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.DoubleBuffer;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.github.mazurkin.test.TestData.randomArray;
+import static org.github.mazurkin.test.TestData.randomFloatArray;
+
+/**
+ * The hot-path kernels must not allocate after the warm-up (the methods creating new vectors and matrices by
+ * contract like {@code copy()} and {@code transpose()} are not covered)
+ */
+class LalgAllocationTest {
+
+    private static final int COUNT = 1000;
+
+    private static final int MAX_ROUNDS = 200;
+
+    private static final int ROWS = 32;
+
+    private static final int COLUMNS = 64;
+
+    @BeforeEach
+    void setUp() {
+        Assumptions.assumeTrue(AllocationMeter.isAvailable(), "the thread allocation counter is not available");
+    }
+
+    @Test
+    void testOperations() {
+        double[] a = randomArray(COLUMNS, 1);
+        double[] b = randomArray(COLUMNS, 2);
+        double[] target = new double[COLUMNS];
+        int[] indices = new int[COLUMNS];
+
+        LalgMatrix matrix = new LalgMatrix(randomArray(ROWS * COLUMNS, 3), ROWS, COLUMNS);
+        double[] bias = randomArray(ROWS, 4);
+        double[] output = new double[ROWS];
+
+        assertNoAllocation("computeNormMax", () -> LalgOperations.computeNormMax(a));
+        assertNoAllocation("computeNormMax range", () -> LalgOperations.computeNormMax(a, 1, COLUMNS - 1));
+        assertNoAllocation("computeMax", () -> LalgOperations.computeMax(a));
+        assertNoAllocation("computeMin", () -> LalgOperations.computeMin(a));
+        assertNoAllocation("computeSum", () -> LalgOperations.computeSum(a));
+        assertNoAllocation("computeDotProduct", () -> LalgOperations.computeDotProduct(a, b));
+        assertNoAllocation("computeDotProduct range",
+            () -> LalgOperations.computeDotProduct(a, 1, b, 2, COLUMNS - 2));
+        assertNoAllocation("computeSquaredDistance",
+            () -> LalgOperations.computeSquaredDistance(a, 1, b, 2, COLUMNS - 2));
+
+        assertNoAllocation("inplaceMul", () -> LalgOperations.inplaceMul(a, b, target));
+        assertNoAllocation("inplaceAdd", () -> LalgOperations.inplaceAdd(a, b, target));
+        assertNoAllocation("inplaceAdd offset", () -> LalgOperations.inplaceAdd(target, 0, a));
+        assertNoAllocation("inplaceAdd range", () -> LalgOperations.inplaceAdd(target, 1, a, 2, COLUMNS - 2));
+        assertNoAllocation("inplaceSub", () -> LalgOperations.inplaceSub(a, b, target));
+        assertNoAllocation("inplaceRelu", () -> LalgOperations.inplaceRelu(target));
+        assertNoAllocation("inplaceRelu range", () -> LalgOperations.inplaceRelu(target, 1, COLUMNS - 1));
+        assertNoAllocation("inplaceTanh", () -> LalgOperations.inplaceTanh(target, 1, COLUMNS - 1));
+        assertNoAllocation("inplaceSigmoid", () -> LalgOperations.inplaceSigmoid(target, 1, COLUMNS - 1));
+        assertNoAllocation("inplaceReluNonZero", () -> LalgOperations.inplaceReluNonZero(target, indices));
+        assertNoAllocation("inplaceSoftMax", () -> LalgOperations.inplaceSoftMax(target));
+        assertNoAllocation("inplaceSoftMax range", () -> LalgOperations.inplaceSoftMax(target, 1, COLUMNS - 1));
+        assertNoAllocation("inplaceCumSum", () -> LalgOperations.inplaceCumSum(target));
+        assertNoAllocation("inplaceCumSum range", () -> LalgOperations.inplaceCumSum(target, 1, COLUMNS - 1));
+        assertNoAllocation("inplaceSoftMaxCumSum", () -> LalgOperations.inplaceSoftMaxCumSum(target));
+        assertNoAllocation("inplaceSoftMaxCumSum range",
+            () -> LalgOperations.inplaceSoftMaxCumSum(target, 1, COLUMNS - 1));
+        assertNoAllocation("inplaceAddSoftMaxCumSum", () -> LalgOperations.inplaceAddSoftMaxCumSum(output, 0, bias));
+
+        assertNoAllocation("multiplyByTransposedMatrix",
+            () -> LalgOperations.multiplyByTransposedMatrix(a, 0, matrix, output, 0));
+        assertNoAllocation("multiplyByTransposedMatrixAddRelu",
+            () -> LalgOperations.multiplyByTransposedMatrixAddRelu(a, 0, matrix, bias, output, 0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"scalar", "vector"})
+    void testKernel(String name) {
+        Assumptions.assumeTrue("scalar".equals(name) || LalgKernels.isVectorAvailable(),
+            "the vector kernel is not available");
+
+        LalgKernel kernel = LalgKernels.forName(name);
+
+        double[] a = randomArray(COLUMNS, 1);
+        double[] b = randomArray(COLUMNS, 2);
+        double[] target = new double[COLUMNS];
+        int[] indices = {0, 3, 5, 7, 11};
+
+        double[] matrix = randomArray(ROWS * COLUMNS, 3);
+        double[] bias = randomArray(ROWS, 4);
+        double[] vector = randomArray(ROWS, 5);
+        double[] output = new double[ROWS];
+
+        assertNoAllocation("dotProduct", () -> kernel.dotProduct(a, 0, b, 0, COLUMNS));
+        assertNoAllocation("squaredDistance", () -> kernel.squaredDistance(a, 0, b, 0, COLUMNS));
+        assertNoAllocation("normMax", () -> kernel.normMax(a, 0, COLUMNS));
+        assertNoAllocation("add", () -> kernel.add(a, 0, b, 0, target, 0, COLUMNS));
+        assertNoAllocation("relu", () -> kernel.relu(target, 0, COLUMNS));
+        assertNoAllocation("expSum", () -> kernel.expSum(target, 0, COLUMNS, 1.0));
+        assertNoAllocation("addNormMax", () -> kernel.addNormMax(target, 0, COLUMNS, a, 0));
+        assertNoAllocation("expCumSum", () -> kernel.expCumSum(target, 0, COLUMNS, 1.0));
+        assertNoAllocation("divide", () -> kernel.divide(target, 0, COLUMNS, 2.0));
+
+        assertNoAllocation("multiplyByTransposedMatrix",
+            () -> kernel.multiplyByTransposedMatrix(a, 0, matrix, 0, ROWS, COLUMNS, output, 0));
+        assertNoAllocation("multiplyByTransposedMatrixAddRelu",
+            () -> kernel.multiplyByTransposedMatrixAddRelu(a, 0, matrix, 0, ROWS, COLUMNS, bias, output, 0));
+        assertNoAllocation("multiplyBySparseVector",
+            () -> kernel.multiplyBySparseVector(vector, indices, indices.length, matrix, COLUMNS, target));
+    }
+
+    @Test
+    void testFloatOperations() {
+        float[] a = randomFloatArray(COLUMNS, 1);
+        float[] b = randomFloatArray(COLUMNS, 2);
+        float[] target = new float[COLUMNS];
+        double[] doubleTarget = new double[COLUMNS];
+
+        assertNoAllocation("computeNormMax", () -> LalgFloatOperations.computeNormMax(a));
+        assertNoAllocation("computeMax", () -> LalgFloatOperations.computeMax(a));
+        assertNoAllocation("computeMin", () -> LalgFloatOperations.computeMin(a));
+        assertNoAllocation("computeSum", () -> LalgFloatOperations.computeSum(a));
+        assertNoAllocation("computeDotProduct", () -> LalgFloatOperations.computeDotProduct(a, b));
+        assertNoAllocation("inplaceMul", () -> LalgFloatOperations.inplaceMul(a, b, target));
+        assertNoAllocation("inplaceAdd", () -> LalgFloatOperations.inplaceAdd(a, b, target));
+        assertNoAllocation("inplaceSub", () -> LalgFloatOperations.inplaceSub(a, b, target));
+        assertNoAllocation("inplaceRelu", () -> LalgFloatOperations.inplaceRelu(target));
+        assertNoAllocation("inplaceSoftMax", () -> LalgFloatOperations.inplaceSoftMax(target));
+        assertNoAllocation("inplaceCumSum", () -> LalgFloatOperations.inplaceCumSum(target));
+        assertNoAllocation("copyToDouble", () -> LalgFloatOperations.copyToDouble(a, doubleTarget));
+    }
+
+    @Test
+    void testVectors() {
+        LalgMatrix matrix = new LalgMatrix(randomArray(ROWS * COLUMNS, 1), ROWS, COLUMNS);
+        LalgMatrix other = new LalgMatrix(randomArray(ROWS * COLUMNS, 2), ROWS, COLUMNS);
+        LalgMatrix product = new LalgMatrix(ROWS, ROWS);
+        LalgMatrix outer = new LalgMatrix(COLUMNS, COLUMNS);
+        double[] tile = new double[4 * 4];
+
+        LalgRowVector vector = new LalgRowVector(randomArray(COLUMNS, 3));
+        LalgRowVector rowsVector = new LalgRowVector(randomArray(ROWS, 4));
+        LalgRowVector bias = new LalgRowVector(randomArray(ROWS, 5));
+        LalgRowVector target = new LalgRowVector(ROWS);
+        LalgRowVector columnsTarget = new LalgRowVector(COLUMNS);
+        LalgColVector column = new LalgColVector(randomArray(COLUMNS, 6));
+        LalgColVector columnTarget = new LalgColVector(ROWS);
+        int[] indices = {0, 3, 5, 7, 11};
+
+        LalgBufferMatrix bufferMatrix = new LalgBufferMatrix(DoubleBuffer.wrap(matrix.data), ROWS, COLUMNS);
+
+        assertNoAllocation("LalgRowVector.multiplyByTransposedMatrix",
+            () -> vector.multiplyByTransposedMatrix(matrix, target));
+        assertNoAllocation("LalgRowVector.multiplyByTransposedMatrixAddRelu",
+            () -> vector.multiplyByTransposedMatrixAddRelu(matrix, bias, target));
+        assertNoAllocation("LalgRowVector.multiplyByMatrix",
+            () -> rowsVector.multiplyByMatrix(matrix, indices, indices.length, columnsTarget));
+        assertNoAllocation("LalgRowVector.multiplyByTransposedMatrix buffer",
+            () -> vector.multiplyByTransposedMatrix(bufferMatrix, target));
+        assertNoAllocation("LalgRowVector.multiplyByVector", () -> vector.multiplyByVector(column));
+
+        assertNoAllocation("LalgMatrix.addRowTo", () -> matrix.addRowTo(1, columnsTarget.data, 0));
+        assertNoAllocation("LalgMatrix.multiplyByVector", () -> matrix.multiplyByVector(column, columnTarget));
+        assertNoAllocation("LalgMatrix.multiplyByTransposedMatrix",
+            () -> matrix.multiplyByTransposedMatrix(other, product));
+        assertNoAllocation("LalgMatrix.multiplyTileByTransposedMatrix",
+            () -> matrix.multiplyTileByTransposedMatrix(0, 4, other, 0, 4, tile));
+        assertNoAllocation("LalgColVector.multiplyByVector", () -> column.multiplyByVector(vector, outer));
+
+        LalgQuantizedMatrix quantizedMatrix = new LalgQuantizedMatrix(matrix);
+        LalgQuantizedRowVector quantizedVector = new LalgQuantizedRowVector(COLUMNS);
+
+        assertNoAllocation("LalgQuantizedRowVector.quantize", () -> quantizedVector.quantize(vector));
+        assertNoAllocation("LalgQuantizedRowVector.multiplyByTransposedMatrix",
+            () -> quantizedVector.multiplyByTransposedMatrix(quantizedMatrix, target));
+    }
+
+    @Test
+    void testFloatVectors() {
+        LalgFloatMatrix matrix = new LalgFloatMatrix(randomFloatArray(ROWS * COLUMNS, 1), ROWS, COLUMNS);
+        LalgFloatRowVector vector = new LalgFloatRowVector(randomFloatArray(COLUMNS, 2));
+        LalgFloatRowVector target = new LalgFloatRowVector(ROWS);
+        LalgFloatColVector column = new LalgFloatColVector(randomFloatArray(COLUMNS, 3));
+        LalgFloatColVector columnTarget = new LalgFloatColVector(ROWS);
+
+        assertNoAllocation("LalgFloatRowVector.multiplyByTransposedMatrix",
+            () -> vector.multiplyByTransposedMatrix(matrix, target));
+        assertNoAllocation("LalgFloatRowVector.multiplyByTransposedMatrix double accumulator",
+            () -> vector.multiplyByTransposedMatrix(matrix, target, true));
+        assertNoAllocation("LalgFloatRowVector.multiplyByVector", () -> vector.multiplyByVector(column));
+        assertNoAllocation("LalgFloatMatrix.multiplyByVector", () -> matrix.multiplyByVector(column, columnTarget));
+    }
+
+    @Test
+    void testGemm() {
+        int m = 16;
+        int n = 32;
+
+        double[] a = randomArray(m * COLUMNS, 1);
+        double[] b = randomArray(n * COLUMNS, 2);
+        double[] c = new double[m * n];
+
+        assertNoAllocation("LalgGemm.multiply", () -> LalgGemm.multiply(a, b, c, m, n, COLUMNS));
+    }
+
+    @Test
+    void testParallelGemv() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+
+        try {
+            // large enough to be split into the slices
+            LalgMatrix matrix = new LalgMatrix(randomArray(512 * 1024, 1), 512, 1024);
+
+            LalgParallelGemv gemv = new LalgParallelGemv(pool, matrix);
+            assertThat(gemv.getSliceCount()).isGreaterThan(1);
+
+            LalgRowVector vector = new LalgRowVector(randomArray(1024, 2));
+            LalgRowVector bias = new LalgRowVector(randomArray(512, 3));
+            LalgRowVector target = new LalgRowVector(512);
+
+            assertNoAllocation("LalgParallelGemv.multiply", () -> gemv.multiply(vector, target));
+            assertNoAllocation("LalgParallelGemv.multiplyAddRelu", () -> gemv.multiplyAddRelu(vector, bias, target));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertNoAllocation(String name, Runnable action) {
+        double bytes = AllocationMeter.measure(action, COUNT, MAX_ROUNDS);
+
+        assertThat(bytes)
+            .as("bytes allocated per call of %s", name)
+            .isLessThan(1.0);
+    }
+}
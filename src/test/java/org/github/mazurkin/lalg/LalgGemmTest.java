@@ -0,0 +1,84 @@
+package org.github.mazurkin.lalg;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.github.mazurkin.test.TestData.randomArray;
+
+class LalgGemmTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "1, 1, 1",
+        "4, 4, 4",
+        "5, 7, 3",
+        "64, 330, 300",
+        "67, 513, 257",
+        "130, 1030, 520",
+    })
+    void testBlocked(int m, int n, int k) {
+        double[] a = randomArray(m * k, 1);
+        double[] b = randomArray(n * k, 2);
+
+        double[] expected = new double[m * n];
+        LalgGemm.multiplyNaive(a, b, expected, m, n, k);
+
+        double[] actual = new double[m * n];
+        LalgGemm.multiply(a, b, actual, m, n, k);
+
+        assertThat(actual)
+            .usingComparatorWithPrecision(1E-9)
+            .containsExactly(expected);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "8, 3, 6",
+        "16, 9, 9",
+    })
+    void testPartialRows(int capacity, int rowCount, int k) {
+        LalgMatrix left = new LalgMatrix(randomArray(capacity * k, 3), capacity, k);
+        LalgMatrix right = new LalgMatrix(randomArray(12 * k, 4), 12, k);
+
+        LalgMatrix full = new LalgMatrix(capacity, 12);
+        left.multiplyByTransposedMatrix(right, full);
+
+        LalgMatrix partial = new LalgMatrix(capacity, 12);
+        left.multiplyByTransposedMatrix(right, partial, rowCount);
+
+        for (int i = 0; i < capacity * 12; i++) {
+            if (i < rowCount * 12) {
+                assertThat(partial.data[i]).isCloseTo(full.data[i], Offset.offset(1E-9));
+            } else {
+                assertThat(partial.data[i]).isZero();
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "3, 2, 5, 7",
+        "17, 64, 100, 600",
+    })
+    void testTile(int fromRow, int rowCount, int fromOtherRow, int otherRowCount) {
+        int k = 37;
+
+        LalgMatrix left = new LalgMatrix(randomArray(100 * k, 5), 100, k);
+        LalgMatrix right = new LalgMatrix(randomArray(800 * k, 6), 800, k);
+
+        LalgMatrix full = new LalgMatrix(100, 800);
+        left.multiplyByTransposedMatrix(right, full);
+
+        double[] tile = new double[rowCount * otherRowCount];
+        left.multiplyTileByTransposedMatrix(fromRow, rowCount, right, fromOtherRow, otherRowCount, tile);
+
+        for (int i = 0; i < rowCount; i++) {
+            for (int j = 0; j < otherRowCount; j++) {
+                assertThat(tile[i * otherRowCount + j])
+                    .isCloseTo(full.data[(fromRow + i) * 800 + fromOtherRow + j], Offset.offset(1E-9));
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.github.mazurkin.lalg;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.github.mazurkin.test.TestData.randomArray;
+
+class LalgKernelTest {
+
+    private LalgKernel scalar;
+
+    private LalgKernel vector;
+
+    @BeforeEach
+    void setUp() {
+        Assumptions.assumeTrue(LalgKernels.isVectorAvailable(), "the vector kernel is not available");
+
+        this.scalar = LalgKernels.scalar();
+        this.vector = LalgKernels.vector();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 17, 330, 1152, 2049})
+    void testReductions(int length) {
+        double[] a = randomArray(length + 3, 1);
+        double[] b = randomArray(length + 5, 2);
+
+        assertThat(vector.dotProduct(a, 3, b, 5, length))
+            .isCloseTo(scalar.dotProduct(a, 3, b, 5, length), Offset.offset(1E-12));
+
+        assertThat(vector.squaredDistance(a, 3, b, 5, length))
+            .isCloseTo(scalar.squaredDistance(a, 3, b, 5, length), Offset.offset(1E-12 * length));
+
+        assertThat(vector.normMax(a, 3, length + 3))
+            .isEqualTo(scalar.normMax(a, 3, length + 3));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 17, 330, 1152, 2049})
+    void testElementWise(int length) {
+        double[] a = randomArray(length, 3);
+        double[] b = randomArray(length, 4);
+
+        double[] expected = new double[length];
+        double[] actual = new double[length];
+
+        scalar.add(a, 0, b, 0, expected, 0, length);
+        vector.add(a, 0, b, 0, actual, 0, length);
+        assertThat(actual).containsExactly(expected);
+
+        scalar.relu(expected, 0, length);
+        vector.relu(actual, 0, length);
+        assertThat(actual).containsExactly(expected);
+
+        double expectedSum = scalar.expSum(expected, 0, length, 0.5);
+        double actualSum = vector.expSum(actual, 0, length, 0.5);
+        assertThat(actualSum).isCloseTo(expectedSum, Offset.offset(1E-12 * length));
+        assertThat(actual).usingComparatorWithPrecision(1E-15).containsExactly(expected);
+
+        scalar.divide(expected, 0, length, expectedSum);
+        vector.divide(actual, 0, length, expectedSum);
+        assertThat(actual).usingComparatorWithPrecision(1E-15).containsExactly(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 17, 330, 1152})
+    void testMultiplyByTransposedMatrix(int columns) {
+        int rows = 7;
+
+        double[] x = randomArray(columns, 5);
+        double[] matrix = randomArray(rows * columns, 6);
+
+        double[] expected = new double[rows];
+        double[] actual = new double[rows];
+
+        scalar.multiplyByTransposedMatrix(x, matrix, rows, columns, expected);
+        vector.multiplyByTransposedMatrix(x, matrix, rows, columns, actual);
+
+        assertThat(actual).usingComparatorWithPrecision(1E-12).containsExactly(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 17, 330, 1152, 2049})
+    void testFusedEpilogues(int length) {
+        double[] bias = randomArray(length, 9);
+
+        double[] expected = randomArray(length, 10);
+        double[] actual = expected.clone();
+
+        double expectedMax = scalar.addNormMax(expected, 0, length, bias, 0);
+        double actualMax = vector.addNormMax(actual, 0, length, bias, 0);
+        assertThat(actualMax).isEqualTo(expectedMax);
+        assertThat(actual).containsExactly(expected);
+
+        double expectedSum = scalar.expCumSum(expected, 0, length, expectedMax);
+        double actualSum = vector.expCumSum(actual, 0, length, expectedMax);
+        assertThat(actualSum).isCloseTo(expectedSum, Offset.offset(1E-12 * length));
+        assertThat(actual).usingComparatorWithPrecision(1E-12 * length).containsExactly(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 17, 330, 1152})
+    void testMultiplyByTransposedMatrixAddRelu(int columns) {
+        int rows = 7;
+
+        // the vector and the target are placed at the offsets as in an arena
+        double[] x = randomArray(columns + 3, 11);
+        double[] matrix = randomArray(rows * columns, 12);
+        double[] bias = randomArray(rows, 13);
+
+        double[] expected = new double[rows + 2];
+        double[] actual = new double[rows + 2];
+
+        scalar.multiplyByTransposedMatrixAddRelu(x, 3, matrix, 0, rows, columns, bias, expected, 2);
+        vector.multiplyByTransposedMatrixAddRelu(x, 3, matrix, 0, rows, columns, bias, actual, 2);
+
+        assertThat(actual).usingComparatorWithPrecision(1E-12).containsExactly(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 17, 330, 1152})
+    void testMultiplyBySparseVector(int columns) {
+        int rows = 23;
+
+        double[] x = randomArray(rows, 7);
+        double[] matrix = randomArray(rows * columns, 8);
+
+        // every third element is non-zero, the count is not a multiple of the row block
+        int[] indices = new int[rows];
+        int count = 0;
+        for (int i = 0; i < rows; i += 3) {
+            indices[count++] = i;
+        }
+
+        double[] expected = new double[columns];
+        double[] actual = new double[columns];
+
+        scalar.multiplyBySparseVector(x, indices, count, matrix, columns, expected);
+        vector.multiplyBySparseVector(x, indices, count, matrix, columns, actual);
+
+        assertThat(actual).usingComparatorWithPrecision(1E-12).containsExactly(expected);
+    }
+}
@@ -0,0 +1,71 @@
+package org.github.mazurkin.lalg;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.github.mazurkin.test.TestData.randomArray;
+
+class LalgOperationsTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 17, 330, 1025})
+    void testSoftMaxCumSum(int length) {
+        double[] expected = randomArray(length, 1, 10.0);
+        double[] actual = Arrays.copyOf(expected, length);
+
+        LalgOperations.inplaceSoftMax(expected);
+        LalgOperations.inplaceCumSum(expected);
+
+        LalgOperations.inplaceSoftMaxCumSum(actual);
+
+        assertThat(actual).usingComparatorWithPrecision(1E-14).containsExactly(expected);
+        assertThat(actual[length - 1]).isEqualTo(1.0);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 17, 330, 1025})
+    void testAddSoftMaxCumSum(int length) {
+        int offset = 7;
+
+        double[] bias = randomArray(length, 2, 10.0);
+
+        double[] expected = randomArray(offset + length + 5, 3, 10.0);
+        double[] actual = Arrays.copyOf(expected, expected.length);
+
+        LalgOperations.inplaceAdd(expected, offset, bias);
+        LalgOperations.inplaceSoftMax(expected, offset, offset + length);
+        LalgOperations.inplaceCumSum(expected, offset, offset + length);
+
+        LalgOperations.inplaceAddSoftMaxCumSum(actual, offset, bias);
+
+        // the elements outside of the segment are not touched
+        assertThat(actual).usingComparatorWithPrecision(1E-14).containsExactly(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 17, 330, 1025})
+    void testReluNonZero(int length) {
+        double[] expected = randomArray(length, 4, 10.0);
+        double[] actual = Arrays.copyOf(expected, length);
+
+        LalgOperations.inplaceRelu(expected);
+
+        int[] indices = new int[length];
+        int count = LalgOperations.inplaceReluNonZero(actual, indices);
+
+        assertThat(actual).containsExactly(expected);
+
+        int[] expectedIndices = new int[length];
+        int expectedCount = 0;
+        for (int i = 0; i < length; i++) {
+            if (expected[i] != 0.0) {
+                expectedIndices[expectedCount++] = i;
+            }
+        }
+
+        assertThat(Arrays.copyOf(indices, count)).containsExactly(Arrays.copyOf(expectedIndices, expectedCount));
+    }
+}
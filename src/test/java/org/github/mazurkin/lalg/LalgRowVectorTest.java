@@ -0,0 +1,75 @@
+package org.github.mazurkin.lalg;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.github.mazurkin.test.TestData.randomArray;
+
+class LalgRowVectorTest {
+
+    @ParameterizedTest
+    @CsvSource({
+        "1, 1",
+        "7, 3",
+        "33, 17",
+        "330, 2048",
+        "2048, 1152",
+    })
+    void testMultiplyByTransposedMatrixAddRelu(int rows, int columns) {
+        LalgRowVector vector = new LalgRowVector(randomArray(columns, 1));
+        LalgMatrix matrix = new LalgMatrix(randomArray(rows * columns, 2), rows, columns);
+        LalgRowVector bias = new LalgRowVector(randomArray(rows, 3));
+
+        LalgRowVector expected = new LalgRowVector(rows);
+        vector.multiplyByTransposedMatrix(matrix, expected);
+        LalgOperations.inplaceAdd(expected.data, bias.data, expected.data);
+        LalgOperations.inplaceRelu(expected.data);
+
+        LalgRowVector actual = new LalgRowVector(rows);
+        vector.multiplyByTransposedMatrixAddRelu(matrix, bias, actual);
+
+        assertThat(actual.data).containsExactly(expected.data);
+
+        // the parallel product gives the same result
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            LalgRowVector parallel = new LalgRowVector(rows);
+            new LalgParallelGemv(pool, matrix).multiplyAddRelu(vector, bias, parallel);
+
+            assertThat(parallel.data).usingComparatorWithPrecision(1E-12).containsExactly(expected.data);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "1, 1",
+        "7, 3",
+        "33, 17",
+        "2048, 330",
+    })
+    void testMultiplyByMatrixSparse(int rows, int columns) {
+        double[] data = randomArray(rows, 4);
+
+        int[] indices = new int[rows];
+        int count = LalgOperations.inplaceReluNonZero(data, indices);
+
+        LalgRowVector vector = new LalgRowVector(data);
+        LalgMatrix matrix = new LalgMatrix(randomArray(rows * columns, 5), rows, columns);
+
+        LalgMatrix transposed = new LalgMatrix(columns, rows);
+        matrix.transpose(transposed);
+
+        LalgRowVector expected = new LalgRowVector(columns);
+        vector.multiplyByTransposedMatrix(transposed, expected);
+
+        LalgRowVector actual = new LalgRowVector(columns);
+        vector.multiplyByMatrix(matrix, indices, count, actual);
+
+        assertThat(actual.data).usingComparatorWithPrecision(1E-12).containsExactly(expected.data);
+    }
+}
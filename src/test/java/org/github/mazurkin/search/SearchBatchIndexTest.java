@@ -0,0 +1,54 @@
+package org.github.mazurkin.search;
+
+import org.github.mazurkin.lalg.LalgMatrix;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.github.mazurkin.test.TestData.randomMatrix;
+
+class SearchBatchIndexTest {
+
+    // neither is a multiple of the tiles
+    private static final int COUNT = 2500;
+
+    private static final int QUERIES = 150;
+
+    private static final int DIMENSION = 45;
+
+    @ParameterizedTest
+    @CsvSource({
+        "L2, 0",
+        "L2, 2",
+        "INNER_PRODUCT, 0",
+        "COSINE, 2",
+    })
+    void testSearch(SearchMetric metric, int parallelism) {
+        double[][] vectors = randomMatrix(COUNT, DIMENSION, 1);
+        double[][] queries = randomMatrix(QUERIES, DIMENSION, 2);
+
+        SearchVectorStore store = new SearchVectorStore(vectors);
+
+        SearchExactIndex exactIndex = new SearchExactIndex(store, metric);
+        SearchTopK[] results = new SearchTopK[QUERIES];
+        Arrays.setAll(results, i -> new SearchTopK(5));
+
+        try (SearchBatchIndex batchIndex = new SearchBatchIndex(store, metric, parallelism)) {
+            batchIndex.search(new LalgMatrix(queries), results);
+        }
+
+        for (int q = 0; q < QUERIES; q++) {
+            SearchTopK expected = exactIndex.search(queries[q], 5);
+
+            assertThat(results[q].size()).isEqualTo(expected.size());
+
+            for (int i = 0; i < expected.size(); i++) {
+                assertThat(results[q].getId(i)).isEqualTo(expected.getId(i));
+                assertThat(results[q].getDistance(i)).isCloseTo(expected.getDistance(i), Offset.offset(1E-9));
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.github.mazurkin.search;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.github.mazurkin.test.TestData.randomMatrix;
+
+class SearchExactIndexTest {
+
+    private static final int COUNT = 500;
+
+    // not a multiple of the early abandoning block
+    private static final int DIMENSION = 150;
+
+    @ParameterizedTest
+    @EnumSource(SearchMetric.class)
+    void testSearch(SearchMetric metric) {
+        double[][] vectors = randomMatrix(COUNT, DIMENSION, 1);
+        double[][] queries = randomMatrix(20, DIMENSION, 2);
+
+        SearchExactIndex index = new SearchExactIndex(new SearchVectorStore(vectors), metric);
+
+        SearchTopK result = new SearchTopK(10);
+
+        for (double[] query : queries) {
+            double[] expected = new double[COUNT];
+            for (int i = 0; i < COUNT; i++) {
+                expected[i] = distance(metric, vectors[i], query);
+            }
+
+            Integer[] order = IntStream.range(0, COUNT).boxed()
+                .sorted(Comparator.comparingDouble(i -> expected[i]))
+                .toArray(Integer[]::new);
+
+            index.search(query, result);
+
+            assertThat(result.size()).isEqualTo(10);
+
+            for (int i = 0; i < 10; i++) {
+                assertThat(result.getId(i)).isEqualTo(order[i]);
+                assertThat(result.getDistance(i)).isCloseTo(expected[order[i]], within(expected[order[i]]));
+            }
+        }
+    }
+
+    @Test
+    void testSmallStore() {
+        double[][] vectors = randomMatrix(3, DIMENSION, 3);
+
+        SearchExactIndex index = new SearchExactIndex(new SearchVectorStore(vectors), SearchMetric.L2);
+
+        SearchTopK result = index.search(vectors[1], 5);
+
+        assertThat(result.size()).isEqualTo(3);
+        assertThat(result.getId(0)).isEqualTo(1);
+        assertThat(result.getDistance(0)).isEqualTo(0.0);
+    }
+
+    @Test
+    void testQueryMismatch() {
+        SearchExactIndex index = new SearchExactIndex(
+            new SearchVectorStore(randomMatrix(3, DIMENSION, 4)), SearchMetric.COSINE);
+
+        assertThatThrownBy(() -> index.search(new double[DIMENSION - 1], 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static double distance(SearchMetric metric, double[] v, double[] q) {
+        double dot = 0.0;
+        double l2 = 0.0;
+        double vv = 0.0;
+        double qq = 0.0;
+
+        for (int i = 0; i < v.length; i++) {
+            dot += v[i] * q[i];
+            l2 += (v[i] - q[i]) * (v[i] - q[i]);
+            vv += v[i] * v[i];
+            qq += q[i] * q[i];
+        }
+
+        switch (metric) {
+            case L2:
+                return l2;
+            case INNER_PRODUCT:
+                return -dot;
+            case COSINE:
+                return 1.0 - dot / Math.sqrt(vv * qq);
+            default:
+                throw new IllegalArgumentException(metric.name());
+        }
+    }
+
+    private static Offset<Double> within(double value) {
+        return Offset.offset(1E-12 * Math.max(1.0, Math.abs(value)));
+    }
+}
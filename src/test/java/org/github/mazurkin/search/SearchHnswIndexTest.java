@@ -0,0 +1,137 @@
+package org.github.mazurkin.search;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.github.mazurkin.test.SearchRecall.recall;
+import static org.github.mazurkin.test.TestData.gaussianMatrix;
+
+class SearchHnswIndexTest {
+
+    private static final int COUNT = 3000;
+
+    private static final int DIMENSION = 24;
+
+    private static final int K = 10;
+
+    private static SearchVectorStore store;
+
+    private static double[][] queries;
+
+    @BeforeAll
+    static void setUp() {
+        store = new SearchVectorStore(gaussianMatrix(COUNT, DIMENSION, 1));
+        queries = gaussianMatrix(100, DIMENSION, 2);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 4})
+    void testRecall(int parallelism) {
+        SearchHnswIndex index = new SearchHnswIndex(store, SearchHnswOptions.defaults());
+        index.addAll(parallelism);
+
+        assertThat(index.getSize()).isEqualTo(COUNT);
+        assertThat(index.getMaxLevel()).isPositive();
+
+        double recall = recall(store, queries, K, q -> index.search(q, 64, K));
+
+        assertThat(recall)
+            .as("parallelism %d, recall@%d ef=64", parallelism, K)
+            .isGreaterThan(0.95);
+    }
+
+    @Test
+    void testEmptyAndDuplicate() {
+        SearchHnswIndex index = new SearchHnswIndex(store, SearchHnswOptions.defaults());
+
+        assertThat(index.search(queries[0], 10, K).size()).isZero();
+        assertThat(index.getMaxLevel()).isEqualTo(-1);
+
+        index.add(7);
+        index.add(3);
+
+        SearchTopK result = index.search(queries[0], 10, K);
+        assertThat(result.size()).isEqualTo(2);
+
+        assertThatThrownBy(() -> index.add(7))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testSaveOpen(@TempDir Path directory) throws IOException {
+        SearchHnswIndex index = new SearchHnswIndex(store, SearchHnswOptions.defaults());
+        index.addAll(0);
+
+        Path path = directory.resolve("index.bin");
+        index.save(path);
+
+        SearchMappedHnswIndex mapped = SearchMappedHnswIndex.open(path);
+
+        assertThat(mapped.getSize()).isEqualTo(COUNT);
+        assertThat(mapped.getMaxLevel()).isEqualTo(index.getMaxLevel());
+        assertThat(mapped.getDimension()).isEqualTo(DIMENSION);
+
+        for (double[] query : queries) {
+            SearchTopK expected = index.search(query, 32, K);
+            SearchTopK actual = mapped.search(query, 32, K);
+
+            assertThat(actual.size()).isEqualTo(K);
+
+            for (int i = 0; i < K; i++) {
+                assertThat(actual.getId(i)).isEqualTo(expected.getId(i));
+                assertThat(actual.getDistance(i)).isCloseTo(expected.getDistance(i), Offset.offset(1E-12));
+            }
+        }
+
+        // the empty graph
+        new SearchHnswIndex(store, SearchHnswOptions.defaults()).save(path);
+
+        SearchMappedHnswIndex empty = SearchMappedHnswIndex.open(path);
+
+        assertThat(empty.getMaxLevel()).isEqualTo(-1);
+        assertThat(empty.search(queries[0], 10, K).size()).isZero();
+    }
+
+    @Test
+    void testOpenOverflowingSection(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("index.bin");
+        new SearchHnswIndex(store, SearchHnswOptions.defaults()).save(path);
+
+        byte[] data = Files.readAllBytes(path);
+
+        // the length of the first section overflows the size in bytes
+        ByteBuffer.wrap(data).order(SearchIndexFormat.ORDER)
+            .putLong(SearchIndexFormat.HEADER_SIZE + 2 * Integer.BYTES, Long.MAX_VALUE / 2);
+
+        Files.write(path, data);
+
+        assertThatThrownBy(() -> SearchMappedHnswIndex.open(path))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("Invalid section");
+    }
+
+    @Test
+    void testVisited() {
+        SearchVisited visited = new SearchVisited(200);
+
+        assertThat(visited.testAndSet(5)).isFalse();
+        assertThat(visited.testAndSet(199)).isFalse();
+        assertThat(visited.testAndSet(5)).isTrue();
+
+        visited.clear();
+
+        assertThat(visited.testAndSet(5)).isFalse();
+        assertThat(visited.testAndSet(199)).isFalse();
+    }
+}
@@ -0,0 +1,141 @@
+package org.github.mazurkin.search;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.github.mazurkin.test.SearchRecall.recall;
+
+class SearchIvfPqIndexTest {
+
+    private static final int COUNT = 3000;
+
+    private static final int DIMENSION = 24;
+
+    private static final int K = 10;
+
+    private static SearchVectorStore store;
+
+    private static double[][] queries;
+
+    @BeforeAll
+    static void setUp() {
+        store = new SearchVectorStore(clusteredArray(COUNT, 1));
+        queries = clusteredArray(50, 2);
+    }
+
+    @Test
+    void testRecall() {
+        SearchIvfPqIndex index = new SearchIvfPqIndex(store, SearchIvfPqOptions.defaults()
+            .withListCount(16)
+            .withSubspaceCount(12));
+
+        assertThat(index.getListCount()).isEqualTo(16);
+        assertThat(index.getCodeBytes()).isEqualTo(COUNT * 12L);
+
+        double recall1 = recall(store, queries, K, q -> index.search(q, 1, K));
+        double recall4 = recall(store, queries, K, q -> index.search(q, 4, K));
+        double recallAll = recall(store, queries, K, q -> index.search(q, 16, K));
+
+        // the recall is not strictly monotonic: the code distances of the different lists have different errors
+        assertThat(recall1).as("recall@%d nprobe=1", K).isGreaterThan(0.5);
+        assertThat(recall4).as("recall@%d nprobe=4", K).isGreaterThan(0.8);
+        assertThat(recallAll).as("recall@%d nprobe=16", K).isGreaterThan(0.8);
+    }
+
+    @Test
+    void testSmallStore() {
+        // fewer vectors than the lists and the subspace centroids
+        SearchVectorStore small = new SearchVectorStore(clusteredArray(20, 3));
+
+        SearchIvfPqIndex index = new SearchIvfPqIndex(small, SearchIvfPqOptions.defaults());
+
+        SearchTopK result = index.search(queries[0], 1000, 30);
+
+        assertThat(index.getListCount()).isEqualTo(20);
+        assertThat(result.size()).isEqualTo(20);
+    }
+
+    @Test
+    void testArguments() {
+        assertThatThrownBy(() -> new SearchIvfPqIndex(store, SearchIvfPqOptions.defaults().withSubspaceCount(25)))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        SearchIvfPqIndex index = new SearchIvfPqIndex(store, SearchIvfPqOptions.defaults().withListCount(4));
+
+        assertThatThrownBy(() -> index.search(new double[DIMENSION + 1], 1, 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testSaveOpen(@TempDir Path directory) throws IOException {
+        SearchIvfPqIndex index = new SearchIvfPqIndex(store, SearchIvfPqOptions.defaults().withListCount(16));
+
+        Path path = directory.resolve("index.bin");
+        index.save(path);
+
+        SearchIvfPqIndex mapped = SearchIvfPqIndex.open(path);
+
+        assertThat(mapped.getListCount()).isEqualTo(index.getListCount());
+        assertThat(mapped.getSubspaceCount()).isEqualTo(index.getSubspaceCount());
+        assertThat(mapped.getCodeBytes()).isEqualTo(index.getCodeBytes());
+
+        for (double[] query : queries) {
+            SearchTopK expected = index.search(query, 4, K);
+            SearchTopK actual = mapped.search(query, 4, K);
+
+            assertThat(actual.size()).isEqualTo(expected.size());
+
+            for (int i = 0; i < expected.size(); i++) {
+                assertThat(actual.getId(i)).isEqualTo(expected.getId(i));
+                assertThat(actual.getDistance(i)).isEqualTo(expected.getDistance(i));
+            }
+        }
+
+        // the saved file of the other index type is rejected
+        SearchHnswIndex hnsw = new SearchHnswIndex(store, SearchHnswOptions.defaults());
+        hnsw.save(path);
+
+        assertThatThrownBy(() -> SearchIvfPqIndex.open(path))
+            .isInstanceOf(IOException.class);
+
+        Files.write(path, new byte[] {1, 2, 3});
+
+        assertThatThrownBy(() -> SearchIvfPqIndex.open(path))
+            .isInstanceOf(IOException.class);
+    }
+
+    /**
+     * Points around 40 fixed centers
+     */
+    private static double[][] clusteredArray(int rows, int seed) {
+        Random centerRandom = new Random(0);
+
+        double[][] centers = new double[40][DIMENSION];
+        for (double[] center : centers) {
+            for (int i = 0; i < DIMENSION; i++) {
+                center[i] = centerRandom.nextGaussian() * 3.0;
+            }
+        }
+
+        Random random = new Random(seed);
+
+        double[][] result = new double[rows][DIMENSION];
+        for (double[] row : result) {
+            double[] center = centers[random.nextInt(centers.length)];
+
+            for (int i = 0; i < DIMENSION; i++) {
+                row[i] = center[i] + random.nextGaussian();
+            }
+        }
+
+        return result;
+    }
+}
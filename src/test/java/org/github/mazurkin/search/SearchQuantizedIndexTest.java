@@ -0,0 +1,148 @@
+package org.github.mazurkin.search;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.github.mazurkin.test.TestData.randomMatrix;
+
+class SearchQuantizedIndexTest {
+
+    private static final int COUNT = 1000;
+
+    // not a multiple of the early abandoning block
+    private static final int DIMENSION = 150;
+
+    private static final int K = 10;
+
+    @Test
+    void testHalfFloat() {
+        for (float value : new float[] {0.0f, 1.0f, -2.5f, 0.099975586f, 65504.0f, 0x1p-24f, -0x1p-14f}) {
+            assertThat(SearchHalfFloat.decode(SearchHalfFloat.encode(value))).isEqualTo(value);
+        }
+
+        assertThat(SearchHalfFloat.decode(SearchHalfFloat.encode(1.0E6f))).isEqualTo(Float.POSITIVE_INFINITY);
+        assertThat(SearchHalfFloat.decode(SearchHalfFloat.encode(1.0E-9f))).isEqualTo(0.0f);
+        assertThat(SearchHalfFloat.decode(SearchHalfFloat.encode(Float.NaN))).isNaN();
+
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            float value = (float) ((random.nextDouble() - 0.5) * 1000.0);
+            float decoded = SearchHalfFloat.decode(SearchHalfFloat.encode(value));
+
+            // 11 bits of the mantissa
+            assertThat(decoded).isCloseTo(value, Offset.offset(Math.abs(value) * 0x1p-11f));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(SearchStorageFormat.class)
+    void testQuantization(SearchStorageFormat format) {
+        double[][] vectors = randomMatrix(COUNT, DIMENSION, 1);
+
+        SearchQuantizedStore store = new SearchQuantizedStore(new SearchVectorStore(vectors), format);
+
+        // half of the quantization step for the range of 1.0 over 255 codes, or the half float precision
+        double tolerance = format == SearchStorageFormat.INT8 ? 0.5 / 255.0 + 1E-12 : 0x1p-12;
+
+        for (int i = 0; i < COUNT; i += 7) {
+            for (int d = 0; d < DIMENSION; d++) {
+                assertThat(store.get(i, d)).isCloseTo(vectors[i][d], Offset.offset(tolerance));
+            }
+        }
+
+        assertThat(store.getCodeBytes())
+            .isEqualTo((long) COUNT * DIMENSION * (format == SearchStorageFormat.INT8 ? 1 : 2));
+    }
+
+    @ParameterizedTest
+    @EnumSource(SearchStorageFormat.class)
+    void testSearch(SearchStorageFormat format) {
+        double[][] vectors = randomMatrix(COUNT, DIMENSION, 2);
+        double[][] queries = randomMatrix(20, DIMENSION, 3);
+
+        SearchVectorStore store = new SearchVectorStore(vectors);
+
+        SearchExactIndex exactIndex = new SearchExactIndex(store, SearchMetric.L2);
+        SearchQuantizedIndex approximateIndex = new SearchQuantizedIndex(store, format, 0);
+        SearchQuantizedIndex rerankIndex = new SearchQuantizedIndex(store, format, 4);
+
+        int approximateHits = 0;
+
+        for (double[] query : queries) {
+            SearchTopK expected = exactIndex.search(query, K);
+
+            SearchTopK approximate = approximateIndex.search(query, K);
+            approximateHits += hits(expected, approximate);
+
+            // the distances without the re-rank are computed over the codes
+            for (int i = 0; i < K; i++) {
+                double distance = distance(approximateIndex.getQuantizedStore(), approximate.getId(i), query);
+                assertThat(approximate.getDistance(i)).isCloseTo(distance, Offset.offset(1E-9));
+            }
+
+            // the re-rank restores the exact result
+            SearchTopK reranked = rerankIndex.search(query, K);
+            for (int i = 0; i < K; i++) {
+                assertThat(reranked.getId(i)).isEqualTo(expected.getId(i));
+                assertThat(reranked.getDistance(i)).isCloseTo(expected.getDistance(i), Offset.offset(1E-12));
+            }
+        }
+
+        assertThat((double) approximateHits / (queries.length * K)).isGreaterThan(0.8);
+    }
+
+    @Test
+    void testConstantDimension() {
+        double[][] vectors = randomMatrix(10, DIMENSION, 4);
+        for (double[] vector : vectors) {
+            vector[5] = 0.25;
+        }
+
+        SearchQuantizedStore store = new SearchQuantizedStore(new SearchVectorStore(vectors), SearchStorageFormat.INT8);
+
+        for (int i = 0; i < vectors.length; i++) {
+            assertThat(store.get(i, 5)).isEqualTo(0.25);
+        }
+    }
+
+    @Test
+    void testQueryMismatch() {
+        SearchQuantizedIndex index = new SearchQuantizedIndex(
+            new SearchVectorStore(randomMatrix(3, DIMENSION, 5)), SearchStorageFormat.INT8, 2);
+
+        assertThatThrownBy(() -> index.search(new double[DIMENSION - 1], 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static int hits(SearchTopK expected, SearchTopK actual) {
+        int hits = 0;
+
+        for (int i = 0; i < actual.size(); i++) {
+            for (int j = 0; j < expected.size(); j++) {
+                if (actual.getId(i) == expected.getId(j)) {
+                    hits++;
+                    break;
+                }
+            }
+        }
+
+        return hits;
+    }
+
+    private static double distance(SearchQuantizedStore store, int id, double[] query) {
+        double sum = 0.0;
+
+        for (int d = 0; d < query.length; d++) {
+            double diff = store.get(id, d) - query[d];
+            sum += diff * diff;
+        }
+
+        return sum;
+    }
+}
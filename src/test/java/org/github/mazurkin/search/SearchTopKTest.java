@@ -0,0 +1,58 @@
+package org.github.mazurkin.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchTopKTest {
+
+    @Test
+    void testSelection() {
+        SearchTopK topK = new SearchTopK(7);
+
+        Random random = new Random(1);
+        double[] distances = new double[1000];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = random.nextDouble();
+            topK.offer(i, distances[i]);
+        }
+
+        double[] sorted = distances.clone();
+        Arrays.sort(sorted);
+
+        assertThat(topK.threshold()).isEqualTo(sorted[6]);
+
+        topK.sort();
+
+        assertThat(topK.size()).isEqualTo(7);
+        for (int i = 0; i < 7; i++) {
+            assertThat(topK.getDistance(i)).isEqualTo(sorted[i]);
+            assertThat(distances[topK.getId(i)]).isEqualTo(sorted[i]);
+        }
+    }
+
+    @Test
+    void testReuse() {
+        SearchTopK topK = new SearchTopK(2);
+
+        assertThat(topK.threshold()).isEqualTo(Double.POSITIVE_INFINITY);
+        assertThat(topK.offer(0, 3.0)).isTrue();
+        assertThat(topK.offer(1, 2.0)).isTrue();
+        assertThat(topK.offer(2, 5.0)).isFalse();
+        assertThat(topK.offer(3, 1.0)).isTrue();
+        topK.sort();
+
+        assertThat(topK.getId(0)).isEqualTo(3);
+        assertThat(topK.getId(1)).isEqualTo(1);
+
+        topK.clear();
+        topK.offer(4, 9.0);
+        topK.sort();
+
+        assertThat(topK.size()).isEqualTo(1);
+        assertThat(topK.getId(0)).isEqualTo(4);
+    }
+}
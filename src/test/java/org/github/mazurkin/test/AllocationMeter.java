@@ -0,0 +1,117 @@
+package org.github.mazurkin.test;
+
+import com.google.common.base.Preconditions;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Bytes allocated by the calling thread per call of an action, by the thread allocation counter of HotSpot
+ * ({@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}). The allocations of the other threads
+ * (the pool workers, the compiler) are not counted.
+ */
+public final class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = threadMxBean();
+
+    /**
+     * Bytes allocated by the reading of the counter itself
+     */
+    private static final long OVERHEAD = calibrate();
+
+    private AllocationMeter() {
+        // utility class
+    }
+
+    public static boolean isAvailable() {
+        return THREAD_MX_BEAN != null;
+    }
+
+    /**
+     * Run the fixed number of the warm-up calls, so the action is compiled by C2 before the first measured round,
+     * and then measure the rounds. The allocations removed only by the escape analysis of C2 don't make the result
+     * depend on the timing of the compilation.
+     *
+     * @param action Action
+     * @param warmUpCount Number of the calls before the first measured round
+     * @param count Number of the calls in a round
+     * @param maxRounds Maximal number of the rounds
+     * @return Minimal average number of bytes per call over the rounds
+     */
+    public static double measure(Runnable action, int warmUpCount, int count, int maxRounds) {
+        Preconditions.checkArgument(warmUpCount >= 0, "Warm-up count is negative: %s", warmUpCount);
+
+        for (int i = 0; i < warmUpCount; i++) {
+            action.run();
+        }
+
+        return measure(action, count, maxRounds);
+    }
+
+    /**
+     * Run the rounds of the calls of the action and measure the allocations of every round. The first rounds include
+     * the lazy initialization and the interpreted and the early compiled code (the Vector API boxes the vectors
+     * until C2 compiles the kernel), so the rounds are repeated until a round doesn't allocate.
+     *
+     * @param action Action
+     * @param count Number of the calls in a round
+     * @param maxRounds Maximal number of the rounds
+     * @return Minimal average number of bytes per call over the rounds
+     */
+    public static double measure(Runnable action, int count, int maxRounds) {
+        Preconditions.checkState(isAvailable(), "Thread allocation counter is not available");
+        Preconditions.checkArgument(count > 0, "Count must be positive: %s", count);
+        Preconditions.checkArgument(maxRounds > 0, "Round count must be positive: %s", maxRounds);
+
+        long threadId = Thread.currentThread().getId();
+
+        long result = Long.MAX_VALUE;
+
+        for (int round = 0; round < maxRounds && result > 0; round++) {
+            long before = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+
+            for (int i = 0; i < count; i++) {
+                action.run();
+            }
+
+            long after = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+
+            result = Math.min(result, Math.max(0, after - before - OVERHEAD));
+        }
+
+        return result / (double) count;
+    }
+
+    private static com.sun.management.ThreadMXBean threadMxBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+
+        com.sun.management.ThreadMXBean result = (com.sun.management.ThreadMXBean) bean;
+        if (!result.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+
+        result.setThreadAllocatedMemoryEnabled(true);
+
+        return result;
+    }
+
+    private static long calibrate() {
+        if (THREAD_MX_BEAN == null) {
+            return 0;
+        }
+
+        long threadId = Thread.currentThread().getId();
+
+        long result = Long.MAX_VALUE;
+        for (int i = 0; i < 100; i++) {
+            long before = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+            long after = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+            result = Math.min(result, after - before);
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,51 @@
+package org.github.mazurkin.test;
+
+import org.github.mazurkin.search.SearchExactIndex;
+import org.github.mazurkin.search.SearchMetric;
+import org.github.mazurkin.search.SearchTopK;
+import org.github.mazurkin.search.SearchVectorStore;
+
+import java.util.function.Function;
+
+/**
+ * Recall of an approximate search against the exact (brute-force) squared L2 search of the same store
+ */
+public final class SearchRecall {
+
+    private SearchRecall() {
+        // utility class
+    }
+
+    /**
+     * Share of the exact k nearest vectors found by the search
+     *
+     * @param store Vector store of the index
+     * @param queries Query vectors
+     * @param k Number of the vectors to find
+     * @param search Approximate search of k vectors
+     * @return Recall in [0, 1]
+     */
+    public static double recall(SearchVectorStore store, double[][] queries, int k,
+                                Function<double[], SearchTopK> search)
+    {
+        SearchExactIndex exactIndex = new SearchExactIndex(store, SearchMetric.L2);
+
+        int hits = 0;
+
+        for (double[] query : queries) {
+            SearchTopK expected = exactIndex.search(query, k);
+            SearchTopK actual = search.apply(query);
+
+            for (int i = 0; i < expected.size(); i++) {
+                for (int j = 0; j < actual.size(); j++) {
+                    if (expected.getId(i) == actual.getId(j)) {
+                        hits++;
+                        break;
+                    }
+                }
+            }
+        }
+
+        return (double) hits / (queries.length * k);
+    }
+}
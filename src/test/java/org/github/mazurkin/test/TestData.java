@@ -0,0 +1,81 @@
+package org.github.mazurkin.test;
+
+import java.util.Random;
+
+/**
+ * Reproducible random test data, the values are uniform in [-0.5, 0.5) unless stated otherwise
+ */
+public final class TestData {
+
+    private TestData() {
+        // utility class
+    }
+
+    public static double[] randomArray(int size, int seed) {
+        return randomArray(size, seed, 1.0);
+    }
+
+    /**
+     * Random array
+     *
+     * @param size Size
+     * @param seed Seed
+     * @param range Width of the range centered at zero
+     * @return Values uniform in [-range / 2, range / 2)
+     */
+    public static double[] randomArray(int size, int seed, double range) {
+        Random random = new Random(seed);
+
+        double[] result = new double[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = range * (random.nextDouble() - 0.5);
+        }
+
+        return result;
+    }
+
+    public static float[] randomFloatArray(int size, int seed) {
+        Random random = new Random(seed);
+
+        float[] result = new float[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = random.nextFloat() - 0.5f;
+        }
+
+        return result;
+    }
+
+    public static double[][] randomMatrix(int rows, int columns, int seed) {
+        Random random = new Random(seed);
+
+        double[][] result = new double[rows][columns];
+        for (double[] row : result) {
+            for (int i = 0; i < columns; i++) {
+                row[i] = random.nextDouble() - 0.5;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Random matrix with the standard normal values
+     *
+     * @param rows Number of rows
+     * @param columns Number of columns
+     * @param seed Seed
+     * @return Matrix
+     */
+    public static double[][] gaussianMatrix(int rows, int columns, int seed) {
+        Random random = new Random(seed);
+
+        double[][] result = new double[rows][columns];
+        for (double[] row : result) {
+            for (int i = 0; i < columns; i++) {
+                row[i] = random.nextGaussian();
+            }
+        }
+
+        return result;
+    }
+}